@@ -0,0 +1,97 @@
+package onethreeseven.geo.io;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+import onethreeseven.geo.projection.ProjectionUTM;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projecting a file of coordinates through memory-mapped {@link CoordinateFile}s versus parsing it into heap arrays
+ * with a stream and writing the projected arrays back out.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateFileBenchmark {
+
+    private static final int nPoints = 1 << 20;
+
+    private final AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+    private Path geographic;
+    private Path streamed;
+    private Path projected;
+
+    @Setup
+    public void setup() throws IOException {
+        Random r = new Random(137);
+        geographic = Files.createTempFile("geographic", ".137g");
+        streamed = Files.createTempFile("streamed", ".bin");
+        projected = Files.createTempFile("projected", ".137g");
+        try (CoordinateFile file = CoordinateFile.create(geographic, CoordinateFile.Kind.GEOGRAPHIC,
+                "WGS84", "", nPoints)) {
+            DoubleBuffer coords = file.map(0, nPoints);
+            for (int i = 0; i < nPoints; i++) {
+                coords.put(-80 + r.nextDouble() * 160).put(12 + r.nextDouble() * 6);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(geographic);
+        Files.deleteIfExists(streamed);
+        Files.deleteIfExists(projected);
+    }
+
+    @Benchmark
+    public long mapped() throws IOException {
+        try (CoordinateFile in = CoordinateFile.open(geographic);
+             CoordinateFile out = in.project(utm, "UTM 33", projected)) {
+            return out.size();
+        }
+    }
+
+    @Benchmark
+    public long streamedIntoArrays() throws IOException {
+        double[] latlons = new double[nPoints * 2];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(geographic)))) {
+            //the header, with the names "WGS84" and ""
+            in.skipBytes(40);
+            for (int i = 0; i < latlons.length; i++) {
+                latlons[i] = Double.longBitsToDouble(Long.reverseBytes(in.readLong()));
+            }
+        }
+        utm.geographicToCartesian(latlons, latlons, 0, nPoints, 2);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(streamed)))) {
+            for (double v : latlons) {
+                out.writeLong(Long.reverseBytes(Double.doubleToRawLongBits(v)));
+            }
+        }
+        return latlons.length;
+    }
+
+}
@@ -0,0 +1,92 @@
+package onethreeseven.geo.model;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+import onethreeseven.geo.projection.ProjectionMercator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projecting and bounding points held as a <code>double[]</code> per point versus packed in heap and direct
+ * {@link CoordinateBuffer}s.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateBufferBenchmark {
+
+    private static final int nPoints = 1 << 16;
+
+    private final AbstractGeographicProjection mercator = new ProjectionMercator();
+    private double[][] pairs;
+    private double[][] pairsOut;
+    private CoordinateBuffer heap;
+    private CoordinateBuffer direct;
+    private CoordinateBuffer out;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        pairs = new double[nPoints][];
+        pairsOut = new double[nPoints][2];
+        heap = CoordinateBuffer.allocate(nPoints);
+        direct = CoordinateBuffer.allocateDirect(nPoints);
+        out = CoordinateBuffer.allocateDirect(nPoints);
+        for (int i = 0; i < nPoints; i++) {
+            double lat = -80 + r.nextDouble() * 160;
+            double lon = -180 + r.nextDouble() * 360;
+            pairs[i] = new double[]{lat, lon};
+            heap.set(i, lat, lon);
+            direct.set(i, lat, lon);
+        }
+    }
+
+    @Benchmark
+    public double[][] projectPairs() {
+        for (int i = 0; i < nPoints; i++) {
+            mercator.geographicToCartesian(pairs[i][0], pairs[i][1], pairsOut[i], 0);
+        }
+        return pairsOut;
+    }
+
+    @Benchmark
+    public CoordinateBuffer projectHeapBuffer() {
+        mercator.geographicToCartesian(heap, out);
+        return out;
+    }
+
+    @Benchmark
+    public CoordinateBuffer projectDirectBuffer() {
+        mercator.geographicToCartesian(direct, out);
+        return out;
+    }
+
+    @Benchmark
+    public LatLonBounds boundsPairs() {
+        LatLonBoundsBuilder builder = new LatLonBoundsBuilder();
+        for (double[] pair : pairs) {
+            builder.add(pair[0], pair[1]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public LatLonBounds boundsDirectBuffer() {
+        return new LatLonBounds(direct);
+    }
+
+}
@@ -0,0 +1,63 @@
+package onethreeseven.geo.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the {@link EqualAreaGrid} cells of batches of points, against {@link MortonCode} keys which skip the sine.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EqualAreaGridBenchmark {
+
+    private static final int nPoints = 4096;
+
+    private double[] latlons;
+    private long[] cells;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        latlons = new double[nPoints * 2];
+        for (int i = 0; i < nPoints; i++) {
+            latlons[2 * i] = -90 + r.nextDouble() * 180;
+            latlons[2 * i + 1] = -180 + r.nextDouble() * 360;
+        }
+        cells = new long[nPoints];
+        EqualAreaGrid.cells(latlons, cells, 0, nPoints, 12);
+    }
+
+    @Benchmark
+    public long[] cells() {
+        EqualAreaGrid.cells(latlons, cells, 0, nPoints, 12);
+        return cells;
+    }
+
+    @Benchmark
+    public long[] mortonKeys() {
+        MortonCode.encode(latlons, cells, 0, nPoints);
+        return cells;
+    }
+
+    @Benchmark
+    public long[] kRing() {
+        return EqualAreaGrid.kRing(cells[0], 2);
+    }
+
+}
@@ -0,0 +1,99 @@
+package onethreeseven.geo.model;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+import onethreeseven.geo.projection.ProjectionMercator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting points along the Hilbert curve with {@link HilbertSort}, against sorting the same keys with a comparison
+ * sort, and projecting points in arrival order against projecting them in curve order.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HilbertSortBenchmark {
+
+    private static final LatLonBounds extent = new LatLonBounds(-60, 60, -180, 180);
+
+    @Param({"65536", "1048576"})
+    public int nPoints;
+
+    private CoordinateBuffer latlons;
+    private double[] arrival;
+    private double[] sorted;
+    private double[] xys;
+    private long[] keys;
+    private AbstractGeographicProjection projection;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        latlons = CoordinateBuffer.allocate(nPoints);
+        for (int i = 0; i < nPoints; i++) {
+            latlons.set(i, -60 + r.nextDouble() * 120, -180 + r.nextDouble() * 360);
+        }
+        arrival = new double[2 * nPoints];
+        latlons.asDoubleBuffer().get(arrival);
+        keys = new long[nPoints];
+        HilbertSort.keys(arrival, keys, 0, nPoints, extent);
+        sorted = new double[2 * nPoints];
+        HilbertSort.permute(arrival, HilbertSort.sortKeys(keys, 0, nPoints), sorted);
+        xys = new double[2 * nPoints];
+        projection = new ProjectionMercator();
+    }
+
+    @Benchmark
+    public int[] sort() {
+        return HilbertSort.sort(latlons, extent);
+    }
+
+    @Benchmark
+    public int[] radixSortKeys() {
+        return HilbertSort.sortKeys(keys, 0, nPoints);
+    }
+
+    /**
+     * The keys and indices packed into one long each, then sorted by {@link Arrays#sort(long[])}.
+     */
+    @Benchmark
+    public long[] comparisonSortKeys() {
+        long[] packed = new long[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            //the top 42 bits of the key, so the index fits in the low bits
+            packed[i] = ((keys[i] >>> 20) << 22) | i;
+        }
+        Arrays.sort(packed);
+        return packed;
+    }
+
+    @Benchmark
+    public double[] projectArrivalOrder() {
+        projection.geographicToCartesian(arrival, xys, 0, nPoints, 2);
+        return xys;
+    }
+
+    @Benchmark
+    public double[] projectCurveOrder() {
+        projection.geographicToCartesian(sorted, xys, 0, nPoints, 2);
+        return xys;
+    }
+
+}
@@ -0,0 +1,140 @@
+package onethreeseven.geo.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link LatLonBounds} constructors and predicates over batches of points and bounds.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatLonBoundsBenchmark {
+
+    private static final LatLonBounds queryBounds = new LatLonBounds(-37, 37, -137, 137);
+
+    @Param({"64", "4096", "262144"})
+    public int batchSize;
+
+    private double[] latlons;
+    private List<double[]> latlonList;
+    private LatLonBounds[] bounds;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        latlons = new double[batchSize * 2];
+        double[][] pairs = new double[batchSize][];
+        bounds = new LatLonBounds[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            double lat = -90 + r.nextDouble() * 180;
+            double lon = -180 + r.nextDouble() * 360;
+            latlons[i * 2] = lat;
+            latlons[i * 2 + 1] = lon;
+            pairs[i] = new double[]{lat, lon};
+            double halfLat = r.nextDouble() * 5;
+            double halfLon = r.nextDouble() * 5;
+            bounds[i] = new LatLonBounds(lat - halfLat, lat + halfLat, lon - halfLon, lon + halfLon);
+        }
+        latlonList = Arrays.asList(pairs);
+    }
+
+    @Benchmark
+    public LatLonBounds constructFromIterator() {
+        return new LatLonBounds(latlonList.iterator());
+    }
+
+    @Benchmark
+    public LatLonBounds builder() {
+        return new LatLonBoundsBuilder().addAll(latlons, 0, batchSize).build();
+    }
+
+    @Benchmark
+    public LatLonBounds builderParallel() {
+        return LatLonBoundsBuilder.parallel(latlons, 0, batchSize);
+    }
+
+    @Benchmark
+    public LatLonBounds builderCollector() {
+        return latlonList.stream().collect(LatLonBoundsBuilder.collector());
+    }
+
+    @Benchmark
+    public LatLonBounds constructFromBounds() {
+        return new LatLonBounds(bounds);
+    }
+
+    @Benchmark
+    public LatLonBounds expand() {
+        LatLonBounds expanded = bounds[0];
+        for (int i = 1; i < bounds.length; i++) {
+            expanded = expanded.expand(bounds[i]);
+        }
+        return expanded;
+    }
+
+    @Benchmark
+    public int containsPoint() {
+        int count = 0;
+        for (int i = 0; i < latlons.length; i += 2) {
+            if (queryBounds.contains(latlons[i], latlons[i + 1])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int containsBounds() {
+        int count = 0;
+        for (LatLonBounds b : bounds) {
+            if (queryBounds.contains(b)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int intersects() {
+        int count = 0;
+        for (LatLonBounds b : bounds) {
+            if (queryBounds.intersects(b)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int containsPointMultiThreaded() {
+        return containsPoint();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int intersectsMultiThreaded() {
+        return intersects();
+    }
+
+}
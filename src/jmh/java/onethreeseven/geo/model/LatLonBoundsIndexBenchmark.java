@@ -0,0 +1,96 @@
+package onethreeseven.geo.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geofencing a batch of points against many fences with {@link LatLonBoundsIndex} versus a linear scan of
+ * {@link LatLonBounds#contains(double, double)}.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatLonBoundsIndexBenchmark {
+
+    private static final int nPoints = 256;
+
+    @Param({"4096", "500000"})
+    public int nFences;
+
+    private LatLonBounds[] fences;
+    private LatLonBoundsIndex index;
+    private double[] latlons;
+    private final Counter counter = new Counter();
+
+    private static final class Counter implements LatLonBoundsIndex.Visitor {
+        int count;
+
+        @Override
+        public boolean visit(int id) {
+            count++;
+            return true;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        fences = new LatLonBounds[nFences];
+        for (int i = 0; i < nFences; i++) {
+            double lat = -80 + r.nextDouble() * 160;
+            double lon = -180 + r.nextDouble() * 360;
+            double halfSize = r.nextDouble() * 0.5;
+            fences[i] = new LatLonBounds(lat - halfSize, lat + halfSize, lon - halfSize, lon + halfSize);
+        }
+        index = new LatLonBoundsIndex(fences);
+        latlons = new double[nPoints * 2];
+        for (int i = 0; i < latlons.length; i += 2) {
+            latlons[i] = -80 + r.nextDouble() * 160;
+            latlons[i + 1] = -180 + r.nextDouble() * 360;
+        }
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int count = 0;
+        for (int i = 0; i < latlons.length; i += 2) {
+            for (LatLonBounds fence : fences) {
+                if (fence.contains(latlons[i], latlons[i + 1])) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int index() {
+        counter.count = 0;
+        for (int i = 0; i < latlons.length; i += 2) {
+            index.queryPoint(latlons[i], latlons[i + 1], counter);
+        }
+        return counter.count;
+    }
+
+    @Benchmark
+    public LatLonBoundsIndex build() {
+        return new LatLonBoundsIndex(fences);
+    }
+
+}
@@ -0,0 +1,115 @@
+package onethreeseven.geo.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding batches of points to {@link MortonCode} keys and {@link Geohash}es, against the usual bisection that
+ * finds one bit per step.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MortonCodeBenchmark {
+
+    private static final int nPoints = 4096;
+    private static final LatLonBounds queryBounds = new LatLonBounds(-33.9, -33.7, 151.1, 151.3);
+
+    private double[] latlons;
+    private long[] keys;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        latlons = new double[nPoints * 2];
+        for (int i = 0; i < nPoints; i++) {
+            latlons[2 * i] = -90 + r.nextDouble() * 180;
+            latlons[2 * i + 1] = -180 + r.nextDouble() * 360;
+        }
+        keys = new long[nPoints];
+        MortonCode.encode(latlons, keys, 0, nPoints);
+    }
+
+    /**
+     * The key of a point found by halving the latitude and longitude intervals, a bit at a time.
+     */
+    private static long bisect(double lat, double lon) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        long key = 0;
+        for (int i = 0; i < MortonCode.MAX_LEVEL; i++) {
+            double midLon = (minLon + maxLon) / 2;
+            key <<= 1;
+            if (lon >= midLon) {
+                key |= 1;
+                minLon = midLon;
+            } else {
+                maxLon = midLon;
+            }
+            double midLat = (minLat + maxLat) / 2;
+            key <<= 1;
+            if (lat >= midLat) {
+                key |= 1;
+                minLat = midLat;
+            } else {
+                maxLat = midLat;
+            }
+        }
+        return key;
+    }
+
+    @Benchmark
+    public long[] encodeBisection() {
+        for (int i = 0; i < nPoints; i++) {
+            keys[i] = bisect(latlons[2 * i], latlons[2 * i + 1]);
+        }
+        return keys;
+    }
+
+    @Benchmark
+    public long[] encode() {
+        MortonCode.encode(latlons, keys, 0, nPoints);
+        return keys;
+    }
+
+    @Benchmark
+    public double[] decode() {
+        MortonCode.decode(keys, latlons, 0, nPoints);
+        return latlons;
+    }
+
+    @Benchmark
+    public long[] encodeGeohashBits() {
+        Geohash.encodeBits(latlons, keys, 0, nPoints, Geohash.MAX_PRECISION);
+        return keys;
+    }
+
+    @Benchmark
+    public int encodeGeohashStrings() {
+        int total = 0;
+        for (int i = 0; i < nPoints; i++) {
+            total += Geohash.encode(latlons[2 * i], latlons[2 * i + 1], 9).hashCode();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long[] cover() {
+        return MortonCode.cover(queryBounds, 12);
+    }
+
+}
@@ -0,0 +1,95 @@
+package onethreeseven.geo.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing a batch of points within the bounds of a polygon against it, by {@link PreparedPolygon} and by a plain ray
+ * cast over every edge.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreparedPolygonBenchmark {
+
+    private static final int nPoints = 4096;
+
+    @Param({"100", "10000"})
+    public int nVertices;
+
+    private double[] ring;
+    private PreparedPolygon polygon;
+    private double[] latlons;
+    private long[] mask;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        ring = new double[2 * nVertices];
+        for (int i = 0; i < nVertices; i++) {
+            double angle = 2 * Math.PI * i / nVertices;
+            //a wavy coastline-like outline, rather than spikes from the centre
+            double d = 0.75 + 0.2 * Math.sin(7 * angle) + 0.02 * r.nextDouble();
+            ring[2 * i] = -37.8 + d * Math.sin(angle);
+            ring[2 * i + 1] = 144.9 + d * Math.cos(angle);
+        }
+        polygon = new PreparedPolygon(ring);
+        latlons = new double[2 * nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            latlons[2 * i] = -38.8 + 2 * r.nextDouble();
+            latlons[2 * i + 1] = 143.9 + 2 * r.nextDouble();
+        }
+        mask = new long[nPoints / 64];
+    }
+
+    @Benchmark
+    public int prepared() {
+        return polygon.contains(latlons, 0, nPoints, mask);
+    }
+
+    @Benchmark
+    public int rayCast() {
+        int inside = 0;
+        int n = ring.length / 2;
+        for (int p = 0; p < nPoints; p++) {
+            double lat = latlons[2 * p];
+            double lon = latlons[2 * p + 1];
+            boolean in = false;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double ay = ring[2 * j];
+                double by = ring[2 * i];
+                if ((ay > lat) != (by > lat)) {
+                    double ax = ring[2 * j + 1];
+                    double bx = ring[2 * i + 1];
+                    if (ax + (lat - ay) * (bx - ax) / (by - ay) > lon) {
+                        in = !in;
+                    }
+                }
+            }
+            inside += in ? 1 : 0;
+        }
+        return inside;
+    }
+
+    @Benchmark
+    public PreparedPolygon prepare() {
+        return new PreparedPolygon(ring);
+    }
+
+}
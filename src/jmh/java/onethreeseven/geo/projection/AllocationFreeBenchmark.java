@@ -0,0 +1,71 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that the single-point projections which write into a caller supplied buffer do not allocate.
+ * Run with the gc profiler (<code>-prof gc</code>), <code>gc.alloc.rate.norm</code> should be 0 B/op for every
+ * projection. Escape analysis is disabled in the forked JVM so allocations cannot be optimised away.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+public class AllocationFreeBenchmark {
+
+    private static final int nPoints = 1024;
+
+    @Param({"Equirectangular", "Mercator", "ModifiedSinusoidal", "PolarEquidistant",
+            "Sinusoidal", "TransverseMercator", "UPS", "UTM"})
+    public String projectionName;
+
+    private AbstractGeographicProjection projection;
+    private double[] latlons;
+    private double[] xys;
+    private double[] out;
+    private int idx;
+
+    @Setup
+    public void setup() {
+        projection = BenchmarkProjections.create(projectionName);
+        latlons = BenchmarkProjections.generateLatLons(projection, nPoints);
+        xys = new double[latlons.length];
+        projection.geographicToCartesian(latlons, xys, 0, nPoints, 2);
+        out = new double[2];
+    }
+
+    private int next() {
+        idx = (idx + 2) & (2 * nPoints - 1);
+        return idx;
+    }
+
+    @Benchmark
+    public double[] forward() {
+        int i = next();
+        projection.geographicToCartesian(latlons[i], latlons[i + 1], out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public double[] inverse() {
+        int i = next();
+        projection.cartesianToGeographic(xys[i], xys[i + 1], out, 0);
+        return out;
+    }
+
+}
@@ -0,0 +1,53 @@
+package onethreeseven.geo.projection;
+
+import java.util.Random;
+
+/**
+ * Shared setup for the projection benchmarks.
+ * @author Luke Bermingham
+ */
+final class BenchmarkProjections {
+
+    private BenchmarkProjections(){}
+
+    static AbstractGeographicProjection create(String name) {
+        switch (name) {
+            case "Equirectangular":
+                return new ProjectionEquirectangular();
+            case "Mercator":
+                return new ProjectionMercator();
+            case "ModifiedSinusoidal":
+                return new ProjectionModifiedSinusoidal();
+            case "PolarEquidistant":
+                return new ProjectionPolarEquidistant();
+            case "Sinusoidal":
+                return new ProjectionSinusoidal();
+            case "TransverseMercator":
+                return new ProjectionTransverseMercator();
+            case "UPS":
+                return new ProjectionUPS();
+            case "UTM":
+                return new ProjectionUTM(33);
+            default:
+                throw new IllegalArgumentException("Unknown projection: " + name);
+        }
+    }
+
+    /**
+     * Make random, interleaved lat/lon coordinates inside the limits of the projection.
+     * @param projection the projection to generate coordinates for.
+     * @param nPoints the number of points.
+     * @return the coordinates like {lat, lon, lat, lon...}
+     */
+    static double[] generateLatLons(AbstractGeographicProjection projection, int nPoints) {
+        ProjectionLimits limits = projection.getProjectionLimits();
+        Random r = new Random(137);
+        double[] latlons = new double[nPoints * 2];
+        for (int i = 0; i < latlons.length; i += 2) {
+            latlons[i] = limits.getMinLatitude() + r.nextDouble() * limits.getDeltaLatitude();
+            latlons[i + 1] = limits.getMinLongitude() + r.nextDouble() * limits.getDeltaLongitude();
+        }
+        return latlons;
+    }
+
+}
@@ -0,0 +1,157 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-point cost of UPS and Mercator when the ellipsoid constants are recomputed on every call (the kernels as they
+ * were before {@link Ellipsoid}, copied below) versus reading them from the shared {@link Ellipsoid}.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EllipsoidConstantsBenchmark {
+
+    private static final int nPoints = 1024;
+
+    private ProjectionUPS ups;
+    private ProjectionMercator mercator;
+    private double[] upsLatLons;
+    private double[] upsXys;
+    private double[] mercatorXys;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        ups = new ProjectionUPS();
+        mercator = new ProjectionMercator();
+        upsLatLons = BenchmarkProjections.generateLatLons(ups, nPoints);
+        upsXys = new double[upsLatLons.length];
+        ups.geographicToCartesian(upsLatLons, upsXys, 0, nPoints, 2);
+        double[] mercatorLatLons = BenchmarkProjections.generateLatLons(mercator, nPoints);
+        mercatorXys = new double[mercatorLatLons.length];
+        mercator.geographicToCartesian(mercatorLatLons, mercatorXys, 0, nPoints, 2);
+        out = new double[upsLatLons.length];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(nPoints)
+    public double[] upsForwardPerCallConstants() {
+        for (int i = 0; i < out.length; i += 2) {
+            legacyUpsToCartesian(upsLatLons[i], upsLatLons[i + 1], out, i);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(nPoints)
+    public double[] upsForwardSharedEllipsoid() {
+        ups.geographicToCartesian(upsLatLons, out, 0, nPoints, 2);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(nPoints)
+    public double[] upsInversePerCallConstants() {
+        for (int i = 0; i < out.length; i += 2) {
+            legacyUpsToGeographic(upsXys[i], upsXys[i + 1], out, i);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(nPoints)
+    public double[] upsInverseSharedEllipsoid() {
+        ups.cartesianToGeographic(upsXys, out, 0, nPoints, 2);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(nPoints)
+    public double[] mercatorInversePerCallConstants() {
+        for (int i = 0; i < out.length; i += 2) {
+            legacyMercatorToGeographic(mercatorXys[i], mercatorXys[i + 1], out, i);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(nPoints)
+    public double[] mercatorInverseSharedEllipsoid() {
+        mercator.cartesianToGeographic(mercatorXys, out, 0, nPoints, 2);
+        return out;
+    }
+
+    private static void legacyUpsToCartesian(double latitude, double longitude, double[] out, int offset) {
+        double equatorialRadius = Constants.WGS84_EQUATORIAL_RADIUS;
+        double eccentricitySquared = Constants.WGS84_ES;
+        if (latitude == 90) {
+            out[offset] = 0;
+            out[offset + 1] = 0;
+            return;
+        }
+        double latRads = Math.max(0, Math.toRadians(latitude));
+        double lonRads = Math.toRadians(longitude);
+        double k0 = 0.994;
+        double ecc = Math.sqrt(eccentricitySquared);
+        double sp = Math.sin(latRads);
+        double t = Math.sqrt(((1 - sp) / (1 + sp)) * Math.pow((1 + ecc * sp) / (1 - ecc * sp), ecc));
+        double s = Math.sqrt(Math.pow(1 + ecc, 1 + ecc) * Math.pow(1 - ecc, 1 - ecc));
+        double r = 2 * equatorialRadius * k0 * t / s;
+        out[offset] = r * Math.sin(lonRads);
+        out[offset + 1] = -r * Math.cos(lonRads);
+    }
+
+    private static void legacyUpsToGeographic(double x, double y, double[] out, int offset) {
+        double equatorialRadius = Constants.WGS84_EQUATORIAL_RADIUS;
+        double eccentricitySquared = Constants.WGS84_ES;
+        double lon = Math.atan2(x, -y);
+        double k0 = 0.994;
+        double ecc = Math.sqrt(eccentricitySquared);
+        double r = Math.sqrt(x * x + y * y);
+        double s = Math.sqrt(Math.pow(1 + ecc, 1 + ecc) * Math.pow(1 - ecc, 1 - ecc));
+        double t = r * s / (2 * equatorialRadius * k0);
+        out[offset] = Math.toDegrees(legacyConformalSeries(eccentricitySquared, Math.PI / 2 - 2 * Math.atan(t)));
+        out[offset + 1] = Math.toDegrees(lon);
+    }
+
+    private static void legacyMercatorToGeographic(double x, double y, double[] out, int offset) {
+        double equatorialRadius = Constants.WGS84_EQUATORIAL_RADIUS;
+        double t = Math.pow(Math.E, -y / equatorialRadius);
+        out[offset] = Math.toDegrees(legacyConformalSeries(Constants.WGS84_ES, Math.PI / 2 - 2 * Math.atan(t)));
+        out[offset + 1] = Math.toDegrees(x / equatorialRadius);
+    }
+
+    private static double legacyConformalSeries(double ecc2, double A) {
+        double ecc4 = ecc2 * ecc2;
+        double ecc6 = ecc4 * ecc2;
+        double ecc8 = ecc6 * ecc2;
+        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
+        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
+        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
+        double E = 4279 * ecc8 / 161280;
+        double Ap = A - C + E;
+        double Bp = B - 3 * D;
+        double Cp = 2 * C - 8 * E;
+        double Dp = 4 * D;
+        double Ep = 8 * E;
+        double s2p = Math.sin(2 * A);
+        return Ap + s2p * (Bp + s2p * (Cp + s2p * (Dp + Ep * s2p)));
+    }
+
+}
@@ -0,0 +1,69 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact versus {@link FastProjection} throughput. The accuracy of each fast projection is printed during setup.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastProjectionBenchmark {
+
+    @Param({"Mercator", "UPS", "TransverseMercator", "UTM"})
+    public String projectionName;
+
+    @Param({"false", "true"})
+    public boolean fast;
+
+    @Param({"0.01"})
+    public double maxError;
+
+    @Param({"4096"})
+    public int batchSize;
+
+    private AbstractGeographicProjection projection;
+    private double[] latlons;
+    private double[] xys;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        AbstractGeographicProjection exact = BenchmarkProjections.create(projectionName);
+        //the accuracy at this bound is checked by FastProjectionTest
+        projection = fast ? FastProjection.of(exact, maxError) : exact;
+        latlons = BenchmarkProjections.generateLatLons(exact, batchSize);
+        xys = new double[latlons.length];
+        exact.geographicToCartesian(latlons, xys, 0, batchSize, 2);
+        out = new double[latlons.length];
+    }
+
+    @Benchmark
+    public double[] forward() {
+        projection.geographicToCartesian(latlons, out, 0, batchSize, 2);
+        return out;
+    }
+
+    @Benchmark
+    public double[] inverse() {
+        projection.cartesianToGeographic(xys, out, 0, batchSize, 2);
+        return out;
+    }
+
+}
@@ -0,0 +1,76 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar versus lane kernels over columns of coordinates, see {@link LaneProjector}.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LaneProjectorBenchmark {
+
+    @Param({"Equirectangular", "Sinusoidal", "ModifiedSinusoidal", "PolarEquidistant"})
+    public String projectionName;
+
+    @Param({"SCALAR", "LANES"})
+    public LaneProjector.Mode mode;
+
+    @Param({"65536"})
+    public int batchSize;
+
+    private LaneProjector projector;
+    private double[] lats;
+    private double[] lons;
+    private double[] xs;
+    private double[] ys;
+    private double[] outA;
+    private double[] outB;
+
+    @Setup
+    public void setup() {
+        AbstractGeographicProjection projection = BenchmarkProjections.create(projectionName);
+        projector = new LaneProjector(projection, mode);
+        double[] latlons = BenchmarkProjections.generateLatLons(projection, batchSize);
+        lats = new double[batchSize];
+        lons = new double[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            lats[i] = latlons[i * 2];
+            lons[i] = latlons[i * 2 + 1];
+        }
+        xs = new double[batchSize];
+        ys = new double[batchSize];
+        projection.geographicToCartesian(lats, lons, xs, ys, 0, batchSize);
+        outA = new double[batchSize];
+        outB = new double[batchSize];
+    }
+
+    @Benchmark
+    public double[] forward() {
+        projector.geographicToCartesian(lats, lons, outA, outB, 0, batchSize);
+        return outA;
+    }
+
+    @Benchmark
+    public double[] inverse() {
+        projector.cartesianToGeographic(xs, ys, outA, outB, 0, batchSize);
+        return outA;
+    }
+
+}
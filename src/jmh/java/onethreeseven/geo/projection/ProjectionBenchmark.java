@@ -0,0 +1,111 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forward and inverse projection of a batch of points for every {@link AbstractGeographicProjection},
+ * using the per-point and the batch api, single-threaded and with several threads sharing one projection.
+ * Scores are the time to project the whole batch.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedProjection {
+
+        @Param({"Equirectangular", "Mercator", "ModifiedSinusoidal", "PolarEquidistant",
+                "Sinusoidal", "TransverseMercator", "UPS", "UTM"})
+        public String projectionName;
+
+        AbstractGeographicProjection projection;
+
+        @Setup
+        public void setup() {
+            projection = BenchmarkProjections.create(projectionName);
+        }
+    }
+
+    @Param({"1", "64", "4096", "262144"})
+    public int batchSize;
+
+    private double[] latlons;
+    private double[] xys;
+    private double[] out;
+
+    @Setup
+    public void setup(SharedProjection shared) {
+        latlons = BenchmarkProjections.generateLatLons(shared.projection, batchSize);
+        xys = new double[latlons.length];
+        shared.projection.geographicToCartesian(latlons, xys, 0, batchSize, 2);
+        out = new double[latlons.length];
+    }
+
+    @Benchmark
+    public double[] forwardPerPoint(SharedProjection shared) {
+        AbstractGeographicProjection p = shared.projection;
+        for (int i = 0; i < latlons.length; i += 2) {
+            double[] xy = p.geographicToCartesian(latlons[i], latlons[i + 1]);
+            out[i] = xy[0];
+            out[i + 1] = xy[1];
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] inversePerPoint(SharedProjection shared) {
+        AbstractGeographicProjection p = shared.projection;
+        double[] cart = new double[2];
+        for (int i = 0; i < xys.length; i += 2) {
+            cart[0] = xys[i];
+            cart[1] = xys[i + 1];
+            double[] latlon = p.cartesianToGeographic(cart);
+            out[i] = latlon[0];
+            out[i + 1] = latlon[1];
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] forwardBatch(SharedProjection shared) {
+        shared.projection.geographicToCartesian(latlons, out, 0, batchSize, 2);
+        return out;
+    }
+
+    @Benchmark
+    public double[] inverseBatch(SharedProjection shared) {
+        shared.projection.cartesianToGeographic(xys, out, 0, batchSize, 2);
+        return out;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double[] forwardBatchMultiThreaded(SharedProjection shared) {
+        return forwardBatch(shared);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double[] inverseBatchMultiThreaded(SharedProjection shared) {
+        return inverseBatch(shared);
+    }
+
+}
@@ -0,0 +1,87 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Sequential bulk projection versus {@link ProjectionExecutor} for a range of chunk sizes and pool sizes.
+ * A parallelism of 0 uses every available processor.
+ * @author Luke Bermingham
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionExecutorBenchmark {
+
+    @Param({"Mercator", "TransverseMercator"})
+    public String projectionName;
+
+    @Param({"1048576"})
+    public int batchSize;
+
+    @Param({"1024", "4096", "16384", "65536"})
+    public int chunkSize;
+
+    @Param({"0"})
+    public int parallelism;
+
+    private AbstractGeographicProjection projection;
+    private ProjectionExecutor executor;
+    private ForkJoinPool pool;
+    private double[] latlons;
+    private double[] xys;
+
+    @Setup
+    public void setup() {
+        projection = BenchmarkProjections.create(projectionName);
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        executor = new ProjectionExecutor(projection, pool, chunkSize);
+        latlons = BenchmarkProjections.generateLatLons(projection, batchSize);
+        xys = new double[latlons.length];
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double[] sequential() {
+        projection.geographicToCartesian(latlons, xys, 0, batchSize, 2);
+        return xys;
+    }
+
+    @Benchmark
+    public double[] parallel() {
+        executor.geographicToCartesian(latlons, xys, 0, batchSize, 2);
+        return xys;
+    }
+
+    /**
+     * A hand-rolled parallel stream that allocates a result per point, run on the common pool.
+     */
+    @Benchmark
+    public double[][] parallelStream() {
+        return IntStream.range(0, batchSize).parallel()
+                .mapToObj(i -> projection.geographicToCartesian(latlons[i * 2], latlons[i * 2 + 1]))
+                .toArray(double[][]::new);
+    }
+
+}
@@ -0,0 +1,48 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a projection per request versus looking it up in a {@link ProjectionFactory}.
+ * @author Luke Bermingham
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionFactoryBenchmark {
+
+    private final ProjectionFactory factory = new ProjectionFactory(ProjectionFactory.DEFAULT_MAX_SIZE);
+
+    private int centralMeridian = 0;
+
+    @Benchmark
+    public AbstractGeographicProjection construct() {
+        centralMeridian = (centralMeridian + 6) % 180;
+        return new ProjectionTransverseMercator(30, centralMeridian, 0, 0.9996, Ellipsoid.WGS84, 0, 0);
+    }
+
+    @Benchmark
+    public AbstractGeographicProjection cached() {
+        centralMeridian = (centralMeridian + 6) % 180;
+        return factory.transverseMercator(30, centralMeridian, 0, 0.9996, Ellipsoid.WGS84, 0, 0);
+    }
+
+    @Benchmark
+    public AbstractGeographicProjection forCode() {
+        return factory.forCode("EPSG:32633");
+    }
+
+}
@@ -0,0 +1,72 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mercator to UTM through the allocating single point methods versus a {@link ProjectionPipeline}, and a pipeline
+ * that is a translation.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionPipelineBenchmark {
+
+    private static final int nPoints = 10000;
+
+    private final AbstractGeographicProjection mercator = new ProjectionMercator();
+    private final AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+    private final ProjectionPipeline pipeline = ProjectionPipeline.of(mercator, utm);
+    private final ProjectionPipeline translation = ProjectionPipeline.of(utm,
+            new ProjectionTransverseMercator(30, 15, 0, 0.9996, Ellipsoid.WGS84, 0, 500000));
+    private double[] xys;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        xys = new double[2 * nPoints];
+        out = new double[xys.length];
+        for (int i = 0; i < nPoints; i++) {
+            xys[2 * i] = 1.4e6 + 5e5 * (i % 97) / 97.0;
+            xys[2 * i + 1] = 4e6 + 2e6 * (i % 89) / 89.0;
+        }
+    }
+
+    @Benchmark
+    public double[] allocating() {
+        for (int i = 0; i < xys.length; i += 2) {
+            double[] latlon = mercator.cartesianToGeographic(new double[]{xys[i], xys[i + 1]});
+            double[] xy = utm.geographicToCartesian(latlon[0], latlon[1]);
+            out[i] = xy[0];
+            out[i + 1] = xy[1];
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] pipeline() {
+        pipeline.transform(xys, out, 0, nPoints, 2);
+        return out;
+    }
+
+    @Benchmark
+    public double[] translation() {
+        translation.transform(xys, out, 0, nPoints, 2);
+        return out;
+    }
+
+}
@@ -0,0 +1,89 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reprojecting the pixel centres of a 256x256 Mercator tile to UTM exactly versus with a {@link ReprojectionGrid},
+ * both with a grid built beforehand (shared by many tiles) and built for the tile.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReprojectionGridBenchmark {
+
+    private static final int tileSize = 256;
+
+    /**
+     * The size of a pixel in meters, a tile at zoom level 12 is about 10km wide.
+     */
+    @Param({"38.2"})
+    public double pixelSize;
+
+    @Param({"0.01", "1"})
+    public double maxError;
+
+    private final AbstractGeographicProjection mercator = new ProjectionMercator();
+    private final AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+    private ReprojectionGrid.PixelGrid tile;
+    private ReprojectionGrid grid;
+    private double[] xys;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        double size = tileSize * pixelSize;
+        tile = new ReprojectionGrid.PixelGrid(tileSize, tileSize, 1.6e6, 5.6e6 + size, pixelSize, -pixelSize);
+        grid = ReprojectionGrid.build(mercator, utm, 1.6e6, 5.6e6, 1.6e6 + size, 5.6e6 + size, maxError);
+        xys = new double[2 * tileSize * tileSize];
+        out = new double[xys.length];
+        for (int row = 0, i = 0; row < tileSize; row++) {
+            for (int col = 0; col < tileSize; col++, i += 2) {
+                xys[i] = 1.6e6 + (col + 0.5) * pixelSize;
+                xys[i + 1] = 5.6e6 + size - (row + 0.5) * pixelSize;
+            }
+        }
+    }
+
+    @Benchmark
+    public double[] exact() {
+        mercator.cartesianToGeographic(xys, out, 0, tileSize * tileSize, 2);
+        utm.geographicToCartesian(out, out, 0, tileSize * tileSize, 2);
+        return out;
+    }
+
+    @Benchmark
+    public double[] warp() {
+        grid.warp(tile, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] buildAndWarp() {
+        double size = tileSize * pixelSize;
+        ReprojectionGrid.build(mercator, utm, 1.6e6, 5.6e6, 1.6e6 + size, 5.6e6 + size, maxError).warp(tile, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] transform() {
+        grid.transform(xys, out, 0, tileSize * tileSize, 2);
+        return out;
+    }
+
+}
@@ -0,0 +1,101 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The raw cost of the {@link TMCoordConverter} kernels, without any of the projection wrappers,
+ * so that regressions in the converter itself stand out. The {@link TMKrugerSeries} kernels convert the same points
+ * for comparison.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TMCoordConverterBenchmark {
+
+    private static final int nPoints = 1024;
+
+    private TMParameters parameters;
+    private TMCoordConverter converter;
+    private TMKrugerSeries kruger;
+    private double[] latlons;
+    private double[] ens;
+    private double[] latlonDegrees;
+    private final double[] out = new double[2];
+    private int idx;
+
+    @Setup
+    public void setup() {
+        parameters = TMParameters.from(Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_POLAR_RADIUS,
+                0, ProjectionUTM.centralMeridianForZone(33), 0, 0, 0.9996);
+        converter = parameters.converter();
+        kruger = new TMKrugerSeries(parameters);
+        double centralMeridian = Math.toRadians(ProjectionUTM.centralMeridianForZone(33));
+        Random r = new Random(137);
+        latlons = new double[nPoints * 2];
+        ens = new double[nPoints * 2];
+        latlonDegrees = new double[nPoints * 2];
+        for (int i = 0; i < latlons.length; i += 2) {
+            latlons[i] = Math.toRadians(-80 + r.nextDouble() * 160);
+            latlons[i + 1] = centralMeridian + Math.toRadians(-3 + r.nextDouble() * 6);
+            converter.convertGeodeticToTransverseMercator(latlons[i], latlons[i + 1], ens, i);
+            latlonDegrees[i] = Math.toDegrees(latlons[i]);
+            latlonDegrees[i + 1] = Math.toDegrees(latlons[i + 1]);
+        }
+    }
+
+    private int next() {
+        idx = (idx + 2) & (2 * nPoints - 1);
+        return idx;
+    }
+
+    @Benchmark
+    public double forward() {
+        int i = next();
+        converter.convertGeodeticToTransverseMercator(latlons[i], latlons[i + 1], out, 0);
+        return out[0] + out[1];
+    }
+
+    @Benchmark
+    public double inverse() {
+        int i = next();
+        converter.convertTransverseMercatorToGeodetic(ens[i], ens[i + 1], out, 0);
+        return out[0] + out[1];
+    }
+
+    @Benchmark
+    public double krugerForward() {
+        int i = next();
+        kruger.toCartesian(latlonDegrees[i], latlonDegrees[i + 1], out, 0, out, 1);
+        return out[0] + out[1];
+    }
+
+    @Benchmark
+    public double krugerInverse() {
+        int i = next();
+        kruger.toGeographic(ens[i], ens[i + 1], out, 0, out, 1);
+        return out[0] + out[1];
+    }
+
+    @Benchmark
+    public TMParameters createParameters() {
+        return TMParameters.from(Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_POLAR_RADIUS,
+                0, ProjectionUTM.centralMeridianForZone(33), 0, 0, 0.9996);
+    }
+
+}
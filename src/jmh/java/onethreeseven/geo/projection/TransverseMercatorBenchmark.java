@@ -0,0 +1,87 @@
+package onethreeseven.geo.projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-point cost of UTM conversion when the Transverse Mercator parameters are rebuilt
+ * for every point (legacy {@link TMUtil} signatures) versus reusing the {@link TMParameters}
+ * cached by {@link ProjectionUTM}.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransverseMercatorBenchmark {
+
+    private static final int nPoints = 1024;
+    private static final int zone = 33;
+
+    private ProjectionUTM projection;
+    private double[][] latlons;
+    private double[][] xys;
+    private int idx;
+
+    @Setup
+    public void setup() {
+        projection = new ProjectionUTM(zone);
+        double centralMeridian = ProjectionUTM.centralMeridianForZone(zone);
+        Random r = new Random(137);
+        latlons = new double[nPoints][];
+        xys = new double[nPoints][];
+        for (int i = 0; i < nPoints; i++) {
+            double lat = -80 + r.nextDouble() * 160;
+            double lon = centralMeridian - 3 + r.nextDouble() * 6;
+            latlons[i] = new double[]{lat, lon};
+            xys[i] = projection.geographicToCartesian(lat, lon);
+        }
+    }
+
+    private int next() {
+        idx = (idx + 1) & (nPoints - 1);
+        return idx;
+    }
+
+    @Benchmark
+    public void forwardRebuildParameters(Blackhole bh) {
+        double[] latlon = latlons[next()];
+        bh.consume(TMUtil.toEastingNorthing(latlon[0], latlon[1],
+                Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_POLAR_RADIUS,
+                0, ProjectionUTM.centralMeridianForZone(zone), 0, 0, 0.9996));
+    }
+
+    @Benchmark
+    public void forwardCachedParameters(Blackhole bh) {
+        double[] latlon = latlons[next()];
+        bh.consume(projection.geographicToCartesian(latlon[0], latlon[1]));
+    }
+
+    @Benchmark
+    public void inverseRebuildParameters(Blackhole bh) {
+        double[] xy = xys[next()];
+        bh.consume(TMUtil.fromEastingNorthing(xy[0], xy[1],
+                Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_POLAR_RADIUS,
+                0, ProjectionUTM.centralMeridianForZone(zone), 0, 0, 0.9996));
+    }
+
+    @Benchmark
+    public void inverseCachedParameters(Blackhole bh) {
+        bh.consume(projection.cartesianToGeographic(xys[next()]));
+    }
+
+}
@@ -0,0 +1,83 @@
+package onethreeseven.geo.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance and azimuth between every consecutive pair of fixes of a trajectory on the WGS84 ellipsoid with
+ * {@link Geodesic} versus the spherical {@link GeogUtil}.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeodesicBenchmark {
+
+    @Param({"4096"})
+    public int batchSize;
+
+    private double[] latlons;
+    private double[] distances;
+    private double[] azimuths;
+    private final double[] single = new double[3];
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        latlons = new double[batchSize * 2];
+        double lat = -37.8;
+        double lon = 144.9;
+        //a random walk, like a trajectory
+        for (int i = 0; i < latlons.length; i += 2) {
+            lat += (r.nextDouble() - 0.5) * 0.01;
+            lon += (r.nextDouble() - 0.5) * 0.01;
+            latlons[i] = lat;
+            latlons[i + 1] = lon;
+        }
+        distances = new double[batchSize];
+        azimuths = new double[batchSize];
+    }
+
+    @Benchmark
+    public double[] spherical() {
+        GeogUtil.segmentDistancesAndBearings(latlons, 0, batchSize, distances, azimuths, 0);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] ellipsoidal() {
+        Geodesic.WGS84.segmentInverse(latlons, 0, batchSize, distances, azimuths, 0);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] ellipsoidalDistanceOnly() {
+        Geodesic.WGS84.segmentDistances(latlons, 0, batchSize, distances, 0);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] ellipsoidalPointByPoint() {
+        for (int i = 2; i < latlons.length; i += 2) {
+            Geodesic.WGS84.inverse(latlons[i - 2], latlons[i - 1], latlons[i], latlons[i + 1], single, 0);
+            distances[i >> 1] = single[0];
+        }
+        return distances;
+    }
+
+}
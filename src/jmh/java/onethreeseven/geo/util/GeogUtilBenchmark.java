@@ -0,0 +1,110 @@
+package onethreeseven.geo.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Azimuth and distance between every consecutive pair of points in a batch, single-threaded and multi-threaded, point by
+ * point and with the batch segment methods.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeogUtilBenchmark {
+
+    @Param({"64", "4096", "262144"})
+    public int batchSize;
+
+    private double[] latlons;
+    private double[] out;
+    private double[] out2;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(137);
+        latlons = new double[batchSize * 2];
+        double lat = -37.8;
+        double lon = 144.9;
+        //a random walk, like a trajectory
+        for (int i = 0; i < latlons.length; i += 2) {
+            lat += (r.nextDouble() - 0.5) * 0.01;
+            lon += (r.nextDouble() - 0.5) * 0.01;
+            latlons[i] = lat;
+            latlons[i + 1] = lon;
+        }
+        out = new double[batchSize];
+        out2 = new double[batchSize];
+    }
+
+    @Benchmark
+    public double[] azimuthAngle() {
+        for (int i = 2; i < latlons.length; i += 2) {
+            out[i >> 1] = GeogUtil.azimuthAngle(latlons[i - 2], latlons[i - 1], latlons[i], latlons[i + 1]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] haversineDistance() {
+        for (int i = 2; i < latlons.length; i += 2) {
+            out[i >> 1] = GeogUtil.haversineDistance(latlons[i - 2], latlons[i - 1], latlons[i], latlons[i + 1]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] azimuthAndDistance() {
+        for (int i = 2; i < latlons.length; i += 2) {
+            out[i >> 1] = GeogUtil.azimuthAngle(latlons[i - 2], latlons[i - 1], latlons[i], latlons[i + 1]);
+            out2[i >> 1] = GeogUtil.haversineDistance(latlons[i - 2], latlons[i - 1], latlons[i], latlons[i + 1]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] segmentBearings() {
+        GeogUtil.segmentBearings(latlons, 0, batchSize, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public double[] segmentDistances() {
+        GeogUtil.segmentDistances(latlons, 0, batchSize, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public double[] segmentDistancesAndBearings() {
+        GeogUtil.segmentDistancesAndBearings(latlons, 0, batchSize, out, out2, 0);
+        return out;
+    }
+
+    @Benchmark
+    public double cumulativeLength() {
+        return GeogUtil.cumulativeLength(latlons, 0, batchSize, out, 0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double[] azimuthAngleMultiThreaded() {
+        return azimuthAngle();
+    }
+
+}
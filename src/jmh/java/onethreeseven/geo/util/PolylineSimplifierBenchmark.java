@@ -0,0 +1,80 @@
+package onethreeseven.geo.util;
+
+import onethreeseven.geo.projection.ProjectionUTM;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simplifying a long GPS-like track within 5m on utm, by each of the {@link PolylineSimplifier} algorithms.
+ * @author Luke Bermingham
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineSimplifierBenchmark {
+
+    private static final int nPoints = 100000;
+
+    private PolylineSimplifier simplifier;
+    private double[] latlons;
+    private int[] kept;
+    private long keptByWindow;
+
+    @Setup
+    public void setup() {
+        ProjectionUTM utm = new ProjectionUTM(33);
+        simplifier = new PolylineSimplifier(utm, 5);
+        //a vehicle at about 10m a second, turning gently, with 2m of noise
+        Random r = new Random(137);
+        double[] xy = new double[nPoints * 2];
+        double x = 0;
+        double y = 5000000;
+        double heading = 0;
+        for (int i = 0; i < nPoints; i++) {
+            heading += r.nextGaussian() * 0.05;
+            x += 10 * Math.sin(heading);
+            y += 10 * Math.cos(heading);
+            xy[2 * i] = x + r.nextGaussian() * 2;
+            xy[2 * i + 1] = y + r.nextGaussian() * 2;
+        }
+        latlons = new double[xy.length];
+        utm.cartesianToGeographic(xy, latlons, 0, nPoints, 2);
+        kept = new int[nPoints];
+    }
+
+    @Benchmark
+    public int douglasPeucker() {
+        return simplifier.douglasPeucker(latlons, 0, nPoints, kept);
+    }
+
+    @Benchmark
+    public int visvalingam() {
+        return simplifier.visvalingam(latlons, 0, nPoints, kept);
+    }
+
+    @Benchmark
+    public long window() {
+        keptByWindow = 0;
+        PolylineSimplifier.Window window = simplifier.window(64, (index, lat, lon) -> keptByWindow++);
+        for (int i = 0; i < nPoints; i++) {
+            window.add(latlons[2 * i], latlons[2 * i + 1]);
+        }
+        window.finish();
+        return keptByWindow;
+    }
+
+}
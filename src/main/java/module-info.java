@@ -1,4 +1,5 @@
 module onethreeseven.geo{
+    exports onethreeseven.geo.io;
     exports onethreeseven.geo.model;
     exports onethreeseven.geo.projection;
     exports onethreeseven.geo.util;
@@ -0,0 +1,280 @@
+package onethreeseven.geo.io;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * A compact binary file of coordinates, read and written by mapping it into memory with {@link FileChannel#map}, so the
+ * coordinates can be projected straight out of (and into) the page cache, see
+ * {@link AbstractGeographicProjection#geographicToCartesian(DoubleBuffer, DoubleBuffer, int, int)}.
+ * </p>
+ * <p>
+ * The file is a header followed by the coordinates as interleaved little-endian doubles, either {lat, lon, ...} in
+ * degrees or {x, y, ...} in meters. The header, also little-endian, is:
+ * </p>
+ * <pre>
+ * int    magic, "137G"
+ * short  version
+ * byte   kind, 0 for geographic and 1 for Cartesian coordinates
+ * byte   reserved
+ * int    the size of the header in bytes, i.e. where the coordinates start
+ * int    reserved
+ * long   the number of points
+ * short  length of the name of the CRS, followed by the name in UTF-8 (i.e. "WGS84")
+ * short  length of the name of the projection, followed by the name in UTF-8 (empty for geographic coordinates)
+ * padding to a multiple of 8 bytes
+ * </pre>
+ * A mapped buffer can hold at most 2GB, so larger files are mapped a region at a time with {@link #map(long, int)}.
+ * @author Luke Bermingham
+ */
+public final class CoordinateFile implements Closeable {
+
+    public enum Kind {
+        GEOGRAPHIC, CARTESIAN
+    }
+
+    static final int MAGIC = 0x47373331;
+    static final short VERSION = 1;
+
+    /**
+     * The number of points mapped at a time by {@link #project(AbstractGeographicProjection, String, Path)}, 1GB.
+     */
+    static final int REGION_SIZE = 1 << 26;
+
+    private static final int FIXED_HEADER_SIZE = 24;
+    private static final int BYTES_PER_POINT = 2 * Double.BYTES;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final Kind kind;
+    private final String crs;
+    private final String projection;
+    private final int headerSize;
+    private final long nPoints;
+
+    private CoordinateFile(FileChannel channel, boolean writable, Kind kind, String crs, String projection,
+                           int headerSize, long nPoints) {
+        this.channel = channel;
+        this.writable = writable;
+        this.kind = kind;
+        this.crs = crs;
+        this.projection = projection;
+        this.headerSize = headerSize;
+        this.nPoints = nPoints;
+    }
+
+    /**
+     * Creates (or replaces) a file with room for the given number of points, all zero until written through
+     * {@link #map(long, int)}.
+     * @param path       the file.
+     * @param kind       whether the coordinates are geographic or Cartesian.
+     * @param crs        the name of the CRS.
+     * @param projection the name of the projection of Cartesian coordinates.
+     * @param nPoints    the number of points.
+     * @return The file, open for reading and writing.
+     * @throws IOException if the file cannot be written.
+     */
+    public static CoordinateFile create(Path path, Kind kind, String crs, String projection, long nPoints)
+            throws IOException {
+        if (nPoints < 0) {
+            throw new IllegalArgumentException("Number of points must be positive, was: " + nPoints);
+        }
+        byte[] crsBytes = crs.getBytes(StandardCharsets.UTF_8);
+        byte[] projectionBytes = projection.getBytes(StandardCharsets.UTF_8);
+        if (crsBytes.length > Short.MAX_VALUE || projectionBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The names of the CRS and projection are too long.");
+        }
+        int headerSize = (FIXED_HEADER_SIZE + 4 + crsBytes.length + projectionBytes.length + 7) & ~7;
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .putShort(VERSION)
+                .put((byte) kind.ordinal())
+                .put((byte) 0)
+                .putInt(headerSize)
+                .putInt(0)
+                .putLong(nPoints)
+                .putShort((short) crsBytes.length).put(crsBytes)
+                .putShort((short) projectionBytes.length).put(projectionBytes);
+        header.rewind();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            //extend the file by writing its last byte
+            long size = headerSize + nPoints * BYTES_PER_POINT;
+            if (size > headerSize) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new CoordinateFile(channel, true, kind, crs, projection, headerSize, nPoints);
+    }
+
+    /**
+     * @param path the file.
+     * @return The file, open for reading.
+     * @throws IOException if the file cannot be read or is not a coordinate file.
+     */
+    public static CoordinateFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, fixed, 0);
+            if (fixed.getInt() != MAGIC) {
+                throw new IOException("Not a coordinate file: " + path);
+            }
+            short version = fixed.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported coordinate file version " + version + ": " + path);
+            }
+            int kindOrdinal = fixed.get();
+            fixed.get();
+            int headerSize = fixed.getInt();
+            fixed.getInt();
+            long nPoints = fixed.getLong();
+            if (kindOrdinal < 0 || kindOrdinal >= Kind.values().length || headerSize < FIXED_HEADER_SIZE + 4 ||
+                    nPoints < 0 || channel.size() < headerSize + nPoints * BYTES_PER_POINT) {
+                throw new IOException("Corrupt coordinate file header: " + path);
+            }
+
+            ByteBuffer names = ByteBuffer.allocate(headerSize - FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, names, FIXED_HEADER_SIZE);
+            String crs = readName(names, path);
+            String projection = readName(names, path);
+            return new CoordinateFile(channel, false, Kind.values()[kindOrdinal], crs, projection, headerSize, nPoints);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int read = channel.read(dst, position + dst.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of coordinate file.");
+            }
+        }
+        dst.flip();
+    }
+
+    private static String readName(ByteBuffer names, Path path) throws IOException {
+        if (names.remaining() < 2) {
+            throw new IOException("Corrupt coordinate file header: " + path);
+        }
+        int length = names.getShort();
+        if (length < 0 || length > names.remaining()) {
+            throw new IOException("Corrupt coordinate file header: " + path);
+        }
+        byte[] bytes = new byte[length];
+        names.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps a region of the coordinates into memory, read-only unless the file was created.
+     * @param firstPoint the index of the first point of the region.
+     * @param length     the number of points in the region, less than 2^27 (2GB).
+     * @return The interleaved coordinates of the region, the first point is at index 0.
+     * @throws IOException if the region cannot be mapped.
+     */
+    public DoubleBuffer map(long firstPoint, int length) throws IOException {
+        if (firstPoint < 0 || length < 0 || firstPoint + length > nPoints) {
+            throw new IndexOutOfBoundsException("Region of " + length + " points starting at " + firstPoint +
+                    " is not in a file of " + nPoints + " points.");
+        }
+        if ((long) length * BYTES_PER_POINT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot map more than 2GB at a time, was: " + length + " points.");
+        }
+        MappedByteBuffer bytes = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                headerSize + firstPoint * BYTES_PER_POINT, (long) length * BYTES_PER_POINT);
+        return bytes.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * Projects every point of this file into a new file, a region at a time. Geographic coordinates are projected
+     * to Cartesian coordinates and Cartesian coordinates (which must be in the given projection) are projected back
+     * to geographic coordinates.
+     * @param projection     the projection.
+     * @param projectionName the name of the projection to write to the header of the projected file.
+     * @param out            the projected file.
+     * @return The projected file, open for reading and writing.
+     * @throws IOException if either file cannot be mapped.
+     */
+    public CoordinateFile project(AbstractGeographicProjection projection, String projectionName, Path out)
+            throws IOException {
+        boolean toCartesian = kind == Kind.GEOGRAPHIC;
+        CoordinateFile projected = create(out, toCartesian ? Kind.CARTESIAN : Kind.GEOGRAPHIC, crs,
+                toCartesian ? projectionName : "", nPoints);
+        try {
+            for (long first = 0; first < nPoints; first += REGION_SIZE) {
+                int length = (int) Math.min(REGION_SIZE, nPoints - first);
+                DoubleBuffer src = map(first, length);
+                DoubleBuffer dst = projected.map(first, length);
+                if (toCartesian) {
+                    projection.geographicToCartesian(src, dst, 0, length);
+                } else {
+                    projection.cartesianToGeographic(src, dst, 0, length);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            projected.close();
+            throw e;
+        }
+        return projected;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The name of the CRS of the coordinates.
+     */
+    public String getCrs() {
+        return crs;
+    }
+
+    /**
+     * @return The name of the projection of Cartesian coordinates, empty for geographic coordinates.
+     */
+    public String getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return The number of points.
+     */
+    public long size() {
+        return nPoints;
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Closes the file, regions already mapped stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,123 @@
+package onethreeseven.geo.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * <p>
+ * A fixed number of points packed as interleaved doubles, {lat, lon, ...} in degrees or {x, y, ...} in meters, on
+ * the heap or off it. A point costs 16 bytes, rather than the 40 or so of a <code>double[]</code> per point and the
+ * reference to it, and points held off the heap by {@link #allocateDirect(int)} are never scanned by the garbage
+ * collector.
+ * </p>
+ * <p>
+ * Projections convert whole buffers into other buffers, see
+ * <code>AbstractGeographicProjection#geographicToCartesian(CoordinateBuffer, CoordinateBuffer)</code>, and
+ * {@link LatLonBounds#LatLonBounds(CoordinateBuffer)} bounds one.
+ * </p>
+ * A buffer holds fewer than 2^27 points (2GB), larger datasets are split over several buffers.
+ * @author Luke Bermingham
+ */
+public final class CoordinateBuffer {
+
+    public static final int MAX_POINTS = (Integer.MAX_VALUE / 2) / Double.BYTES;
+
+    private final DoubleBuffer coords;
+    private final int nPoints;
+
+    private CoordinateBuffer(DoubleBuffer coords) {
+        if ((coords.limit() & 1) != 0) {
+            throw new IllegalArgumentException("Buffer must hold an even number of doubles, was: " + coords.limit());
+        }
+        this.coords = coords;
+        this.nPoints = coords.limit() / 2;
+    }
+
+    /**
+     * @param nPoints the number of points.
+     * @return A buffer of zeroed points on the heap.
+     */
+    public static CoordinateBuffer allocate(int nPoints) {
+        checkSize(nPoints);
+        return new CoordinateBuffer(DoubleBuffer.allocate(nPoints * 2));
+    }
+
+    /**
+     * @param nPoints the number of points.
+     * @return A buffer of zeroed points off the heap, in native byte order.
+     */
+    public static CoordinateBuffer allocateDirect(int nPoints) {
+        checkSize(nPoints);
+        return new CoordinateBuffer(ByteBuffer.allocateDirect(nPoints * 2 * Double.BYTES)
+                .order(ByteOrder.nativeOrder()).asDoubleBuffer());
+    }
+
+    /**
+     * @param coords interleaved coordinates, used by the buffer without copying.
+     * @return A buffer of the coordinates.
+     */
+    public static CoordinateBuffer wrap(double[] coords) {
+        return new CoordinateBuffer(DoubleBuffer.wrap(coords));
+    }
+
+    /**
+     * @param coords interleaved coordinates from the position to the limit of the buffer (i.e. a memory-mapped
+     *               file), used without copying.
+     * @return A buffer of the coordinates.
+     */
+    public static CoordinateBuffer wrap(DoubleBuffer coords) {
+        return new CoordinateBuffer(coords.slice());
+    }
+
+    private static void checkSize(int nPoints) {
+        if (nPoints < 0 || nPoints > MAX_POINTS) {
+            throw new IllegalArgumentException("Number of points must be within [0, " + MAX_POINTS + "], was: " + nPoints);
+        }
+    }
+
+    /**
+     * @param index the index of the double, the point index times two plus zero for the latitude (or x) or one for the
+     *              longitude (or y).
+     * @return The value.
+     */
+    public double get(int index) {
+        return coords.get(index);
+    }
+
+    public void put(int index, double value) {
+        coords.put(index, value);
+    }
+
+    /**
+     * @param point    the index of the point.
+     * @param latOrX   the latitude in degrees, or x in meters.
+     * @param lonOrY   the longitude in degrees, or y in meters.
+     */
+    public void set(int point, double latOrX, double lonOrY) {
+        coords.put(point * 2, latOrX);
+        coords.put(point * 2 + 1, lonOrY);
+    }
+
+    /**
+     * @return The number of points.
+     */
+    public int size() {
+        return nPoints;
+    }
+
+    /**
+     * @return True if the points are held off the heap.
+     */
+    public boolean isDirect() {
+        return coords.isDirect();
+    }
+
+    /**
+     * @return A view of the interleaved coordinates, changes to either are visible in both.
+     */
+    public DoubleBuffer asDoubleBuffer() {
+        return coords.duplicate();
+    }
+
+}
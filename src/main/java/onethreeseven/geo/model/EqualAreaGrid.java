@@ -0,0 +1,415 @@
+package onethreeseven.geo.model;
+
+import onethreeseven.geo.projection.Ellipsoid;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A hierarchical grid of cells of equal area on the WGS84 ellipsoid, for aggregating positions by cell, with the
+ * ids of the cells as primitive longs.
+ * </p>
+ * <p>
+ * The grid is a quadtree on a cylindrical equal-area (Lambert) projection of the ellipsoid: the longitude across and
+ * the sine of the authalic latitude (the latitude on the sphere of equal area) up. Equal areas on the projection are
+ * equal areas on the ellipsoid, so every cell of a level has the same area, and every cell is a
+ * {@link LatLonBounds}. The sphere is split into 3 faces of 120 degrees of longitude, which keeps cells near the
+ * equator close to square; towards the poles cells keep their area but grow tall and thin, and the cells of the top
+ * and bottom rows meet at the poles.
+ * </p>
+ * <p>
+ * Ids are laid out like {face, 2 bits per level of z-order path, 1, 0...}, so the level of a cell is in its lowest set
+ * bit, a parent and its children are a few bit operations away and the cells within a cell are a single range of ids.
+ * Level 0 is the 3 faces and level {@link #MAX_LEVEL} cells are about 7cm across.
+ * </p>
+ * @author Luke Bermingham
+ */
+public final class EqualAreaGrid {
+
+    public static final int MAX_LEVEL = 28;
+    public static final int FACES = 3;
+
+    private static final int FACE_SHIFT = 2 * MAX_LEVEL + 1;
+    private static final long AXIS_CELLS = 1L << MAX_LEVEL;
+    private static final double FACE_DEGREES = 360.0 / FACES;
+    private static final double WGS84_A = Ellipsoid.WGS84.getEquatorialRadius();
+    private static final double WGS84_ES = Ellipsoid.WGS84.getEccentricitySquared();
+
+    /**
+     * The sine of the authalic latitude is an odd series in the sine of the latitude, this is its coefficients in
+     * powers of sin^2, normalized so the pole is 1. The 8th term is below 1e-16.
+     */
+    private static final double[] AUTHALIC = new double[8];
+    /**
+     * The area of every face, in square meters.
+     */
+    private static final double FACE_AREA;
+    /**
+     * The sine of the authalic latitude as a cubic (Hermite) in each of 2048 bands of latitude, within 2e-14 of the
+     * series for a fraction of the cost of the sine in it. Laid out as {a, b, c, d, ...} for a band.
+     */
+    private static final int BANDS = 2048;
+    private static final double BAND_SCALE = BANDS / 180.0;
+    private static final double[] BAND_CUBICS = new double[4 * BANDS];
+
+    static {
+        double sum = 0;
+        double esk = 1;
+        for (int k = 0; k < AUTHALIC.length; k++) {
+            AUTHALIC[k] = esk * (2 * k + 2) / (2 * k + 1);
+            sum += AUTHALIC[k];
+            esk *= WGS84_ES;
+        }
+        for (int k = 0; k < AUTHALIC.length; k++) {
+            AUTHALIC[k] /= sum;
+        }
+        //the ellipsoid has the area of a sphere of the authalic radius
+        double e = Math.sqrt(WGS84_ES);
+        double authalicRadiusSq = WGS84_A * WGS84_A / 2 *
+                (1 + (1 - WGS84_ES) / (2 * e) * Math.log((1 + e) / (1 - e)));
+        FACE_AREA = 4 * Math.PI * authalicRadiusSq / FACES;
+
+        double h = Math.toRadians(180.0 / BANDS);
+        for (int i = 0; i < BANDS; i++) {
+            double lat0 = -90 + i / BAND_SCALE;
+            double lat1 = i == BANDS - 1 ? 90 : -90 + (i + 1) / BAND_SCALE;
+            double p0 = authalicSine(lat0);
+            double p1 = authalicSine(lat1);
+            double m0 = h * authalicSineDerivative(lat0);
+            double m1 = h * authalicSineDerivative(lat1);
+            BAND_CUBICS[4 * i] = p0;
+            BAND_CUBICS[4 * i + 1] = m0;
+            BAND_CUBICS[4 * i + 2] = 3 * (p1 - p0) - 2 * m0 - m1;
+            BAND_CUBICS[4 * i + 3] = 2 * (p0 - p1) + m0 + m1;
+        }
+    }
+
+    private EqualAreaGrid() {
+    }
+
+    /**
+     * Latitudes outside of [-90, 90] are clamped to the poles, longitudes outside of [-180, 180] are clamped onto the
+     * first or last column of cells.
+     * @param lat   the latitude in degrees.
+     * @param lon   the longitude in degrees.
+     * @param level the level of the cell [0, 28].
+     * @return The id of the cell of the position.
+     */
+    public static long cell(double lat, double lon, int level) {
+        checkLevel(level);
+        long lsb = 1L << (2 * (MAX_LEVEL - level));
+        return (leaf(lat, lon) & -lsb) | lsb;
+    }
+
+    /**
+     * Finds the cells of a batch of positions interleaved like {lat, lon, ...}.
+     * @param latlons the interleaved positions, the position of cell i is at index 2i.
+     * @param cells   the array to write the ids of the cells to.
+     * @param offset  the index of the first cell (and position).
+     * @param length  the number of positions.
+     * @param level   the level of the cells [0, 28].
+     */
+    public static void cells(double[] latlons, long[] cells, int offset, int length, int level) {
+        checkLevel(level);
+        checkBatch(offset, length, latlons.length / 2, cells.length);
+        long lsb = 1L << (2 * (MAX_LEVEL - level));
+        long mask = -lsb;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            cells[i] = (leaf(latlons[2 * i], latlons[2 * i + 1]) & mask) | lsb;
+        }
+    }
+
+    /**
+     * Finds the cells of a batch of positions stored as separate latitude and longitude columns.
+     * @param lats   the latitudes.
+     * @param lons   the longitudes.
+     * @param cells  the array to write the ids of the cells to.
+     * @param offset the index of the first position in every array.
+     * @param length the number of positions.
+     * @param level  the level of the cells [0, 28].
+     */
+    public static void cells(double[] lats, double[] lons, long[] cells, int offset, int length, int level) {
+        checkLevel(level);
+        checkBatch(offset, length, Math.min(lats.length, lons.length), cells.length);
+        long lsb = 1L << (2 * (MAX_LEVEL - level));
+        long mask = -lsb;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            cells[i] = (leaf(lats[i], lons[i]) & mask) | lsb;
+        }
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return True if it is the id of a cell of some level.
+     */
+    public static boolean isValid(long cell) {
+        int tz = Long.numberOfTrailingZeros(cell);
+        return cell > 0 && (cell >>> FACE_SHIFT) < FACES && (tz & 1) == 0 && tz <= 2 * MAX_LEVEL;
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return The level of the cell [0, 28].
+     */
+    public static int level(long cell) {
+        checkCell(cell);
+        return MAX_LEVEL - Long.numberOfTrailingZeros(cell) / 2;
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return The face of the cell [0, 3), its cell at level 0.
+     */
+    public static int face(long cell) {
+        checkCell(cell);
+        return (int) (cell >>> FACE_SHIFT);
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return The bounds of the cell.
+     */
+    public static LatLonBounds bounds(long cell) {
+        int level = level(cell);
+        long cells = 1L << level;
+        long path = (cell & ((1L << FACE_SHIFT) - 1)) >>> (2 * (MAX_LEVEL - level) + 1);
+        long col = face(cell) * cells + MortonCode.compact(path >>> 1);
+        long row = MortonCode.compact(path);
+        double lonSize = FACE_DEGREES / cells;
+        double vSize = 2.0 / cells;
+        return new LatLonBounds(latitude(-1 + row * vSize), latitude(-1 + (row + 1) * vSize),
+                -180 + col * lonSize, -180 + (col + 1) * lonSize);
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return The area of the cell (and every other cell of its level) in square meters.
+     */
+    public static double area(long cell) {
+        return FACE_AREA / (1L << (2 * level(cell)));
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return The id of the cell one level up that contains it.
+     * @throws IllegalArgumentException if the cell is a face.
+     */
+    public static long parent(long cell) {
+        return parent(cell, level(cell) - 1);
+    }
+
+    /**
+     * @param cell  the id of a cell.
+     * @param level the level of the parent, no finer than the level of the cell.
+     * @return The id of the cell of the level that contains the cell.
+     */
+    public static long parent(long cell, int level) {
+        int cellLevel = level(cell);
+        if (level < 0 || level > cellLevel) {
+            throw new IllegalArgumentException("Level of the parent must be within [0, " + cellLevel + "], was: " +
+                    level);
+        }
+        long lsb = 1L << (2 * (MAX_LEVEL - level));
+        return (cell & -lsb) | lsb;
+    }
+
+    /**
+     * @param cell the id of a cell, finer than {@link #MAX_LEVEL}.
+     * @return The ids of the 4 cells one level down within it, in order of id.
+     */
+    public static long[] children(long cell) {
+        if (level(cell) == MAX_LEVEL) {
+            throw new IllegalArgumentException("Cells of the finest level have no children.");
+        }
+        long lsb = cell & -cell;
+        long step = lsb >>> 1;
+        long first = cell - lsb + (lsb >>> 2);
+        return new long[]{first, first + step, first + 2 * step, first + 3 * step};
+    }
+
+    /**
+     * @param cell the id of a cell.
+     * @return The range of the ids of every cell within the cell, at every level including its own, {start, end}.
+     */
+    public static long[] range(long cell) {
+        checkCell(cell);
+        long lsb = cell & -cell;
+        return new long[]{cell - lsb + 1, cell + lsb};
+    }
+
+    /**
+     * @param cell  the id of a cell.
+     * @param other the id of another cell.
+     * @return True if the other cell is the cell or within it.
+     */
+    public static boolean contains(long cell, long other) {
+        checkCell(cell);
+        long lsb = cell & -cell;
+        return other > cell - lsb && other < cell + lsb;
+    }
+
+    /**
+     * The cells at most k cells from a cell across, up or diagonally, wrapping around the antimeridian. Cells touching
+     * a pole have no neighbours across it.
+     * @param cell the id of a cell.
+     * @param k    the distance in cells, 0 is the cell alone and 1 is the cell and its neighbours.
+     * @return The ids of the cells of the same level, including the cell, in order of id.
+     */
+    public static long[] kRing(long cell, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Distance must be positive, was: " + k);
+        }
+        int level = level(cell);
+        long cells = 1L << level;
+        int shift = 2 * (MAX_LEVEL - level) + 1;
+        long path = (cell & ((1L << FACE_SHIFT) - 1)) >>> shift;
+        long col = face(cell) * cells + MortonCode.compact(path >>> 1);
+        long row = MortonCode.compact(path);
+
+        //near the antimeridian or at coarse levels the columns wrap onto themselves
+        long nCols = FACES * cells;
+        long width = Math.min(2L * k + 1, nCols);
+        long firstCol = width == nCols ? 0 : col - k;
+        long firstRow = Math.max(0, row - k);
+        long lastRow = Math.min(cells - 1, row + k);
+        long size = width * (lastRow - firstRow + 1);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many cells within " + k + " cells at level " + level);
+        }
+        long[] ring = new long[(int) size];
+        int n = 0;
+        for (long c = firstCol; c < firstCol + width; c++) {
+            long wrapped = Math.floorMod(c, nCols);
+            long face = wrapped >>> level;
+            long spreadCol = MortonCode.spread(wrapped & (cells - 1)) << 1;
+            for (long r = firstRow; r <= lastRow; r++) {
+                ring[n++] = (face << FACE_SHIFT) | ((spreadCol | MortonCode.spread(r)) << shift) | (1L << (shift - 1));
+            }
+        }
+        Arrays.sort(ring);
+        return ring;
+    }
+
+    /**
+     * The id of the cell of a position at the finest level.
+     */
+    private static long leaf(double lat, double lon) {
+        double x = (lon + 180) * (1 / FACE_DEGREES);
+        int face = x >= FACES ? FACES - 1 : x > 0 ? (int) x : 0;
+        long col = quantize((x - face) * AXIS_CELLS);
+        long row = quantize((fastAuthalicSine(lat) + 1) * (0.5 * AXIS_CELLS));
+        return ((long) face << FACE_SHIFT) | (((MortonCode.spread(col) << 1) | MortonCode.spread(row)) << 1) | 1;
+    }
+
+    /**
+     * @param lat the latitude in degrees.
+     * @return The sine of the authalic latitude [-1, 1].
+     */
+    private static double authalicSine(double lat) {
+        if (lat > 90) {
+            lat = 90;
+        } else if (lat < -90) {
+            lat = -90;
+        }
+        double s = Math.sin(Math.toRadians(lat));
+        double ss = s * s;
+        double sum = AUTHALIC[AUTHALIC.length - 1];
+        for (int k = AUTHALIC.length - 2; k >= 0; k--) {
+            sum = sum * ss + AUTHALIC[k];
+        }
+        return s * sum;
+    }
+
+    /**
+     * @param lat the latitude in degrees.
+     * @return The derivative of the sine of the authalic latitude, per radian of latitude.
+     */
+    private static double authalicSineDerivative(double lat) {
+        double rads = Math.toRadians(lat);
+        double s = Math.sin(rads);
+        double ss = s * s;
+        double sum = AUTHALIC[AUTHALIC.length - 1] * (2 * AUTHALIC.length - 1);
+        for (int k = AUTHALIC.length - 2; k >= 0; k--) {
+            sum = sum * ss + AUTHALIC[k] * (2 * k + 1);
+        }
+        return Math.cos(rads) * sum;
+    }
+
+    /**
+     * {@link #authalicSine(double)} from the cubic of the band of the latitude.
+     */
+    private static double fastAuthalicSine(double lat) {
+        double t = (lat + 90) * BAND_SCALE;
+        //NaN and anything below -90 go to the south pole
+        if (!(t > 0)) {
+            t = 0;
+        } else if (t > BANDS) {
+            t = BANDS;
+        }
+        int band = (int) t;
+        if (band == BANDS) {
+            band--;
+        }
+        double u = t - band;
+        int i = 4 * band;
+        return BAND_CUBICS[i] + u * (BAND_CUBICS[i + 1] + u * (BAND_CUBICS[i + 2] + u * BAND_CUBICS[i + 3]));
+    }
+
+    /**
+     * The inverse of {@link #authalicSine(double)} by Newton's method, the series is close to the identity so it
+     * starts close.
+     * @param v the sine of the authalic latitude [-1, 1].
+     * @return The latitude in degrees.
+     */
+    private static double latitude(double v) {
+        if (v >= 1) {
+            return 90;
+        }
+        if (v <= -1) {
+            return -90;
+        }
+        double s = v;
+        for (int iter = 0; iter < 4; iter++) {
+            double ss = s * s;
+            double sum = AUTHALIC[AUTHALIC.length - 1];
+            double derivative = AUTHALIC[AUTHALIC.length - 1] * (2 * AUTHALIC.length - 1);
+            for (int k = AUTHALIC.length - 2; k >= 0; k--) {
+                sum = sum * ss + AUTHALIC[k];
+                derivative = derivative * ss + AUTHALIC[k] * (2 * k + 1);
+            }
+            s -= (s * sum - v) / derivative;
+        }
+        return Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, s))));
+    }
+
+    private static long quantize(double v) {
+        //NaN and anything below zero go to the first cell
+        if (!(v >= 0)) {
+            return 0;
+        }
+        return v >= AXIS_CELLS ? AXIS_CELLS - 1 : (long) v;
+    }
+
+    private static void checkLevel(int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be within [0, " + MAX_LEVEL + "], was: " + level);
+        }
+    }
+
+    private static void checkCell(long cell) {
+        if (!isValid(cell)) {
+            throw new IllegalArgumentException("Not the id of a cell: " + Long.toHexString(cell));
+        }
+    }
+
+    private static void checkBatch(int offset, int length, int srcSize, int dstSize) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        if ((long) offset + length > srcSize || (long) offset + length > dstSize) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given arrays.");
+        }
+    }
+
+}
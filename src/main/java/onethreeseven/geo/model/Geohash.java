@@ -0,0 +1,141 @@
+package onethreeseven.geo.model;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Geohashes of geographic positions, as strings of base 32 characters or as their bits in a long.
+ * </p>
+ * <p>
+ * A geohash interleaves the bits of the longitude and latitude starting with the longitude, the same as a
+ * {@link MortonCode} key, so the bits of a geohash with n characters are the first 5n bits of the key of any position
+ * in its cell. Encoding goes through the key and {@link #range(String)} turns a geohash into a range of keys.
+ * </p>
+ * Geohashes have 1 to 12 characters, 12 characters is a cell of about 4cm by 2cm.
+ * @author Luke Bermingham
+ */
+public final class Geohash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = i;
+            DECODE[Character.toUpperCase(BASE32[i])] = i;
+        }
+    }
+
+    private Geohash() {
+    }
+
+    /**
+     * @param lat       the latitude in degrees.
+     * @param lon       the longitude in degrees.
+     * @param precision the number of characters [1, 12].
+     * @return The geohash of the position.
+     */
+    public static String encode(double lat, double lon, int precision) {
+        return toString(encodeBits(lat, lon, precision), precision);
+    }
+
+    /**
+     * @param lat       the latitude in degrees.
+     * @param lon       the longitude in degrees.
+     * @param precision the number of characters [1, 12].
+     * @return The 5 * precision bits of the geohash of the position, in the low bits of the long.
+     */
+    public static long encodeBits(double lat, double lon, int precision) {
+        checkPrecision(precision);
+        return MortonCode.encode(lat, lon) >>> (MortonCode.KEY_BITS - 5 * precision);
+    }
+
+    /**
+     * Encodes a batch of positions interleaved like {lat, lon, ...} to the bits of their geohashes.
+     * @param latlons   the interleaved positions, the position of hash i is at index 2i.
+     * @param hashes    the array to write the bits of the geohashes to.
+     * @param offset    the index of the first hash (and position).
+     * @param length    the number of positions to encode.
+     * @param precision the number of characters [1, 12].
+     */
+    public static void encodeBits(double[] latlons, long[] hashes, int offset, int length, int precision) {
+        checkPrecision(precision);
+        MortonCode.encode(latlons, hashes, offset, length);
+        int shift = MortonCode.KEY_BITS - 5 * precision;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hashes[i] >>>= shift;
+        }
+    }
+
+    /**
+     * @param bits      the bits of a geohash.
+     * @param precision the number of characters [1, 12].
+     * @return The geohash.
+     */
+    public static String toString(long bits, int precision) {
+        checkPrecision(precision);
+        char[] chars = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param geohash the geohash, in either case.
+     * @return The bits of the geohash, its precision is its length.
+     * @throws IllegalArgumentException if the geohash is empty, too long or has a character outside of the alphabet.
+     */
+    public static long toBits(String geohash) {
+        checkPrecision(geohash.length());
+        long bits = 0;
+        for (int i = 0; i < geohash.length(); i++) {
+            char c = geohash.charAt(i);
+            int v = c < DECODE.length ? DECODE[c] : -1;
+            if (v < 0) {
+                throw new IllegalArgumentException("Not a geohash character '" + c + "' in: " + geohash);
+            }
+            bits = (bits << 5) | v;
+        }
+        return bits;
+    }
+
+    /**
+     * @param geohash the geohash.
+     * @return The bounds of the cell of the geohash.
+     */
+    public static LatLonBounds decode(String geohash) {
+        int nBits = 5 * geohash.length();
+        long key = toBits(geohash) << (MortonCode.KEY_BITS - nBits);
+        //the longitude has the extra bit when there is an odd number
+        int lonBits = (nBits + 1) / 2;
+        int latBits = nBits / 2;
+        long latIdx = MortonCode.compact(key) >>> (MortonCode.MAX_LEVEL - latBits);
+        long lonIdx = MortonCode.compact(key >>> 1) >>> (MortonCode.MAX_LEVEL - lonBits);
+        double latSize = 180.0 / (1L << latBits);
+        double lonSize = 360.0 / (1L << lonBits);
+        return new LatLonBounds(-90 + latIdx * latSize, -90 + (latIdx + 1) * latSize,
+                -180 + lonIdx * lonSize, -180 + (lonIdx + 1) * lonSize);
+    }
+
+    /**
+     * @param geohash the geohash.
+     * @return The range of the {@link MortonCode} keys of the positions in its cell, {start, end}.
+     */
+    public static long[] range(String geohash) {
+        int shift = MortonCode.KEY_BITS - 5 * geohash.length();
+        long start = toBits(geohash) << shift;
+        return new long[]{start, start + (1L << shift)};
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be within [1, " + MAX_PRECISION + "], was: " +
+                    precision);
+        }
+    }
+
+}
@@ -0,0 +1,343 @@
+package onethreeseven.geo.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Orders points along a Hilbert curve through some {@link LatLonBounds}, so points next to each other in the order
+ * are close in space. Projecting (or indexing) points in this order rather than in arrival order keeps the branches
+ * and caches of the downstream code warm, and the order of the centres of bounds is a bulk-load order for spatial
+ * indexes.
+ * </p>
+ * <p>
+ * The latitude and longitude are quantized to 31 bits each within the bounds and mapped to a 62 bit distance along
+ * the curve, found 4 levels of the curve at a time from a lookup table. Unlike the z-order of {@link MortonCode} the
+ * curve never jumps, consecutive cells always share an edge.
+ * Sorting returns a permutation of the points, see {@link #permute(CoordinateBuffer, int[], CoordinateBuffer)}, and
+ * leaves the points where they are.
+ * </p>
+ * The keys are sorted by an LSD radix sort, 11 bits per pass, skipping the passes where every key has the same digit.
+ * Batches of at least {@link #PARALLEL_THRESHOLD} keys are counted and scattered in parallel chunks on the common
+ * fork-join pool.
+ * @author Luke Bermingham
+ */
+public final class HilbertSort {
+
+    /**
+     * The smallest batch sorted in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int LEVELS = 31;
+    private static final long AXIS_CELLS = 1L << LEVELS;
+    private static final long MASK = AXIS_CELLS - 1;
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int PASSES = (Long.SIZE + RADIX_BITS - 1) / RADIX_BITS;
+
+    private HilbertSort() {
+    }
+
+    /**
+     * Points outside of the bounds are clamped onto their edges.
+     * @param lat    the latitude in degrees.
+     * @param lon    the longitude in degrees.
+     * @param bounds the bounds the curve fills, they may cross the antimeridian.
+     * @return The distance of the point along the curve.
+     */
+    public static long key(double lat, double lon, LatLonBounds bounds) {
+        return new Curve(bounds).key(lat, lon);
+    }
+
+    /**
+     * Finds the keys of a batch of points interleaved like {lat, lon, ...}.
+     * @param latlons the interleaved points, the point of key i is at index 2i.
+     * @param keys    the array to write the keys to.
+     * @param offset  the index of the first key (and point).
+     * @param length  the number of points.
+     * @param bounds  the bounds the curve fills.
+     */
+    public static void keys(double[] latlons, long[] keys, int offset, int length, LatLonBounds bounds) {
+        checkBatch(offset, length, latlons.length / 2, keys.length);
+        Curve curve = new Curve(bounds);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            keys[i] = curve.key(latlons[2 * i], latlons[2 * i + 1]);
+        }
+    }
+
+    /**
+     * @param latlons the points.
+     * @param bounds  the bounds the curve fills, i.e. the bounds of the points.
+     * @return The indices of the points in the order of the curve.
+     */
+    public static int[] sort(CoordinateBuffer latlons, LatLonBounds bounds) {
+        int n = latlons.size();
+        long[] keys = new long[n];
+        Curve curve = new Curve(bounds);
+        for (int i = 0; i < n; i++) {
+            keys[i] = curve.key(latlons.get(2 * i), latlons.get(2 * i + 1));
+        }
+        return sortKeys(keys, 0, n);
+    }
+
+    /**
+     * @param latlons the points interleaved like {lat, lon, ...}.
+     * @param offset  the index of the first point, the point at index 2 * offset.
+     * @param length  the number of points.
+     * @param bounds  the bounds the curve fills, i.e. the bounds of the points.
+     * @return The indices of the points, within [offset, offset + length), in the order of the curve.
+     */
+    public static int[] sort(double[] latlons, int offset, int length, LatLonBounds bounds) {
+        long[] keys = new long[offset + length];
+        keys(latlons, keys, offset, length, bounds);
+        return sortKeys(keys, offset, length);
+    }
+
+    /**
+     * Orders bounds by their centres (see {@link LatLonBounds#getLatLonCentroid()}, which wraps for bounds crossing the
+     * antimeridian), i.e. to bulk load a spatial index.
+     * @param bounds the bounds to order.
+     * @param extent the bounds the curve fills, i.e. the bounds of all of the bounds.
+     * @return The indices of the bounds in the order of the curve.
+     */
+    public static int[] sort(LatLonBounds[] bounds, LatLonBounds extent) {
+        long[] keys = new long[bounds.length];
+        Curve curve = new Curve(extent);
+        for (int i = 0; i < bounds.length; i++) {
+            double[] centre = bounds[i].getLatLonCentroid();
+            keys[i] = curve.key(centre[0], centre[1]);
+        }
+        return sortKeys(keys, 0, keys.length);
+    }
+
+    /**
+     * Sorts any keys (i.e. {@link MortonCode} keys) as signed longs, without moving them.
+     * @param keys   the keys.
+     * @param offset the index of the first key.
+     * @param length the number of keys.
+     * @return The indices of the keys, within [offset, offset + length), in ascending order of key. Equal keys keep
+     * their order.
+     */
+    public static int[] sortKeys(long[] keys, int offset, int length) {
+        checkBatch(offset, length, keys.length, keys.length);
+        long[] src = new long[length];
+        int[] idx = new int[length];
+        for (int i = 0; i < length; i++) {
+            //flipping the sign bit orders signed longs as unsigned digits
+            src[i] = keys[offset + i] ^ Long.MIN_VALUE;
+            idx[i] = offset + i;
+        }
+        if (length < 2) {
+            return idx;
+        }
+        int nChunks = length < PARALLEL_THRESHOLD ? 1 :
+                Math.min(length / (PARALLEL_THRESHOLD / 4), 4 * Runtime.getRuntime().availableProcessors());
+        int chunkSize = (length + nChunks - 1) / nChunks;
+
+        //the digits every key shares need no pass
+        long or = 0;
+        long and = -1L;
+        for (long k : src) {
+            or |= k;
+            and &= k;
+        }
+        long varying = or ^ and;
+
+        long[] dstKeys = new long[length];
+        int[] dstIdx = new int[length];
+        int[][] counts = new int[nChunks][RADIX];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            if (((varying >>> shift) & (RADIX - 1)) == 0) {
+                continue;
+            }
+            final long[] fromKeys = src;
+            final int[] fromIdx = idx;
+            final long[] toKeys = dstKeys;
+            final int[] toIdx = dstIdx;
+            chunks(nChunks, c -> count(fromKeys, c * chunkSize, Math.min(length, (c + 1) * chunkSize), shift,
+                    counts[c]));
+            //the start of each chunk's run of each digit, digits first so the sort is stable
+            int total = 0;
+            for (int d = 0; d < RADIX; d++) {
+                for (int c = 0; c < nChunks; c++) {
+                    int count = counts[c][d];
+                    counts[c][d] = total;
+                    total += count;
+                }
+            }
+            chunks(nChunks, c -> scatter(fromKeys, fromIdx, toKeys, toIdx, c * chunkSize,
+                    Math.min(length, (c + 1) * chunkSize), shift, counts[c]));
+            src = toKeys;
+            idx = toIdx;
+            dstKeys = fromKeys;
+            dstIdx = fromIdx;
+        }
+        return idx;
+    }
+
+    /**
+     * Reorders points, the inverse of the order is not needed.
+     * @param src  the points.
+     * @param perm the order, i.e. from {@link #sort(CoordinateBuffer, LatLonBounds)}.
+     * @param dst  the buffer to write point i of the order to, src[perm[i]]. It must not be the source.
+     */
+    public static void permute(CoordinateBuffer src, int[] perm, CoordinateBuffer dst) {
+        if (src == dst) {
+            throw new IllegalArgumentException("Points cannot be permuted in place.");
+        }
+        if (dst.size() < perm.length) {
+            throw new IndexOutOfBoundsException("Permutation of " + perm.length + " points does not fit in a buffer of " +
+                    dst.size());
+        }
+        for (int i = 0; i < perm.length; i++) {
+            int p = perm[i];
+            dst.set(i, src.get(2 * p), src.get(2 * p + 1));
+        }
+    }
+
+    /**
+     * Reorders points interleaved like {lat, lon, ...} (or {x, y, ...}).
+     * @param src  the points.
+     * @param perm the order.
+     * @param dst  the array to write point i of the order to, src[perm[i]]. It must not be the source.
+     */
+    public static void permute(double[] src, int[] perm, double[] dst) {
+        if (src == dst) {
+            throw new IllegalArgumentException("Points cannot be permuted in place.");
+        }
+        if (dst.length < 2 * perm.length) {
+            throw new IndexOutOfBoundsException("Permutation of " + perm.length + " points does not fit in an array of " +
+                    dst.length / 2);
+        }
+        for (int i = 0; i < perm.length; i++) {
+            int p = perm[i];
+            dst[2 * i] = src[2 * p];
+            dst[2 * i + 1] = src[2 * p + 1];
+        }
+    }
+
+    private static void count(long[] keys, int from, int to, int shift, int[] counts) {
+        Arrays.fill(counts, 0);
+        for (int i = from; i < to; i++) {
+            counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+        }
+    }
+
+    private static void scatter(long[] keys, int[] idx, long[] toKeys, int[] toIdx,
+                                int from, int to, int shift, int[] starts) {
+        for (int i = from; i < to; i++) {
+            long k = keys[i];
+            int pos = starts[(int) (k >>> shift) & (RADIX - 1)]++;
+            toKeys[pos] = k;
+            toIdx[pos] = idx[i];
+        }
+    }
+
+    private static void chunks(int nChunks, IntConsumer chunk) {
+        if (nChunks == 1) {
+            chunk.accept(0);
+        } else {
+            IntStream.range(0, nChunks).parallel().forEach(chunk);
+        }
+    }
+
+    private static double lonSpan(LatLonBounds bounds) {
+        double span = bounds.getMaxLon() - bounds.getMinLon();
+        return bounds.crossesAntimeridian() ? span + 360 : span;
+    }
+
+    /**
+     * The curve through some bounds, with the scales from degrees to cells worked out once per batch.
+     */
+    private static final class Curve {
+
+        private final double minLat;
+        private final double minLon;
+        private final double latScale;
+        private final double lonScale;
+        private final boolean wraps;
+
+        Curve(LatLonBounds bounds) {
+            double latSpan = bounds.getMaxLat() - bounds.getMinLat();
+            double lonSpan = lonSpan(bounds);
+            this.minLat = bounds.getMinLat();
+            this.minLon = bounds.getMinLon();
+            this.latScale = latSpan > 0 ? AXIS_CELLS / latSpan : 0;
+            this.lonScale = lonSpan > 0 ? AXIS_CELLS / lonSpan : 0;
+            this.wraps = bounds.crossesAntimeridian();
+        }
+
+        long key(double lat, double lon) {
+            if (wraps && lon < minLon) {
+                lon += 360;
+            }
+            return hilbert(quantize((lon - minLon) * lonScale), quantize((lat - minLat) * latScale));
+        }
+    }
+
+    private static long quantize(double v) {
+        if (!(v >= 0)) {
+            return 0;
+        }
+        return v >= AXIS_CELLS ? MASK : (long) v;
+    }
+
+    /**
+     * The distance along the curve of a cell, 4 levels at a time from {@link #STEPS}.
+     * @param x the cell in the first axis [0, 2^31).
+     * @param y the cell in the second axis [0, 2^31).
+     */
+    static long hilbert(long x, long y) {
+        long d = 0;
+        int state = 0;
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            int step = STEPS[(state << 8) | (int) ((x >>> shift) & 15) << 4 | (int) ((y >>> shift) & 15)];
+            d = (d << 8) | (step >>> 2);
+            state = step & 3;
+        }
+        return d;
+    }
+
+    /**
+     * The curve through a quadrant is the curve through the whole square reflected across both axes (flip) and/or
+     * across the diagonal (swap), the 2 bit state {flip, swap}. Indexed by the state, 4 bits of x and 4 bits of y this
+     * holds the 8 bits of the distance along the curve and the state of the next 4 levels.
+     */
+    private static final short[] STEPS = new short[4 << 8];
+    static {
+        for (int start = 0; start < 4; start++) {
+            for (int xy = 0; xy < 256; xy++) {
+                int state = start;
+                int digits = 0;
+                for (int bit = 3; bit >= 0; bit--) {
+                    int bx = (xy >>> (4 + bit)) & 1;
+                    int by = (xy >>> bit) & 1;
+                    boolean flip = (state & 2) != 0;
+                    boolean swap = (state & 1) != 0;
+                    int rx = (swap ? by : bx) ^ (flip ? 1 : 0);
+                    int ry = (swap ? bx : by) ^ (flip ? 1 : 0);
+                    digits = (digits << 2) | ((3 * rx) ^ ry);
+                    //the lower left quadrant is swapped, the lower right is flipped and swapped
+                    if (ry == 0) {
+                        state ^= rx == 1 ? 3 : 1;
+                    }
+                }
+                STEPS[(start << 8) | xy] = (short) ((digits << 2) | state);
+            }
+        }
+    }
+
+    private static void checkBatch(int offset, int length, int srcSize, int dstSize) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        if ((long) offset + length > srcSize || (long) offset + length > dstSize) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given arrays.");
+        }
+    }
+
+}
@@ -17,6 +17,8 @@ public class LatLonBounds {
 
     /**
      * Create a compound lat/lon bounds that contains all the passed bounds.
+     * The longitudes are merged by their minimum and maximum, see {@link #unionShortest(LatLonBounds)} to merge
+     * bounds across the antimeridian.
      * @param bounds The bounds to contain.
      */
     public LatLonBounds(LatLonBounds... bounds){
@@ -46,9 +48,18 @@ public class LatLonBounds {
         this.maxLon = maxLon;
     }
 
+    /**
+     * Create a bounds resolve the geographic positions of a buffer.
+     * @param latlons The geographic positions.
+     */
+    public LatLonBounds(CoordinateBuffer latlons){
+        this(new LatLonBoundsBuilder().addAll(latlons).build());
+    }
+
     /**
      * Create a bounds resolve the iterator of lat/lon.
      * Index 0 is lat, index 1 is lon, anything beyond that is disregarded.
+     * To bound points without an array per point use a {@link LatLonBoundsBuilder}.
      * @param latlonIter Lat/lon coordinate iterator.
      */
     public LatLonBounds(Iterator<double[]> latlonIter){
@@ -73,25 +84,118 @@ public class LatLonBounds {
         this.maxLon = curMaxLon;
     }
 
+    /**
+     * Bounds with a minimum longitude greater than their maximum longitude cross the antimeridian, i.e.
+     * they span from minLon east to 180 and from -180 east to maxLon.
+     * @return True if these bounds cross the antimeridian.
+     */
+    public boolean crossesAntimeridian(){
+        return minLon > maxLon;
+    }
+
     public boolean contains(double lat, double lon){
-        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+        return lat >= minLat && lat <= maxLat && lonContains(minLon, maxLon, lon);
     }
 
     public boolean contains(LatLonBounds other){
-        return this.minLat <= other.minLat &&
-               this.minLon <= other.minLon &&
-               this.maxLat >= other.maxLat &&
-               this.maxLon >= other.maxLon;
+        return this.minLat <= other.minLat && this.maxLat >= other.maxLat &&
+               lonContains(this.minLon, this.maxLon, other.minLon, other.maxLon);
     }
 
     public boolean intersects(LatLonBounds other){
-        return ((this.minLon < other.maxLon) &&
-                (this.maxLon > other.minLon) &&
-                (this.minLat < other.maxLat) &&
-                (this.maxLat > other.minLat));
+        return (this.minLat < other.maxLat) &&
+               (this.maxLat > other.minLat) &&
+               lonIntersects(this.minLon, this.maxLon, other.minLon, other.maxLon);
     }
 
     /**
+     * Do two longitude intervals, either of which may cross the antimeridian, overlap.
+     */
+    static boolean lonIntersects(double aMinLon, double aMaxLon, double bMinLon, double bMaxLon){
+        if(aMinLon > aMaxLon){
+            //both contain the antimeridian
+            return bMinLon > bMaxLon ||
+                    lonIntersects(aMinLon, 180, bMinLon, bMaxLon) ||
+                    lonIntersects(-180, aMaxLon, bMinLon, bMaxLon);
+        }
+        if(bMinLon > bMaxLon){
+            return lonIntersects(bMinLon, bMaxLon, aMinLon, aMaxLon);
+        }
+        return aMinLon < bMaxLon && aMaxLon > bMinLon;
+    }
+
+    /**
+     * Does a longitude interval, which may cross the antimeridian, contain a longitude.
+     */
+    static boolean lonContains(double minLon, double maxLon, double lon){
+        return minLon <= maxLon ? lon >= minLon && lon <= maxLon : lon >= minLon || lon <= maxLon;
+    }
+
+    /**
+     * Does a longitude interval contain another, either of which may cross the antimeridian.
+     */
+    static boolean lonContains(double aMinLon, double aMaxLon, double bMinLon, double bMaxLon){
+        if(aMinLon <= -180 && aMaxLon >= 180){
+            return true;
+        }
+        if(bMinLon <= -180 && bMaxLon >= 180){
+            return false;
+        }
+        if(aMinLon <= aMaxLon){
+            return bMinLon <= bMaxLon && bMinLon >= aMinLon && bMaxLon <= aMaxLon;
+        }
+        if(bMinLon > bMaxLon){
+            return bMinLon >= aMinLon && bMaxLon <= aMaxLon;
+        }
+        //the other interval must be within one of the two sides of the antimeridian
+        return bMinLon >= aMinLon || bMaxLon <= aMaxLon;
+    }
+
+    /**
+     * The shortest longitude interval containing two others, either of which may cross the antimeridian.
+     * @param out where to write {minLon, maxLon}, the result crosses the antimeridian if that is shorter.
+     */
+    static void lonUnion(double aMinLon, double aMaxLon, double bMinLon, double bMaxLon, double[] out){
+        if(lonContains(aMinLon, aMaxLon, bMinLon, bMaxLon)){
+            out[0] = aMinLon;
+            out[1] = aMaxLon;
+            return;
+        }
+        if(lonContains(bMinLon, bMaxLon, aMinLon, aMaxLon)){
+            out[0] = bMinLon;
+            out[1] = bMaxLon;
+            return;
+        }
+        boolean hasBMin = lonContains(aMinLon, aMaxLon, bMinLon);
+        boolean hasBMax = lonContains(aMinLon, aMaxLon, bMaxLon);
+        if(hasBMin && hasBMax){
+            //overlapping at both ends, between them they go all the way around
+            out[0] = -180;
+            out[1] = 180;
+        }else if(hasBMin || (!hasBMax && lonGap(aMaxLon, bMinLon) < lonGap(bMaxLon, aMinLon))){
+            //overlapping at a's east end, or disjoint and the gap east of a is the smaller to bridge
+            out[0] = aMinLon;
+            out[1] = bMaxLon;
+        }else{
+            out[0] = bMinLon;
+            out[1] = aMaxLon;
+        }
+    }
+
+    /**
+     * @return The degrees east from one longitude to another, in [0, 360).
+     */
+    private static double lonGap(double fromLon, double toLon){
+        double gap = toLon - fromLon;
+        if(gap < 0){
+            gap += 360;
+        }
+        return gap >= 360 ? gap - 360 : gap;
+    }
+
+    /**
+     * The longitudes are merged by their minimum and maximum, see {@link #unionShortest(LatLonBounds)} to merge
+     * bounds across the antimeridian.
      * @param otherBounds the other bounds to contain
      * @return a new bounds contains this bound and the other.
      */
@@ -105,11 +209,33 @@ public class LatLonBounds {
     }
 
     /**
-     * @return An array consisting of {centroidLat, centroidLon}.
+     * Like {@link #expand(LatLonBounds)}, but the longitudes are merged to the shortest interval containing both,
+     * which crosses the antimeridian if that is shorter than going the other way around.
+     * Either bounds may cross the antimeridian.
+     * @param otherBounds the other bounds to contain
+     * @return a new bounds contains this bound and the other.
+     */
+    public LatLonBounds unionShortest(LatLonBounds otherBounds){
+        double[] lons = new double[2];
+        lonUnion(minLon, maxLon, otherBounds.minLon, otherBounds.maxLon, lons);
+        return new LatLonBounds(
+                Math.min(minLat, otherBounds.minLat),
+                Math.max(maxLat, otherBounds.maxLat),
+                lons[0],
+                lons[1]
+        );
+    }
+
+    /**
+     * @return An array consisting of {centroidLat, centroidLon}, the longitude is within [-180, 180] even when
+     * these bounds cross the antimeridian.
      */
     public double[] getLatLonCentroid(){
         double midLat = ((maxLat - minLat) * 0.5) + minLat;
-        double midLon = ((maxLon - minLon) * 0.5) + minLon;
+        double midLon = ((maxLon - minLon + (crossesAntimeridian() ? 360 : 0)) * 0.5) + minLon;
+        if(midLon > 180){
+            midLon -= 360;
+        }
         return new double[]{midLat, midLon};
     }
 
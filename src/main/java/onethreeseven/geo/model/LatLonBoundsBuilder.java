@@ -0,0 +1,294 @@
+package onethreeseven.geo.model;
+
+import java.nio.DoubleBuffer;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * Accumulates the {@link LatLonBounds} of points given as primitives, so large batches (i.e. whole trajectory files)
+ * can be bounded without a <code>double[]</code> per point.
+ * </p>
+ * <p>
+ * Builders are not thread-safe, to bound points in parallel give each thread its own builder and {@link #merge} them,
+ * which is what {@link #collector()} and {@link #parallel(double[], int, int)} do. Streams of interleaved values are
+ * bounded by {@link #of(DoubleStream)} without boxing or an array per point.
+ * </p>
+ * The bounds built are the minimum and maximum latitude and longitude, so they never cross the antimeridian. Points
+ * with a NaN latitude or longitude are ignored and not counted.
+ * @author Luke Bermingham
+ */
+public final class LatLonBoundsBuilder {
+
+    /**
+     * The number of points each task of {@link #parallel(double[], int, int)} bounds.
+     */
+    static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+
+    private double minLat = Double.POSITIVE_INFINITY;
+    private double maxLat = Double.NEGATIVE_INFINITY;
+    private double minLon = Double.POSITIVE_INFINITY;
+    private double maxLon = Double.NEGATIVE_INFINITY;
+    private long count = 0;
+
+    /**
+     * An empty builder.
+     */
+    public LatLonBoundsBuilder() {
+    }
+
+    public LatLonBoundsBuilder add(double lat, double lon) {
+        if (Double.isNaN(lat) || Double.isNaN(lon)) {
+            return this;
+        }
+        minLat = lat < minLat ? lat : minLat;
+        maxLat = lat > maxLat ? lat : maxLat;
+        minLon = lon < minLon ? lon : minLon;
+        maxLon = lon > maxLon ? lon : maxLon;
+        count++;
+        return this;
+    }
+
+    /**
+     * @param bounds the bounds to contain, bounds crossing the antimeridian widen the longitudes to [-180, 180] as
+     *               the bounds built never cross it.
+     * @return This builder.
+     */
+    public LatLonBoundsBuilder add(LatLonBounds bounds) {
+        minLat = Math.min(minLat, bounds.getMinLat());
+        maxLat = Math.max(maxLat, bounds.getMaxLat());
+        if (bounds.crossesAntimeridian()) {
+            minLon = -180;
+            maxLon = 180;
+        } else {
+            minLon = Math.min(minLon, bounds.getMinLon());
+            maxLon = Math.max(maxLon, bounds.getMaxLon());
+        }
+        count++;
+        return this;
+    }
+
+    /**
+     * @param latlon interleaved {lat, lon, lat, lon...} positions, in degrees.
+     * @param offset the index of the first latitude.
+     * @param length the number of points to add.
+     * @return This builder.
+     */
+    public LatLonBoundsBuilder addAll(double[] latlon, int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + 2L * length > latlon.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in an array of length " + latlon.length);
+        }
+        double curMinLat = minLat;
+        double curMaxLat = maxLat;
+        double curMinLon = minLon;
+        double curMaxLon = maxLon;
+        long n = 0;
+        for (int i = offset, end = offset + 2 * length; i < end; i += 2) {
+            double lat = latlon[i];
+            double lon = latlon[i + 1];
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                continue;
+            }
+            curMinLat = lat < curMinLat ? lat : curMinLat;
+            curMaxLat = lat > curMaxLat ? lat : curMaxLat;
+            curMinLon = lon < curMinLon ? lon : curMinLon;
+            curMaxLon = lon > curMaxLon ? lon : curMaxLon;
+            n++;
+        }
+        minLat = curMinLat;
+        maxLat = curMaxLat;
+        minLon = curMinLon;
+        maxLon = curMaxLon;
+        count += n;
+        return this;
+    }
+
+    /**
+     * @param lats   the latitudes, in degrees.
+     * @param lons   the longitudes, in degrees.
+     * @param offset the index of the first point in both columns.
+     * @param length the number of points to add.
+     * @return This builder.
+     */
+    public LatLonBoundsBuilder addAll(double[] lats, double[] lons, int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + length > Math.min(lats.length, lons.length)) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the columns.");
+        }
+        double curMinLat = minLat;
+        double curMaxLat = maxLat;
+        double curMinLon = minLon;
+        double curMaxLon = maxLon;
+        long n = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            double lat = lats[i];
+            double lon = lons[i];
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                continue;
+            }
+            curMinLat = lat < curMinLat ? lat : curMinLat;
+            curMaxLat = lat > curMaxLat ? lat : curMaxLat;
+            curMinLon = lon < curMinLon ? lon : curMinLon;
+            curMaxLon = lon > curMaxLon ? lon : curMaxLon;
+            n++;
+        }
+        minLat = curMinLat;
+        maxLat = curMaxLat;
+        minLon = curMinLon;
+        maxLon = curMaxLon;
+        count += n;
+        return this;
+    }
+
+    /**
+     * @param latlons the geographic positions to add.
+     * @return This builder.
+     */
+    public LatLonBoundsBuilder addAll(CoordinateBuffer latlons) {
+        DoubleBuffer coords = latlons.asDoubleBuffer();
+        double curMinLat = minLat;
+        double curMaxLat = maxLat;
+        double curMinLon = minLon;
+        double curMaxLon = maxLon;
+        long n = 0;
+        for (int i = 0, end = latlons.size() * 2; i < end; i += 2) {
+            double lat = coords.get(i);
+            double lon = coords.get(i + 1);
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                continue;
+            }
+            curMinLat = lat < curMinLat ? lat : curMinLat;
+            curMaxLat = lat > curMaxLat ? lat : curMaxLat;
+            curMinLon = lon < curMinLon ? lon : curMinLon;
+            curMaxLon = lon > curMaxLon ? lon : curMaxLon;
+            n++;
+        }
+        minLat = curMinLat;
+        maxLat = curMaxLat;
+        minLon = curMinLon;
+        maxLon = curMaxLon;
+        count += n;
+        return this;
+    }
+
+    /**
+     * Adds the remaining values of a spliterator, i.e. of a <code>DoubleStream</code>, read in order as interleaved
+     * {lat, lon, lat, lon...} positions.
+     * @param latlons interleaved positions, in degrees.
+     * @return This builder.
+     * @throws IllegalArgumentException if the last latitude has no longitude.
+     */
+    public LatLonBoundsBuilder addAll(Spliterator.OfDouble latlons) {
+        PairAdder adder = new PairAdder();
+        latlons.forEachRemaining(adder);
+        if (adder.hasLat) {
+            throw new IllegalArgumentException("Interleaved positions must have a longitude for every latitude.");
+        }
+        return this;
+    }
+
+    /**
+     * @param other the builder to add the points of.
+     * @return This builder.
+     */
+    public LatLonBoundsBuilder merge(LatLonBoundsBuilder other) {
+        minLat = Math.min(minLat, other.minLat);
+        maxLat = Math.max(maxLat, other.maxLat);
+        minLon = Math.min(minLon, other.minLon);
+        maxLon = Math.max(maxLon, other.maxLon);
+        count += other.count;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return The number of points (and bounds) added, not counting ignored points.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The bounds of every point added so far, the builder can still be added to.
+     * @throws IllegalArgumentException if nothing was added, or only ignored points.
+     */
+    public LatLonBounds build() {
+        if (count == 0) {
+            throw new IllegalArgumentException("Cannot construct bounds resolve an empty builder.");
+        }
+        return new LatLonBounds(minLat, maxLat, minLon, maxLon);
+    }
+
+    /**
+     * Bounds a stream of interleaved {lat, lon, lat, lon...} positions, in encounter order. A stream of values cannot
+     * be split between a latitude and its longitude, so it is read by one thread, to bound an array in parallel use
+     * {@link #parallel(double[], int, int)}.
+     * @param latlons interleaved positions, in degrees.
+     * @return The bounds of the positions.
+     * @throws IllegalArgumentException if the stream has no positions (other than ignored ones) or the last latitude
+     *                                  has no longitude.
+     */
+    public static LatLonBounds of(DoubleStream latlons) {
+        return new LatLonBoundsBuilder().addAll(latlons.spliterator()).build();
+    }
+
+    /**
+     * A collector of {lat, lon} arrays, which can run in parallel. It takes an array per point, for points already
+     * held as primitives see {@link #of(DoubleStream)} and {@link #parallel(double[], int, int)}.
+     * @return The collector.
+     */
+    public static Collector<double[], LatLonBoundsBuilder, LatLonBounds> collector() {
+        return Collector.of(LatLonBoundsBuilder::new,
+                (builder, latlon) -> builder.add(latlon[0], latlon[1]),
+                LatLonBoundsBuilder::merge,
+                LatLonBoundsBuilder::build,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Bounds a large batch of points in parallel, splitting it into chunks bounded on the common fork-join pool.
+     * @param latlon interleaved {lat, lon, lat, lon...} positions, in degrees.
+     * @param offset the index of the first latitude.
+     * @param length the number of points to bound.
+     * @return The bounds of the points.
+     */
+    public static LatLonBounds parallel(double[] latlon, int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + 2L * length > latlon.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in an array of length " + latlon.length);
+        }
+        int nChunks = (length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        return IntStream.range(0, nChunks).parallel().collect(LatLonBoundsBuilder::new,
+                (builder, chunk) -> {
+                    int start = chunk * PARALLEL_CHUNK_SIZE;
+                    builder.addAll(latlon, offset + 2 * start, Math.min(PARALLEL_CHUNK_SIZE, length - start));
+                },
+                LatLonBoundsBuilder::merge).build();
+    }
+
+    /**
+     * Adds values as latitudes and longitudes in turn.
+     */
+    private final class PairAdder implements DoubleConsumer {
+        private double lat;
+        private boolean hasLat;
+
+        @Override
+        public void accept(double value) {
+            if (hasLat) {
+                add(lat, value);
+            } else {
+                lat = value;
+            }
+            hasLat = !hasLat;
+        }
+    }
+
+}
@@ -0,0 +1,330 @@
+package onethreeseven.geo.model;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * An immutable, packed R-tree of {@link LatLonBounds}, bulk loaded with Sort-Tile-Recursive (STR), for finding which
+ * of many bounds (i.e. geofences) contain a point or intersect a window.
+ * </p>
+ * <p>
+ * The tree is stored level by level in flat arrays of doubles, so the children of a node are found by index
+ * arithmetic and queries allocate nothing. Matches are reported to a {@link Visitor} as the index of the bounds in the
+ * array the tree was built from.
+ * </p>
+ * <p>
+ * Bounds crossing the antimeridian (see {@link LatLonBounds#crossesAntimeridian()}) are stored as two entries, one
+ * either side of it, and query windows crossing it are searched as two windows. Each bounds is still reported at most
+ * once per query.
+ * </p>
+ * Instances are safe to query from many threads at once.
+ * @author Luke Bermingham
+ */
+public final class LatLonBoundsIndex {
+
+    /**
+     * Receives the matches of a query.
+     */
+    public interface Visitor {
+        /**
+         * @param id the index of the matching bounds.
+         * @return True to continue the query, false to stop it.
+         */
+        boolean visit(int id);
+    }
+
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    private final LatLonBounds[] bounds;
+    private final int nodeSize;
+
+    //every level of the tree, leaves entries first and the root last
+    private final double[] minLats;
+    private final double[] maxLats;
+    private final double[] minLons;
+    private final double[] maxLons;
+    private final int[] levelStarts;
+    private final int[] levelSizes;
+
+    //the bounds of each leaf entry and whether it is the part of the bounds east of the antimeridian
+    private final int[] ids;
+    private final boolean[] eastParts;
+
+    public LatLonBoundsIndex(LatLonBounds... bounds) {
+        this(bounds, DEFAULT_NODE_SIZE);
+    }
+
+    /**
+     * @param bounds   the bounds to index, they are identified by their index in this array.
+     * @param nodeSize the maximum number of children of each node of the tree, at least 2.
+     */
+    public LatLonBoundsIndex(LatLonBounds[] bounds, int nodeSize) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2, was: " + nodeSize);
+        }
+        this.bounds = bounds.clone();
+        this.nodeSize = nodeSize;
+
+        int nEntries = 0;
+        for (LatLonBounds b : this.bounds) {
+            nEntries += b.crossesAntimeridian() ? 2 : 1;
+        }
+
+        //split the bounds crossing the antimeridian
+        double[] entryMinLats = new double[nEntries];
+        double[] entryMaxLats = new double[nEntries];
+        double[] entryMinLons = new double[nEntries];
+        double[] entryMaxLons = new double[nEntries];
+        int[] entryIds = new int[nEntries];
+        boolean[] entryEastParts = new boolean[nEntries];
+        for (int id = 0, e = 0; id < this.bounds.length; id++) {
+            LatLonBounds b = this.bounds[id];
+            entryMinLats[e] = b.getMinLat();
+            entryMaxLats[e] = b.getMaxLat();
+            entryMinLons[e] = b.getMinLon();
+            entryMaxLons[e] = b.crossesAntimeridian() ? 180 : b.getMaxLon();
+            entryIds[e++] = id;
+            if (b.crossesAntimeridian()) {
+                entryMinLats[e] = b.getMinLat();
+                entryMaxLats[e] = b.getMaxLat();
+                entryMinLons[e] = -180;
+                entryMaxLons[e] = b.getMaxLon();
+                entryEastParts[e] = true;
+                entryIds[e++] = id;
+            }
+        }
+
+        int[] order = strOrder(entryMinLats, entryMaxLats, entryMinLons, entryMaxLons, nodeSize);
+
+        //size every level
+        int nLevels = 1;
+        int totalNodes = nEntries;
+        for (int size = nEntries; size > 1; size = (size + nodeSize - 1) / nodeSize) {
+            nLevels++;
+            totalNodes += (size + nodeSize - 1) / nodeSize;
+        }
+        this.levelStarts = new int[nLevels];
+        this.levelSizes = new int[nLevels];
+        this.minLats = new double[totalNodes];
+        this.maxLats = new double[totalNodes];
+        this.minLons = new double[totalNodes];
+        this.maxLons = new double[totalNodes];
+        this.ids = new int[nEntries];
+        this.eastParts = new boolean[nEntries];
+
+        for (int i = 0; i < nEntries; i++) {
+            int e = order[i];
+            minLats[i] = entryMinLats[e];
+            maxLats[i] = entryMaxLats[e];
+            minLons[i] = entryMinLons[e];
+            maxLons[i] = entryMaxLons[e];
+            ids[i] = entryIds[e];
+            eastParts[i] = entryEastParts[e];
+        }
+        levelSizes[0] = nEntries;
+
+        //each node bounds the next nodeSize nodes of the level below
+        for (int level = 1; level < nLevels; level++) {
+            int childStart = levelStarts[level - 1];
+            int childEnd = childStart + levelSizes[level - 1];
+            levelStarts[level] = childEnd;
+            levelSizes[level] = (levelSizes[level - 1] + nodeSize - 1) / nodeSize;
+            for (int node = 0; node < levelSizes[level]; node++) {
+                int idx = childEnd + node;
+                int start = childStart + node * nodeSize;
+                int end = Math.min(start + nodeSize, childEnd);
+                double minLat = Double.POSITIVE_INFINITY;
+                double maxLat = Double.NEGATIVE_INFINITY;
+                double minLon = Double.POSITIVE_INFINITY;
+                double maxLon = Double.NEGATIVE_INFINITY;
+                for (int i = start; i < end; i++) {
+                    minLat = Math.min(minLat, minLats[i]);
+                    maxLat = Math.max(maxLat, maxLats[i]);
+                    minLon = Math.min(minLon, minLons[i]);
+                    maxLon = Math.max(maxLon, maxLons[i]);
+                }
+                minLats[idx] = minLat;
+                maxLats[idx] = maxLat;
+                minLons[idx] = minLon;
+                maxLons[idx] = maxLon;
+            }
+        }
+    }
+
+    /**
+     * Sort-Tile-Recursive ordering of the entries: sorted by longitude into vertical slices of
+     * sqrt(number of leaves) leaves, then each slice sorted by latitude, alternating direction so consecutive leaves,
+     * and so the nodes above them, stay close together.
+     */
+    private static int[] strOrder(double[] minLats, double[] maxLats, double[] minLons, double[] maxLons,
+                                  int nodeSize) {
+        int n = minLats.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = sortKey((minLons[i] + maxLons[i]) * 0.5, i);
+        }
+        Arrays.sort(keys);
+
+        int nLeaves = (n + nodeSize - 1) / nodeSize;
+        int sliceSize = (int) Math.ceil(Math.sqrt(nLeaves)) * nodeSize;
+        int[] order = new int[n];
+        boolean descending = false;
+        for (int sliceStart = 0; sliceStart < n; sliceStart += sliceSize) {
+            int sliceEnd = Math.min(sliceStart + sliceSize, n);
+            for (int i = sliceStart; i < sliceEnd; i++) {
+                int e = (int) keys[i];
+                keys[i] = sortKey((minLats[e] + maxLats[e]) * 0.5, e);
+            }
+            Arrays.sort(keys, sliceStart, sliceEnd);
+            for (int i = sliceStart; i < sliceEnd; i++) {
+                order[i] = (int) keys[descending ? sliceEnd - 1 - (i - sliceStart) : i];
+            }
+            descending = !descending;
+        }
+        return order;
+    }
+
+    /**
+     * @return A key sorting by the value (to float precision, which is plenty to tile by) then the index.
+     */
+    private static long sortKey(double value, int idx) {
+        int bits = Float.floatToIntBits((float) value);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | idx;
+    }
+
+    /**
+     * Visits every bounds containing the point, inclusive of their edges, see {@link LatLonBounds#contains(double, double)}.
+     * @param lat     the latitude of the point, in degrees.
+     * @param lon     the longitude of the point, in degrees within [-180, 180].
+     * @param visitor receives the index of each bounds containing the point.
+     * @return False if the visitor stopped the query, otherwise true.
+     */
+    public boolean queryPoint(double lat, double lon, Visitor visitor) {
+        int root = levelStarts.length - 1;
+        int rootIdx = levelStarts[root];
+        if (levelSizes[0] == 0 || !containsPoint(rootIdx, lat, lon)) {
+            return true;
+        }
+        return root == 0 ? visitor.visit(ids[0]) : searchPoint(root, 0, lat, lon, visitor);
+    }
+
+    private boolean searchPoint(int level, int node, double lat, double lon, Visitor visitor) {
+        int childLevel = level - 1;
+        int childStart = levelStarts[childLevel];
+        int start = childStart + node * nodeSize;
+        int end = Math.min(start + nodeSize, childStart + levelSizes[childLevel]);
+        for (int i = start; i < end; i++) {
+            if (containsPoint(i, lat, lon)) {
+                if (childLevel == 0) {
+                    //a point can only be on one side of the antimeridian, so there is nothing to de-duplicate
+                    if (!visitor.visit(ids[i])) {
+                        return false;
+                    }
+                } else if (!searchPoint(childLevel, i - childStart, lat, lon, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean containsPoint(int idx, double lat, double lon) {
+        return lat >= minLats[idx] && lat <= maxLats[idx] && lon >= minLons[idx] && lon <= maxLons[idx];
+    }
+
+    /**
+     * Visits every bounds intersecting the window, see {@link LatLonBounds#intersects(LatLonBounds)}.
+     * @param window  the window, it may cross the antimeridian.
+     * @param visitor receives the index of each bounds intersecting the window.
+     * @return False if the visitor stopped the query, otherwise true.
+     */
+    public boolean queryWindow(LatLonBounds window, Visitor visitor) {
+        return queryWindow(window.getMinLat(), window.getMaxLat(), window.getMinLon(), window.getMaxLon(), visitor);
+    }
+
+    /**
+     * Same as {@link #queryWindow(LatLonBounds, Visitor)}, the window crosses the antimeridian if minLon &gt; maxLon.
+     */
+    public boolean queryWindow(double minLat, double maxLat, double minLon, double maxLon, Visitor visitor) {
+        if (levelSizes[0] == 0) {
+            return true;
+        }
+        if (minLon <= maxLon) {
+            return searchWindow(minLat, maxLat, minLon, maxLon, Double.NaN, visitor);
+        }
+        //west of the antimeridian, then east of it skipping the bounds the west already matched
+        return searchWindow(minLat, maxLat, minLon, 180, Double.NaN, visitor) &&
+               searchWindow(minLat, maxLat, -180, maxLon, minLon, visitor);
+    }
+
+    /**
+     * @param westMinLon the minimum longitude of the west part of a window split at the antimeridian, when searching
+     *                   its east part, otherwise NaN.
+     */
+    private boolean searchWindow(double minLat, double maxLat, double minLon, double maxLon,
+                                 double westMinLon, Visitor visitor) {
+        int root = levelStarts.length - 1;
+        if (!intersects(levelStarts[root], minLat, maxLat, minLon, maxLon)) {
+            return true;
+        }
+        if (root == 0) {
+            return visitEntry(0, minLon, maxLon, westMinLon, visitor);
+        }
+        return searchWindow(root, 0, minLat, maxLat, minLon, maxLon, westMinLon, visitor);
+    }
+
+    private boolean searchWindow(int level, int node, double minLat, double maxLat, double minLon, double maxLon,
+                                 double westMinLon, Visitor visitor) {
+        int childLevel = level - 1;
+        int childStart = levelStarts[childLevel];
+        int start = childStart + node * nodeSize;
+        int end = Math.min(start + nodeSize, childStart + levelSizes[childLevel]);
+        for (int i = start; i < end; i++) {
+            if (intersects(i, minLat, maxLat, minLon, maxLon)) {
+                if (childLevel == 0) {
+                    if (!visitEntry(i, minLon, maxLon, westMinLon, visitor)) {
+                        return false;
+                    }
+                } else if (!searchWindow(childLevel, i - childStart, minLat, maxLat, minLon, maxLon,
+                        westMinLon, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits the bounds of a leaf entry matching a window, unless the bounds is reported by another pair of entry and
+     * window parts: the west part of a split bounds matching the same window, or any part matching the west part of a
+     * split window. Both parts share the latitudes of what they were split from, so only longitudes are compared.
+     */
+    private boolean visitEntry(int i, double minLon, double maxLon, double westMinLon, Visitor visitor) {
+        LatLonBounds b = bounds[ids[i]];
+        if (eastParts[i] && b.getMinLon() < maxLon && minLon < 180) {
+            return true;
+        }
+        if (!Double.isNaN(westMinLon) && LatLonBounds.lonIntersects(b.getMinLon(), b.getMaxLon(), westMinLon, 180)) {
+            return true;
+        }
+        return visitor.visit(ids[i]);
+    }
+
+    private boolean intersects(int idx, double minLat, double maxLat, double minLon, double maxLon) {
+        return minLats[idx] < maxLat && maxLats[idx] > minLat && minLons[idx] < maxLon && maxLons[idx] > minLon;
+    }
+
+    public int size() {
+        return bounds.length;
+    }
+
+    /**
+     * @param id the index of the bounds.
+     * @return The bounds with this index.
+     */
+    public LatLonBounds getBounds(int id) {
+        return bounds[id];
+    }
+
+}
@@ -0,0 +1,344 @@
+package onethreeseven.geo.model;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Z-order (Morton) keys of geographic positions, for keying a sorted store (i.e. a B-tree or a sorted array) by
+ * spatial cell so that positions close together mostly have keys close together.
+ * </p>
+ * <p>
+ * The latitude and longitude are each quantized to 31 bits, so a cell at the finest level is about 1cm across at the
+ * equator, and the bits are interleaved into a positive long with the longitude in the higher bit of each pair. The
+ * first 2L bits of a key are the cell of the position at level L (L bits per axis, level 0 is the whole sphere), so
+ * every cell is a single range of keys. The first 5n bits of a key are the geohash of the position with n
+ * characters, see {@link Geohash}.
+ * </p>
+ * Neighbours and covers of bounds are returned as sorted, disjoint ranges of keys packed into a
+ * <code>long[]</code> as {start, end, start, end, ...}, with each start inclusive and each end exclusive, so a query is
+ * a handful of range scans.
+ * @author Luke Bermingham
+ */
+public final class MortonCode {
+
+    /**
+     * The bits per axis of a key, and so the finest level.
+     */
+    public static final int MAX_LEVEL = 31;
+
+    static final int KEY_BITS = 2 * MAX_LEVEL;
+    private static final long AXIS_CELLS = 1L << MAX_LEVEL;
+    private static final double LAT_SCALE = AXIS_CELLS / 180.0;
+    private static final double LON_SCALE = AXIS_CELLS / 360.0;
+    private static final double LAT_STEP = 180.0 / AXIS_CELLS;
+    private static final double LON_STEP = 360.0 / AXIS_CELLS;
+
+    private MortonCode() {
+    }
+
+    /**
+     * Positions outside of [-90, 90] and [-180, 180] are clamped into the first or last cell of the axis.
+     * @param lat the latitude in degrees.
+     * @param lon the longitude in degrees.
+     * @return The key of the position.
+     */
+    public static long encode(double lat, double lon) {
+        return (spread(quantize((lon + 180) * LON_SCALE)) << 1) | spread(quantize((lat + 90) * LAT_SCALE));
+    }
+
+    /**
+     * Encodes a batch of positions interleaved like {lat, lon, ...}.
+     * @param latlons the interleaved positions, the position of key i is at index 2i.
+     * @param keys    the array to write the keys to.
+     * @param offset  the index of the first key (and position).
+     * @param length  the number of positions to encode.
+     */
+    public static void encode(double[] latlons, long[] keys, int offset, int length) {
+        checkBatch(offset, length, latlons.length / 2, keys.length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            keys[i] = encode(latlons[2 * i], latlons[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Encodes a batch of positions stored as separate latitude and longitude columns.
+     * @param lats   the latitudes.
+     * @param lons   the longitudes.
+     * @param keys   the array to write the keys to.
+     * @param offset the index of the first position in every array.
+     * @param length the number of positions to encode.
+     */
+    public static void encode(double[] lats, double[] lons, long[] keys, int offset, int length) {
+        checkBatch(offset, length, Math.min(lats.length, lons.length), keys.length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            keys[i] = encode(lats[i], lons[i]);
+        }
+    }
+
+    /**
+     * @param latlons the positions.
+     * @param keys    the array to write the key of each position to, at least as long as the buffer.
+     */
+    public static void encode(CoordinateBuffer latlons, long[] keys) {
+        int n = latlons.size();
+        checkBatch(0, n, n, keys.length);
+        for (int i = 0; i < n; i++) {
+            keys[i] = encode(latlons.get(2 * i), latlons.get(2 * i + 1));
+        }
+    }
+
+    /**
+     * Decodes a batch of keys to the centres of their cells at the finest level, interleaved like {lat, lon, ...}.
+     * @param keys    the keys.
+     * @param latlons the array to write the interleaved positions to, the position of key i is at index 2i.
+     * @param offset  the index of the first key (and position).
+     * @param length  the number of keys to decode.
+     */
+    public static void decode(long[] keys, double[] latlons, int offset, int length) {
+        checkBatch(offset, length, keys.length, latlons.length / 2);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            long key = keys[i];
+            latlons[2 * i] = (compact(key) + 0.5) * LAT_STEP - 90;
+            latlons[2 * i + 1] = (compact(key >>> 1) + 0.5) * LON_STEP - 180;
+        }
+    }
+
+    /**
+     * @param key the key.
+     * @return The latitude of the centre of the finest cell of the key.
+     */
+    public static double decodeLat(long key) {
+        return (compact(key) + 0.5) * LAT_STEP - 90;
+    }
+
+    /**
+     * @param key the key.
+     * @return The longitude of the centre of the finest cell of the key.
+     */
+    public static double decodeLon(long key) {
+        return (compact(key >>> 1) + 0.5) * LON_STEP - 180;
+    }
+
+    /**
+     * @param key   any key within the cell.
+     * @param level the level of the cell [0, 31].
+     * @return The bounds of the cell.
+     */
+    public static LatLonBounds cell(long key, int level) {
+        checkLevel(level);
+        int shift = MAX_LEVEL - level;
+        double latSize = 180.0 / (1L << level);
+        double lonSize = 360.0 / (1L << level);
+        long latIdx = compact(key) >>> shift;
+        long lonIdx = compact(key >>> 1) >>> shift;
+        return new LatLonBounds(-90 + latIdx * latSize, -90 + (latIdx + 1) * latSize,
+                -180 + lonIdx * lonSize, -180 + (lonIdx + 1) * lonSize);
+    }
+
+    /**
+     * @param key   any key within the cell.
+     * @param level the level of the cell [0, 31].
+     * @return The range of keys in the cell, {start, end}.
+     */
+    public static long[] range(long key, int level) {
+        checkLevel(level);
+        int shift = KEY_BITS - 2 * level;
+        long start = (key >>> shift) << shift;
+        return new long[]{start, start + (1L << shift)};
+    }
+
+    /**
+     * The cells sharing an edge or a corner with a cell, wrapping around the antimeridian. Cells touching a pole have
+     * no neighbours across it.
+     * @param key   any key within the cell.
+     * @param level the level of the cell [0, 31].
+     * @return The ranges of keys of the neighbouring cells, {start, end, ...}.
+     */
+    public static long[] neighbours(long key, int level) {
+        checkLevel(level);
+        int shift = MAX_LEVEL - level;
+        long cells = 1L << level;
+        long latIdx = compact(key) >>> shift;
+        long lonIdx = compact(key >>> 1) >>> shift;
+        long self = (spread(lonIdx) << 1) | spread(latIdx);
+
+        long[] prefixes = new long[8];
+        int n = 0;
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            long lat = latIdx + dLat;
+            if (lat < 0 || lat >= cells) {
+                continue;
+            }
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                long lon = (lonIdx + dLon + cells) & (cells - 1);
+                long prefix = (spread(lon) << 1) | spread(lat);
+                if (prefix != self) {
+                    prefixes[n++] = prefix;
+                }
+            }
+        }
+        Arrays.sort(prefixes, 0, n);
+
+        RangeList ranges = new RangeList();
+        int keyShift = KEY_BITS - 2 * level;
+        for (int i = 0; i < n; i++) {
+            //small levels wrap onto the same cell more than once
+            if (i == 0 || prefixes[i] != prefixes[i - 1]) {
+                ranges.add(prefixes[i] << keyShift, (prefixes[i] + 1) << keyShift);
+            }
+        }
+        return ranges.toArray();
+    }
+
+    /**
+     * The cells of a level intersecting some bounds, using the largest cells that fit within the bounds. Every
+     * position within the bounds has a key in one of the ranges, positions outside of the bounds may too.
+     * @param bounds the bounds to cover, they may cross the antimeridian.
+     * @param level  the level of the cells on the edge of the bounds [0, 31], finer levels give more ranges that fit
+     *               the bounds more closely.
+     * @return The ranges of keys, {start, end, ...}.
+     */
+    public static long[] cover(LatLonBounds bounds, int level) {
+        checkLevel(level);
+        double minLat = bounds.getMinLat();
+        double maxLat = bounds.getMaxLat();
+        RangeList ranges = new RangeList();
+        if (bounds.crossesAntimeridian()) {
+            cover(ranges, level, 0, 0, 0, minLat, maxLat, bounds.getMinLon(), 180, -180, bounds.getMaxLon());
+        } else {
+            double minLon = bounds.getMinLon();
+            double maxLon = bounds.getMaxLon();
+            cover(ranges, level, 0, 0, 0, minLat, maxLat, minLon, maxLon, minLon, maxLon);
+        }
+        return ranges.toArray();
+    }
+
+    /**
+     * Visits the cells in key order, so ranges are added sorted. The longitude interval is the union of two
+     * intervals, which are the same unless the bounds cross the antimeridian.
+     */
+    private static void cover(RangeList ranges, int level, int depth, long latIdx, long lonIdx,
+                              double minLat, double maxLat,
+                              double minLonA, double maxLonA, double minLonB, double maxLonB) {
+        double latSize = 180.0 / (1L << depth);
+        double lonSize = 360.0 / (1L << depth);
+        double cMinLat = -90 + latIdx * latSize;
+        double cMaxLat = cMinLat + latSize;
+        double cMinLon = -180 + lonIdx * lonSize;
+        double cMaxLon = cMinLon + lonSize;
+        //closed on both sides, a position on the edge of the bounds may be in either cell (or the last cell at 90/180)
+        boolean inA = cMinLon <= maxLonA && cMaxLon >= minLonA;
+        boolean inB = cMinLon <= maxLonB && cMaxLon >= minLonB;
+        if (!(cMinLat <= maxLat && cMaxLat >= minLat) || !(inA || inB)) {
+            return;
+        }
+        boolean within = cMinLat >= minLat && cMaxLat <= maxLat &&
+                ((cMinLon >= minLonA && cMaxLon <= maxLonA) || (cMinLon >= minLonB && cMaxLon <= maxLonB));
+        if (within || depth == level) {
+            long prefix = (spread(lonIdx) << 1) | spread(latIdx);
+            int shift = KEY_BITS - 2 * depth;
+            ranges.add(prefix << shift, (prefix + 1) << shift);
+            return;
+        }
+        //children in key order, the longitude bit is the higher one
+        for (int child = 0; child < 4; child++) {
+            cover(ranges, level, depth + 1, (latIdx << 1) | (child & 1), (lonIdx << 1) | (child >>> 1),
+                    minLat, maxLat, minLonA, maxLonA, minLonB, maxLonB);
+        }
+    }
+
+    /**
+     * @param ranges the ranges of keys, {start, end, ...}.
+     * @param key    the key.
+     * @return True if the key is in one of the ranges.
+     */
+    public static boolean rangesContain(long[] ranges, long key) {
+        //the index of the first start after the key, the key is in the range before it
+        int lo = 0;
+        int hi = ranges.length / 2;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ranges[2 * mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo > 0 && key < ranges[2 * lo - 1];
+    }
+
+    private static long quantize(double v) {
+        //NaN and anything below zero go to the first cell
+        if (!(v >= 0)) {
+            return 0;
+        }
+        return v >= AXIS_CELLS ? AXIS_CELLS - 1 : (long) v;
+    }
+
+    /**
+     * Spreads the low 31 bits of a value into the even bits of a long, a bit at a time would be 31 shifts.
+     */
+    static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    /**
+     * The inverse of {@link #spread(long)}, gathers the even bits of a long into its low 32 bits.
+     */
+    static long compact(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v >>> 16)) & 0x00000000FFFFFFFFL;
+        return v;
+    }
+
+    static void checkLevel(int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level must be within [0, " + MAX_LEVEL + "], was: " + level);
+        }
+    }
+
+    private static void checkBatch(int offset, int length, int srcSize, int dstSize) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        if ((long) offset + length > srcSize || (long) offset + length > dstSize) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given arrays.");
+        }
+    }
+
+    /**
+     * A growable list of sorted ranges, merging each range into the last when they touch.
+     */
+    static final class RangeList {
+        private long[] ranges = new long[16];
+        private int size;
+
+        void add(long start, long end) {
+            if (size > 0 && ranges[size - 1] == start) {
+                ranges[size - 1] = end;
+                return;
+            }
+            if (size == ranges.length) {
+                ranges = Arrays.copyOf(ranges, size * 2);
+            }
+            ranges[size++] = start;
+            ranges[size++] = end;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ranges, size);
+        }
+    }
+
+}
@@ -0,0 +1,440 @@
+package onethreeseven.geo.model;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A polygon (i.e. a geofence) prepared once for testing many points against. Edges are straight lines in latitude and
+ * longitude, rings may cross the antimeridian and holes are rings inside other rings, points inside an odd number of
+ * rings are inside the polygon.
+ * </p>
+ * <p>
+ * Points are rejected against the bounds of the polygon first. Within the bounds the polygon is covered by a grid of
+ * about two cells per edge, each cell listing the edges that touch it and whether the corner at its bottom right is
+ * inside. A point is inside if its cell's corner is, flipped by every edge crossed on the way from the point to the
+ * corner, so a point tests only the few edges of its cell rather than every edge of the polygon. Cells no edge touches
+ * are wholly in or out and cost a lookup.
+ * </p>
+ * Points on an edge are either in or out, but always the same as a ray cast to the east would say (counting the
+ * edges crossing the parallel just north of the point, east of the point). To test many polygons index their {@link #getBounds()} with a
+ * {@link LatLonBoundsIndex}. Instances are safe to query from many threads at once.
+ * @author Luke Bermingham
+ */
+public final class PreparedPolygon {
+
+    private static final int CELLS_PER_EDGE = 2;
+    private static final int MAX_CELLS = 1 << 20;
+    /**
+     * The fraction of a cell an edge may miss it by and still be listed in it, for rounding.
+     */
+    private static final double SLACK = 1e-6;
+
+    private final LatLonBounds bounds;
+    private final int nEdges;
+
+    //the unwrapped extent, longitudes of rings crossing the antimeridian continue past 180 (or -180)
+    private final double minX;
+    private final double maxX;
+    private final double minY;
+    private final double maxY;
+
+    //edges from (lon, lat) a to (lon, lat) b
+    private final double[] ax;
+    private final double[] ay;
+    private final double[] bx;
+    private final double[] by;
+
+    private final int cols;
+    private final int rows;
+    private final double colScale;
+    private final double rowScale;
+    private final double[] colRight;
+    private final double[] rowBottom;
+    private final int[] cellStarts;
+    private final int[] cellEdges;
+    private final long[] cornersInside;
+
+    /**
+     * @param rings the rings of the polygon, each interleaved like {lat, lon, ...} with at least 3 points. Each ring is
+     *              closed from its last point back to its first.
+     */
+    public PreparedPolygon(double[]... rings) {
+        if (rings.length == 0) {
+            throw new IllegalArgumentException("A polygon needs at least one ring.");
+        }
+        int total = 0;
+        for (double[] ring : rings) {
+            if (ring.length < 6 || ring.length % 2 != 0) {
+                throw new IllegalArgumentException("A ring needs at least 3 points interleaved like {lat, lon, ...}.");
+            }
+            total += ring.length / 2;
+        }
+
+        //unwrap the longitudes so every edge is the short way around, and every ring is near the first
+        double[] xs = new double[total];
+        double[] ys = new double[total];
+        int[] ringStarts = new int[rings.length + 1];
+        int n = 0;
+        for (int r = 0; r < rings.length; r++) {
+            double[] ring = rings[r];
+            ringStarts[r] = n;
+            double prev = ring[1];
+            double sum = 0;
+            for (int i = 0; i < ring.length; i += 2) {
+                double lon = ring[i + 1];
+                lon += 360 * Math.rint((prev - lon) / 360);
+                xs[n] = lon;
+                ys[n] = ring[i];
+                prev = lon;
+                sum += lon;
+                n++;
+            }
+            if (r > 0) {
+                double shift = 360 * Math.rint((xs[0] - sum / (ring.length / 2)) / 360);
+                for (int i = ringStarts[r]; i < n; i++) {
+                    xs[i] += shift;
+                }
+            }
+        }
+        ringStarts[rings.length] = n;
+
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < total; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (!(maxX - minX < 360)) {
+            throw new IllegalArgumentException("Rings must not wrap all the way around the sphere.");
+        }
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.bounds = new LatLonBounds(minY, maxY, wrap(minX), wrap(maxX));
+
+        //the edges, less those of no length which never cross anything
+        double[] ax = new double[total];
+        double[] ay = new double[total];
+        double[] bx = new double[total];
+        double[] by = new double[total];
+        int nEdges = 0;
+        for (int r = 0; r < rings.length; r++) {
+            for (int i = ringStarts[r]; i < ringStarts[r + 1]; i++) {
+                int j = i + 1 < ringStarts[r + 1] ? i + 1 : ringStarts[r];
+                if (xs[i] != xs[j] || ys[i] != ys[j]) {
+                    ax[nEdges] = xs[i];
+                    ay[nEdges] = ys[i];
+                    bx[nEdges] = xs[j];
+                    by[nEdges] = ys[j];
+                    nEdges++;
+                }
+            }
+        }
+        this.nEdges = nEdges;
+        this.ax = Arrays.copyOf(ax, nEdges);
+        this.ay = Arrays.copyOf(ay, nEdges);
+        this.bx = Arrays.copyOf(bx, nEdges);
+        this.by = Arrays.copyOf(by, nEdges);
+
+        //a grid of about square cells over the extent
+        double width = maxX - minX;
+        double height = maxY - minY;
+        int nCells = (int) Math.min(MAX_CELLS, Math.max(1L, (long) CELLS_PER_EDGE * nEdges));
+        int cols;
+        if (width > 0 && height > 0) {
+            cols = (int) Math.round(Math.sqrt(nCells * width / height));
+        } else {
+            cols = width > 0 ? nCells : 1;
+        }
+        cols = Math.max(1, Math.min(nCells, cols));
+        int rows = Math.max(1, nCells / cols);
+        this.cols = cols;
+        this.rows = rows;
+        this.colScale = width > 0 ? cols / width : 0;
+        this.rowScale = height > 0 ? rows / height : 0;
+        this.colRight = new double[cols];
+        for (int c = 0; c < cols; c++) {
+            colRight[c] = c == cols - 1 ? maxX : minX + (c + 1) * (width / cols);
+        }
+        this.rowBottom = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            rowBottom[r] = minY + r * (height / rows);
+        }
+
+        this.cellStarts = new int[cols * rows + 1];
+        this.cellEdges = new int[assignEdges(null)];
+        assignEdges(cellEdges);
+        this.cornersInside = new long[(cols * rows + 63) / 64];
+        findCornersInside();
+    }
+
+    /**
+     * @return The bounds of the polygon, they cross the antimeridian if the polygon does.
+     */
+    public LatLonBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return The number of edges of every ring, less any of no length.
+     */
+    public int getEdgeCount() {
+        return nEdges;
+    }
+
+    /**
+     * @param lat the latitude of the point in degrees.
+     * @param lon the longitude of the point in degrees.
+     * @return True if the point is inside the polygon.
+     */
+    public boolean contains(double lat, double lon) {
+        if (!(lat >= minY && lat <= maxY)) {
+            return false;
+        }
+        if (lon < minX) {
+            lon += 360;
+        } else if (lon > maxX) {
+            lon -= 360;
+        }
+        if (!(lon >= minX && lon <= maxX)) {
+            return false;
+        }
+        return containsUnwrapped(lat, lon);
+    }
+
+    /**
+     * Tests a batch of points interleaved like {lat, lon, ...}.
+     * @param latlons the interleaved points.
+     * @param offset  the index of the first point, the point at index 2 * offset.
+     * @param length  the number of points.
+     * @return The points inside, bit i of the mask (bit i % 64 of long i / 64) is set if point offset + i is inside.
+     */
+    public long[] contains(double[] latlons, int offset, int length) {
+        long[] mask = new long[(Math.max(0, length) + 63) / 64];
+        contains(latlons, offset, length, mask);
+        return mask;
+    }
+
+    /**
+     * Tests a batch of points interleaved like {lat, lon, ...}.
+     * @param latlons the interleaved points.
+     * @param offset  the index of the first point, the point at index 2 * offset.
+     * @param length  the number of points.
+     * @param mask    the mask to write to, bit i (bit i % 64 of long i / 64) is set if point offset + i is inside and
+     *                cleared if not.
+     * @return The number of points inside.
+     */
+    public int contains(double[] latlons, int offset, int length, long[] mask) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        if ((long) offset + length > latlons.length / 2 || (length + 63) / 64 > mask.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given arrays.");
+        }
+        int inside = 0;
+        for (int w = 0, words = (length + 63) / 64; w < words; w++) {
+            long bits = 0;
+            for (int b = 0, end = Math.min(64, length - 64 * w); b < end; b++) {
+                int p = 2 * (offset + 64 * w + b);
+                if (contains(latlons[p], latlons[p + 1])) {
+                    bits |= 1L << b;
+                }
+            }
+            mask[w] = bits;
+            inside += Long.bitCount(bits);
+        }
+        return inside;
+    }
+
+    /**
+     * The ray cast east from the point has the parity of the ray cast from the bottom right corner of its cell, flipped
+     * by the edges crossing the parallel between the point and the right edge of the cell, and by those crossing the
+     * right edge of the cell between the point and the corner. Each crossing is decided by which side of the edge the
+     * point (or corner) is on, see {@link #side(int, double, double)}, so every test of one point against one edge
+     * agrees with every other.
+     */
+    private boolean containsUnwrapped(double y, double x) {
+        int c = (int) ((x - minX) * colScale);
+        c = c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+        //rounding may put the point just outside the cell
+        while (c < cols - 1 && x > colRight[c]) {
+            c++;
+        }
+        while (c > 0 && x <= colRight[c - 1]) {
+            c--;
+        }
+        int r = (int) ((y - minY) * rowScale);
+        r = r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+        while (r < rows - 1 && y >= rowBottom[r + 1]) {
+            r++;
+        }
+        while (r > 0 && y < rowBottom[r]) {
+            r--;
+        }
+
+        int cell = r * cols + c;
+        boolean inside = (cornersInside[cell >>> 6] & (1L << cell)) != 0;
+        int start = cellStarts[cell];
+        int end = cellStarts[cell + 1];
+        if (start == end) {
+            return inside;
+        }
+        double x1 = colRight[c];
+        double y0 = rowBottom[r];
+        for (int k = start; k < end; k++) {
+            int e = cellEdges[k];
+            if ((ay[e] > y) != (by[e] > y) && east(e, x, y) != east(e, x1, y)) {
+                inside = !inside;
+            }
+            if ((ax[e] > x1) != (bx[e] > x1) && above(e, x1, y) != above(e, x1, y0)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * The side of an edge a point is on, positive if left of it going from a to b. Points are nudged east and (by far
+     * less) north, so a point on the line of the edge is left of it if the edge heads south, or if it heads due west.
+     */
+    private int side(int e, double x, double y) {
+        double dx = bx[e] - ax[e];
+        double dy = by[e] - ay[e];
+        double cross = dx * (y - ay[e]) - (x - ax[e]) * dy;
+        if (cross != 0) {
+            return cross > 0 ? 1 : -1;
+        }
+        if (dy != 0) {
+            return dy < 0 ? 1 : -1;
+        }
+        return dx > 0 ? 1 : -1;
+    }
+
+    /**
+     * @return True if an edge crossing the parallel of a point crosses it east of the point.
+     */
+    private boolean east(int e, double x, double y) {
+        int side = side(e, x, y);
+        return by[e] > ay[e] ? side > 0 : side < 0;
+    }
+
+    /**
+     * @return True if an edge crossing the meridian of a point crosses it north of the point.
+     */
+    private boolean above(int e, double x, double y) {
+        int side = side(e, x, y);
+        return bx[e] > ax[e] ? side < 0 : side > 0;
+    }
+
+    /**
+     * Lists each edge in every cell it touches (give or take a hair), within each row it spans, first counting them
+     * into the starts of the cells when the edges are null.
+     * @return The total number of entries.
+     */
+    private int assignEdges(int[] edges) {
+        int[] next = edges == null ? null : Arrays.copyOf(cellStarts, cellStarts.length - 1);
+        for (int e = 0; e < nEdges; e++) {
+            double eMinY = Math.min(ay[e], by[e]);
+            double eMaxY = Math.max(ay[e], by[e]);
+            int r0 = rowOf(eMinY, -SLACK);
+            int r1 = rowOf(eMaxY, SLACK);
+            for (int r = r0; r <= r1; r++) {
+                double x0 = Math.min(ax[e], bx[e]);
+                double x1 = Math.max(ax[e], bx[e]);
+                if (r0 != r1 && ay[e] != by[e]) {
+                    //only the part of the edge within the row, rows only split when they have height
+                    double slack = SLACK / rowScale;
+                    double lo = Math.max(eMinY, rowBottom[r] - slack);
+                    double hi = Math.min(eMaxY, (r + 1 < rows ? rowBottom[r + 1] : maxY) + slack);
+                    double xa = ax[e] + (lo - ay[e]) * (bx[e] - ax[e]) / (by[e] - ay[e]);
+                    double xb = ax[e] + (hi - ay[e]) * (bx[e] - ax[e]) / (by[e] - ay[e]);
+                    x0 = Math.max(x0, Math.min(xa, xb));
+                    x1 = Math.min(x1, Math.max(xa, xb));
+                }
+                int c0 = colOf(x0, -SLACK);
+                int c1 = colOf(x1, SLACK);
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * cols + c;
+                    if (edges == null) {
+                        cellStarts[cell + 1]++;
+                    } else {
+                        edges[next[cell]++] = e;
+                    }
+                }
+            }
+        }
+        if (edges == null) {
+            for (int i = 1; i < cellStarts.length; i++) {
+                cellStarts[i] += cellStarts[i - 1];
+            }
+        }
+        return cellStarts[cellStarts.length - 1];
+    }
+
+    /**
+     * @param slack a fraction of a cell to move the value by.
+     */
+    private int colOf(double x, double slack) {
+        int c = (int) Math.floor((x - minX) * colScale + slack);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+
+    private int rowOf(double y, double slack) {
+        int r = (int) Math.floor((y - minY) * rowScale + slack);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+
+    /**
+     * Ray casts east from the bottom right corner of every cell, a row at a time. The edges crossing the bottom of a
+     * row all touch the row, and each is east of the corners of a run of columns from the west, found from where it
+     * crosses and checked with the same test as the points.
+     */
+    private void findCornersInside() {
+        int[] seen = new int[nEdges];
+        Arrays.fill(seen, -1);
+        boolean[] flips = new boolean[cols + 1];
+        for (int r = 0; r < rows; r++) {
+            double y0 = rowBottom[r];
+            Arrays.fill(flips, false);
+            for (int k = cellStarts[r * cols], end = cellStarts[(r + 1) * cols]; k < end; k++) {
+                int e = cellEdges[k];
+                if (seen[e] == r || (ay[e] > y0) == (by[e] > y0)) {
+                    continue;
+                }
+                seen[e] = r;
+                double xc = ax[e] + (y0 - ay[e]) * (bx[e] - ax[e]) / (by[e] - ay[e]);
+                int run = colOf(xc, 0);
+                while (run < cols && east(e, colRight[run], y0)) {
+                    run++;
+                }
+                while (run > 0 && !east(e, colRight[run - 1], y0)) {
+                    run--;
+                }
+                flips[run] = !flips[run];
+            }
+            //a corner is inside if an odd number of runs reach past it
+            boolean inside = false;
+            for (int c = cols - 1; c >= 0; c--) {
+                inside ^= flips[c + 1];
+                if (inside) {
+                    int cell = r * cols + c;
+                    cornersInside[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    private static double wrap(double lon) {
+        if (lon > 180) {
+            return lon - 360;
+        }
+        return lon < -180 ? lon + 360 : lon;
+    }
+
+}
@@ -1,5 +1,9 @@
 package onethreeseven.geo.projection;
 
+import onethreeseven.geo.model.CoordinateBuffer;
+
+import java.nio.DoubleBuffer;
+
 /**
  * <p>
  * Defines an interface to project geographic coordinates to Cartesian coordinates (and back again).
@@ -13,6 +17,11 @@ package onethreeseven.geo.projection;
  */
 public abstract class AbstractGeographicProjection
 {
+    /**
+     * The number of points copied out of a buffer at a time by the buffer bulk methods.
+     */
+    static final int BUFFER_CHUNK_SIZE = 1024;
+
     final ProjectionLimits projectionLimits;
 
     public AbstractGeographicProjection(ProjectionLimits projectionLimits) {
@@ -31,7 +40,11 @@ public abstract class AbstractGeographicProjection
      *
      * @return The Cartesian point {x,y}, in meters, corresponding to the input position.
      */
-    public abstract double[] geographicToCartesian(double latitude, double longitude);
+    public double[] geographicToCartesian(double latitude, double longitude) {
+        double[] xy = new double[2];
+        geographicToCartesian(latitude, longitude, xy, 0);
+        return xy;
+    }
 
     /**
      * <p>
@@ -45,7 +58,248 @@ public abstract class AbstractGeographicProjection
      * @return The geographic position in degrees, like: {lat, lon}.
      *
      */
-    public abstract double[] cartesianToGeographic(double[] cart);
+    public double[] cartesianToGeographic(double[] cart) {
+        double[] latlon = new double[2];
+        cartesianToGeographic(cart[0], cart[1], latlon, 0);
+        return latlon;
+    }
+
+    /**
+     * <p>
+     * Converts a geographic position to meters in Cartesian coordinates, writing the result into a caller supplied
+     * buffer.
+     * </p>
+     * Implementations must not allocate, so this method is safe to call on hot paths.
+     *
+     * @param latitude  The latitude of the position.
+     * @param longitude The longitude of the position.
+     * @param out       The buffer to write the Cartesian point to, x is stored at <code>offset</code> and y at
+     *                  <code>offset + 1</code>.
+     * @param offset    The index in <code>out</code> to write x to.
+     */
+    public abstract void geographicToCartesian(double latitude, double longitude, double[] out, int offset);
+
+    /**
+     * <p>
+     * Converts a Cartesian point in meters to a geographic position, writing the result into a caller supplied
+     * buffer.
+     * </p>
+     * Implementations must not allocate, so this method is safe to call on hot paths.
+     *
+     * @param x      The x value of the Cartesian point, in meters.
+     * @param y      The y value of the Cartesian point, in meters.
+     * @param out    The buffer to write the geographic position to, in degrees, the latitude is stored at
+     *               <code>offset</code> and the longitude at <code>offset + 1</code>.
+     * @param offset The index in <code>out</code> to write the latitude to.
+     */
+    public abstract void cartesianToGeographic(double x, double y, double[] out, int offset);
+
+    /**
+     * <p>
+     * Converts a batch of geographic positions, interleaved like {lat, lon, ...}, to meters in Cartesian coordinates.
+     * </p>
+     * The output is written using the same layout as the input, i.e. the x/y of point <code>i</code> are stored at
+     * <code>offset + i * stride</code> and <code>offset + i * stride + 1</code>. Any other values between points are
+     * left untouched and the input and output may be the same array.
+     *
+     * @param latlon The interleaved geographic positions, in degrees.
+     * @param xy     The array to write the interleaved Cartesian points, in meters, to.
+     * @param offset The index of the first latitude.
+     * @param length The number of points to convert.
+     * @param stride The distance between consecutive points, at least 2.
+     */
+    public void geographicToCartesian(double[] latlon, double[] xy, int offset, int length, int stride) {
+        checkInterleaved(latlon, xy, offset, length, stride);
+        for (int i = offset, end = offset + length * stride; i < end; i += stride) {
+            geographicToCartesian(latlon[i], latlon[i + 1], xy, i);
+        }
+    }
+
+    /**
+     * Converts a batch of geographic positions, stored as separate latitude and longitude columns, to meters in
+     * Cartesian coordinates. The input and output columns may be the same arrays.
+     *
+     * @param lats   The latitudes, in degrees.
+     * @param lons   The longitudes, in degrees.
+     * @param xs     The array to write the x values, in meters, to.
+     * @param ys     The array to write the y values, in meters, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        final double[] cart = new double[2];
+        for (int i = offset, end = offset + length; i < end; i++) {
+            geographicToCartesian(lats[i], lons[i], cart, 0);
+            xs[i] = cart[0];
+            ys[i] = cart[1];
+        }
+    }
+
+    /**
+     * Converts a batch of Cartesian points in meters, interleaved like {x, y, ...}, to geographic positions.
+     * The output is written using the same layout as the input, see
+     * {@link #geographicToCartesian(double[], double[], int, int, int)}.
+     *
+     * @param xy     The interleaved Cartesian points, in meters.
+     * @param latlon The array to write the interleaved geographic positions, in degrees, to.
+     * @param offset The index of the first x value.
+     * @param length The number of points to convert.
+     * @param stride The distance between consecutive points, at least 2.
+     */
+    public void cartesianToGeographic(double[] xy, double[] latlon, int offset, int length, int stride) {
+        checkInterleaved(xy, latlon, offset, length, stride);
+        for (int i = offset, end = offset + length * stride; i < end; i += stride) {
+            cartesianToGeographic(xy[i], xy[i + 1], latlon, i);
+        }
+    }
+
+    /**
+     * Converts a batch of Cartesian points, stored as separate x and y columns, to geographic positions.
+     * The input and output columns may be the same arrays.
+     *
+     * @param xs     The x values, in meters.
+     * @param ys     The y values, in meters.
+     * @param lats   The array to write the latitudes, in degrees, to.
+     * @param lons   The array to write the longitudes, in degrees, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        final double[] geo = new double[2];
+        for (int i = offset, end = offset + length; i < end; i++) {
+            cartesianToGeographic(xs[i], ys[i], geo, 0);
+            lats[i] = geo[0];
+            lons[i] = geo[1];
+        }
+    }
+
+    /**
+     * <p>
+     * Converts a batch of geographic positions, interleaved like {lat, lon, ...}, held in a buffer (i.e. a memory
+     * mapped file) to meters in Cartesian coordinates, interleaved like {x, y, ...} in another buffer.
+     * </p>
+     * The points are copied through a small scratch array a chunk at a time and projected by
+     * {@link #geographicToCartesian(double[], double[], int, int, int)}, so the batch is never copied onto the heap
+     * as a whole. The input and output may be the same buffer and the positions of the buffers are left unchanged.
+     *
+     * @param latlon The interleaved geographic positions, in degrees.
+     * @param xy     The buffer to write the interleaved Cartesian points, in meters, to.
+     * @param offset The index of the first latitude in both buffers.
+     * @param length The number of points to convert.
+     */
+    public void geographicToCartesian(DoubleBuffer latlon, DoubleBuffer xy, int offset, int length) {
+        projectBuffer(latlon, xy, offset, length, true);
+    }
+
+    /**
+     * Converts a batch of Cartesian points in meters, interleaved like {x, y, ...}, held in a buffer to geographic
+     * positions, see {@link #geographicToCartesian(DoubleBuffer, DoubleBuffer, int, int)}.
+     *
+     * @param xy     The interleaved Cartesian points, in meters.
+     * @param latlon The buffer to write the interleaved geographic positions, in degrees, to.
+     * @param offset The index of the first x value in both buffers.
+     * @param length The number of points to convert.
+     */
+    public void cartesianToGeographic(DoubleBuffer xy, DoubleBuffer latlon, int offset, int length) {
+        projectBuffer(xy, latlon, offset, length, false);
+    }
+
+    /**
+     * Converts every geographic position of a buffer to meters in Cartesian coordinates, see
+     * {@link #geographicToCartesian(DoubleBuffer, DoubleBuffer, int, int)}.
+     *
+     * @param latlon The geographic positions, in degrees.
+     * @param xy     The buffer to write the Cartesian points, in meters, to, at least as large as the input.
+     */
+    public void geographicToCartesian(CoordinateBuffer latlon, CoordinateBuffer xy) {
+        projectBuffer(latlon.asDoubleBuffer(), xy.asDoubleBuffer(), 0, latlon.size(), true);
+    }
+
+    /**
+     * Converts every Cartesian point of a buffer to geographic positions, see
+     * {@link #cartesianToGeographic(DoubleBuffer, DoubleBuffer, int, int)}.
+     *
+     * @param xy     The Cartesian points, in meters.
+     * @param latlon The buffer to write the geographic positions, in degrees, to, at least as large as the input.
+     */
+    public void cartesianToGeographic(CoordinateBuffer xy, CoordinateBuffer latlon) {
+        projectBuffer(xy.asDoubleBuffer(), latlon.asDoubleBuffer(), 0, xy.size(), false);
+    }
+
+    private void projectBuffer(DoubleBuffer src, DoubleBuffer dst, int offset, int length, boolean toCartesian) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        long end = offset + 2L * length;
+        if (end > src.limit() || end > dst.limit()) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given buffers.");
+        }
+        DoubleBuffer in = src.duplicate();
+        DoubleBuffer out = dst.duplicate();
+        in.position(offset);
+        out.position(offset);
+        double[] scratch = new double[2 * Math.min(length, BUFFER_CHUNK_SIZE)];
+        for (int done = 0; done < length; ) {
+            int n = Math.min(BUFFER_CHUNK_SIZE, length - done);
+            in.get(scratch, 0, 2 * n);
+            if (toCartesian) {
+                geographicToCartesian(scratch, scratch, 0, n, 2);
+            } else {
+                cartesianToGeographic(scratch, scratch, 0, n, 2);
+            }
+            out.put(scratch, 0, 2 * n);
+            done += n;
+        }
+    }
+
+    static void checkInterleaved(double[] src, double[] dst, int offset, int length, int stride) {
+        if (stride < 2) {
+            throw new IllegalArgumentException("Stride must be at least 2, was: " + stride);
+        }
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        if (length == 0) {
+            return;
+        }
+        long last = offset + (long) (length - 1) * stride + 1;
+        if (last >= src.length || last >= dst.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points with stride " + stride +
+                    " starting at " + offset + " does not fit in the given arrays.");
+        }
+    }
+
+    static void checkColumns(double[] srcA, double[] srcB, double[] dstA, double[] dstB, int offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        long end = (long) offset + length;
+        if (end > srcA.length || end > srcB.length || end > dstA.length || end > dstB.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given columns.");
+        }
+    }
+
+    /**
+     * @return The branch free column kernels of this projection used by {@link LaneProjector},
+     * or null if this projection only has scalar kernels.
+     */
+    LaneKernel laneKernel() {
+        return null;
+    }
+
+    /**
+     * @param other another projection.
+     * @return {dx, dy} if the Cartesian points of the other projection are the points of this projection moved by
+     * {dx, dy}, i.e. the projections only differ in their false origin, otherwise null. Used by
+     * {@link ProjectionPipeline} to skip the round trip through geographic positions.
+     */
+    double[] translationTo(AbstractGeographicProjection other) {
+        return other == this ? new double[2] : null;
+    }
 
     public ProjectionLimits getProjectionLimits() {
         return projectionLimits;
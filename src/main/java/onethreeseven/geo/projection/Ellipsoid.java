@@ -0,0 +1,136 @@
+package onethreeseven.geo.projection;
+
+/**
+ * <p>
+ * An ellipsoid and every series coefficient the projections derive from it, computed once so that
+ * {@link ProjectionMercator}, {@link ProjectionUPS} and {@link ProjectionTransverseMercator} do not
+ * recompute them per point.
+ * </p>
+ * Instances are immutable and can be shared by any number of projections and threads, projections made with the
+ * WGS84 constants all share {@link #WGS84}.
+ * @author Luke Bermingham
+ */
+public final class Ellipsoid {
+
+    /**
+     * The WGS84 ellipsoid, using {@link Constants#WGS84_ES} for the eccentricity and
+     * {@link Constants#WGS84_POLAR_RADIUS} for the flattening, as the projections always have.
+     */
+    public static final Ellipsoid WGS84 = new Ellipsoid(Constants.WGS84_EQUATORIAL_RADIUS,
+            Constants.WGS84_POLAR_RADIUS, Constants.WGS84_ES);
+
+    /* Ellipsoid parameters */
+    final double a;             /* Semi-major axis (equatorial radius) in meters */
+    final double b;             /* Semi-minor axis (polar radius) in meters */
+    final double f;             /* Flattening */
+    final double es;            /* Eccentricity squared */
+    final double e;             /* Eccentricity */
+
+    /* Geodetic latitude from conformal latitude series, see "Map Projections: A Working Manual" eq. 3-5 */
+    final double chiShift;
+    final double chiB;
+    final double chiC;
+    final double chiD;
+    final double chiE;
+
+    /* sqrt((1 + e)^(1 + e) * (1 - e)^(1 - e)), see "Map Projections: A Working Manual" eq. 21-33 */
+    final double polarStereographicDenominator;
+
+    /* True meridional distance constants, see TMCoordConverter */
+    final double ap;
+    final double bp;
+    final double cp;
+    final double dp;
+    final double ep;
+
+    private Ellipsoid(double a, double b, double es) {
+        this.a = a;
+        this.b = b;
+        this.f = (a - b) / a;
+        this.es = es;
+        this.e = Math.sqrt(es);
+
+        double ecc2 = es;
+        double ecc4 = ecc2 * ecc2;
+        double ecc6 = ecc4 * ecc2;
+        double ecc8 = ecc6 * ecc2;
+        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
+        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
+        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
+        double E = 4279 * ecc8 / 161280;
+        this.chiShift = -C + E;
+        this.chiB = B - 3 * D;
+        this.chiC = 2 * C - 8 * E;
+        this.chiD = 4 * D;
+        this.chiE = 8 * E;
+
+        this.polarStereographicDenominator = Math.sqrt(Math.pow(1 + e, 1 + e) * Math.pow(1 - e, 1 - e));
+
+        double tb = a * (1 - f);
+        double tn = (a - tb) / (a + tb);
+        double tn2 = tn * tn;
+        double tn3 = tn2 * tn;
+        double tn4 = tn3 * tn;
+        double tn5 = tn4 * tn;
+        this.ap = a * (1.e0 - tn + 5.e0 * (tn2 - tn3) / 4.e0 + 81.e0 * (tn4 - tn5) / 64.e0);
+        this.bp = 3.e0 * a * (tn - tn2 + 7.e0 * (tn3 - tn4) / 8.e0 + 55.e0 * tn5 / 64.e0) / 2.e0;
+        this.cp = 15.e0 * a * (tn2 - tn3 + 3.e0 * (tn4 - tn5) / 4.e0) / 16.0;
+        this.dp = 35.e0 * a * (tn3 - tn4 + 11.e0 * tn5 / 16.e0) / 48.e0;
+        this.ep = 315.e0 * a * (tn4 - tn5) / 512.e0;
+    }
+
+    /**
+     * @param equatorialRadius the equatorial radius in meters.
+     * @param polarRadius      the polar radius in meters.
+     * @return The ellipsoid with these radii.
+     */
+    public static Ellipsoid fromRadii(double equatorialRadius, double polarRadius) {
+        if (equatorialRadius == WGS84.a && polarRadius == WGS84.b) {
+            return WGS84;
+        }
+        double f = (equatorialRadius - polarRadius) / equatorialRadius;
+        return new Ellipsoid(equatorialRadius, polarRadius, 2 * f - f * f);
+    }
+
+    /**
+     * @param equatorialRadius    the equatorial radius in meters.
+     * @param eccentricitySquared the eccentricity squared.
+     * @return The ellipsoid with this radius and eccentricity.
+     */
+    public static Ellipsoid fromEccentricitySquared(double equatorialRadius, double eccentricitySquared) {
+        if (equatorialRadius == WGS84.a && eccentricitySquared == WGS84.es) {
+            return WGS84;
+        }
+        return new Ellipsoid(equatorialRadius, equatorialRadius * Math.sqrt(1 - eccentricitySquared),
+                eccentricitySquared);
+    }
+
+    /**
+     * The inverse of the conformal latitude, evaluated with the series of the Mercator and polar stereographic
+     * projections.
+     * @param chi the conformal latitude in radians.
+     * @return The geodetic latitude in radians.
+     */
+    double geodeticLatitude(double chi) {
+        double s2p = Math.sin(2 * chi);
+        return chi + chiShift + s2p * (chiB + s2p * (chiC + s2p * (chiD + chiE * s2p)));
+    }
+
+    public double getEquatorialRadius() {
+        return a;
+    }
+
+    public double getPolarRadius() {
+        return b;
+    }
+
+    public double getEccentricitySquared() {
+        return es;
+    }
+
+    @Override
+    public String toString() {
+        return "Ellipsoid{a=" + a + ", b=" + b + ", es=" + es + "}";
+    }
+
+}
@@ -0,0 +1,338 @@
+package onethreeseven.geo.projection;
+
+/**
+ * <p>
+ * Point kernels used by {@link FastProjection}. Each kernel replaces the transcendental functions of an exact
+ * projection with {@link InterpolationTable}s of the functions of latitude it evaluates (northing, radius,
+ * meridional distance and their inverses) and with {@link FastTrig}.
+ * </p>
+ * Every table is built to within half of the requested error bound. Points the tables do not cover, or that the
+ * exact projection would reject, are handed to the exact projection so that clamping and errors are unchanged.
+ * @author Luke Bermingham
+ */
+abstract class FastKernel {
+
+    /**
+     * @return The error bound converted from meters on the ground to degrees of latitude.
+     */
+    static double toDegreesTolerance(double maxError, double equatorialRadius) {
+        return Math.toDegrees(maxError / equatorialRadius);
+    }
+
+    /**
+     * @param scratch a {x, y} array for the exact projection to write to when the outputs are separate arrays, see
+     *                {@link #exactToCartesian}. May be null if the outputs are interleaved.
+     */
+    abstract void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi,
+                              double[] scratch);
+
+    /**
+     * @param scratch a {lat, lon} array for the exact projection to write to when the outputs are separate arrays,
+     *                see {@link #exactToGeographic}. May be null if the outputs are interleaved.
+     */
+    abstract void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni,
+                               double[] scratch);
+
+    /**
+     * Project a point with the exact projection, straight into the output if it is interleaved, otherwise through the
+     * scratch array.
+     */
+    static void exactToCartesian(AbstractGeographicProjection exact, double latitude, double longitude,
+                                 double[] xs, int xi, double[] ys, int yi, double[] scratch) {
+        if (xs == ys && yi == xi + 1) {
+            exact.geographicToCartesian(latitude, longitude, xs, xi);
+            return;
+        }
+        exact.geographicToCartesian(latitude, longitude, scratch, 0);
+        xs[xi] = scratch[0];
+        ys[yi] = scratch[1];
+    }
+
+    /**
+     * Project a point back with the exact projection, straight into the output if it is interleaved, otherwise
+     * through the scratch array.
+     */
+    static void exactToGeographic(AbstractGeographicProjection exact, double x, double y,
+                                  double[] lats, int lati, double[] lons, int loni, double[] scratch) {
+        if (lats == lons && loni == lati + 1) {
+            exact.cartesianToGeographic(x, y, lats, lati);
+            return;
+        }
+        exact.cartesianToGeographic(x, y, scratch, 0);
+        lats[lati] = scratch[0];
+        lons[loni] = scratch[1];
+    }
+
+    /**
+     * See {@link ProjectionMercator}, the northing and its inverse are tabulated.
+     */
+    static final class Mercator extends FastKernel {
+
+        private final ProjectionMercator exact;
+        private final ProjectionLimits limits;
+        private final double equatorialRadius;
+        private final double xOffset;
+        /* latitude in degrees -> y */
+        private final InterpolationTable northing;
+        /* y -> latitude in degrees */
+        private final InterpolationTable latitude;
+
+        Mercator(ProjectionMercator exact, double maxError) {
+            this.exact = exact;
+            this.limits = exact.getProjectionLimits();
+            this.equatorialRadius = exact.getEllipsoid().getEquatorialRadius();
+            this.xOffset = exact.getXOffset();
+            final double[] buf = new double[2];
+            this.northing = InterpolationTable.build(lat -> {
+                exact.geographicToCartesian(lat, 0, buf, 0);
+                return buf[1];
+            }, limits.getMinLatitude(), limits.getMaxLatitude(), maxError / 2);
+            exact.geographicToCartesian(limits.getMinLatitude(), 0, buf, 0);
+            double minY = buf[1];
+            exact.geographicToCartesian(limits.getMaxLatitude(), 0, buf, 0);
+            double maxY = buf[1];
+            this.latitude = InterpolationTable.build(y -> {
+                exact.cartesianToGeographic(xOffset, y, buf, 0);
+                return buf[0];
+            }, minY, maxY, toDegreesTolerance(maxError / 2, equatorialRadius));
+        }
+
+        @Override
+        void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi,
+                         double[] scratch) {
+            latitude = limits.clampLatitude(latitude);
+            longitude = limits.clampLongitude(longitude);
+            xs[xi] = equatorialRadius * Math.toRadians(longitude) + xOffset;
+            ys[yi] = northing.value(latitude);
+        }
+
+        @Override
+        void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni,
+                          double[] scratch) {
+            if (!latitude.contains(y)) {
+                exactToGeographic(exact, x, y, lats, lati, lons, loni, scratch);
+                return;
+            }
+            lats[lati] = latitude.value(y);
+            lons[loni] = Math.toDegrees((x - xOffset) / equatorialRadius);
+        }
+    }
+
+    /**
+     * See {@link ProjectionUPS}, the distance from the pole and its inverse are tabulated.
+     */
+    static final class UPS extends FastKernel {
+
+        private final ProjectionUPS exact;
+        private final double poleSign;
+        private final double poleLatitude;
+        private final double xOffset;
+        /* latitude in degrees -> distance from the pole */
+        private final InterpolationTable radius;
+        /* distance from the pole -> latitude in degrees */
+        private final InterpolationTable latitude;
+
+        UPS(ProjectionUPS exact, double maxError) {
+            this.exact = exact;
+            this.poleSign = exact.isSouthPole() ? -1 : 1;
+            this.poleLatitude = 90 * poleSign;
+            this.xOffset = exact.getXOffset();
+            final double[] buf = new double[2];
+            this.radius = InterpolationTable.build(lat -> {
+                exact.geographicToCartesian(lat * poleSign, 0, buf, 0);
+                return Math.abs(buf[1]);
+            }, 0, 90, maxError / 2);
+            double maxRadius = radius.value(0);
+            this.latitude = InterpolationTable.build(r -> {
+                exact.cartesianToGeographic(xOffset, -r * poleSign, buf, 0);
+                return buf[0] * poleSign;
+            }, 0, maxRadius, toDegreesTolerance(maxError / 2, exact.getEllipsoid().getEquatorialRadius()));
+        }
+
+        @Override
+        void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi,
+                         double[] scratch) {
+            double lonRads = Math.toRadians(longitude);
+            //latitudes past the pole and longitudes past the antimeridian are left to the exact projection
+            if (latitude == poleLatitude || !(Math.abs(latitude) <= 90 && Math.abs(lonRads) <= Math.PI)) {
+                exactToCartesian(exact, latitude, longitude, xs, xi, ys, yi, scratch);
+                return;
+            }
+            //the other hemisphere is projected onto the equator
+            double r = radius.value(Math.max(0, latitude * poleSign));
+            xs[xi] = r * FastTrig.sin(lonRads);
+            ys[yi] = -r * FastTrig.cos(lonRads) * poleSign;
+        }
+
+        @Override
+        void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni,
+                          double[] scratch) {
+            double dx = x - xOffset;
+            double r = Math.sqrt(dx * dx + y * y);
+            if (!latitude.contains(r)) {
+                exactToGeographic(exact, x, y, lats, lati, lons, loni, scratch);
+                return;
+            }
+            lats[lati] = latitude.value(r) * poleSign;
+            lons[loni] = Math.toDegrees(FastTrig.atan2(dx, -y * poleSign));
+        }
+    }
+
+    /**
+     * See {@link TMCoordConverter}, the meridional distance and the footpoint latitude are tabulated, sine and
+     * cosine are polynomials and the integer powers are multiplications.
+     */
+    static final class TransverseMercator extends FastKernel {
+
+        private final ProjectionTransverseMercator exact;
+        private final ProjectionLimits limits;
+        private final TMParameters p;
+        /* true meridional distance at the origin latitude */
+        private final double tmdo;
+        /* latitude in radians -> true meridional distance */
+        private final InterpolationTable meridian;
+        /* true meridional distance -> footpoint latitude in radians */
+        private final InterpolationTable footpoint;
+
+        TransverseMercator(ProjectionTransverseMercator exact, double maxError) {
+            this.exact = exact;
+            this.limits = exact.getProjectionLimits();
+            this.p = exact.getTMParameters();
+            this.tmdo = TMCoordConverter.meridionalDistance(p, p.originLat);
+            this.meridian = InterpolationTable.build(lat -> TMCoordConverter.meridionalDistance(p, lat),
+                    -TMCoordConverter.MAX_LAT, TMCoordConverter.MAX_LAT, maxError / (2 * p.scale));
+            this.footpoint = InterpolationTable.build(tmd -> TMCoordConverter.footpointLatitude(p, tmd),
+                    TMCoordConverter.meridionalDistance(p, -Math.PI / 2),
+                    TMCoordConverter.meridionalDistance(p, Math.PI / 2),
+                    maxError / (2 * p.a));
+        }
+
+        @Override
+        void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi,
+                         double[] scratch) {
+            latitude = limits.clampLatitude(latitude);
+            longitude = limits.clampLongitude(longitude);
+            double lat = Math.toRadians(latitude);
+            double dlam = Math.toRadians(longitude) - p.originLong;
+            if (!(Math.abs(lat) <= TMCoordConverter.MAX_LAT && Math.abs(dlam) <= TMCoordConverter.MAX_DELTA_LONG)) {
+                exactToCartesian(exact, latitude, longitude, xs, xi, ys, yi, scratch);
+                return;
+            }
+            if (Math.abs(dlam) < 2.e-10)
+                dlam = 0.0;
+
+            final double k = p.scale;
+            double s = LaneKernel.sin(lat);
+            double c = LaneKernel.cos(lat);
+            double c2 = c * c;
+            double c3 = c2 * c;
+            double c5 = c3 * c2;
+            double c7 = c5 * c2;
+            double t = s / c;
+            double tan2 = t * t;
+            double tan4 = tan2 * tan2;
+            double tan6 = tan4 * tan2;
+            double eta = p.ebs * c2;
+            double eta2 = eta * eta;
+            double eta3 = eta2 * eta;
+            double eta4 = eta3 * eta;
+            double sn = p.a / Math.sqrt(1 - p.es * s * s);
+            double tmd = meridian.value(lat);
+
+            /* northing */
+            double t1 = (tmd - tmdo) * k;
+            double t2 = sn * s * c * k / 2.e0;
+            double t3 = sn * s * c3 * k * (5.e0 - tan2 + 9.e0 * eta + 4.e0 * eta2) / 24.e0;
+            double t4 = sn * s * c5 * k * (61.e0 - 58.e0 * tan2
+                    + tan4 + 270.e0 * eta - 330.e0 * tan2 * eta + 445.e0 * eta2
+                    + 324.e0 * eta3 - 680.e0 * tan2 * eta2 + 88.e0 * eta4
+                    - 600.e0 * tan2 * eta3 - 192.e0 * tan2 * eta4) / 720.e0;
+            double t5 = sn * s * c7 * k * (1385.e0 - 3111.e0 * tan2 + 543.e0 * tan4 - tan6) / 40320.e0;
+
+            /* easting */
+            double t6 = sn * c * k;
+            double t7 = sn * c3 * k * (1.e0 - tan2 + eta) / 6.e0;
+            double t8 = sn * c5 * k * (5.e0 - 18.e0 * tan2 + tan4
+                    + 14.e0 * eta - 58.e0 * tan2 * eta + 13.e0 * eta2 + 4.e0 * eta3
+                    - 64.e0 * tan2 * eta2 - 24.e0 * tan2 * eta3) / 120.e0;
+            double t9 = sn * c7 * k * (61.e0 - 479.e0 * tan2 + 179.e0 * tan4 - tan6) / 5040.e0;
+
+            double dlam2 = dlam * dlam;
+            xs[xi] = p.falseEasting + dlam * (t6 + dlam2 * (t7 + dlam2 * (t8 + dlam2 * t9)));
+            ys[yi] = p.falseNorthing + t1 + dlam2 * (t2 + dlam2 * (t3 + dlam2 * (t4 + dlam2 * t5)));
+        }
+
+        @Override
+        void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni,
+                          double[] scratch) {
+            double tmd = tmdo + (y - p.falseNorthing) / p.scale;
+            if (!(Math.abs(x - p.falseEasting) <= p.deltaEasting
+                    && Math.abs(y - p.falseNorthing) <= p.deltaNorthing
+                    && footpoint.contains(tmd))) {
+                exactToGeographic(exact, x, y, lats, lati, lons, loni, scratch);
+                return;
+            }
+            final double k = p.scale;
+            final double k2 = k * k;
+            double ftphi = footpoint.value(tmd);
+            double s = LaneKernel.sin(ftphi);
+            double c = LaneKernel.cos(ftphi);
+            double w = Math.sqrt(1.e0 - p.es * s * s);
+            /* radius of curvature in the meridian and the prime vertical */
+            double sr = p.a * (1.e0 - p.es) / (w * w * w);
+            double sn = p.a / w;
+            double sn2 = sn * sn;
+            double sn3 = sn2 * sn;
+            double sn5 = sn3 * sn2;
+            double sn7 = sn5 * sn2;
+            double t = s / c;
+            double tan2 = t * t;
+            double tan4 = tan2 * tan2;
+            double tan6 = tan4 * tan2;
+            double eta = p.ebs * c * c;
+            double eta2 = eta * eta;
+            double eta3 = eta2 * eta;
+            double eta4 = eta3 * eta;
+            double de = x - p.falseEasting;
+            if (Math.abs(de) < 0.0001)
+                de = 0.0;
+
+            /* latitude */
+            double t10 = t / (2.e0 * sr * sn * k2);
+            double t11 = t * (5.e0 + 3.e0 * tan2 + eta - 4.e0 * eta2
+                    - 9.e0 * tan2 * eta) / (24.e0 * sr * sn3 * k2 * k2);
+            double t12 = t * (61.e0 + 90.e0 * tan2 + 46.e0 * eta + 45.E0 * tan4
+                    - 252.e0 * tan2 * eta - 3.e0 * eta2 + 100.e0
+                    * eta3 - 66.e0 * tan2 * eta2 - 90.e0 * tan4
+                    * eta + 88.e0 * eta4 + 225.e0 * tan4 * eta2
+                    + 84.e0 * tan2 * eta3 - 192.e0 * tan2 * eta4)
+                    / (720.e0 * sr * sn5 * k2 * k2 * k2);
+            double t13 = t * (1385.e0 + 3633.e0 * tan2 + 4095.e0 * tan4 + 1575.e0 * tan6)
+                    / (40320.e0 * sr * sn7 * k2 * k2 * k2 * k2);
+
+            /* longitude */
+            double t14 = 1.e0 / (sn * c * k);
+            double t15 = (1.e0 + 2.e0 * tan2 + eta) / (6.e0 * sn3 * c * k2 * k);
+            double t16 = (5.e0 + 6.e0 * eta + 28.e0 * tan2 - 3.e0 * eta2
+                    + 8.e0 * tan2 * eta + 24.e0 * tan4 - 4.e0
+                    * eta3 + 4.e0 * tan2 * eta2 + 24.e0
+                    * tan2 * eta3) / (120.e0 * sn5 * c * k2 * k2 * k);
+            double t17 = (61.e0 + 662.e0 * tan2 + 1320.e0 * tan4 + 720.e0 * tan6)
+                    / (5040.e0 * sn7 * c * k2 * k2 * k2 * k);
+
+            double de2 = de * de;
+            double latitude = ftphi - de2 * (t10 - de2 * (t11 - de2 * (t12 - de2 * t13)));
+            double longitude = p.originLong + de * (t14 - de2 * (t15 - de2 * (t16 - de2 * t17)));
+            if (longitude > Math.PI)
+                longitude -= 2 * Math.PI;
+            if (!(Math.abs(latitude) <= Math.PI / 2 && Math.abs(longitude) <= Math.PI)) {
+                //the exact projection reports the error
+                exactToGeographic(exact, x, y, lats, lati, lons, loni, scratch);
+                return;
+            }
+            lats[lati] = Math.toDegrees(latitude);
+            lons[loni] = Math.toDegrees(longitude);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package onethreeseven.geo.projection;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * An opt-in, approximate version of {@link ProjectionMercator}, {@link ProjectionUPS} or
+ * {@link ProjectionTransverseMercator} (including {@link ProjectionUTM}) for work that can trade accuracy for
+ * throughput, such as rendering tiles.
+ * </p>
+ * <p>
+ * The functions of latitude each projection evaluates with <code>Math.sin</code>, <code>Math.log</code>,
+ * <code>Math.pow</code> etc. are replaced by lookup tables with cubic interpolation, sized so that the projected
+ * points stay within a given distance (the error bound, in meters) of the exact projection. Use
+ * {@link #measureAccuracy(int)} to check the error actually achieved.
+ * </p>
+ * Points outside of the range of the tables are projected by the exact projection.
+ * @author Luke Bermingham
+ */
+public final class FastProjection extends AbstractGeographicProjection {
+
+    /**
+     * One centimeter.
+     */
+    public static final double DEFAULT_MAX_ERROR = 0.01;
+
+    private final AbstractGeographicProjection exact;
+    private final double maxError;
+    private final FastKernel kernel;
+
+    private FastProjection(AbstractGeographicProjection exact, double maxError, FastKernel kernel) {
+        super(exact.getProjectionLimits());
+        this.exact = exact;
+        this.maxError = maxError;
+        this.kernel = kernel;
+    }
+
+    /**
+     * @param exact the projection to approximate.
+     * @return A fast version of the projection, within {@link #DEFAULT_MAX_ERROR} of it.
+     */
+    public static FastProjection of(AbstractGeographicProjection exact) {
+        return of(exact, DEFAULT_MAX_ERROR);
+    }
+
+    /**
+     * @param exact    the projection to approximate, a Mercator, UPS or Transverse Mercator projection (using the
+     *                 {@link ProjectionTransverseMercator.Engine#NGA} engine).
+     * @param maxError the largest distance, in meters, between a point projected by the fast and the exact projection.
+     * @return A fast version of the projection.
+     * @throws IllegalArgumentException if the projection has no fast version or the error bound is not positive or
+     *                                  too small to reach.
+     */
+    public static FastProjection of(AbstractGeographicProjection exact, double maxError) {
+        if (!(maxError > 0)) {
+            throw new IllegalArgumentException("Error bound must be positive, was: " + maxError);
+        }
+        FastKernel kernel;
+        if (exact instanceof ProjectionMercator) {
+            kernel = new FastKernel.Mercator((ProjectionMercator) exact, maxError);
+        } else if (exact instanceof ProjectionUPS) {
+            kernel = new FastKernel.UPS((ProjectionUPS) exact, maxError);
+        } else if (exact instanceof ProjectionTransverseMercator &&
+                ((ProjectionTransverseMercator) exact).getEngine() == ProjectionTransverseMercator.Engine.NGA) {
+            //the kernel approximates the NGA series, it would drift from the Kruger series far from the meridian
+            kernel = new FastKernel.TransverseMercator((ProjectionTransverseMercator) exact, maxError);
+        } else {
+            throw new IllegalArgumentException("There is no fast version of the projection: " + exact);
+        }
+        return new FastProjection(exact, maxError, kernel);
+    }
+
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        kernel.toCartesian(latitude, longitude, out, offset, out, offset + 1, null);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        kernel.toGeographic(x, y, out, offset, out, offset + 1, null);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        final double[] scratch = new double[2];
+        for (int i = offset, end = offset + length; i < end; i++) {
+            kernel.toCartesian(lats[i], lons[i], xs, i, ys, i, scratch);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        final double[] scratch = new double[2];
+        for (int i = offset, end = offset + length; i < end; i++) {
+            kernel.toGeographic(xs[i], ys[i], lats, i, lons, i, scratch);
+        }
+    }
+
+    /**
+     * Compare this projection against the exact projection at random points inside the projection limits.
+     * Forward errors are the distance between the projected points. Inverse errors are measured by projecting the
+     * exact and fast inverse of a point with the exact projection and taking the distance between them, so both
+     * errors are in meters.
+     * @param nSamples the number of points to compare.
+     * @return The errors.
+     */
+    public AccuracyReport measureAccuracy(int nSamples) {
+        Random r = new Random(137);
+        double[] fast = new double[2];
+        double[] expected = new double[2];
+        double maxForward = 0;
+        double sumForward = 0;
+        double maxInverse = 0;
+        double sumInverse = 0;
+        for (int i = 0; i < nSamples; i++) {
+            double lat = projectionLimits.getMinLatitude() + r.nextDouble() * projectionLimits.getDeltaLatitude();
+            double lon = projectionLimits.getMinLongitude() + r.nextDouble() * projectionLimits.getDeltaLongitude();
+            exact.geographicToCartesian(lat, lon, expected, 0);
+            geographicToCartesian(lat, lon, fast, 0);
+            double forwardError = Math.hypot(fast[0] - expected[0], fast[1] - expected[1]);
+
+            double x = expected[0];
+            double y = expected[1];
+            exact.cartesianToGeographic(x, y, expected, 0);
+            exact.geographicToCartesian(expected[0], expected[1], expected, 0);
+            cartesianToGeographic(x, y, fast, 0);
+            exact.geographicToCartesian(fast[0], fast[1], fast, 0);
+            double inverseError = Math.hypot(fast[0] - expected[0], fast[1] - expected[1]);
+
+            maxForward = Math.max(maxForward, forwardError);
+            sumForward += forwardError;
+            maxInverse = Math.max(maxInverse, inverseError);
+            sumInverse += inverseError;
+        }
+        return new AccuracyReport(this, nSamples, maxForward, sumForward / nSamples,
+                maxInverse, sumInverse / nSamples);
+    }
+
+    /**
+     * @return The projection this approximates.
+     */
+    public AbstractGeographicProjection getExact() {
+        return exact;
+    }
+
+    /**
+     * @return The error bound, in meters.
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    @Override
+    public String toString(){
+        return exact.toString() + " (fast)";
+    }
+
+    /**
+     * Errors of a {@link FastProjection} against its exact projection, in meters.
+     */
+    public static final class AccuracyReport {
+
+        private final FastProjection projection;
+        private final int nSamples;
+        private final double maxForwardError;
+        private final double meanForwardError;
+        private final double maxInverseError;
+        private final double meanInverseError;
+
+        private AccuracyReport(FastProjection projection, int nSamples,
+                               double maxForwardError, double meanForwardError,
+                               double maxInverseError, double meanInverseError) {
+            this.projection = projection;
+            this.nSamples = nSamples;
+            this.maxForwardError = maxForwardError;
+            this.meanForwardError = meanForwardError;
+            this.maxInverseError = maxInverseError;
+            this.meanInverseError = meanInverseError;
+        }
+
+        public int getNSamples() {
+            return nSamples;
+        }
+
+        public double getMaxForwardError() {
+            return maxForwardError;
+        }
+
+        public double getMeanForwardError() {
+            return meanForwardError;
+        }
+
+        public double getMaxInverseError() {
+            return maxInverseError;
+        }
+
+        public double getMeanInverseError() {
+            return meanInverseError;
+        }
+
+        /**
+         * @return True if every sampled error is within the error bound of the projection.
+         */
+        public boolean isWithinBound() {
+            return maxForwardError <= projection.getMaxError() && maxInverseError <= projection.getMaxError();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s, bound %.3gm, %d samples: forward max %.3gm mean %.3gm, inverse max %.3gm mean %.3gm",
+                    projection, projection.getMaxError(), nSamples,
+                    maxForwardError, meanForwardError, maxInverseError, meanInverseError);
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package onethreeseven.geo.projection;
+
+/**
+ * Approximations of the trigonometric functions used by {@link FastProjection}, with absolute errors below 1e-12.
+ * @author Luke Bermingham
+ */
+final class FastTrig {
+
+    private FastTrig(){}
+
+    private static final InterpolationTable ATAN = InterpolationTable.build(Math::atan, 0, 1, 1e-13);
+
+    /**
+     * @param x an angle in radians, with |x| &lt;= pi.
+     * @return sin(x)
+     */
+    static double sin(double x) {
+        if (Math.abs(x) <= Math.PI / 2) {
+            return LaneKernel.sin(x);
+        }
+        return LaneKernel.sin(Math.copySign(Math.PI, x) - x);
+    }
+
+    /**
+     * @param x an angle in radians, with |x| &lt;= pi.
+     * @return cos(x)
+     */
+    static double cos(double x) {
+        return LaneKernel.cos(x);
+    }
+
+    /**
+     * Same as {@link Math#atan2(double, double)}.
+     */
+    static double atan2(double y, double x) {
+        double ay = Math.abs(y);
+        double ax = Math.abs(x);
+        if (!(ax + ay > 0 && ax + ay < Double.POSITIVE_INFINITY)) {
+            //zeros, infinities and NaN
+            return Math.atan2(y, x);
+        }
+        double a = ay <= ax ? ATAN.value(ay / ax) : Math.PI / 2 - ATAN.value(ax / ay);
+        if (x < 0) {
+            a = Math.PI - a;
+        }
+        return Math.copySign(a, y);
+    }
+
+}
@@ -0,0 +1,114 @@
+package onethreeseven.geo.projection;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * <p>
+ * A smooth function of one variable sampled at evenly spaced nodes and evaluated by cubic (4 point Lagrange)
+ * interpolation, which costs four loads and a handful of multiplications instead of the transcendental calls the
+ * function itself makes.
+ * </p>
+ * Tables are built by {@link #build(DoubleUnaryOperator, double, double, double)}, which doubles the number of nodes
+ * until the interpolation error, measured between every pair of nodes, is within the requested tolerance.
+ * @author Luke Bermingham
+ */
+final class InterpolationTable {
+
+    private static final int MIN_SIZE = 64;
+    /**
+     * 8MB of nodes, any smooth function used by the projections needs far fewer.
+     */
+    private static final int MAX_SIZE = 1 << 20;
+
+    private final double min;
+    private final double max;
+    private final double step;
+    private final double inverseStep;
+    private final double[] values;
+
+    private InterpolationTable(DoubleUnaryOperator f, double min, double max, int size) {
+        this.min = min;
+        this.max = max;
+        this.step = (max - min) / (size - 1);
+        this.inverseStep = 1 / step;
+        this.values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = f.applyAsDouble(i == size - 1 ? max : min + i * step);
+        }
+    }
+
+    /**
+     * @param f         the function to tabulate, it must be smooth over [min, max].
+     * @param min       the smallest value the table is evaluated at.
+     * @param max       the largest value the table is evaluated at.
+     * @param tolerance the largest absolute error allowed, in the units of the function.
+     * @return The smallest table (with a power of two nodes) that approximates f within the tolerance.
+     * @throws IllegalArgumentException if f cannot be approximated that closely.
+     */
+    static InterpolationTable build(DoubleUnaryOperator f, double min, double max, double tolerance) {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size *= 2) {
+            InterpolationTable table = new InterpolationTable(f, min, max, size);
+            if (table.maxError(f) <= tolerance) {
+                return table;
+            }
+        }
+        throw new IllegalArgumentException("Cannot approximate to within " + tolerance +
+                " over [" + min + ", " + max + "], the error bound is too small.");
+    }
+
+    /**
+     * @return The largest error at the quarter points between every pair of nodes.
+     */
+    private double maxError(DoubleUnaryOperator f) {
+        double maxError = 0;
+        for (int i = 0; i < values.length - 1; i++) {
+            for (int q = 1; q < 4; q++) {
+                double x = min + (i + q * 0.25) * step;
+                double error = Math.abs(value(x) - f.applyAsDouble(x));
+                if (!(error <= maxError)) {
+                    //NaN is never within tolerance
+                    maxError = Double.isNaN(error) ? Double.POSITIVE_INFINITY : error;
+                }
+            }
+        }
+        return maxError;
+    }
+
+    /**
+     * @param x a value in [min, max].
+     * @return The interpolated value of the function at x.
+     */
+    double value(double x) {
+        double t = (x - min) * inverseStep;
+        int i = (int) t;
+        //the end intervals use the nearest four nodes
+        if (i < 1) {
+            i = 1;
+        } else if (i > values.length - 3) {
+            i = values.length - 3;
+        }
+        double u = t - i;
+        double up1 = u + 1;
+        double um1 = u - 1;
+        double um2 = u - 2;
+        return (up1 * u * (values[i + 2] * um1 - 3 * values[i + 1] * um2)
+                + um1 * um2 * (3 * values[i] * up1 - values[i - 1] * u)) / 6;
+    }
+
+    boolean contains(double x) {
+        return x >= min && x <= max;
+    }
+
+    double getMin() {
+        return min;
+    }
+
+    double getMax() {
+        return max;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+}
@@ -0,0 +1,305 @@
+package onethreeseven.geo.projection;
+
+/**
+ * <p>
+ * Column kernels used by {@link LaneProjector}. Each kernel converts a block of points using loops that contain
+ * only straight line arithmetic (no branches and no calls into <code>Math.sin</code>/<code>Math.cos</code>), which
+ * lets the JIT compile them to SIMD instructions that process several lanes of coordinates at a time.
+ * </p>
+ * Sine and cosine are evaluated with polynomials that are only accurate over a bounded range, so a kernel
+ * refuses blocks containing coordinates outside of that range and the caller projects those blocks with the
+ * scalar kernels instead. Loops never write an output before every input at that index has been read, so the
+ * input and output columns may be the same arrays.
+ * @author Luke Bermingham
+ */
+abstract class LaneKernel {
+
+    /* pi/2 split into a double and the remainder, see fdlibm */
+    private static final double PIO2_HI = 1.5707963267948966;
+    private static final double PIO2_LO = 6.123233995736766e-17;
+
+    /* Taylor series coefficients of sin(x), accurate to below an ulp for |x| <= pi/2 */
+    private static final double S3 = -1.0 / 6;
+    private static final double S5 = 1.0 / 120;
+    private static final double S7 = -1.0 / 5040;
+    private static final double S9 = 1.0 / 362880;
+    private static final double S11 = -2.505210838544172e-08;
+    private static final double S13 = 1.6059043836821613e-10;
+    private static final double S15 = -7.647163731819816e-13;
+    private static final double S17 = 2.8114572543455206e-15;
+    private static final double S19 = -8.22063524662433e-18;
+    private static final double S21 = 1.9572941063391263e-20;
+
+    /**
+     * @param x an angle in radians, with |x| &lt;= pi/2.
+     * @return sin(x)
+     */
+    static double sin(double x) {
+        double x2 = x * x;
+        double p = S19 + x2 * S21;
+        p = S17 + x2 * p;
+        p = S15 + x2 * p;
+        p = S13 + x2 * p;
+        p = S11 + x2 * p;
+        p = S9 + x2 * p;
+        p = S7 + x2 * p;
+        p = S5 + x2 * p;
+        p = S3 + x2 * p;
+        return x + x * x2 * p;
+    }
+
+    /**
+     * Computed as the sine of the complementary angle so that the result keeps its relative accuracy near +/-pi/2.
+     * @param x an angle in radians, with |x| &lt;= pi.
+     * @return cos(x)
+     */
+    static double cos(double x) {
+        return sin((PIO2_HI - Math.abs(x)) + PIO2_LO);
+    }
+
+    /**
+     * Same as {@link ProjectionLimits#clamp(double, double, double)} to +/-pi, for use outside of the lane loops.
+     */
+    static double clampPi(double v) {
+        return v < -Math.PI ? -Math.PI : v > Math.PI ? Math.PI : v;
+    }
+
+    /**
+     * @return The largest absolute value in the range, or NaN if the range contains NaN.
+     */
+    static double maxAbs(double[] values, int offset, int length) {
+        double max = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            max = Math.max(max, Math.abs(values[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Convert a block of geographic positions to Cartesian points.
+     * @param scratch0 a scratch buffer at least <code>length</code> long.
+     * @param scratch1 a scratch buffer at least <code>length</code> long.
+     * @return false, without writing anything, if the block has coordinates outside of the range of this kernel.
+     */
+    abstract boolean toCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length,
+                                 double[] scratch0, double[] scratch1);
+
+    /**
+     * Convert a block of Cartesian points to geographic positions.
+     * @param scratch0 a scratch buffer at least <code>length</code> long.
+     * @param scratch1 a scratch buffer at least <code>length</code> long.
+     * @return false, without writing anything, if the block has coordinates outside of the range of this kernel.
+     */
+    abstract boolean toGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length,
+                                  double[] scratch0, double[] scratch1);
+
+    /**
+     * See {@link ProjectionEquirectangular}.
+     */
+    static final class Equirectangular extends LaneKernel {
+
+        private final double equatorialRadius;
+        private final double xOffset;
+        private final ProjectionLimits limits;
+
+        Equirectangular(double equatorialRadius, double xOffset, ProjectionLimits limits) {
+            this.equatorialRadius = equatorialRadius;
+            this.xOffset = xOffset;
+            this.limits = limits;
+        }
+
+        @Override
+        boolean toCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length,
+                            double[] scratch0, double[] scratch1) {
+            final double r = equatorialRadius;
+            final double minLat = limits.getMinLatitude();
+            final double maxLat = limits.getMaxLatitude();
+            final double minLon = limits.getMinLongitude();
+            final double maxLon = limits.getMaxLongitude();
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double lat = Math.max(minLat, Math.min(maxLat, lats[i]));
+                double lon = Math.max(minLon, Math.min(maxLon, lons[i]));
+                xs[i] = r * Math.toRadians(lon) + xOffset;
+                ys[i] = r * Math.toRadians(lat);
+            }
+            return true;
+        }
+
+        @Override
+        boolean toGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length,
+                             double[] scratch0, double[] scratch1) {
+            final double r = equatorialRadius;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                lats[i] = Math.toDegrees(y / r);
+                lons[i] = Math.toDegrees((x - xOffset) / r);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * See {@link ProjectionSinusoidal}.
+     */
+    static final class Sinusoidal extends LaneKernel {
+
+        private final double equatorialRadius;
+
+        Sinusoidal(double equatorialRadius) {
+            this.equatorialRadius = equatorialRadius;
+        }
+
+        @Override
+        boolean toCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length,
+                            double[] scratch0, double[] scratch1) {
+            if (!(maxAbs(lats, offset, length) <= 180) || !(maxAbs(lons, offset, length) < Double.POSITIVE_INFINITY)) {
+                return false;
+            }
+            final double r = equatorialRadius;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double latRads = Math.toRadians(lats[i]);
+                double lonRads = Math.toRadians(lons[i]);
+                //beyond the poles the cosine is negative and the scalar kernel maps x to 0
+                double latCos = Math.max(0, cos(latRads));
+                xs[i] = r * lonRads * latCos;
+                ys[i] = r * latRads;
+            }
+            return true;
+        }
+
+        @Override
+        boolean toGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length,
+                             double[] scratch0, double[] scratch1) {
+            final double r = equatorialRadius;
+            final double inverseR = 1 / r;
+            if (!(maxAbs(ys, offset, length) * inverseR <= PIO2_HI)) {
+                return false;
+            }
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double latRadians = ys[i] * inverseR;
+                scratch0[i - offset] = latRadians;
+                //latitude is within +/-pi/2, so the cosine is always positive
+                scratch1[i - offset] = xs[i] / (r * cos(latRadians));
+            }
+            for (int i = offset, end = offset + length; i < end; i++) {
+                lats[i] = Math.toDegrees(scratch0[i - offset]);
+                lons[i] = Math.toDegrees(clampPi(scratch1[i - offset]));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * See {@link ProjectionModifiedSinusoidal}. The cosine is computed in lanes, the power is still scalar.
+     */
+    static final class ModifiedSinusoidal extends LaneKernel {
+
+        private final double equatorialRadius;
+
+        ModifiedSinusoidal(double equatorialRadius) {
+            this.equatorialRadius = equatorialRadius;
+        }
+
+        @Override
+        boolean toCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length,
+                            double[] scratch0, double[] scratch1) {
+            if (!(maxAbs(lats, offset, length) <= 180)) {
+                return false;
+            }
+            final double r = equatorialRadius;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double latRads = Math.toRadians(lats[i]);
+                scratch0[i - offset] = Math.max(0, cos(latRads));
+                scratch1[i - offset] = r * latRads;
+            }
+            for (int i = offset, end = offset + length; i < end; i++) {
+                xs[i] = r * Math.toRadians(lons[i]) * Math.pow(scratch0[i - offset], .3);
+                ys[i] = scratch1[i - offset];
+            }
+            return true;
+        }
+
+        @Override
+        boolean toGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length,
+                             double[] scratch0, double[] scratch1) {
+            final double r = equatorialRadius;
+            final double inverseR = 1 / r;
+            if (!(maxAbs(ys, offset, length) * inverseR <= PIO2_HI)) {
+                return false;
+            }
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double latRadians = ys[i] * inverseR;
+                scratch0[i - offset] = cos(latRadians);
+                scratch1[i - offset] = latRadians;
+            }
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double lonRadians = xs[i] * inverseR / Math.pow(scratch0[i - offset], .3);
+                lats[i] = Math.toDegrees(scratch1[i - offset]);
+                lons[i] = Math.toDegrees(clampPi(lonRadians));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * See {@link ProjectionPolarEquidistant}. The inverse latitude is computed in lanes, the azimuth is still scalar.
+     */
+    static final class PolarEquidistant extends LaneKernel {
+
+        private final double equatorialRadius;
+        private final double poleSign;
+
+        PolarEquidistant(double equatorialRadius, boolean isSouthPole) {
+            this.equatorialRadius = equatorialRadius;
+            this.poleSign = isSouthPole ? 1 : -1;
+        }
+
+        @Override
+        boolean toCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length,
+                            double[] scratch0, double[] scratch1) {
+            if (!(maxAbs(lons, offset, length) <= 180)) {
+                return false;
+            }
+            final double r = equatorialRadius;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double a = r * (Math.PI / 2 + Math.toRadians(lats[i]) * poleSign);
+                //half angles keep the polynomials inside +/-pi/2
+                double halfLon = Math.toRadians(lons[i]) * 0.5;
+                double s = sin(halfLon);
+                double c = cos(halfLon);
+                xs[i] = a * (2 * s * c);
+                ys[i] = a * ((c - s) * (c + s)) * poleSign;
+            }
+            return true;
+        }
+
+        @Override
+        boolean toGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length,
+                             double[] scratch0, double[] scratch1) {
+            final double r = equatorialRadius;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                scratch0[i - offset] = Math.sqrt(x * x + y * y);
+            }
+            for (int i = offset, end = offset + length; i < end; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                double rho = scratch0[i - offset];
+                if (rho < 1.0e-4) {
+                    lats[i] = poleSign > 0 ? -90 : 90;
+                    lons[i] = 0;
+                } else {
+                    // map cartesian points beyond the projections radius to the edge of the projection
+                    double c = Math.min(Math.PI, rho / r);
+                    //asin(cos(c)) == pi/2 - c for c in [0, pi]
+                    lats[i] = Math.toDegrees((Math.PI / 2 - c) * -poleSign);
+                    lons[i] = Math.toDegrees(Math.atan2(x, y * poleSign));
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package onethreeseven.geo.projection;
+
+/**
+ * <p>
+ * Projects columns of coordinates a block at a time using kernels the JIT can vectorize, so that several lanes of
+ * coordinates are processed by each instruction. This suits very large batches, such as reprojecting every cell
+ * of a raster.
+ * </p>
+ * Lane kernels exist for {@link ProjectionEquirectangular}, {@link ProjectionSinusoidal},
+ * {@link ProjectionModifiedSinusoidal} and {@link ProjectionPolarEquidistant}; they agree with the scalar kernels to
+ * within an ulp or two. Any other projection, and any block with coordinates outside of the range a lane kernel
+ * supports, uses the scalar kernels of the projection. The mode can be picked per projector or for the whole process
+ * with the system property <code>onethreeseven.geo.lanes=false</code>.
+ * @author Luke Bermingham
+ */
+public final class LaneProjector {
+
+    public enum Mode {
+        /** Use the scalar kernels of the projection. */
+        SCALAR,
+        /** Use the lane kernels of the projection, where it has them. */
+        LANES
+    }
+
+    /**
+     * Number of points per block, small enough that a block and its scratch space stay in L1/L2 cache.
+     */
+    static final int BLOCK_SIZE = 512;
+
+    private final AbstractGeographicProjection projection;
+    private final LaneKernel kernel;
+
+    /**
+     * Create a projector using the mode set by the <code>onethreeseven.geo.lanes</code> system property,
+     * lanes are used by default.
+     * @param projection the projection to use.
+     */
+    public LaneProjector(AbstractGeographicProjection projection) {
+        this(projection, defaultMode());
+    }
+
+    public LaneProjector(AbstractGeographicProjection projection, Mode mode) {
+        this.projection = projection;
+        this.kernel = mode == Mode.LANES ? projection.laneKernel() : null;
+    }
+
+    /**
+     * @return The mode set by the <code>onethreeseven.geo.lanes</code> system property.
+     */
+    public static Mode defaultMode() {
+        return Boolean.parseBoolean(System.getProperty("onethreeseven.geo.lanes", "true")) ? Mode.LANES : Mode.SCALAR;
+    }
+
+    /**
+     * @return The mode actually used, this is {@link Mode#SCALAR} if the projection has no lane kernels.
+     */
+    public Mode getMode() {
+        return kernel == null ? Mode.SCALAR : Mode.LANES;
+    }
+
+    public AbstractGeographicProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Converts columns of geographic positions to Cartesian points, see
+     * {@link AbstractGeographicProjection#geographicToCartesian(double[], double[], double[], double[], int, int)}.
+     *
+     * @param lats   The latitudes, in degrees.
+     * @param lons   The longitudes, in degrees.
+     * @param xs     The array to write the x values, in meters, to.
+     * @param ys     The array to write the y values, in meters, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        if (kernel == null) {
+            projection.geographicToCartesian(lats, lons, xs, ys, offset, length);
+            return;
+        }
+        AbstractGeographicProjection.checkColumns(lats, lons, xs, ys, offset, length);
+        final double[] scratch0 = new double[Math.min(BLOCK_SIZE, length)];
+        final double[] scratch1 = new double[scratch0.length];
+        for (int blockStart = offset, end = offset + length; blockStart < end; blockStart += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, end - blockStart);
+            if (!kernel.toCartesian(lats, lons, xs, ys, blockStart, blockLength, scratch0, scratch1)) {
+                projection.geographicToCartesian(lats, lons, xs, ys, blockStart, blockLength);
+            }
+        }
+    }
+
+    /**
+     * Converts columns of Cartesian points to geographic positions, see
+     * {@link AbstractGeographicProjection#cartesianToGeographic(double[], double[], double[], double[], int, int)}.
+     *
+     * @param xs     The x values, in meters.
+     * @param ys     The y values, in meters.
+     * @param lats   The array to write the latitudes, in degrees, to.
+     * @param lons   The array to write the longitudes, in degrees, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        if (kernel == null) {
+            projection.cartesianToGeographic(xs, ys, lats, lons, offset, length);
+            return;
+        }
+        AbstractGeographicProjection.checkColumns(xs, ys, lats, lons, offset, length);
+        final double[] scratch0 = new double[Math.min(BLOCK_SIZE, length)];
+        final double[] scratch1 = new double[scratch0.length];
+        for (int blockStart = offset, end = offset + length; blockStart < end; blockStart += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, end - blockStart);
+            if (!kernel.toGeographic(xs, ys, lats, lons, blockStart, blockLength, scratch0, scratch1)) {
+                projection.cartesianToGeographic(xs, ys, lats, lons, blockStart, blockLength);
+            }
+        }
+    }
+
+}
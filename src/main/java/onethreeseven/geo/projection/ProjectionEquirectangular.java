@@ -20,20 +20,59 @@ public class ProjectionEquirectangular extends AbstractGeographicProjection {
         this.xOffset = xOffset;
     }
 
-    public double[] geographicToCartesian(double latitude, double longitude) {
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        toCartesian(latitude, longitude, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        toGeographic(x, y, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toCartesian(lats[i], lons[i], xs, i, ys, i);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toGeographic(xs[i], ys[i], lats, i, lons, i);
+        }
+    }
+
+    private void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi) {
         latitude = this.projectionLimits.clampLatitude(latitude);
         longitude = this.projectionLimits.clampLongitude(longitude);
-        return new double[]{
-                equatorialRadius * Math.toRadians(longitude) + xOffset,
-                equatorialRadius * Math.toRadians(latitude)
-        };
+        xs[xi] = equatorialRadius * Math.toRadians(longitude) + xOffset;
+        ys[yi] = equatorialRadius * Math.toRadians(latitude);
+    }
+
+    private void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni) {
+        lats[lati] = Math.toDegrees(y / equatorialRadius);
+        lons[loni] = Math.toDegrees((x - xOffset) / equatorialRadius);
     }
 
-    public double[] cartesianToGeographic(double[] cart) {
-        return new double[]{
-                Math.toDegrees(cart[1] / equatorialRadius),
-                Math.toDegrees((cart[0] - xOffset) / equatorialRadius)
-        };
+    @Override
+    double[] translationTo(AbstractGeographicProjection other) {
+        if (other.getClass() != ProjectionEquirectangular.class || getClass() != ProjectionEquirectangular.class) {
+            return super.translationTo(other);
+        }
+        ProjectionEquirectangular equirectangular = (ProjectionEquirectangular) other;
+        if (equirectangular.equatorialRadius != equatorialRadius) {
+            return null;
+        }
+        return new double[]{equirectangular.xOffset - xOffset, 0};
+    }
+
+    @Override
+    LaneKernel laneKernel() {
+        return new LaneKernel.Equirectangular(equatorialRadius, xOffset, projectionLimits);
     }
 
     @Override
@@ -0,0 +1,194 @@
+package onethreeseven.geo.projection;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Projects very large batches of coordinates in parallel. The batch is split into chunks of
+ * {@link #getChunkSize()} points and each chunk is projected with the bulk methods of the projection
+ * (or a {@link LaneProjector} for columns), so nothing is allocated per point.
+ * </p>
+ * Chunks are run on a {@link ForkJoinPool}, using recursive splitting, or on any other {@link Executor}, using one
+ * task per chunk. Batches no larger than a single chunk are projected on the calling thread. The projections in this
+ * package are thread-safe, so a single executor can be shared by many callers.
+ * @author Luke Bermingham
+ */
+public final class ProjectionExecutor {
+
+    /**
+     * Default number of points per chunk, a chunk of interleaved points and its output fit in L2 cache.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final AbstractGeographicProjection projection;
+    private final LaneProjector laneProjector;
+    private final Executor executor;
+    private final int chunkSize;
+
+    /**
+     * Create an executor using the common fork-join pool and the default chunk size.
+     * @param projection the projection to use.
+     */
+    public ProjectionExecutor(AbstractGeographicProjection projection) {
+        this(projection, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param projection the projection to use.
+     * @param executor   where the chunks are run, a {@link ForkJoinPool} is split recursively.
+     * @param chunkSize  the number of points per chunk, smaller chunks balance better across threads,
+     *                   larger chunks have less scheduling overhead.
+     */
+    public ProjectionExecutor(AbstractGeographicProjection projection, Executor executor, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, was: " + chunkSize);
+        }
+        this.projection = projection;
+        this.laneProjector = new LaneProjector(projection);
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    public AbstractGeographicProjection getProjection() {
+        return projection;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Parallel version of {@link AbstractGeographicProjection#geographicToCartesian(double[], double[], int, int, int)}.
+     *
+     * @param latlon The interleaved geographic positions, in degrees.
+     * @param xy     The array to write the interleaved Cartesian points, in meters, to.
+     * @param offset The index of the first latitude.
+     * @param length The number of points to convert.
+     * @param stride The distance between consecutive points, at least 2.
+     */
+    public void geographicToCartesian(double[] latlon, double[] xy, int offset, int length, int stride) {
+        AbstractGeographicProjection.checkInterleaved(latlon, xy, offset, length, stride);
+        run(length, (from, count) ->
+                projection.geographicToCartesian(latlon, xy, offset + from * stride, count, stride));
+    }
+
+    /**
+     * Parallel version of
+     * {@link AbstractGeographicProjection#geographicToCartesian(double[], double[], double[], double[], int, int)}.
+     *
+     * @param lats   The latitudes, in degrees.
+     * @param lons   The longitudes, in degrees.
+     * @param xs     The array to write the x values, in meters, to.
+     * @param ys     The array to write the y values, in meters, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        AbstractGeographicProjection.checkColumns(lats, lons, xs, ys, offset, length);
+        run(length, (from, count) ->
+                laneProjector.geographicToCartesian(lats, lons, xs, ys, offset + from, count));
+    }
+
+    /**
+     * Parallel version of {@link AbstractGeographicProjection#cartesianToGeographic(double[], double[], int, int, int)}.
+     *
+     * @param xy     The interleaved Cartesian points, in meters.
+     * @param latlon The array to write the interleaved geographic positions, in degrees, to.
+     * @param offset The index of the first x value.
+     * @param length The number of points to convert.
+     * @param stride The distance between consecutive points, at least 2.
+     */
+    public void cartesianToGeographic(double[] xy, double[] latlon, int offset, int length, int stride) {
+        AbstractGeographicProjection.checkInterleaved(xy, latlon, offset, length, stride);
+        run(length, (from, count) ->
+                projection.cartesianToGeographic(xy, latlon, offset + from * stride, count, stride));
+    }
+
+    /**
+     * Parallel version of
+     * {@link AbstractGeographicProjection#cartesianToGeographic(double[], double[], double[], double[], int, int)}.
+     *
+     * @param xs     The x values, in meters.
+     * @param ys     The y values, in meters.
+     * @param lats   The array to write the latitudes, in degrees, to.
+     * @param lons   The array to write the longitudes, in degrees, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        AbstractGeographicProjection.checkColumns(xs, ys, lats, lons, offset, length);
+        run(length, (from, count) ->
+                laneProjector.cartesianToGeographic(xs, ys, lats, lons, offset + from, count));
+    }
+
+    /**
+     * Projects a run of points, given relative to the start of the batch.
+     */
+    private interface Chunk {
+        void project(int from, int count);
+    }
+
+    private void run(int length, Chunk chunk) {
+        if (length <= chunkSize) {
+            chunk.project(0, length);
+        } else if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new ChunkTask(chunk, chunkSize, 0, length));
+        } else {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[(length - 1) / chunkSize + 1];
+            for (int i = 0; i < tasks.length; i++) {
+                final int from = i * chunkSize;
+                final int count = Math.min(chunkSize, length - from);
+                tasks[i] = CompletableFuture.runAsync(() -> chunk.project(from, count), executor);
+            }
+            try {
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException e) {
+                //surface the same exception the sequential bulk methods would throw
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Halves its run of points, on chunk boundaries, until it is no larger than a chunk.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+        private final int chunkSize;
+        private final int from;
+        private final int count;
+
+        private ChunkTask(Chunk chunk, int chunkSize, int from, int count) {
+            this.chunk = chunk;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (count <= chunkSize) {
+                chunk.project(from, count);
+                return;
+            }
+            int nChunks = count / chunkSize;
+            int left = (nChunks - nChunks / 2) * chunkSize;
+            invokeAll(new ChunkTask(chunk, chunkSize, from, left),
+                    new ChunkTask(chunk, chunkSize, from + left, count - left));
+        }
+    }
+
+}
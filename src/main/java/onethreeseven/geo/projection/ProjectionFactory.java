@@ -0,0 +1,325 @@
+package onethreeseven.geo.projection;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Interns projections by their parameters, so a projection is built once and then shared by every caller asking for
+ * the same parameters (projections are immutable and thread-safe). Projections can also be looked up by a code, see
+ * {@link #forCode(String)}.
+ * </p>
+ * <p>
+ * The cache is bounded, when it is full the least recently used projection is evicted. Recency is counted in misses
+ * rather than time: a hit stamps its projection with the number of misses so far, and only if the stamp has changed,
+ * so repeated hits on a projection only read shared memory. Projections hit since the same miss are equally recent and
+ * either may be evicted. Lookups are lock-free, only building a projection that is not cached and evicting take locks.
+ * The hits, misses and evictions are counted.
+ * </p>
+ * The UTM zones are already shared by {@link ProjectionUTM#forZone(int, ProjectionTransverseMercator.Engine)}, so
+ * {@link #utm(int, ProjectionTransverseMercator.Engine)} returns those and they take no room in the cache.
+ * @author Luke Bermingham
+ */
+public final class ProjectionFactory {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final ProjectionFactory DEFAULT = new ProjectionFactory(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    /**
+     * Advanced by every miss, the recency of the projections.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize the most projections to cache.
+     */
+    public ProjectionFactory(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Max size must be at least 1, was: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return A factory shared by the whole process, caching up to {@link #DEFAULT_MAX_SIZE} projections.
+     */
+    public static ProjectionFactory getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param zone the utm zone [1,60].
+     * @return The UTM projection of the zone, using {@link ProjectionTransverseMercator.Engine#NGA}.
+     */
+    public AbstractGeographicProjection utm(int zone) {
+        return utm(zone, ProjectionTransverseMercator.Engine.NGA);
+    }
+
+    /**
+     * @param zone the utm zone [1,60].
+     * @param engine the maths used for conversions.
+     * @return The shared UTM projection of the zone and engine, from
+     * {@link ProjectionUTM#forZone(int, ProjectionTransverseMercator.Engine)} rather than the cache.
+     */
+    public AbstractGeographicProjection utm(int zone, ProjectionTransverseMercator.Engine engine) {
+        return ProjectionUTM.forZone(zone, engine);
+    }
+
+    /**
+     * See {@link ProjectionTransverseMercator#ProjectionTransverseMercator(double, double, double, double, Ellipsoid,
+     * double, double)}.
+     */
+    public AbstractGeographicProjection transverseMercator(double width, double centralMeridian,
+                                                          double centralLatitude, double scale, Ellipsoid ellipsoid,
+                                                          double falseNorthing, double falseEasting) {
+        return transverseMercator(width, centralMeridian, centralLatitude, scale, ellipsoid, falseNorthing,
+                falseEasting, ProjectionTransverseMercator.Engine.NGA);
+    }
+
+    /**
+     * See {@link ProjectionTransverseMercator#ProjectionTransverseMercator(double, double, double, double, Ellipsoid,
+     * double, double, ProjectionTransverseMercator.Engine)}.
+     */
+    public AbstractGeographicProjection transverseMercator(double width, double centralMeridian,
+                                                          double centralLatitude, double scale, Ellipsoid ellipsoid,
+                                                          double falseNorthing, double falseEasting,
+                                                          ProjectionTransverseMercator.Engine engine) {
+        return get(new Key("TransverseMercator", width, centralMeridian, centralLatitude, scale,
+                        ellipsoid.a, ellipsoid.b, ellipsoid.es, falseNorthing, falseEasting, engine.ordinal()),
+                () -> new ProjectionTransverseMercator(width, centralMeridian, centralLatitude, scale, ellipsoid,
+                        falseNorthing, falseEasting, engine));
+    }
+
+    /**
+     * See {@link ProjectionMercator#ProjectionMercator(double, Ellipsoid)}.
+     */
+    public AbstractGeographicProjection mercator(double xOffset, Ellipsoid ellipsoid) {
+        return get(new Key("Mercator", xOffset, ellipsoid.a, ellipsoid.b, ellipsoid.es),
+                () -> new ProjectionMercator(xOffset, ellipsoid));
+    }
+
+    /**
+     * See {@link ProjectionUPS#ProjectionUPS(boolean, Ellipsoid, double)}.
+     */
+    public AbstractGeographicProjection ups(boolean isSouthPole, Ellipsoid ellipsoid, double xOffset) {
+        return get(new Key("UPS", isSouthPole ? 1 : 0, ellipsoid.a, ellipsoid.b, ellipsoid.es, xOffset),
+                () -> new ProjectionUPS(isSouthPole, ellipsoid, xOffset));
+    }
+
+    public AbstractGeographicProjection equirectangular(double equatorialRadius, double xOffset) {
+        return get(new Key("Equirectangular", equatorialRadius, xOffset),
+                () -> new ProjectionEquirectangular(equatorialRadius, xOffset));
+    }
+
+    public AbstractGeographicProjection sinusoidal(double equatorialRadius) {
+        return get(new Key("Sinusoidal", equatorialRadius), () -> new ProjectionSinusoidal(equatorialRadius));
+    }
+
+    public AbstractGeographicProjection modifiedSinusoidal(double equatorialRadius) {
+        return get(new Key("ModifiedSinusoidal", equatorialRadius),
+                () -> new ProjectionModifiedSinusoidal(equatorialRadius));
+    }
+
+    public AbstractGeographicProjection polarEquidistant(boolean isSouthPole, double equatorialRadius) {
+        return get(new Key("PolarEquidistant", isSouthPole ? 1 : 0, equatorialRadius),
+                () -> new ProjectionPolarEquidistant(isSouthPole, equatorialRadius));
+    }
+
+    /**
+     * <p>
+     * Finds a WGS84 projection by its code, ignoring case and spaces. The codes are:
+     * </p>
+     * <ul>
+     *     <li>"UTM 33", "UTM 33N" or "UTM 33S" for the {@link ProjectionUTM} of a zone. The UTM projections of this
+     *     library have no false easting or northing, so both hemispheres of a zone are the same projection.</li>
+     *     <li>"EPSG:32601" to "EPSG:32660" and "EPSG:32701" to "EPSG:32760" for the UTM zones as published, i.e. with
+     *     a false easting of 500km and, in the south, a false northing of 10000km.</li>
+     *     <li>"EPSG:3395" for Mercator and "EPSG:4087" for Equirectangular. The UPS codes are not found, the
+     *     {@link ProjectionUPS} of this library has no false northing.</li>
+     *     <li>The name of a projection (its <code>toString</code>), i.e. "Mercator", for the projection made by its
+     *     default constructor, "UPS S" and "PolarEquidistant S" for the southern polar projections.</li>
+     * </ul>
+     * @param code the code.
+     * @return The projection.
+     * @throws IllegalArgumentException if there is no projection with the code.
+     */
+    public AbstractGeographicProjection forCode(String code) {
+        String c = code.replace(" ", "").toUpperCase(Locale.ROOT);
+        try {
+            if (c.startsWith("EPSG:")) {
+                int id = Integer.parseInt(c.substring(5));
+                if ((id > 32600 && id <= 32660) || (id > 32700 && id <= 32760)) {
+                    return transverseMercator(30, ProjectionUTM.centralMeridianForZone(id % 100), 0, 0.9996,
+                            Ellipsoid.WGS84, id > 32700 ? 10000000 : 0, 500000);
+                }
+                switch (id) {
+                    case 3395: return mercator(0, Ellipsoid.WGS84);
+                    case 4087: return equirectangular(Constants.WGS84_EQUATORIAL_RADIUS, 0);
+                    default: break;
+                }
+            } else if (c.startsWith("UTM") && c.length() > 3) {
+                String zone = c.endsWith("N") || c.endsWith("S") ? c.substring(3, c.length() - 1) : c.substring(3);
+                return utm(Integer.parseInt(zone));
+            } else {
+                switch (c) {
+                    case "MERCATOR": return mercator(0, Ellipsoid.WGS84);
+                    case "TRANSVERSEMERCATOR":
+                        return transverseMercator(30, 0, 0, 1, Ellipsoid.WGS84, 0, 0);
+                    case "UPS": return ups(false, Ellipsoid.WGS84, 0);
+                    case "UPSS": return ups(true, Ellipsoid.WGS84, 0);
+                    case "EQUIRECTANGULAR": return equirectangular(Constants.WGS84_EQUATORIAL_RADIUS, 0);
+                    case "SINUSOIDAL": return sinusoidal(Constants.WGS84_EQUATORIAL_RADIUS);
+                    case "MODIFIEDSINUSOIDAL": return modifiedSinusoidal(Constants.WGS84_EQUATORIAL_RADIUS);
+                    case "POLAREQUIDISTANT": return polarEquidistant(false, Constants.WGS84_EQUATORIAL_RADIUS);
+                    case "POLAREQUIDISTANTS": return polarEquidistant(true, Constants.WGS84_EQUATORIAL_RADIUS);
+                    default: break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("No projection with the code: " + code, e);
+        }
+        throw new IllegalArgumentException("No projection with the code: " + code);
+    }
+
+    private AbstractGeographicProjection get(Key key, Supplier<AbstractGeographicProjection> builder) {
+        lookups.increment();
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            entry = cache.computeIfAbsent(key, k -> {
+                misses.increment();
+                return new Entry(builder.get(), clock.incrementAndGet());
+            });
+            if (cache.size() > maxSize) {
+                evict();
+            }
+        }
+        long now = clock.get();
+        if (entry.lastAccess != now) {
+            entry.lastAccess = now;
+        }
+        return entry.projection;
+    }
+
+    /**
+     * Removes the least recently used projections until the cache is within its bounds.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            while (cache.size() > maxSize) {
+                Key oldestKey = null;
+                Entry oldest = null;
+                for (Map.Entry<Key, Entry> e : cache.entrySet()) {
+                    if (oldest == null || e.getValue().lastAccess < oldest.lastAccess) {
+                        oldestKey = e.getKey();
+                        oldest = e.getValue();
+                    }
+                }
+                if (oldestKey != null && cache.remove(oldestKey, oldest)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of projections cached.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The number of lookups that found a cached projection.
+     */
+    public long getHitCount() {
+        return lookups.sum() - misses.sum();
+    }
+
+    /**
+     * @return The number of lookups that built a projection.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Removes every projection from the cache and resets the counters. Lookups count hits and misses without the
+     * lock this takes, so it must not run while lookups are in flight or the counters reset may be off.
+     */
+    public void clear() {
+        synchronized (evictionLock) {
+            cache.clear();
+            clock.set(0);
+            lookups.reset();
+            misses.reset();
+            evictions.reset();
+        }
+    }
+
+    private static final class Entry {
+        final AbstractGeographicProjection projection;
+        /**
+         * The misses so far when this was last used.
+         */
+        volatile long lastAccess;
+
+        Entry(AbstractGeographicProjection projection, long lastAccess) {
+            this.projection = projection;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * The type of a projection and the parameters it was built with.
+     */
+    private static final class Key {
+        final String type;
+        final double[] params;
+        final int hash;
+
+        Key(String type, double... params) {
+            this.type = type;
+            this.params = params;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && type.equals(other.type) && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
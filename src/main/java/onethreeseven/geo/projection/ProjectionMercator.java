@@ -7,24 +7,53 @@ package onethreeseven.geo.projection;
 public class ProjectionMercator extends AbstractGeographicProjection {
 
     private final double xOffset;
+    private final Ellipsoid ellipsoid;
     private final double equatorialRadius;
     private final double eccentricity;
-    private final double eccentricitySquared;
 
     public ProjectionMercator(double xOffset, double equatorialRadius, double eccentricitySquared){
+        this(xOffset, Ellipsoid.fromEccentricitySquared(equatorialRadius, eccentricitySquared));
+    }
+
+    public ProjectionMercator(double xOffset, Ellipsoid ellipsoid){
         super(new ProjectionLimits(-78, 78, -180, 180));
         this.xOffset = xOffset;
-        this.equatorialRadius = equatorialRadius;
-        this.eccentricitySquared = eccentricitySquared;
-        this.eccentricity = Math.sqrt(eccentricitySquared);
+        this.ellipsoid = ellipsoid;
+        this.equatorialRadius = ellipsoid.a;
+        this.eccentricity = ellipsoid.e;
     }
 
     public ProjectionMercator() {
-        this(0, Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_ES);
+        this(0, Ellipsoid.WGS84);
+    }
+
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        toCartesian(latitude, longitude, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        toGeographic(x, y, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toCartesian(lats[i], lons[i], xs, i, ys, i);
+        }
     }
 
     @Override
-    public double[] geographicToCartesian(double latitude, double longitude) {
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toGeographic(xs[i], ys[i], lats, i, lons, i);
+        }
+    }
+
+    private void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi) {
         latitude = this.projectionLimits.clampLatitude(latitude);
         longitude = this.projectionLimits.clampLongitude(longitude);
 
@@ -36,37 +65,39 @@ public class ProjectionMercator extends AbstractGeographicProjection {
         double s = ((1 + sinPhi) / (1 - sinPhi)) * Math.pow((1 - eccentricity * sinPhi) / (1 + eccentricity * sinPhi), eccentricity);
         double y = 0.5 * equatorialRadius * Math.log(s);
 
-        return new double[]{x, y};
+        xs[xi] = x;
+        ys[yi] = y;
     }
 
-    @Override
-    public double[] cartesianToGeographic(double[] cart) {
-        double ecc2 = eccentricitySquared;
-        double ecc4 = ecc2 * ecc2;
-        double ecc6 = ecc4 * ecc2;
-        double ecc8 = ecc6 * ecc2;
-        double t = Math.pow(Math.E, -cart[1] / equatorialRadius);
-
-        double A = Math.PI / 2 - 2 * Math.atan(t);
-        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
-        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
-        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
-        double E = 4279 * ecc8 / 161280;
-
-        double Ap = A - C + E;
-        double Bp = B - 3 * D;
-        double Cp = 2 * C - 8 * E;
-        double Dp = 4 * D;
-        double Ep = 8 * E;
-
-        double s2p = Math.sin(2 * A);
-
-        double lat = Ap + s2p * (Bp + s2p * (Cp + s2p * (Dp + Ep * s2p)));
-        double lon = (cart[0] - xOffset) / equatorialRadius;
+    private void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni) {
+        double t = Math.exp(-y / equatorialRadius);
+        double lat = ellipsoid.geodeticLatitude(Math.PI / 2 - 2 * Math.atan(t));
+        double lon = (x - xOffset) / equatorialRadius;
         lat = Math.toDegrees(lat);
         lon = Math.toDegrees(lon);
 
-        return new double[]{lat, lon};
+        lats[lati] = lat;
+        lons[loni] = lon;
+    }
+
+    public Ellipsoid getEllipsoid() {
+        return ellipsoid;
+    }
+
+    @Override
+    double[] translationTo(AbstractGeographicProjection other) {
+        if (other.getClass() != ProjectionMercator.class || getClass() != ProjectionMercator.class) {
+            return super.translationTo(other);
+        }
+        ProjectionMercator mercator = (ProjectionMercator) other;
+        if (mercator.ellipsoid.a != ellipsoid.a || mercator.ellipsoid.es != ellipsoid.es) {
+            return null;
+        }
+        return new double[]{mercator.xOffset - xOffset, 0};
+    }
+
+    double getXOffset() {
+        return xOffset;
     }
 
     @Override
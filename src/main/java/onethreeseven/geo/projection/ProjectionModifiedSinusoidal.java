@@ -17,26 +17,54 @@ public class ProjectionModifiedSinusoidal extends AbstractGeographicProjection {
         this.equatorialRadius = equatorialRadius;
     }
 
-    public double[] geographicToCartesian(double latitude, double longitude) {
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        toCartesian(latitude, longitude, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        toGeographic(x, y, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toCartesian(lats[i], lons[i], xs, i, ys, i);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toGeographic(xs[i], ys[i], lats, i, lons, i);
+        }
+    }
+
+    private void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi) {
         double latRads = Math.toRadians(latitude);
         double latCos = Math.cos(latRads);
-        double x = latCos > 0 ? equatorialRadius * Math.toRadians(longitude) * Math.pow(latCos, .3) : 0;
-        double y = equatorialRadius * latRads;
-        return new double[]{x, y};
+        xs[xi] = latCos > 0 ? equatorialRadius * Math.toRadians(longitude) * Math.pow(latCos, .3) : 0;
+        ys[yi] = equatorialRadius * latRads;
     }
 
-    public double[] cartesianToGeographic(double[] cart) {
-        double latRadians = cart[1] / equatorialRadius;
+    private void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni) {
+        double latRadians = y / equatorialRadius;
         latRadians = projectionLimits.clamp(latRadians, -Math.PI / 2, Math.PI / 2);
 
         double latCos = Math.cos(latRadians);
-        double lonRadians = latCos > 0 ? cart[0] / equatorialRadius / Math.pow(latCos, .3) : 0;
+        double lonRadians = latCos > 0 ? x / equatorialRadius / Math.pow(latCos, .3) : 0;
         lonRadians = projectionLimits.clamp(lonRadians, -Math.PI, Math.PI);
 
-        return new double[]{
-                Math.toDegrees(latRadians),
-                Math.toDegrees(lonRadians)
-        };
+        lats[lati] = Math.toDegrees(latRadians);
+        lons[loni] = Math.toDegrees(lonRadians);
+    }
+
+    @Override
+    LaneKernel laneKernel() {
+        return new LaneKernel.ModifiedSinusoidal(equatorialRadius);
     }
 
     @Override
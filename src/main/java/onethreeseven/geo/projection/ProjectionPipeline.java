@@ -0,0 +1,204 @@
+package onethreeseven.geo.projection;
+
+import onethreeseven.geo.model.CoordinateBuffer;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * <p>
+ * Converts Cartesian points of one projection (the source) to Cartesian points of another (the target), i.e.
+ * Mercator meters to UTM meters, in one call that allocates nothing per point.
+ * </p>
+ * <p>
+ * In general each point is converted to a geographic position by the source and then to a Cartesian point by the
+ * target. The bulk methods do this a chunk of points at a time, keeping the geographic positions in the output (or a
+ * small scratch array) while the chunk is still in cache. Some pairs of projections skip the geographic positions
+ * altogether:
+ * </p>
+ * <ul>
+ *     <li>A projection to itself is the identity, points are only copied.</li>
+ *     <li>Projections of the same kind on the same ellipsoid that only differ in their false origin (i.e. a UTM zone
+ *     and the same zone with a 500km false easting) are a translation.</li>
+ * </ul>
+ * The shortcuts are exact, so unlike the round trip they neither clamp points to the projection limits nor carry the
+ * error of the inverse projection. Projections from a {@link ProjectionFactory} are shared, so pipelines between
+ * projections with the same parameters are always recognised as the identity.
+ * @author Luke Bermingham
+ */
+public final class ProjectionPipeline {
+
+    private final AbstractGeographicProjection source;
+    private final AbstractGeographicProjection target;
+    /**
+     * The translation from the source to the target, or null if there is no shortcut.
+     */
+    private final double[] translation;
+
+    private ProjectionPipeline(AbstractGeographicProjection source, AbstractGeographicProjection target) {
+        this.source = source;
+        this.target = target;
+        this.translation = source.translationTo(target);
+    }
+
+    /**
+     * @param source the projection of the points to convert.
+     * @param target the projection to convert them to.
+     * @return The pipeline.
+     */
+    public static ProjectionPipeline of(AbstractGeographicProjection source, AbstractGeographicProjection target) {
+        return new ProjectionPipeline(source, target);
+    }
+
+    /**
+     * @return A pipeline from the target to the source.
+     */
+    public ProjectionPipeline inverse() {
+        return new ProjectionPipeline(target, source);
+    }
+
+    /**
+     * @param x      the x in the source projection, in meters.
+     * @param y      the y in the source projection, in meters.
+     * @param out    the array to write {x, y} in the target projection to.
+     * @param offset the index to write x to.
+     */
+    public void transform(double x, double y, double[] out, int offset) {
+        if (translation != null) {
+            out[offset] = x + translation[0];
+            out[offset + 1] = y + translation[1];
+            return;
+        }
+        source.cartesianToGeographic(x, y, out, offset);
+        target.geographicToCartesian(out[offset], out[offset + 1], out, offset);
+    }
+
+    /**
+     * Converts a batch of points interleaved like {x, y, ...}, using the same layout as
+     * {@link AbstractGeographicProjection#geographicToCartesian(double[], double[], int, int, int)}. The input and
+     * output may be the same array.
+     * @param xy     the interleaved points in the source projection.
+     * @param out    the array to write the interleaved points in the target projection to.
+     * @param offset the index of the first x.
+     * @param length the number of points to convert.
+     * @param stride the distance between consecutive points, at least 2.
+     */
+    public void transform(double[] xy, double[] out, int offset, int length, int stride) {
+        AbstractGeographicProjection.checkInterleaved(xy, out, offset, length, stride);
+        if (translation != null) {
+            if (xy == out && isIdentity()) {
+                return;
+            }
+            double dx = translation[0];
+            double dy = translation[1];
+            for (int i = offset, end = offset + length * stride; i < end; i += stride) {
+                out[i] = xy[i] + dx;
+                out[i + 1] = xy[i + 1] + dy;
+            }
+            return;
+        }
+        //the geographic positions of a chunk are kept in the output until the target overwrites them
+        for (int done = 0; done < length; ) {
+            int n = Math.min(AbstractGeographicProjection.BUFFER_CHUNK_SIZE, length - done);
+            int start = offset + done * stride;
+            source.cartesianToGeographic(xy, out, start, n, stride);
+            target.geographicToCartesian(out, out, start, n, stride);
+            done += n;
+        }
+    }
+
+    /**
+     * Converts a batch of points stored as separate x and y columns. The input and output columns may be the same
+     * arrays.
+     * @param xs     the x values in the source projection.
+     * @param ys     the y values in the source projection.
+     * @param outXs  the array to write the x values in the target projection to.
+     * @param outYs  the array to write the y values in the target projection to.
+     * @param offset the index of the first point in every column.
+     * @param length the number of points to convert.
+     */
+    public void transform(double[] xs, double[] ys, double[] outXs, double[] outYs, int offset, int length) {
+        AbstractGeographicProjection.checkColumns(xs, ys, outXs, outYs, offset, length);
+        if (translation != null) {
+            double dx = translation[0];
+            double dy = translation[1];
+            for (int i = offset, end = offset + length; i < end; i++) {
+                outXs[i] = xs[i] + dx;
+                outYs[i] = ys[i] + dy;
+            }
+            return;
+        }
+        for (int done = 0; done < length; ) {
+            int n = Math.min(AbstractGeographicProjection.BUFFER_CHUNK_SIZE, length - done);
+            int start = offset + done;
+            source.cartesianToGeographic(xs, ys, outXs, outYs, start, n);
+            target.geographicToCartesian(outXs, outYs, outXs, outYs, start, n);
+            done += n;
+        }
+    }
+
+    /**
+     * Converts a batch of points interleaved like {x, y, ...} held in a buffer (i.e. a memory mapped file) into
+     * another buffer, copying them through a small scratch array a chunk at a time. The input and output may be the
+     * same buffer and the positions of the buffers are left unchanged.
+     * @param xy     the interleaved points in the source projection.
+     * @param out    the buffer to write the interleaved points in the target projection to.
+     * @param offset the index of the first x in both buffers.
+     * @param length the number of points to convert.
+     */
+    public void transform(DoubleBuffer xy, DoubleBuffer out, int offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        long end = offset + 2L * length;
+        if (end > xy.limit() || end > out.limit()) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the given buffers.");
+        }
+        DoubleBuffer in = xy.duplicate();
+        DoubleBuffer dst = out.duplicate();
+        in.position(offset);
+        dst.position(offset);
+        int chunkSize = AbstractGeographicProjection.BUFFER_CHUNK_SIZE;
+        double[] scratch = new double[2 * Math.min(length, chunkSize)];
+        for (int done = 0; done < length; ) {
+            int n = Math.min(chunkSize, length - done);
+            in.get(scratch, 0, 2 * n);
+            transform(scratch, scratch, 0, n, 2);
+            dst.put(scratch, 0, 2 * n);
+            done += n;
+        }
+    }
+
+    /**
+     * Converts every point of a buffer, see {@link #transform(DoubleBuffer, DoubleBuffer, int, int)}.
+     * @param xy  the points in the source projection.
+     * @param out the buffer to write the points in the target projection to, at least as large as the input.
+     */
+    public void transform(CoordinateBuffer xy, CoordinateBuffer out) {
+        transform(xy.asDoubleBuffer(), out.asDoubleBuffer(), 0, xy.size());
+    }
+
+    /**
+     * @return True if the source and target convert points the same way, so points are only copied.
+     */
+    public boolean isIdentity() {
+        return translation != null && translation[0] == 0 && translation[1] == 0;
+    }
+
+    /**
+     * @return True if points are moved from the source to the target without converting them to geographic
+     * positions.
+     */
+    public boolean isTranslation() {
+        return translation != null;
+    }
+
+    public AbstractGeographicProjection getSource() {
+        return source;
+    }
+
+    public AbstractGeographicProjection getTarget() {
+        return target;
+    }
+
+}
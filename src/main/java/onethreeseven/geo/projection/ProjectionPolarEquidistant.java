@@ -23,25 +23,54 @@ public class ProjectionPolarEquidistant extends AbstractGeographicProjection {
         this.equatorialRadius = equatorialRadius;
     }
 
-    public double[] geographicToCartesian(double latitude, double longitude) {
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        toCartesian(latitude, longitude, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        toGeographic(x, y, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toCartesian(lats[i], lons[i], xs, i, ys, i);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toGeographic(xs[i], ys[i], lats, i, lons, i);
+        }
+    }
+
+    private void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi) {
         // Formulae taken from "Map Projections -- A Working Manual", Snyder, USGS paper 1395, pg. 195.
-        if ((!isSouthPole && latitude == 90) || (isSouthPole && latitude == -90))
-            return new double[]{0,0};
+        if ((!isSouthPole && latitude == 90) || (isSouthPole && latitude == -90)){
+            xs[xi] = 0;
+            ys[yi] = 0;
+            return;
+        }
 
         double a = equatorialRadius * (Math.PI / 2 + Math.toRadians(latitude) * (isSouthPole ? 1 : -1));
         double lonRads = Math.toRadians(longitude);
-        double x = a * Math.sin(lonRads);
-        double y = a * Math.cos(lonRads) * (isSouthPole ? 1 : -1);
-
-        return new double[]{x, y};
+        xs[xi] = a * Math.sin(lonRads);
+        ys[yi] = a * Math.cos(lonRads) * (isSouthPole ? 1 : -1);
     }
 
-    public double[] cartesianToGeographic(double[] cart) {
+    private void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni) {
         // Formulae taken from "Map Projections -- A Working Manual", Snyder, USGS paper 1395, pg. 196.
 
-        double rho = Math.sqrt(cart[0] * cart[0] + cart[1] * cart[1]);
+        double rho = Math.sqrt(x * x + y * y);
         if (rho < 1.0e-4){
-            return new double[]{isSouthPole ? -90 : 90, 0};
+            lats[lati] = isSouthPole ? -90 : 90;
+            lons[loni] = 0;
+            return;
         }
 
         double c = rho / equatorialRadius;
@@ -49,18 +78,21 @@ public class ProjectionPolarEquidistant extends AbstractGeographicProjection {
             c = Math.PI;
 
         double lat = Math.asin(Math.cos(c) * (isSouthPole ? -1 : 1));
-        double lon = Math.atan2(cart[0], cart[1] * (isSouthPole ? 1 : -1)); // use atan2(x,y) instead of atan(x/y)
+        double lon = Math.atan2(x, y * (isSouthPole ? 1 : -1)); // use atan2(x,y) instead of atan(x/y)
 
-        return new double[]{
-                Math.toDegrees(lat),
-                Math.toDegrees(lon)
-        };
+        lats[lati] = Math.toDegrees(lat);
+        lons[loni] = Math.toDegrees(lon);
     }
 
     public boolean isSouthPole() {
         return isSouthPole;
     }
 
+    @Override
+    LaneKernel laneKernel() {
+        return new LaneKernel.PolarEquidistant(equatorialRadius, isSouthPole);
+    }
+
     @Override
     public String toString(){
         return "PolarEquidistant";
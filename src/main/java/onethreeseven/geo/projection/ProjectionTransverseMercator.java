@@ -19,6 +19,22 @@ public class ProjectionTransverseMercator extends AbstractGeographicProjection {
     private static final double DEFAULT_CENTRAL_MERIDIAN = 0;
     private static final double DEFAULT_CENTRAL_LATITUDE = 0;
 
+    /**
+     * The maths used to convert between geographic positions and the projection.
+     */
+    public enum Engine {
+        /**
+         * The NGA series of {@link TMCoordConverter}, accurate to a millimeter within a few degrees of the central
+         * meridian (a UTM zone) but degrading quickly beyond that.
+         */
+        NGA,
+        /**
+         * Kruger's series to sixth order, accurate to well below a millimeter out to 60 degrees from the central
+         * meridian, see {@link TMKrugerSeries}.
+         */
+        KRUGER
+    }
+
     protected final double width;
     protected final double centralMeridian;
     protected final double centralLatitude;
@@ -27,13 +43,23 @@ public class ProjectionTransverseMercator extends AbstractGeographicProjection {
     protected final double polarRadius;
     protected final double falseNorthing;
     protected final double falseEasting;
+    protected final Ellipsoid ellipsoid;
+    protected final TMParameters tmParameters;
+    protected final Engine engine;
+    /**
+     * The Kruger series, or null if the NGA engine is used.
+     */
+    private final TMKrugerSeries kruger;
+    /**
+     * The stateless NGA converter of the parameters, shared by every thread.
+     */
+    private final TMCoordConverter converter;
 
     public ProjectionTransverseMercator() {
         this(DEFAULT_WIDTH,
             DEFAULT_CENTRAL_MERIDIAN,
             DEFAULT_CENTRAL_LATITUDE, 1,
-            Constants.WGS84_EQUATORIAL_RADIUS,
-            Constants.WGS84_POLAR_RADIUS, 0, 0);
+            Ellipsoid.WGS84, 0, 0);
     }
 
     /**
@@ -51,35 +77,147 @@ public class ProjectionTransverseMercator extends AbstractGeographicProjection {
                                         double centralLatitude, double scale,
                                         double equatorialRadius, double polarRadius,
                                         double falseNorthing, double falseEasting) {
+        this(width, centralMeridian, centralLatitude, scale,
+                Ellipsoid.fromRadii(equatorialRadius, polarRadius), falseNorthing, falseEasting);
+    }
+
+    /**
+     * Create a projection using these TM parameters.
+     * @param width the width of the projection in degrees.
+     * @param centralMeridian the central meridian in degrees.
+     * @param centralLatitude the central latitude in degrees.
+     * @param scale the scale of the projection (1 is default).
+     * @param ellipsoid the ellipsoid of the globe.
+     * @param falseNorthing the false northing origin in meters (default 0).
+     * @param falseEasting the false easting origin in meters (default 0).
+     */
+    public ProjectionTransverseMercator(double width, double centralMeridian,
+                                        double centralLatitude, double scale,
+                                        Ellipsoid ellipsoid,
+                                        double falseNorthing, double falseEasting) {
+        this(width, centralMeridian, centralLatitude, scale, ellipsoid, falseNorthing, falseEasting, Engine.NGA);
+    }
+
+    /**
+     * Create a projection using these TM parameters.
+     * @param width the width of the projection in degrees.
+     * @param centralMeridian the central meridian in degrees.
+     * @param centralLatitude the central latitude in degrees.
+     * @param scale the scale of the projection (1 is default).
+     * @param ellipsoid the ellipsoid of the globe.
+     * @param falseNorthing the false northing origin in meters (default 0).
+     * @param falseEasting the false easting origin in meters (default 0).
+     * @param engine the maths used for conversions (default {@link Engine#NGA}).
+     */
+    public ProjectionTransverseMercator(double width, double centralMeridian,
+                                        double centralLatitude, double scale,
+                                        Ellipsoid ellipsoid,
+                                        double falseNorthing, double falseEasting, Engine engine) {
         super(ProjectionLimits.from(centralMeridian, width));
         this.width = width;
         this.centralMeridian = centralMeridian;
         this.centralLatitude = centralLatitude;
         this.scale = scale;
-        this.equatorialRadius = equatorialRadius;
-        this.polarRadius = polarRadius;
+        this.equatorialRadius = ellipsoid.a;
+        this.polarRadius = ellipsoid.b;
         this.falseNorthing = falseNorthing;
         this.falseEasting = falseEasting;
+        this.ellipsoid = ellipsoid;
+        this.tmParameters = TMParameters.from(ellipsoid,
+                centralLatitude, centralMeridian, falseEasting, falseNorthing, scale);
+        this.converter = tmParameters.converter();
+        this.engine = engine;
+        this.kruger = engine == Engine.KRUGER ? new TMKrugerSeries(tmParameters) : null;
+    }
+
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        toCartesian(latitude, longitude, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        toGeographic(x, y, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toCartesian(lats[i], lons[i], xs, i, ys, i);
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toGeographic(xs[i], ys[i], lats, i, lons, i);
+        }
     }
 
-    public double[] geographicToCartesian(double latitude, double longitude) {
+    private void toCartesian(double latitude, double longitude,
+                             double[] xs, int xi, double[] ys, int yi) {
         //clamp lat and lon
         latitude = projectionLimits.clampLatitude(latitude);
         longitude = projectionLimits.clampLongitude(longitude);
 
-        return TMUtil.toEastingNorthing(latitude,
-                longitude,
-                equatorialRadius,
-                polarRadius,
-                centralLatitude,
-                centralMeridian,
-                falseEasting, falseNorthing, scale);
+        if (kruger != null) {
+            kruger.toCartesian(latitude, longitude, xs, xi, ys, yi);
+            return;
+        }
+
+        long err = converter.convertGeodeticToTransverseMercator(Math.toRadians(latitude), Math.toRadians(longitude),
+                xs, xi, ys, yi);
+        if (err != TMCoordConverter.TRANMERC_NO_ERROR && err != TMCoordConverter.TRANMERC_LON_WARNING) {
+            throw new IllegalArgumentException("Bad parameters for utm conversion.");
+        }
+    }
+
+    private void toGeographic(double easting, double northing,
+                              double[] lats, int lati, double[] lons, int loni) {
+        if (kruger != null) {
+            kruger.toGeographic(easting, northing, lats, lati, lons, loni);
+            return;
+        }
+        long err = converter.convertTransverseMercatorToGeodetic(easting, northing, lats, lati, lons, loni);
+        if (err != TMCoordConverter.TRANMERC_NO_ERROR && err != TMCoordConverter.TRANMERC_LON_WARNING) {
+            throw new IllegalArgumentException("bad parameters for utm conversion");
+        }
+        lats[lati] = Math.toDegrees(lats[lati]);
+        lons[loni] = Math.toDegrees(lons[loni]);
+    }
+
+    /**
+     * @return The precomputed projection parameters, shared by every conversion this projection makes.
+     */
+    public TMParameters getTMParameters() {
+        return tmParameters;
     }
 
-    public double[] cartesianToGeographic(double[] cart) {
-        return TMUtil.fromEastingNorthing(cart[0], cart[1],
-                equatorialRadius, polarRadius, centralLatitude,
-                centralMeridian, falseEasting, falseNorthing, scale);
+    public Ellipsoid getEllipsoid() {
+        return ellipsoid;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * UTM zones are transverse mercator projections too, so a zone and a transverse mercator projection with the
+     * same parameters and a false easting (i.e. of 500km) only differ by the false easting.
+     */
+    @Override
+    double[] translationTo(AbstractGeographicProjection other) {
+        if (!(other instanceof ProjectionTransverseMercator)) {
+            return super.translationTo(other);
+        }
+        ProjectionTransverseMercator tm = (ProjectionTransverseMercator) other;
+        if (tm.width != width || tm.centralMeridian != centralMeridian || tm.centralLatitude != centralLatitude ||
+                tm.scale != scale || tm.engine != engine || tm.ellipsoid.a != ellipsoid.a || tm.ellipsoid.es != ellipsoid.es) {
+            return null;
+        }
+        return new double[]{tm.falseEasting - falseEasting, tm.falseNorthing - falseNorthing};
     }
 
     @Override
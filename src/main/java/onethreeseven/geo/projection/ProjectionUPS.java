@@ -8,33 +8,77 @@ package onethreeseven.geo.projection;
  */
 public class ProjectionUPS extends AbstractGeographicProjection {
 
+    /**
+     * Standard UPS scale factor, see "Map Projections -- A Working Manual" pg.157, pp 2.
+     */
+    private static final double k0 = 0.994;
+
     private final boolean isSouthPole;
-    private final double eccentricitySquared;
-    private final double equatorialRadius;
+    private final Ellipsoid ellipsoid;
     private final double xOffset;
+    private final double poleSign;
+    private final double eccentricity;
+    /**
+     * The distance from the pole is radiusScale * t, see pg. 161.
+     */
+    private final double radiusScale;
 
     public ProjectionUPS(){
-        this(false, Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_ES, 0);
+        this(false, Ellipsoid.WGS84, 0);
     }
 
     public ProjectionUPS(boolean isSouthPole, double equatorialRadius,
                          double eccentricitySquared, double xOffset) {
+        this(isSouthPole, Ellipsoid.fromEccentricitySquared(equatorialRadius, eccentricitySquared), xOffset);
+    }
+
+    public ProjectionUPS(boolean isSouthPole, Ellipsoid ellipsoid, double xOffset) {
         super(isSouthPole ?
             new ProjectionLimits(-90, 0, -180, 180) :
             new ProjectionLimits(0, 90, -180, 180)
         );
         this.isSouthPole = isSouthPole;
-        this.eccentricitySquared = eccentricitySquared;
-        this.equatorialRadius = equatorialRadius;
+        this.ellipsoid = ellipsoid;
         this.xOffset = xOffset;
+        this.poleSign = isSouthPole ? -1 : 1;
+        this.eccentricity = ellipsoid.e;
+        this.radiusScale = 2 * ellipsoid.a * k0 / ellipsoid.polarStereographicDenominator;
+    }
+
+    @Override
+    public void geographicToCartesian(double latitude, double longitude, double[] out, int offset) {
+        toCartesian(latitude, longitude, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void cartesianToGeographic(double x, double y, double[] out, int offset) {
+        toGeographic(x, y, out, offset, out, offset + 1);
+    }
+
+    @Override
+    public void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int offset, int length) {
+        checkColumns(lats, lons, xs, ys, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toCartesian(lats[i], lons[i], xs, i, ys, i);
+        }
     }
 
-    public double[] geographicToCartesian(double latitude, double longitude) {
+    @Override
+    public void cartesianToGeographic(double[] xs, double[] ys, double[] lats, double[] lons, int offset, int length) {
+        checkColumns(xs, ys, lats, lons, offset, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            toGeographic(xs[i], ys[i], lats, i, lons, i);
+        }
+    }
+
+    private void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi) {
         // Formulas taken from "Map Projections -- A Working Manual",
         // Snyder, USGS paper 1395, pg. 161.
 
         if ((!isSouthPole && latitude == 90) || (isSouthPole && latitude == -90)){
-            return new double[]{0,0};
+            xs[xi] = 0;
+            ys[yi] = 0;
+            return;
         }
 
         double latRads = Math.toRadians(latitude);
@@ -47,66 +91,44 @@ public class ProjectionUPS extends AbstractGeographicProjection {
             latRads = 0;
         }
 
-        // standard UPS scale factor -- see above reference pg.157, pp 2.
-        double k0 = 0.994;
-        double ecc = Math.sqrt(eccentricitySquared);
-        double sp = Math.sin(latRads * (!isSouthPole ? 1 : -1));
+        double ecc = eccentricity;
+        double sp = Math.sin(latRads * poleSign);
 
         double t = Math.sqrt(((1 - sp) / (1 + sp)) * Math.pow((1 + ecc * sp) / (1 - ecc * sp), ecc));
-        double s = Math.sqrt(Math.pow(1 + ecc, 1 + ecc) * Math.pow(1 - ecc, 1 - ecc));
-        double r = 2 * equatorialRadius * k0 * t / s;
+        double r = radiusScale * t;
 
-        double x = r * Math.sin(lonRads);
-        double y = -r * Math.cos(lonRads) * (!isSouthPole ? 1 : -1);
-
-        return new double[]{x, y};
+        xs[xi] = r * Math.sin(lonRads);
+        ys[yi] = -r * Math.cos(lonRads) * poleSign;
     }
 
-    public double[] cartesianToGeographic(double[] cart) {
-        double x = (cart[0] - xOffset);
-        double y = cart[1];
+    private void toGeographic(double x, double y, double[] lats, int lati, double[] lons, int loni) {
+        x = x - xOffset;
 
-        double lon = Math.atan2(x, y * (!isSouthPole ? -1 : 1));
+        double lon = Math.atan2(x, y * -poleSign);
 
-        double k0 = 0.994; // standard UPS scale factor -- see above reference pg.157, pp 2.
-        double ecc = Math.sqrt(eccentricitySquared);
         double r = Math.sqrt(x * x + y * y);
-        double s = Math.sqrt(Math.pow(1 + ecc, 1 + ecc) * Math.pow(1 - ecc, 1 - ecc));
-        double t = r * s / (2 * equatorialRadius * k0);
-
-        double ecc2 = eccentricitySquared;
-        double ecc4 = ecc2 * ecc2;
-        double ecc6 = ecc4 * ecc2;
-        double ecc8 = ecc6 * ecc2;
-
-        double A = Math.PI / 2 - 2 * Math.atan(t);
-        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
-        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
-        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
-        double E = 4279 * ecc8 / 161280;
+        double t = r / radiusScale;
 
-        double Ap = A - C + E;
-        double Bp = B - 3 * D;
-        double Cp = 2 * C - 8 * E;
-        double Dp = 4 * D;
-        double Ep = 8 * E;
+        double lat = ellipsoid.geodeticLatitude(Math.PI / 2 - 2 * Math.atan(t));
 
-        double s2p = Math.sin(2 * A);
+        lat = lat * poleSign;
 
-        double lat = Ap + s2p * (Bp + s2p * (Cp + s2p * (Dp + Ep * s2p)));
-
-        lat = lat * (!isSouthPole ? 1 : -1);
-
-        return new double[]{
-                Math.toDegrees(lat),
-                Math.toDegrees(lon)
-        };
+        lats[lati] = Math.toDegrees(lat);
+        lons[loni] = Math.toDegrees(lon);
     }
 
     public boolean isSouthPole() {
         return isSouthPole;
     }
 
+    public Ellipsoid getEllipsoid() {
+        return ellipsoid;
+    }
+
+    double getXOffset() {
+        return xOffset;
+    }
+
     @Override
     public String toString(){
         return "UPS";
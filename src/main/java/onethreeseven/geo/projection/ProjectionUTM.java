@@ -7,22 +7,113 @@ public class ProjectionUTM extends ProjectionTransverseMercator {
 
     private static final double projectionScale = 0.9996;
 
+    /**
+     * One shared projection per zone, projections are immutable and thread-safe.
+     */
+    private static final ProjectionUTM[] zoneProjections = new ProjectionUTM[60];
+    static {
+        for (int i = 0; i < zoneProjections.length; i++) {
+            zoneProjections[i] = new ProjectionUTM(i + 1);
+        }
+    }
+
     private final int zone;
 
     public ProjectionUTM(int zone) {
+        this(zone, Engine.NGA);
+    }
+
+    /**
+     * @param zone the utm zone [1,60].
+     * @param engine the maths used for conversions, {@link #forZone(int, Engine)} shares projections of either.
+     */
+    public ProjectionUTM(int zone, Engine engine) {
         super(30, centralMeridianForZone(zone), 0,
-                projectionScale, Constants.WGS84_EQUATORIAL_RADIUS,
-                Constants.WGS84_POLAR_RADIUS, 0, 0);
+                projectionScale, Ellipsoid.WGS84, 0, 0, engine);
         this.zone = zone;
     }
 
+    /**
+     * @param zone the utm zone [1,60].
+     * @return The cached projection for this zone, using {@link Engine#NGA}.
+     */
+    public static ProjectionUTM forZone(int zone)
+    {
+        return forZone(zone, Engine.NGA);
+    }
+
+    /**
+     * @param zone the utm zone [1,60].
+     * @param engine the maths used for conversions.
+     * @return The cached projection for this zone and engine.
+     */
+    public static ProjectionUTM forZone(int zone, Engine engine)
+    {
+        if (zone < 1 || zone > 60)
+        {
+            throw new IllegalArgumentException("Utm zones must be [1,60].");
+        }
+        return engine == Engine.KRUGER ? KrugerZones.PROJECTIONS[zone - 1] : zoneProjections[zone - 1];
+    }
+
+    /**
+     * The Kruger projections of the zones, only built once one is asked for.
+     */
+    private static final class KrugerZones {
+        static final ProjectionUTM[] PROJECTIONS = new ProjectionUTM[60];
+        static {
+            for (int i = 0; i < PROJECTIONS.length; i++) {
+                PROJECTIONS[i] = new ProjectionUTM(i + 1, Engine.KRUGER);
+            }
+        }
+    }
+
+    /**
+     * Zone 1 is centred on 177W and zones increase eastward in 6 degree steps.
+     * @param zone the utm zone [1,60].
+     * @return The central meridian of the zone, in degrees.
+     */
     public static double centralMeridianForZone(int zone)
     {
         if (zone < 1 || zone > 60)
         {
             throw new IllegalArgumentException("Utm zones must be [1,60].");
         }
-        return (3 + (zone - 1) * 6) - (zone > 30 ? 360 : 0);
+        return zone * 6 - 183;
+    }
+
+    /**
+     * Find the utm zone of a position, including the exceptions for south-west Norway (zone 32V is widened to
+     * 3E-12E) and Svalbard (zones 32X, 34X and 36X are not used). UTM is only defined from 80S to 84N, outside of that
+     * the zone is still computed from the longitude.
+     * @param latitude the latitude in degrees.
+     * @param longitude the longitude in degrees, any value is wrapped into [-180,180).
+     * @return The utm zone [1,60].
+     */
+    public static int zoneFor(double latitude, double longitude)
+    {
+        if (longitude < -180 || longitude >= 180)
+        {
+            longitude = longitude - 360 * Math.floor((longitude + 180) / 360);
+        }
+        if (latitude >= 56 && latitude < 64 && longitude >= 3 && longitude < 12)
+        {
+            return 32;
+        }
+        if (latitude >= 72 && latitude < 84 && longitude >= 0 && longitude < 42)
+        {
+            if (longitude < 9) return 31;
+            if (longitude < 21) return 33;
+            if (longitude < 33) return 35;
+            return 37;
+        }
+        int zone = (int) ((longitude + 180) / 6) + 1;
+        //rounding can put a longitude just below 180 into zone 61
+        return zone > 60 ? 60 : zone;
+    }
+
+    public int getZone() {
+        return zone;
     }
 
     @Override
@@ -0,0 +1,534 @@
+package onethreeseven.geo.projection;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * Reprojects Cartesian coordinates of one projection (the source) to Cartesian coordinates of another (the target),
+ * i.e. Mercator meters to UTM meters, by bilinear interpolation of the exact transform sampled on a grid, rather than
+ * by an inverse and a forward projection per point.
+ * </p>
+ * <p>
+ * The grid covers a rectangle of the source plane and is adaptive: a cell is split in half, across x, y or both,
+ * until the exact transform at the middle of the cell and its edges is within the error bound of the interpolated
+ * one, so cells are small only where (and in the direction) the transform bends. Points outside of the rectangle are
+ * reprojected exactly.
+ * </p>
+ * <p>
+ * Rasters are reprojected by {@link #warp(PixelGrid, double[])}, which interpolates along each row of pixels inside
+ * a cell with one multiply-add per coordinate, or {@link #resample(int[], PixelGrid, int[], PixelGrid, int)}. To
+ * render a tile of the target from a raster of the source, build the grid from the projection of the tile to the
+ * projection of the raster, so every pixel of the tile looks up the pixel of the raster it comes from.
+ * </p>
+ * Neighbouring cells of different sizes can disagree by up to the error bound along their shared edge. Grids are
+ * immutable and thread-safe.
+ * @author Luke Bermingham
+ */
+public final class ReprojectionGrid {
+
+    /**
+     * One centimeter, in the units of the target projection.
+     */
+    public static final double DEFAULT_MAX_ERROR = 0.01;
+
+    /**
+     * Cells are split across both axes at least this many times, so a transform that happens to match at the first
+     * few test points is still sampled.
+     */
+    static final int MIN_DEPTH = 2;
+    /**
+     * Cells are at most 4096 times narrower (or shorter) than the rectangle, a cell this small that is still not
+     * within the error bound (or has a NaN or infinite corner, along the edge of the domain of either projection) is
+     * not split any further.
+     */
+    static final int MAX_DEPTH = 12;
+    private static final int MAX_NODES = 1 << 20;
+
+    private static final int SPLIT_X = 1;
+    private static final int SPLIT_Y = 2;
+    /**
+     * The doubles per cell: its extent {x0, y0, x1, y1} in the source projection then the target coordinates {x, y}
+     * of its south-west, south-east, north-west and north-east corners.
+     */
+    private static final int CELL_SIZE = 12;
+
+    private final AbstractGeographicProjection source;
+    private final AbstractGeographicProjection target;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final double maxError;
+
+    /**
+     * The index of the first child of each cell, or -1 for leaves. Cells split across x have a west and east child,
+     * across y a south and north child and across both a south-west, south-east, north-west and north-east child.
+     */
+    private final int[] children;
+    private final byte[] splits;
+    private final double[] cells;
+    private final int nNodes;
+
+    private ReprojectionGrid(AbstractGeographicProjection source, AbstractGeographicProjection target,
+                             double minX, double minY, double maxX, double maxY, double maxError) {
+        this.source = source;
+        this.target = target;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxError = maxError;
+        //the cells are built into growing arrays, then each field is set once so the grid is safely published
+        Builder builder = new Builder();
+        this.nNodes = builder.nNodes;
+        this.children = Arrays.copyOf(builder.children, nNodes);
+        this.splits = Arrays.copyOf(builder.splits, nNodes);
+        this.cells = Arrays.copyOf(builder.cells, nNodes * CELL_SIZE);
+    }
+
+    /**
+     * @param source   the projection of the coordinates to reproject.
+     * @param target   the projection to reproject them to.
+     * @param minX     the smallest x of the rectangle covered by the grid, in the source projection.
+     * @param minY     the smallest y of the rectangle.
+     * @param maxX     the largest x of the rectangle.
+     * @param maxY     the largest y of the rectangle.
+     * @param maxError the largest distance between an interpolated and an exact point, in the units of the target
+     *                 projection (meters).
+     * @return The grid.
+     * @throws IllegalArgumentException if the rectangle is empty, the error bound is not positive or the grid would
+     *                                  need too many (or too small) cells to reach it.
+     */
+    public static ReprojectionGrid build(AbstractGeographicProjection source, AbstractGeographicProjection target,
+                                         double minX, double minY, double maxX, double maxY, double maxError) {
+        if (!(minX < maxX) || !(minY < maxY)) {
+            throw new IllegalArgumentException("Rectangle must not be empty, was: [" + minX + ", " + maxX +
+                    "] x [" + minY + ", " + maxY + "]");
+        }
+        if (!(maxError > 0)) {
+            throw new IllegalArgumentException("Error bound must be positive, was: " + maxError);
+        }
+        return new ReprojectionGrid(source, target, minX, minY, maxX, maxY, maxError);
+    }
+
+    /**
+     * @return A grid over the rectangle within {@link #DEFAULT_MAX_ERROR} of the exact transform.
+     * @see #build(AbstractGeographicProjection, AbstractGeographicProjection, double, double, double, double, double)
+     */
+    public static ReprojectionGrid build(AbstractGeographicProjection source, AbstractGeographicProjection target,
+                                         double minX, double minY, double maxX, double maxY) {
+        return build(source, target, minX, minY, maxX, maxY, DEFAULT_MAX_ERROR);
+    }
+
+    private void exact(double x, double y, double[] out, int offset) {
+        source.cartesianToGeographic(x, y, out, offset);
+        target.geographicToCartesian(out[offset], out[offset + 1], out, offset);
+    }
+
+    /**
+     * @return The distance between the exact point at the middle of an edge and the middle of its two corners, NaN if
+     * any of them is.
+     */
+    private static double midpointError(double[] lattice, int mid, int a, int b) {
+        return Math.hypot(lattice[mid] - (lattice[a] + lattice[b]) * 0.5,
+                lattice[mid + 1] - (lattice[a + 1] + lattice[b + 1]) * 0.5);
+    }
+
+    /**
+     * @return True if every point of the cell is NaN or infinite, so it is outside of the domain of the transform and
+     * splitting it would not help.
+     */
+    private static boolean outsideDomain(double[] lattice) {
+        for (double v : lattice) {
+            if (Double.isFinite(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The index of the cell (which is not split) containing a point of the rectangle.
+     */
+    private int leaf(double x, double y) {
+        int node = 0;
+        int child;
+        while ((child = children[node]) >= 0) {
+            int c = node * CELL_SIZE;
+            int split = splits[node];
+            int q = 0;
+            if ((split & SPLIT_X) != 0 && x >= (cells[c] + cells[c + 2]) * 0.5) {
+                q = 1;
+            }
+            if ((split & SPLIT_Y) != 0 && y >= (cells[c + 1] + cells[c + 3]) * 0.5) {
+                //the north children follow the south children
+                q += split - 1;
+            }
+            node = child + q;
+        }
+        return node;
+    }
+
+    /**
+     * @param x      the x in the source projection.
+     * @param y      the y in the source projection.
+     * @param out    the array to write {x, y} in the target projection to.
+     * @param offset the index to write x to.
+     */
+    public void transform(double x, double y, double[] out, int offset) {
+        if (!(x >= minX && x <= maxX && y >= minY && y <= maxY)) {
+            exact(x, y, out, offset);
+            return;
+        }
+        int c = leaf(x, y) * CELL_SIZE;
+        double u = (x - cells[c]) / (cells[c + 2] - cells[c]);
+        double v = (y - cells[c + 1]) / (cells[c + 3] - cells[c + 1]);
+        double southX = cells[c + 4] + (cells[c + 6] - cells[c + 4]) * u;
+        double southY = cells[c + 5] + (cells[c + 7] - cells[c + 5]) * u;
+        double northX = cells[c + 8] + (cells[c + 10] - cells[c + 8]) * u;
+        double northY = cells[c + 9] + (cells[c + 11] - cells[c + 9]) * u;
+        out[offset] = southX + (northX - southX) * v;
+        out[offset + 1] = southY + (northY - southY) * v;
+    }
+
+    /**
+     * Reprojects a batch of points, the source and destination may be the same array.
+     * @param xy     interleaved {x, y, x, y...} coordinates in the source projection.
+     * @param out    the array to write the coordinates in the target projection to, at the same indices.
+     * @param offset the index of the first x.
+     * @param length the number of points.
+     * @param stride the distance between consecutive points, at least 2.
+     */
+    public void transform(double[] xy, double[] out, int offset, int length, int stride) {
+        AbstractGeographicProjection.checkInterleaved(xy, out, offset, length, stride);
+        for (int i = offset, end = offset + length * stride; i < end; i += stride) {
+            transform(xy[i], xy[i + 1], out, i);
+        }
+    }
+
+    /**
+     * Reprojects the centre of every pixel of a raster in the source projection.
+     * @param pixels the raster.
+     * @param out    the array to write the interleaved {x, y} coordinates in the target projection to, row by row,
+     *               at least twice as long as the number of pixels.
+     */
+    public void warp(PixelGrid pixels, double[] out) {
+        int width = pixels.width;
+        if (out.length < 2L * width * pixels.height) {
+            throw new IndexOutOfBoundsException("Raster of " + width + "x" + pixels.height +
+                    " pixels does not fit in an array of length " + out.length);
+        }
+        for (int row = 0; row < pixels.height; row++) {
+            warpRow(pixels, row, out, 2 * row * width);
+        }
+    }
+
+    /**
+     * Reprojects the centres of a row of pixels, interpolating linearly along the part of the row inside each cell.
+     */
+    private void warpRow(PixelGrid pixels, int row, double[] out, int offset) {
+        double y = pixels.centerY(row);
+        int col = 0;
+        while (col < pixels.width) {
+            double x = pixels.centerX(col);
+            if (!(x >= minX && x <= maxX && y >= minY && y <= maxY)) {
+                exact(x, y, out, offset + 2 * col);
+                col++;
+                continue;
+            }
+            int c = leaf(x, y) * CELL_SIZE;
+            double x0 = cells[c];
+            double x1 = cells[c + 2];
+            double inverseWidth = 1 / (x1 - x0);
+            double v = (y - cells[c + 1]) / (cells[c + 3] - cells[c + 1]);
+            //the row crosses the cell along a line, interpolated between its west and east ends
+            double westX = cells[c + 4] + (cells[c + 8] - cells[c + 4]) * v;
+            double westY = cells[c + 5] + (cells[c + 9] - cells[c + 5]) * v;
+            double dx = cells[c + 6] + (cells[c + 10] - cells[c + 6]) * v - westX;
+            double dy = cells[c + 7] + (cells[c + 11] - cells[c + 7]) * v - westY;
+            do {
+                double u = (x - x0) * inverseWidth;
+                int i = offset + 2 * col;
+                out[i] = westX + dx * u;
+                out[i + 1] = westY + dy * u;
+                col++;
+                x = pixels.centerX(col);
+            } while (col < pixels.width && x >= x0 && x < x1);
+        }
+    }
+
+    /**
+     * Resamples a raster in the target projection to a raster in the source projection, taking the nearest pixel.
+     * That is, this grid must reproject from the projection of the destination raster to the projection of the
+     * source raster.
+     * @param srcPixels the pixels of the source raster (i.e. ARGB), row by row.
+     * @param srcGrid   where the source raster is, in the target projection.
+     * @param dstPixels the pixels of the destination raster to write, row by row.
+     * @param dstGrid   where the destination raster is, in the source projection.
+     * @param noData    the value of destination pixels that come from outside of the source raster.
+     */
+    public void resample(int[] srcPixels, PixelGrid srcGrid, int[] dstPixels, PixelGrid dstGrid, int noData) {
+        if (srcPixels.length < (long) srcGrid.width * srcGrid.height) {
+            throw new IndexOutOfBoundsException("Raster of " + srcGrid.width + "x" + srcGrid.height +
+                    " pixels does not fit in an array of length " + srcPixels.length);
+        }
+        if (dstPixels.length < (long) dstGrid.width * dstGrid.height) {
+            throw new IndexOutOfBoundsException("Raster of " + dstGrid.width + "x" + dstGrid.height +
+                    " pixels does not fit in an array of length " + dstPixels.length);
+        }
+        double[] rowCoords = new double[2 * dstGrid.width];
+        double inversePixelWidth = 1 / srcGrid.pixelWidth;
+        double inversePixelHeight = 1 / srcGrid.pixelHeight;
+        for (int row = 0; row < dstGrid.height; row++) {
+            warpRow(dstGrid, row, rowCoords, 0);
+            for (int col = 0, i = row * dstGrid.width; col < dstGrid.width; col++, i++) {
+                double srcCol = (rowCoords[2 * col] - srcGrid.originX) * inversePixelWidth;
+                double srcRow = (rowCoords[2 * col + 1] - srcGrid.originY) * inversePixelHeight;
+                //false for NaN too
+                if (srcCol >= 0 && srcCol < srcGrid.width && srcRow >= 0 && srcRow < srcGrid.height) {
+                    dstPixels[i] = srcPixels[(int) srcRow * srcGrid.width + (int) srcCol];
+                } else {
+                    dstPixels[i] = noData;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the grid against the exact transform at random points of its rectangle.
+     * @param nSamples the number of points to compare.
+     * @return The largest distance between an interpolated and an exact point, in the units of the target projection.
+     */
+    public double measureAccuracy(int nSamples) {
+        Random r = new Random(137);
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        double max = 0;
+        for (int i = 0; i < nSamples; i++) {
+            double x = minX + r.nextDouble() * (maxX - minX);
+            double y = minY + r.nextDouble() * (maxY - minY);
+            exact(x, y, expected, 0);
+            transform(x, y, actual, 0);
+            double error = Math.hypot(actual[0] - expected[0], actual[1] - expected[1]);
+            if (error > max) {
+                max = error;
+            }
+        }
+        return max;
+    }
+
+    public AbstractGeographicProjection getSource() {
+        return source;
+    }
+
+    public AbstractGeographicProjection getTarget() {
+        return target;
+    }
+
+    public double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * @return The number of cells, including those split into smaller cells.
+     */
+    public int getCellCount() {
+        return nNodes;
+    }
+
+    /**
+     * Splits the cells of a grid being constructed, into arrays that grow as cells are added.
+     */
+    private final class Builder {
+
+        private int[] children = new int[256];
+        private byte[] splits = new byte[256];
+        private double[] cells = new double[256 * CELL_SIZE];
+        private int nNodes;
+
+        private Builder() {
+            int root = addNodes(1);
+            cells[0] = minX;
+            cells[1] = minY;
+            cells[2] = maxX;
+            cells[3] = maxY;
+            exact(minX, minY, cells, 4);
+            exact(maxX, minY, cells, 6);
+            exact(minX, maxY, cells, 8);
+            exact(maxX, maxY, cells, 10);
+            split(root, 0, 0, new double[18]);
+        }
+
+        private int addNodes(int n) {
+            if (nNodes + n > MAX_NODES) {
+                throw new IllegalArgumentException("Cannot reproject to within " + maxError +
+                        " with fewer than " + MAX_NODES + " cells, the error bound is too small.");
+            }
+            if (nNodes + n > children.length) {
+                children = Arrays.copyOf(children, children.length * 2);
+                splits = Arrays.copyOf(splits, splits.length * 2);
+                cells = Arrays.copyOf(cells, cells.length * 2);
+            }
+            int first = nNodes;
+            Arrays.fill(children, first, first + n, -1);
+            nNodes += n;
+            return first;
+        }
+
+        /**
+         * Splits a cell, and then its children, until the interpolation is within the error bound.
+         * @param levelX  the number of times the cell was split across x.
+         * @param levelY  the number of times the cell was split across y.
+         * @param lattice scratch for the 3x3 exact points of the cell, {x, y} row by row from the south-west corner.
+         */
+        private void split(int node, int levelX, int levelY, double[] lattice) {
+            int c = node * CELL_SIZE;
+            double x0 = cells[c];
+            double y0 = cells[c + 1];
+            double x1 = cells[c + 2];
+            double y1 = cells[c + 3];
+            double xm = (x0 + x1) * 0.5;
+            double ym = (y0 + y1) * 0.5;
+            System.arraycopy(cells, c + 4, lattice, 0, 2);
+            System.arraycopy(cells, c + 6, lattice, 4, 2);
+            System.arraycopy(cells, c + 8, lattice, 12, 2);
+            System.arraycopy(cells, c + 10, lattice, 16, 2);
+            exact(xm, y0, lattice, 2);
+            exact(x0, ym, lattice, 6);
+            exact(xm, ym, lattice, 8);
+            exact(x1, ym, lattice, 10);
+            exact(xm, y1, lattice, 14);
+
+            int split = SPLIT_X | SPLIT_Y;
+            if (levelX >= MIN_DEPTH && levelY >= MIN_DEPTH) {
+                //the error along x is measured at the middle of the south and north edges, along y of the west and east
+                double errorX = Math.max(midpointError(lattice, 2, 0, 4), midpointError(lattice, 14, 12, 16));
+                double errorY = Math.max(midpointError(lattice, 6, 0, 12), midpointError(lattice, 10, 4, 16));
+                double cx = (lattice[0] + lattice[4] + lattice[12] + lattice[16]) * 0.25;
+                double cy = (lattice[1] + lattice[5] + lattice[13] + lattice[17]) * 0.25;
+                double error = Math.max(Math.max(errorX, errorY), Math.hypot(lattice[8] - cx, lattice[9] - cy));
+                if (error <= maxError || outsideDomain(lattice)) {
+                    return;
+                }
+                //the errors along each axis add up inside the cell, so each gets half of the bound
+                split = 0;
+                if (!(errorX <= maxError * 0.5) && levelX < MAX_DEPTH) {
+                    split |= SPLIT_X;
+                }
+                if (!(errorY <= maxError * 0.5) && levelY < MAX_DEPTH) {
+                    split |= SPLIT_Y;
+                }
+                if (split == 0) {
+                    //only the middle is off, the cell twists
+                    split = (levelX < MAX_DEPTH ? SPLIT_X : 0) | (levelY < MAX_DEPTH ? SPLIT_Y : 0);
+                }
+                if (split == 0) {
+                    if (!Double.isFinite(error)) {
+                        return;
+                    }
+                    throw new IllegalArgumentException("Cannot reproject to within " + maxError + " with cells 2^" +
+                            MAX_DEPTH + " times smaller than the rectangle, the error bound is too small.");
+                }
+            }
+
+            int nx = (split & SPLIT_X) != 0 ? 2 : 1;
+            int ny = (split & SPLIT_Y) != 0 ? 2 : 1;
+            //the step between the corners of a child in the lattice
+            int dc = 3 - nx;
+            int dr = 3 - ny;
+            int first = addNodes(nx * ny);
+            children[node] = first;
+            splits[node] = (byte) split;
+            for (int row = 0, child = first; row < ny; row++) {
+                for (int col = 0; col < nx; col++, child++) {
+                    int dst = child * CELL_SIZE;
+                    cells[dst] = col == 0 ? x0 : xm;
+                    cells[dst + 1] = row == 0 ? y0 : ym;
+                    cells[dst + 2] = col + dc == 2 ? x1 : xm;
+                    cells[dst + 3] = row + dr == 2 ? y1 : ym;
+                    System.arraycopy(lattice, (row * 3 + col) * 2, cells, dst + 4, 2);
+                    System.arraycopy(lattice, (row * 3 + col + dc) * 2, cells, dst + 6, 2);
+                    System.arraycopy(lattice, ((row + dr) * 3 + col) * 2, cells, dst + 8, 2);
+                    System.arraycopy(lattice, ((row + dr) * 3 + col + dc) * 2, cells, dst + 10, 2);
+                }
+            }
+            //each child overwrites the lattice, so they are split after all their corners are copied
+            for (int child = first; child < first + nx * ny; child++) {
+                split(child, levelX + nx - 1, levelY + ny - 1, lattice);
+            }
+        }
+    }
+
+    /**
+     * Where a raster is in a projection: the corner of its first pixel and the size of its pixels, as in a world file.
+     * Rows are stored from the first, so north-up rasters have a negative pixel height.
+     */
+    public static final class PixelGrid {
+
+        final int width;
+        final int height;
+        final double originX;
+        final double originY;
+        final double pixelWidth;
+        final double pixelHeight;
+
+        /**
+         * @param width       the number of columns.
+         * @param height      the number of rows.
+         * @param originX     the x of the outer corner of the first pixel.
+         * @param originY     the y of the outer corner of the first pixel.
+         * @param pixelWidth  the change in x from one column to the next.
+         * @param pixelHeight the change in y from one row to the next.
+         */
+        public PixelGrid(int width, int height, double originX, double originY, double pixelWidth,
+                         double pixelHeight) {
+            if (width < 0 || height < 0) {
+                throw new IllegalArgumentException("Raster size must be positive, was: " + width + "x" + height);
+            }
+            if (pixelWidth == 0 || pixelHeight == 0 || Double.isNaN(pixelWidth) || Double.isNaN(pixelHeight)) {
+                throw new IllegalArgumentException("Pixel size must be non-zero, was: " + pixelWidth + "x" +
+                        pixelHeight);
+            }
+            this.width = width;
+            this.height = height;
+            this.originX = originX;
+            this.originY = originY;
+            this.pixelWidth = pixelWidth;
+            this.pixelHeight = pixelHeight;
+        }
+
+        double centerX(int col) {
+            return originX + (col + 0.5) * pixelWidth;
+        }
+
+        double centerY(int row) {
+            return originY + (row + 0.5) * pixelHeight;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public double getOriginX() {
+            return originX;
+        }
+
+        public double getOriginY() {
+            return originY;
+        }
+
+        public double getPixelWidth() {
+            return pixelWidth;
+        }
+
+        public double getPixelHeight() {
+            return pixelHeight;
+        }
+    }
+
+}
@@ -10,6 +10,10 @@ package onethreeseven.geo.projection;
 
 /**
  * Ported to Java from the NGA GeoTrans code tranmerc.c and tranmerc.h
+ * <p>
+ * The converter is stateless: its parameters are final and the results of a conversion are written into arrays
+ * given by the caller, so a single instance (see {@link TMParameters#converter()}) is shared by every thread.
+ * </p>
  *
  * @author Garrett Headley, Patrick Murris
  */
@@ -29,80 +33,83 @@ class TMCoordConverter
 
     private final static double PI = 3.14159265358979323; /* PI     */
     public final static double PI_OVER = (PI / 2.0);            /* PI over 2 */
-    private final static double MAX_LAT = ((PI * 89.99) / 180.0);    /* 90 degrees in radians */
-    private final static double MAX_DELTA_LONG = ((PI * 90) / 180.0);    /* 90 degrees in radians */
+    final static double MAX_LAT = ((PI * 89.99) / 180.0);    /* 90 degrees in radians */
+    final static double MAX_DELTA_LONG = ((PI * 90) / 180.0);    /* 90 degrees in radians */
     private final static double MIN_SCALE_FACTOR = 0.3;
     private final static double MAX_SCALE_FACTOR = 3.0;
 
-    /* Ellipsoid Parameters, default to WGS 84  */
-    private double TranMerc_a = 6378137.0;              /* Semi-major axis of ellipsoid i meters */
-    private double TranMerc_f = 1 / 298.257223563;      /* Flattening of ellipsoid  */
-    private double TranMerc_es = 0.0066943799901413800; /* Eccentricity (0.08181919084262188000) squared */
-    private double TranMerc_ebs = 0.0067394967565869;   /* Second Eccentricity squared */
+    /* Ellipsoid Parameters */
+    private final double TranMerc_a;              /* Semi-major axis of ellipsoid i meters */
+    private final double TranMerc_es;             /* Eccentricity squared */
+    private final double TranMerc_ebs;            /* Second Eccentricity squared */
 
     /* Transverse_Mercator projection Parameters */
-    private double TranMerc_Origin_Lat = 0.0;           /* Latitude of origin in radians */
-    private double TranMerc_Origin_Long = 0.0;          /* Longitude of origin in radians */
-    private double TranMerc_False_Northing = 0.0;       /* False northing in meters */
-    private double TranMerc_False_Easting = 0.0;        /* False easting in meters */
-    private double TranMerc_Scale_Factor = 1.0;         /* Scale factor  */
-
-    /* Isometeric to geodetic latitude parameters, default to WGS 84 */
-    private double TranMerc_ap = 6367449.1458008;
-    private double TranMerc_bp = 16038.508696861;
-    private double TranMerc_cp = 16.832613334334;
-    private double TranMerc_dp = 0.021984404273757;
-    private double TranMerc_ep = 3.1148371319283e-005;
-
-    /* Maximum variance for easting and northing values for WGS 84. */
-    private double TranMerc_Delta_Easting = 40000000.0;
-    private double TranMerc_Delta_Northing = 40000000.0;
-
-    private double Easting;
-    private double Northing;
-    private double Longitude;
-    private double Latitude;
-
-    TMCoordConverter()
-    {
-    }
+    private final double TranMerc_Origin_Lat;     /* Latitude of origin in radians */
+    private final double TranMerc_Origin_Long;    /* Longitude of origin in radians */
+    private final double TranMerc_False_Northing; /* False northing in meters */
+    private final double TranMerc_False_Easting;  /* False easting in meters */
+    private final double TranMerc_Scale_Factor;   /* Scale factor  */
+
+    /* Isometeric to geodetic latitude parameters */
+    private final double TranMerc_ap;
+    private final double TranMerc_bp;
+    private final double TranMerc_cp;
+    private final double TranMerc_dp;
+    private final double TranMerc_ep;
+
+    /* Maximum variance for easting and northing values */
+    private final double TranMerc_Delta_Easting;
+    private final double TranMerc_Delta_Northing;
+
+    /* True meridional distance for the latitude of origin */
+    private final double TranMerc_tmdo;
 
-    public double getA()
-    {
-        return TranMerc_a;
-    }
-
-    public double getF()
+    /**
+     * Create a converter that uses the given precomputed projection parameters.
+     * Loading the parameters is a plain field copy, only the meridional distance of the origin is computed.
+     * @param params the precomputed Transverse Mercator parameters.
+     */
+    TMCoordConverter(TMParameters params)
     {
-        return TranMerc_f;
+        TranMerc_a = params.a;
+        TranMerc_es = params.es;
+        TranMerc_ebs = params.ebs;
+        TranMerc_Origin_Lat = params.originLat;
+        TranMerc_Origin_Long = params.originLong;
+        TranMerc_False_Northing = params.falseNorthing;
+        TranMerc_False_Easting = params.falseEasting;
+        TranMerc_Scale_Factor = params.scale;
+        TranMerc_ap = params.ap;
+        TranMerc_bp = params.bp;
+        TranMerc_cp = params.cp;
+        TranMerc_dp = params.dp;
+        TranMerc_ep = params.ep;
+        TranMerc_Delta_Easting = params.deltaEasting;
+        TranMerc_Delta_Northing = params.deltaNorthing;
+        TranMerc_tmdo = meridionalDistance(params, params.originLat);
     }
 
     /**
      * The function Set_Tranverse_Mercator_Parameters receives the ellipsoid parameters and Tranverse Mercator
-     * projection parameters as inputs, and sets the corresponding state variables. If any errors occur, the error
-     * code(s) are returned by the function, otherwise TRANMERC_NO_ERROR is returned.
+     * projection parameters as inputs, and computes the corresponding projection state once so that it can be
+     * reused by any number of converters.
      *
-     * @param a                Semi-major axis of ellipsoid, in meters
-     * @param f                Flattening of ellipsoid
+     * @param ellipsoid        The ellipsoid, with its semi-major axis and flattening
      * @param Origin_Latitude  Latitude in radians at the origin of the projection
      * @param Central_Meridian Longitude in radians at the center of the projection
      * @param False_Easting    Easting/X at the center of the projection
      * @param False_Northing   Northing/Y at the center of the projection
      * @param Scale_Factor     Projection scale factor
      *
-     * @return error code
+     * @return the precomputed projection parameters
+     * @throws IllegalArgumentException if any of the parameters are out of range.
      */
-    public long setTransverseMercatorParameters(double a, double f, double Origin_Latitude,
-                                                double Central_Meridian,
-                                                double False_Easting, double False_Northing, double Scale_Factor)
+    static TMParameters createParameters(Ellipsoid ellipsoid, double Origin_Latitude,
+                                         double Central_Meridian,
+                                         double False_Easting, double False_Northing, double Scale_Factor)
     {
-        double tn;        /* True Meridianal distance constant  */
-        double tn2;
-        double tn3;
-        double tn4;
-        double tn5;
-        double TranMerc_b; /* Semi-minor axis of ellipsoid, in meters */
-        double inv_f = 1 / f;
+        double a = ellipsoid.a;
+        double inv_f = 1 / ellipsoid.f;
         long Error_Code = TRANMERC_NO_ERROR;
 
         if (a <= 0.0)
@@ -125,54 +132,28 @@ class TMCoordConverter
         {
             Error_Code |= TRANMERC_SCALE_FACTOR_ERROR;
         }
-        if (Error_Code == TRANMERC_NO_ERROR)
-        { /* no errors */
-            TranMerc_a = a;
-            TranMerc_f = f;
-            TranMerc_Origin_Lat = 0;
-            TranMerc_Origin_Long = 0;
-            TranMerc_False_Northing = 0;
-            TranMerc_False_Easting = 0;
-            TranMerc_Scale_Factor = 1;
-
-            /* Eccentricity Squared */
-            TranMerc_es = 2 * TranMerc_f - TranMerc_f * TranMerc_f;
-            /* Second Eccentricity Squared */
-            TranMerc_ebs = (1 / (1 - TranMerc_es)) - 1;
-
-            TranMerc_b = TranMerc_a * (1 - TranMerc_f);
-            /*True meridianal constants  */
-            tn = (TranMerc_a - TranMerc_b) / (TranMerc_a + TranMerc_b);
-            tn2 = tn * tn;
-            tn3 = tn2 * tn;
-            tn4 = tn3 * tn;
-            tn5 = tn4 * tn;
-
-            TranMerc_ap = TranMerc_a * (1.e0 - tn + 5.e0 * (tn2 - tn3) / 4.e0
-                    + 81.e0 * (tn4 - tn5) / 64.e0);
-            TranMerc_bp = 3.e0 * TranMerc_a * (tn - tn2 + 7.e0 * (tn3 - tn4)
-                    / 8.e0 + 55.e0 * tn5 / 64.e0) / 2.e0;
-            TranMerc_cp = 15.e0 * TranMerc_a * (tn2 - tn3 + 3.e0 * (tn4 - tn5) / 4.e0) / 16.0;
-            TranMerc_dp = 35.e0 * TranMerc_a * (tn3 - tn4 + 11.e0 * tn5 / 16.e0) / 48.e0;
-            TranMerc_ep = 315.e0 * TranMerc_a * (tn4 - tn5) / 512.e0;
-
-            convertGeodeticToTransverseMercator(MAX_LAT, MAX_DELTA_LONG);
-
-            TranMerc_Delta_Easting = getEasting();
-            TranMerc_Delta_Northing = getNorthing();
-
-            convertGeodeticToTransverseMercator(0, MAX_DELTA_LONG);
-            TranMerc_Delta_Easting = getEasting();
-
-            TranMerc_Origin_Lat = Origin_Latitude;
-            if (Central_Meridian > PI)
-                Central_Meridian -= (2 * PI);
-            TranMerc_Origin_Long = Central_Meridian;
-            TranMerc_False_Northing = False_Northing;
-            TranMerc_False_Easting = False_Easting;
-            TranMerc_Scale_Factor = Scale_Factor;
+        if (Error_Code != TRANMERC_NO_ERROR)
+        {
+            throw new IllegalArgumentException("Bad parameters for transverse mercator conversion.");
         }
-        return (Error_Code);
+
+        /* Measure the maximum variance using an unscaled projection at the prime meridian */
+        TMCoordConverter unscaled =
+                new TMParameters(ellipsoid, 0, 0, 0, 0, 1, 40000000.0, 40000000.0).converter();
+
+        double[] en = new double[2];
+        unscaled.convertGeodeticToTransverseMercator(MAX_LAT, MAX_DELTA_LONG, en, 0);
+        double Delta_Northing = en[1];
+
+        unscaled.convertGeodeticToTransverseMercator(0, MAX_DELTA_LONG, en, 0);
+        double Delta_Easting = en[0];
+
+        if (Central_Meridian > PI)
+            Central_Meridian -= (2 * PI);
+
+        return new TMParameters(ellipsoid, Origin_Latitude, Central_Meridian,
+                False_Easting, False_Northing, Scale_Factor,
+                Delta_Easting, Delta_Northing);
     }
 
     /**
@@ -183,10 +164,31 @@ class TMCoordConverter
      *
      * @param Latitude  Latitude in radians
      * @param Longitude Longitude in radians
+     * @param out       the array to write {easting, northing} to, left unchanged if there is an error
+     * @param offset    the index to write the easting to
+     *
+     * @return error code
+     */
+    public long convertGeodeticToTransverseMercator(double Latitude, double Longitude, double[] out, int offset)
+    {
+        return convertGeodeticToTransverseMercator(Latitude, Longitude, out, offset, out, offset + 1);
+    }
+
+    /**
+     * See {@link #convertGeodeticToTransverseMercator(double, double, double[], int)}, writing the easting and
+     * northing to separate arrays.
+     *
+     * @param Latitude  Latitude in radians
+     * @param Longitude Longitude in radians
+     * @param eastings  the array to write the easting to
+     * @param ei        the index to write the easting to
+     * @param northings the array to write the northing to
+     * @param ni        the index to write the northing to
      *
      * @return error code
      */
-    public long convertGeodeticToTransverseMercator(double Latitude, double Longitude)
+    public long convertGeodeticToTransverseMercator(double Latitude, double Longitude,
+                                                    double[] eastings, int ei, double[] northings, int ni)
     {
         double c;       /* Cosine of latitude                          */
         double c2;
@@ -290,13 +292,7 @@ class TMCoordConverter
                     - TranMerc_dp * Math.sin(6.0 * Latitude)
                     + TranMerc_ep * Math.sin(8.0 * Latitude);
             /*  Origin  */
-
-            // tmdo = SPHTMD (TranMerc_Origin_Lat);
-            tmdo = TranMerc_ap * TranMerc_Origin_Lat
-                    - TranMerc_bp * Math.sin(2.0 * TranMerc_Origin_Lat)
-                    + TranMerc_cp * Math.sin(4.0 * TranMerc_Origin_Lat)
-                    - TranMerc_dp * Math.sin(6.0 * TranMerc_Origin_Lat)
-                    + TranMerc_ep * Math.sin(8.0 * TranMerc_Origin_Lat);
+            tmdo = TranMerc_tmdo;
 
             /* northing */
             t1 = (tmd - tmdo) * TranMerc_Scale_Factor;
@@ -312,7 +308,7 @@ class TMCoordConverter
             t5 = sn * s * c7 * TranMerc_Scale_Factor * (1385.e0 - 3111.e0 *
                     tan2 + 543.e0 * tan4 - tan6) / 40320.e0;
 
-            Northing = TranMerc_False_Northing + t1 + Math.pow(dlam, 2.e0) * t2
+            northings[ni] = TranMerc_False_Northing + t1 + Math.pow(dlam, 2.e0) * t2
                     + Math.pow(dlam, 4.e0) * t3 + Math.pow(dlam, 6.e0) * t4
                     + Math.pow(dlam, 8.e0) * t5;
 
@@ -325,24 +321,12 @@ class TMCoordConverter
             t9 = sn * c7 * TranMerc_Scale_Factor * (61.e0 - 479.e0 * tan2
                     + 179.e0 * tan4 - tan6) / 5040.e0;
 
-            Easting = TranMerc_False_Easting + dlam * t6 + Math.pow(dlam, 3.e0) * t7
+            eastings[ei] = TranMerc_False_Easting + dlam * t6 + Math.pow(dlam, 3.e0) * t7
                     + Math.pow(dlam, 5.e0) * t8 + Math.pow(dlam, 7.e0) * t9;
         }
         return (Error_Code);
     }
 
-    /** @return Easting/X at the center of the projection */
-    public double getEasting()
-    {
-        return Easting;
-    }
-
-    /** @return Northing/Y at the center of the projection */
-    public double getNorthing()
-    {
-        return Northing;
-    }
-
     /**
      * The function Convert_Transverse_Mercator_To_Geodetic converts Transverse Mercator projection (easting and
      * northing) coordinates to geodetic (latitude and longitude) coordinates, according to the current ellipsoid and
@@ -351,10 +335,32 @@ class TMCoordConverter
      *
      * @param Easting  Easting/X in meters
      * @param Northing Northing/Y in meters
+     * @param out      the array to write {latitude, longitude} in radians to, left unchanged if the easting or
+     *                 northing is out of range
+     * @param offset   the index to write the latitude to
+     *
+     * @return error code
+     */
+    public long convertTransverseMercatorToGeodetic(double Easting, double Northing, double[] out, int offset)
+    {
+        return convertTransverseMercatorToGeodetic(Easting, Northing, out, offset, out, offset + 1);
+    }
+
+    /**
+     * See {@link #convertTransverseMercatorToGeodetic(double, double, double[], int)}, writing the latitude and
+     * longitude to separate arrays.
+     *
+     * @param Easting  Easting/X in meters
+     * @param Northing Northing/Y in meters
+     * @param lats     the array to write the latitude in radians to
+     * @param lati     the index to write the latitude to
+     * @param lons     the array to write the longitude in radians to
+     * @param loni     the index to write the longitude to
      *
      * @return error code
      */
-    public long convertTransverseMercatorToGeodetic(double Easting, double Northing)
+    public long convertTransverseMercatorToGeodetic(double Easting, double Northing,
+                                                    double[] lats, int lati, double[] lons, int loni)
     {
         double c;       /* Cosine of latitude                          */
         double de;      /* Delta easting - Difference in Easting (Easting-Fe)    */
@@ -381,6 +387,8 @@ class TMCoordConverter
         double t17;     /* Term in coordinate conversion formula - GP to Y */
         double tmd;     /* True Meridional distance                        */
         double tmdo;    /* True Meridional distance for latitude of origin */
+        double Latitude;
+        double Longitude;
         long Error_Code = TRANMERC_NO_ERROR;
 
         if ((Easting < (TranMerc_False_Easting - TranMerc_Delta_Easting))
@@ -397,12 +405,7 @@ class TMCoordConverter
         if (Error_Code == TRANMERC_NO_ERROR)
         {
             /* True Meridional Distances for latitude of origin */
-            // tmdo = SPHTMD(TranMerc_Origin_Lat);
-            tmdo = TranMerc_ap * TranMerc_Origin_Lat
-                    - TranMerc_bp * Math.sin(2.0 * TranMerc_Origin_Lat)
-                    + TranMerc_cp * Math.sin(4.0 * TranMerc_Origin_Lat)
-                    - TranMerc_dp * Math.sin(6.0 * TranMerc_Origin_Lat)
-                    + TranMerc_ep * Math.sin(8.0 * TranMerc_Origin_Lat);
+            tmdo = TranMerc_tmdo;
 
             /*  Origin  */
             tmd = tmdo + (Northing - TranMerc_False_Northing) / TranMerc_Scale_Factor;
@@ -509,19 +512,50 @@ class TMCoordConverter
 
             if (Latitude > 1.0e10)
                 Error_Code |= TRANMERC_LON_WARNING;
+
+            lats[lati] = Latitude;
+            lons[loni] = Longitude;
         }
         return (Error_Code);
     }
 
-    /** @return Latitude in radians. */
-    public double getLatitude()
+    /**
+     * True meridional distance, the same series the conversions evaluate (SPHTMD).
+     *
+     * @param params    the projection parameters
+     * @param Latitude  Latitude in radians
+     *
+     * @return the distance along the meridian from the equator, in meters
+     */
+    static double meridionalDistance(TMParameters params, double Latitude)
     {
-        return Latitude;
+        return params.ap * Latitude
+                - params.bp * Math.sin(2.0 * Latitude)
+                + params.cp * Math.sin(4.0 * Latitude)
+                - params.dp * Math.sin(6.0 * Latitude)
+                + params.ep * Math.sin(8.0 * Latitude);
     }
 
-    /** @return Longitude in radians. */
-    public double getLongitude()
+    /**
+     * Footpoint latitude of a true meridional distance, found with the same five iterations as
+     * {@link #convertTransverseMercatorToGeodetic(double, double, double[], int)}.
+     *
+     * @param params the projection parameters
+     * @param tmd    True meridional distance in meters
+     *
+     * @return the footpoint latitude in radians
+     */
+    static double footpointLatitude(TMParameters params, double tmd)
     {
-        return Longitude;
+        double sr = params.a * (1.e0 - params.es);
+        double ftphi = tmd / sr;
+        for (int i = 0; i < 5; i++)
+        {
+            double t10 = meridionalDistance(params, ftphi);
+            sr = params.a * (1.e0 - params.es) /
+                    Math.pow(Math.sqrt(1.e0 - params.es * Math.pow(Math.sin(ftphi), 2)), 3);
+            ftphi = ftphi + (tmd - t10) / sr;
+        }
+        return ftphi;
     }
 } // end TMConverter class
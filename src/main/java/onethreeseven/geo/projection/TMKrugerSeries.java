@@ -0,0 +1,239 @@
+package onethreeseven.geo.projection;
+
+/**
+ * <p>
+ * The Transverse Mercator projection evaluated with Kruger's series in the third flattening n, to sixth order, see
+ * C. F. F. Karney, "Transverse Mercator with an accuracy of a few nanometers", J. Geodesy 85(8), 475-485 (2011).
+ * </p>
+ * <p>
+ * The NGA series of {@link TMCoordConverter} expands in the distance from the central meridian, so its error grows
+ * quickly past a few degrees from it. Kruger's series maps the conformal sphere onto the plane exactly and only
+ * truncates in n, which keeps the error well below a millimeter out to 60 degrees from the central meridian.
+ * </p>
+ * The coefficients are computed once from the {@link TMParameters} and the series holds no other state, so a single
+ * instance is shared by every thread.
+ * @author Luke Bermingham
+ */
+final class TMKrugerSeries {
+
+    private static final int ORDER = 6;
+    /**
+     * Newton's method converges quadratically, so once a step is this small the next one would be below the
+     * precision of a double.
+     */
+    private static final double TAU_TOLERANCE = Math.sqrt(Math.ulp(1.0)) / 10;
+    private static final int MAX_TAU_ITERATIONS = 5;
+
+    private final double e;
+    private final double e2m;
+    /**
+     * The coefficients of the forward and inverse series, alpha[j] and beta[j] for j in [1, 6].
+     */
+    private final double[] alpha = new double[ORDER + 1];
+    private final double[] beta = new double[ORDER + 1];
+    /**
+     * The scale factor times the rectifying radius, A = a / (1 + n) * (1 + n^2 / 4 + n^4 / 64 + n^6 / 256).
+     */
+    private final double scaledA;
+    private final double originLong;
+    private final double falseEasting;
+    /**
+     * The false northing less the northing of the origin latitude on the central meridian.
+     */
+    private final double northingOffset;
+
+    TMKrugerSeries(TMParameters params) {
+        double f = params.f;
+        this.e = Math.sqrt(params.es);
+        this.e2m = 1 - params.es;
+        double n = f / (2 - f);
+        double n2 = n * n;
+        double n3 = n2 * n;
+        double n4 = n3 * n;
+        double n5 = n4 * n;
+        double n6 = n5 * n;
+
+        alpha[1] = n / 2 - 2 * n2 / 3 + 5 * n3 / 16 + 41 * n4 / 180 - 127 * n5 / 288 + 7891 * n6 / 37800;
+        alpha[2] = 13 * n2 / 48 - 3 * n3 / 5 + 557 * n4 / 1440 + 281 * n5 / 630 - 1983433 * n6 / 1935360;
+        alpha[3] = 61 * n3 / 240 - 103 * n4 / 140 + 15061 * n5 / 26880 + 167603 * n6 / 181440;
+        alpha[4] = 49561 * n4 / 161280 - 179 * n5 / 168 + 6601661 * n6 / 7257600;
+        alpha[5] = 34729 * n5 / 80640 - 3418889 * n6 / 1995840;
+        alpha[6] = 212378941 * n6 / 319334400;
+
+        beta[1] = n / 2 - 2 * n2 / 3 + 37 * n3 / 96 - n4 / 360 - 81 * n5 / 512 + 96199 * n6 / 604800;
+        beta[2] = n2 / 48 + n3 / 15 - 437 * n4 / 1440 + 46 * n5 / 105 - 1118711 * n6 / 3870720;
+        beta[3] = 17 * n3 / 480 - 37 * n4 / 840 - 209 * n5 / 4480 + 5569 * n6 / 90720;
+        beta[4] = 4397 * n4 / 161280 - 11 * n5 / 504 - 830251 * n6 / 7257600;
+        beta[5] = 4583 * n5 / 161280 - 108847 * n6 / 3991680;
+        beta[6] = 20648693 * n6 / 638668800;
+
+        this.scaledA = params.scale * params.a / (1 + n) * (1 + n2 / 4 + n4 / 64 + n6 / 256);
+        this.originLong = params.originLong;
+        this.falseEasting = params.falseEasting;
+
+        //on the central meridian the conformal latitude is the only term
+        double originXi = Math.atan(taup(Math.tan(params.originLat)));
+        double xi0 = originXi;
+        for (int j = 1; j <= ORDER; j++) {
+            xi0 += alpha[j] * Math.sin(2 * j * originXi);
+        }
+        this.northingOffset = params.falseNorthing - scaledA * xi0;
+    }
+
+    /**
+     * @param tau the tangent of the geodetic latitude.
+     * @return The tangent of the conformal latitude.
+     */
+    private double taup(double tau) {
+        double tau1 = Math.sqrt(1 + tau * tau);
+        double sig = Math.sinh(e * atanh(e * tau / tau1));
+        return Math.sqrt(1 + sig * sig) * tau - sig * tau1;
+    }
+
+    /**
+     * Inverts {@link #taup(double)} by Newton's method, which takes two or three steps from the starting guess.
+     * @param taup the tangent of the conformal latitude.
+     * @return The tangent of the geodetic latitude.
+     */
+    private double tau(double taup) {
+        if (Double.isInfinite(taup)) {
+            return taup;
+        }
+        double tau = taup / e2m;
+        double tolerance = TAU_TOLERANCE * Math.max(1, Math.abs(taup));
+        for (int i = 0; i < MAX_TAU_ITERATIONS; i++) {
+            double tau1 = Math.sqrt(1 + tau * tau);
+            double sig = Math.sinh(e * atanh(e * tau / tau1));
+            double taupa = Math.sqrt(1 + sig * sig) * tau - sig * tau1;
+            double dtau = (taup - taupa) * (1 + e2m * tau * tau) / (e2m * tau1 * Math.sqrt(1 + taupa * taupa));
+            tau += dtau;
+            if (!(Math.abs(dtau) >= tolerance)) {
+                break;
+            }
+        }
+        return tau;
+    }
+
+    private static double atanh(double x) {
+        return 0.5 * Math.log1p(2 * x / (1 - x));
+    }
+
+    /**
+     * @param latitude  the latitude in degrees, within [-90, 90].
+     * @param longitude the longitude in degrees, within 90 degrees of the central meridian.
+     */
+    void toCartesian(double latitude, double longitude, double[] xs, int xi, double[] ys, int yi) {
+        double lam = Math.toRadians(longitude) - originLong;
+        if (lam > Math.PI) {
+            lam -= 2 * Math.PI;
+        } else if (lam < -Math.PI) {
+            lam += 2 * Math.PI;
+        }
+        double cosLam = Math.cos(lam);
+        double sinLam = Math.sin(lam);
+
+        //the conformal sphere mapped to the plane by the spherical transverse mercator, as xi' + i eta'
+        double xip;
+        double etap;
+        double s2x;
+        double c2x;
+        double sh2y;
+        double ch2y;
+        if (Math.abs(latitude) >= 90) {
+            xip = Math.copySign(Math.PI / 2, latitude);
+            etap = 0;
+            s2x = 0;
+            c2x = -1;
+            sh2y = 0;
+            ch2y = 1;
+        } else {
+            double taup = taup(Math.tan(Math.toRadians(latitude)));
+            double r = Math.sqrt(taup * taup + cosLam * cosLam);
+            xip = cosLam > 0 ? Math.atan(taup / cosLam) : Math.atan2(taup, cosLam);
+            double shEta = sinLam / r;
+            double chEta = Math.sqrt(1 + shEta * shEta);
+            //asinh, without cancellation for negative values
+            etap = Math.copySign(Math.log(Math.abs(shEta) + chEta), shEta);
+            double sx = taup / r;
+            double cx = cosLam / r;
+            s2x = 2 * sx * cx;
+            c2x = cx * cx - sx * sx;
+            sh2y = 2 * shEta * chEta;
+            ch2y = chEta * chEta + shEta * shEta;
+        }
+
+        //Clenshaw summation of alpha[j] * sin(2j * (xi' + i eta')), a = 2 cos(2 (xi' + i eta'))
+        double ar = 2 * c2x * ch2y;
+        double ai = -2 * s2x * sh2y;
+        double y0r = 0;
+        double y0i = 0;
+        double y1r = 0;
+        double y1i = 0;
+        for (int j = ORDER; j >= 1; j--) {
+            double y2r = y1r;
+            double y2i = y1i;
+            y1r = y0r;
+            y1i = y0i;
+            y0r = ar * y1r - ai * y1i - y2r + alpha[j];
+            y0i = ar * y1i + ai * y1r - y2i;
+        }
+        //times sin(2 (xi' + i eta'))
+        double sr = s2x * ch2y;
+        double si = c2x * sh2y;
+        double xiSum = sr * y0r - si * y0i;
+        double etaSum = sr * y0i + si * y0r;
+
+        xs[xi] = falseEasting + scaledA * (etap + etaSum);
+        ys[yi] = northingOffset + scaledA * (xip + xiSum);
+    }
+
+    /**
+     * @param easting  the easting in meters.
+     * @param northing the northing in meters.
+     */
+    void toGeographic(double easting, double northing, double[] lats, int lati, double[] lons, int loni) {
+        double xi = (northing - northingOffset) / scaledA;
+        double eta = (easting - falseEasting) / scaledA;
+        double s2x = Math.sin(2 * xi);
+        double c2x = Math.cos(2 * xi);
+        double exp2y = Math.exp(2 * eta);
+        double sh2y = (exp2y - 1 / exp2y) / 2;
+        double ch2y = (exp2y + 1 / exp2y) / 2;
+
+        //Clenshaw summation of beta[j] * sin(2j * (xi + i eta))
+        double ar = 2 * c2x * ch2y;
+        double ai = -2 * s2x * sh2y;
+        double y0r = 0;
+        double y0i = 0;
+        double y1r = 0;
+        double y1i = 0;
+        for (int j = ORDER; j >= 1; j--) {
+            double y2r = y1r;
+            double y2i = y1i;
+            y1r = y0r;
+            y1i = y0i;
+            y0r = ar * y1r - ai * y1i - y2r + beta[j];
+            y0i = ar * y1i + ai * y1r - y2i;
+        }
+        double sr = s2x * ch2y;
+        double si = c2x * sh2y;
+        double xip = xi - (sr * y0r - si * y0i);
+        double etap = eta - (sr * y0i + si * y0r);
+
+        //back from the plane to the conformal sphere
+        double sx = Math.sin(xip);
+        double cx = Math.cos(xip);
+        double shEta = Math.sinh(etap);
+        double r = Math.sqrt(shEta * shEta + cx * cx);
+        double lam = cx > 0 ? Math.atan(shEta / cx) : Math.atan2(shEta, cx);
+        double lon = Math.toDegrees(originLong + lam);
+        if (lon > 180) {
+            lon -= 360;
+        } else if (lon < -180) {
+            lon += 360;
+        }
+        lats[lati] = Math.toDegrees(Math.atan(tau(sx / r)));
+        lons[loni] = lon;
+    }
+
+}
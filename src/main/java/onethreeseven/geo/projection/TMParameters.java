@@ -0,0 +1,121 @@
+package onethreeseven.geo.projection;
+
+/**
+ * The precomputed state of a Transverse Mercator projection: the ellipsoid, the projection
+ * origin and the true meridional distance constants derived from them.
+ * Instances are immutable, so a single instance can be shared by any number of threads
+ * and reused for every conversion made with the same projection parameters.
+ * @author Luke Bermingham
+ */
+public final class TMParameters {
+
+    /* Ellipsoid parameters */
+    final Ellipsoid ellipsoid;
+    final double a;             /* Semi-major axis of ellipsoid in meters */
+    final double f;             /* Flattening of ellipsoid */
+    final double es;            /* Eccentricity squared */
+    final double ebs;           /* Second eccentricity squared */
+
+    /* Transverse Mercator projection parameters */
+    final double originLat;     /* Latitude of origin in radians */
+    final double originLong;    /* Longitude of origin in radians */
+    final double falseNorthing; /* False northing in meters */
+    final double falseEasting;  /* False easting in meters */
+    final double scale;         /* Scale factor */
+
+    /* True meridional distance constants, shared with the ellipsoid */
+    final double ap;
+    final double bp;
+    final double cp;
+    final double dp;
+    final double ep;
+
+    /* Maximum variance for easting and northing values */
+    final double deltaEasting;
+    final double deltaNorthing;
+
+    /**
+     * The converter of these parameters, it is stateless so it is shared by every user of the parameters.
+     */
+    private final TMCoordConverter converter;
+
+    TMParameters(Ellipsoid ellipsoid, double originLat, double originLong,
+                 double falseEasting, double falseNorthing, double scale,
+                 double deltaEasting, double deltaNorthing) {
+        this.ellipsoid = ellipsoid;
+        this.a = ellipsoid.a;
+        this.f = ellipsoid.f;
+        //from the flattening, as the GeoTrans code does
+        this.es = 2 * f - f * f;
+        this.ebs = (1 / (1 - es)) - 1;
+        this.originLat = originLat;
+        this.originLong = originLong;
+        this.falseEasting = falseEasting;
+        this.falseNorthing = falseNorthing;
+        this.scale = scale;
+        this.deltaEasting = deltaEasting;
+        this.deltaNorthing = deltaNorthing;
+        this.ap = ellipsoid.ap;
+        this.bp = ellipsoid.bp;
+        this.cp = ellipsoid.cp;
+        this.dp = ellipsoid.dp;
+        this.ep = ellipsoid.ep;
+        this.converter = new TMCoordConverter(this);
+    }
+
+    /**
+     * Precompute the parameters of a Transverse Mercator projection.
+     * @param equatorialRadius the equatorial radius of the globe.
+     * @param polarRadius the polar radius of the globe.
+     * @param originLatitude the origin latitude in degrees.
+     * @param centralMeridian the central meridian longitude in degrees.
+     * @param falseEasting easting value at the center of the projection in meters.
+     * @param falseNorthing northing value at the center of the projection in meters.
+     * @param scale scaling factor.
+     * @return the precomputed parameters.
+     * @throws IllegalArgumentException if the parameters are out of range.
+     */
+    public static TMParameters from(double equatorialRadius, double polarRadius,
+                                    double originLatitude, double centralMeridian,
+                                    double falseEasting, double falseNorthing,
+                                    double scale) {
+        return from(Ellipsoid.fromRadii(equatorialRadius, polarRadius),
+                originLatitude, centralMeridian, falseEasting, falseNorthing, scale);
+    }
+
+    /**
+     * Precompute the parameters of a Transverse Mercator projection.
+     * @param ellipsoid the ellipsoid of the globe.
+     * @param originLatitude the origin latitude in degrees.
+     * @param centralMeridian the central meridian longitude in degrees.
+     * @param falseEasting easting value at the center of the projection in meters.
+     * @param falseNorthing northing value at the center of the projection in meters.
+     * @param scale scaling factor.
+     * @return the precomputed parameters.
+     * @throws IllegalArgumentException if the parameters are out of range.
+     */
+    public static TMParameters from(Ellipsoid ellipsoid,
+                                    double originLatitude, double centralMeridian,
+                                    double falseEasting, double falseNorthing,
+                                    double scale) {
+        return TMCoordConverter.createParameters(
+                ellipsoid,
+                Math.toRadians(originLatitude),
+                Math.toRadians(centralMeridian),
+                falseEasting,
+                falseNorthing,
+                scale);
+    }
+
+    public Ellipsoid getEllipsoid() {
+        return ellipsoid;
+    }
+
+    /**
+     * @return The converter of these parameters, safe to use from any thread.
+     */
+    TMCoordConverter converter() {
+        return converter;
+    }
+
+}
@@ -27,26 +27,30 @@ public final class TMUtil {
                                              double falseEasting, double falseNorthing,
                                              double scale)
     {
-        final TMCoordConverter converter = new TMCoordConverter();
-        double flattening = (equatorialRadius - polarRadius) / equatorialRadius;
-
-        long err = converter.setTransverseMercatorParameters(
-                equatorialRadius,
-                flattening,
-                Math.toRadians(originLatitude),
-                Math.toRadians(centralMeridian),
-                falseEasting,
-                falseNorthing,
-                scale);
+        return toEastingNorthing(latitude, longitude, TMParameters.from(equatorialRadius, polarRadius,
+                originLatitude, centralMeridian, falseEasting, falseNorthing, scale));
+    }
 
-        if (err == TMCoordConverter.TRANMERC_NO_ERROR)
-            err = converter.convertGeodeticToTransverseMercator(Math.toRadians(latitude), Math.toRadians(longitude));
+    /**
+     * Convert lat/long (degrees) into Transverse Mercator coordinates using precomputed projection parameters.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param parameters the precomputed projection parameters.
+     * @return A double[]{easting, northing}.
+     * @throws IllegalArgumentException if the conversion to TM coordinates fails.
+     */
+    public static double[] toEastingNorthing(double latitude, double longitude, TMParameters parameters)
+    {
+        final double[] en = new double[2];
+        long err = parameters.converter().convertGeodeticToTransverseMercator(
+                Math.toRadians(latitude), Math.toRadians(longitude), en, 0);
 
         if (err != TMCoordConverter.TRANMERC_NO_ERROR && err != TMCoordConverter.TRANMERC_LON_WARNING)
         {
             throw new IllegalArgumentException("Bad parameters for utm conversion.");
         }
-        return new double[]{converter.getEasting(), converter.getNorthing()};
+        return en;
     }
 
     /**
@@ -69,21 +73,31 @@ public final class TMUtil {
                                                double falseEasting, double falseNorthing,
                                                double scale)
     {
-        final TMCoordConverter converter = new TMCoordConverter();
-        double flattening = (equatorialRadius - polarRadius) / equatorialRadius;
-        long err = converter.setTransverseMercatorParameters(equatorialRadius,
-                flattening, Math.toRadians(originLatitude), Math.toRadians(centralMeridian),
-                falseEasting, falseNorthing, scale);
+        return fromEastingNorthing(easting, northing, TMParameters.from(equatorialRadius, polarRadius,
+                originLatitude, centralMeridian, falseEasting, falseNorthing, scale));
+    }
 
-        if (err == TMCoordConverter.TRANMERC_NO_ERROR){
-            err = converter.convertTransverseMercatorToGeodetic(easting, northing);
-        }
+    /**
+     * Create a lat/long pair given easting, northing and precomputed projection parameters.
+     *
+     * @param easting the easting distance value in meters.
+     * @param northing the northing distance value in meters.
+     * @param parameters the precomputed projection parameters.
+     * @return a double[]{lat, long}.
+     * @throws IllegalArgumentException if the conversion to geodetic coordinates fails.
+     */
+    public static double[] fromEastingNorthing(double easting, double northing, TMParameters parameters)
+    {
+        final double[] latlon = new double[2];
+        long err = parameters.converter().convertTransverseMercatorToGeodetic(easting, northing, latlon, 0);
 
         if (err != TMCoordConverter.TRANMERC_NO_ERROR && err != TMCoordConverter.TRANMERC_LON_WARNING)
         {
             throw new IllegalArgumentException("bad parameters for utm conversion");
         }
-        return new double[]{Math.toDegrees(converter.getLatitude()), Math.toDegrees(converter.getLongitude())};
+        latlon[0] = Math.toDegrees(latlon[0]);
+        latlon[1] = Math.toDegrees(latlon[1]);
+        return latlon;
     }
 
 
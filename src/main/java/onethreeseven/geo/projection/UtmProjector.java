@@ -0,0 +1,153 @@
+package onethreeseven.geo.projection;
+
+/**
+ * <p>
+ * Projects batches of points that span many UTM zones. The zone of every point is found with
+ * {@link ProjectionUTM#zoneFor(double, double)} and the point is projected with the cached
+ * {@link ProjectionUTM#forZone(int)} projection of that zone, the zones are written to a parallel int array so the
+ * points can be projected back later.
+ * </p>
+ * <p>
+ * Zones are indexed by point, whatever the layout of the coordinates: the zone of the point at index <code>i</code>
+ * of the columns, or with its latitude (or x) at index <code>k</code> of an interleaved array, is
+ * <code>zones[i]</code> or <code>zones[k / stride]</code>, so a batch can move between layouts with the same zones.
+ * </p>
+ * Runs of consecutive points in the same zone, as in most tracks, are projected with a single bulk call.
+ * @author Luke Bermingham
+ */
+public final class UtmProjector {
+
+    private UtmProjector(){}
+
+    /**
+     * Converts a batch of interleaved geographic positions to UTM coordinates, each in its own zone, see
+     * {@link AbstractGeographicProjection#geographicToCartesian(double[], double[], int, int, int)}.
+     *
+     * @param latlon The interleaved geographic positions, in degrees.
+     * @param xy     The array to write the interleaved Cartesian points, in meters, to.
+     * @param zones  The array to write the zone of each point to, the zone of the point with its latitude at index
+     *               <code>k</code> is written to <code>zones[k / stride]</code>.
+     * @param offset The index of the first latitude.
+     * @param length The number of points to convert.
+     * @param stride The distance between consecutive points, at least 2.
+     */
+    public static void geographicToCartesian(double[] latlon, double[] xy, int[] zones,
+                                             int offset, int length, int stride) {
+        AbstractGeographicProjection.checkInterleaved(latlon, xy, offset, length, stride);
+        int first = offset / stride;
+        checkZones(zones, first, length);
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            int idx = offset + i * stride;
+            int zone = ProjectionUTM.zoneFor(latlon[idx], latlon[idx + 1]);
+            zones[first + i] = zone;
+            if (zone != zones[first + runStart]) {
+                ProjectionUTM.forZone(zones[first + runStart])
+                        .geographicToCartesian(latlon, xy, offset + runStart * stride, i - runStart, stride);
+                runStart = i;
+            }
+        }
+        if (length > 0) {
+            ProjectionUTM.forZone(zones[first + runStart])
+                    .geographicToCartesian(latlon, xy, offset + runStart * stride, length - runStart, stride);
+        }
+    }
+
+    /**
+     * Same as {@link #geographicToCartesian(double[], double[], int[], int, int, int)}, allocating the zones.
+     * @return The zone of each point, indexed by point so the array is <code>offset / stride + length</code> long.
+     */
+    public static int[] geographicToCartesian(double[] latlon, double[] xy, int offset, int length, int stride) {
+        int[] zones = new int[offset / stride + length];
+        geographicToCartesian(latlon, xy, zones, offset, length, stride);
+        return zones;
+    }
+
+    /**
+     * Converts a batch of geographic positions, stored as columns, to UTM coordinates, each in its own zone. The
+     * zones are another column, so the zone of the point at index <code>i</code> is written to <code>zones[i]</code>.
+     *
+     * @param lats   The latitudes, in degrees.
+     * @param lons   The longitudes, in degrees.
+     * @param xs     The array to write the x values, in meters, to.
+     * @param ys     The array to write the y values, in meters, to.
+     * @param zones  The array to write the zone of each point to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public static void geographicToCartesian(double[] lats, double[] lons, double[] xs, double[] ys, int[] zones,
+                                             int offset, int length) {
+        AbstractGeographicProjection.checkColumns(lats, lons, xs, ys, offset, length);
+        checkZones(zones, offset, length);
+        int runStart = offset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            zones[i] = ProjectionUTM.zoneFor(lats[i], lons[i]);
+            if (zones[i] != zones[runStart]) {
+                ProjectionUTM.forZone(zones[runStart]).geographicToCartesian(lats, lons, xs, ys, runStart, i - runStart);
+                runStart = i;
+            }
+        }
+        if (length > 0) {
+            ProjectionUTM.forZone(zones[runStart])
+                    .geographicToCartesian(lats, lons, xs, ys, runStart, offset + length - runStart);
+        }
+    }
+
+    /**
+     * Converts a batch of interleaved UTM coordinates, each in the given zone, to geographic positions.
+     *
+     * @param xy     The interleaved Cartesian points, in meters.
+     * @param zones  The zone of each point, the zone of the point with its x at index <code>k</code> is
+     *               <code>zones[k / stride]</code>.
+     * @param latlon The array to write the interleaved geographic positions, in degrees, to.
+     * @param offset The index of the first x value.
+     * @param length The number of points to convert.
+     * @param stride The distance between consecutive points, at least 2.
+     */
+    public static void cartesianToGeographic(double[] xy, int[] zones, double[] latlon,
+                                             int offset, int length, int stride) {
+        AbstractGeographicProjection.checkInterleaved(xy, latlon, offset, length, stride);
+        int first = offset / stride;
+        checkZones(zones, first, length);
+        int runStart = 0;
+        for (int i = 1; i <= length; i++) {
+            if (i == length || zones[first + i] != zones[first + runStart]) {
+                ProjectionUTM.forZone(zones[first + runStart])
+                        .cartesianToGeographic(xy, latlon, offset + runStart * stride, i - runStart, stride);
+                runStart = i;
+            }
+        }
+    }
+
+    /**
+     * Converts a batch of UTM coordinates, stored as columns, each in the given zone, to geographic positions.
+     *
+     * @param xs     The x values, in meters.
+     * @param ys     The y values, in meters.
+     * @param zones  The zone of each point.
+     * @param lats   The array to write the latitudes, in degrees, to.
+     * @param lons   The array to write the longitudes, in degrees, to.
+     * @param offset The index of the first point in every column.
+     * @param length The number of points to convert.
+     */
+    public static void cartesianToGeographic(double[] xs, double[] ys, int[] zones, double[] lats, double[] lons,
+                                             int offset, int length) {
+        AbstractGeographicProjection.checkColumns(xs, ys, lats, lons, offset, length);
+        checkZones(zones, offset, length);
+        int runStart = offset;
+        for (int i = offset + 1, end = offset + length; i <= end; i++) {
+            if (i == end || zones[i] != zones[runStart]) {
+                ProjectionUTM.forZone(zones[runStart]).cartesianToGeographic(xs, ys, lats, lons, runStart, i - runStart);
+                runStart = i;
+            }
+        }
+    }
+
+    private static void checkZones(int[] zones, int offset, int length) {
+        if ((long) offset + length > zones.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " points starting at " + offset +
+                    " does not fit in the zones array.");
+        }
+    }
+
+}
@@ -0,0 +1,400 @@
+package onethreeseven.geo.util;
+
+import onethreeseven.geo.projection.Ellipsoid;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Solves geodesics (shortest paths) on an ellipsoid with Vincenty's formulae: the inverse problem, the distance and
+ * azimuths between two locations, and the direct problem, the location reached from a location, azimuth and distance.
+ * Results are within a fraction of a millimetre of the true geodesic, unlike the spherical methods of {@link GeogUtil}.
+ * </p>
+ * <p>
+ * The inverse problem is iterative and converges slowly (or not at all) for nearly antipodal locations, so the number
+ * of iterations is capped and locations that did not converge get NaN results. Instances built with counters count
+ * every solution, see {@link #getSolveCount()}, {@link #getIterationCount()} and {@link #getNonConvergedCount()}.
+ * </p>
+ * Instances hold the constants derived from their ellipsoid and are safe to share between threads. {@link #WGS84} is
+ * shared by the whole process so it keeps no counters, callers wanting metrics should build their own instance.
+ * Azimuths are in degrees clockwise from North within [-180, 180], like {@link GeogUtil#azimuthAngle}.
+ * @author Luke Bermingham
+ */
+public final class Geodesic {
+
+    public static final int DEFAULT_MAX_ITERATIONS = 200;
+
+    /**
+     * The geodesics of {@link Ellipsoid#WGS84}, shared by the whole process and without counters.
+     */
+    public static final Geodesic WGS84 = new Geodesic(Ellipsoid.WGS84, DEFAULT_MAX_ITERATIONS, false);
+
+    /* Vincenty's convergence criterion, about 0.006mm */
+    private static final double TOLERANCE = 1e-12;
+
+    private final Ellipsoid ellipsoid;
+    private final int maxIterations;
+
+    /* Ellipsoid constants */
+    private final double a;                 /* Semi-major axis in meters */
+    private final double b;                 /* Semi-minor axis in meters */
+    private final double f;                 /* Flattening */
+    private final double oneMinusF;
+    private final double secondEccentricitySquared;
+
+    private final boolean counted;
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder nonConverged = new LongAdder();
+
+    /**
+     * Geodesics with counters.
+     * @param ellipsoid     the ellipsoid.
+     * @param maxIterations the most iterations of the inverse problem before giving up on a pair of locations.
+     */
+    public Geodesic(Ellipsoid ellipsoid, int maxIterations) {
+        this(ellipsoid, maxIterations, true);
+    }
+
+    /**
+     * @param ellipsoid     the ellipsoid.
+     * @param maxIterations the most iterations of the inverse problem before giving up on a pair of locations.
+     * @param counted       whether to count the solutions, which costs a few shared adds per solution.
+     */
+    public Geodesic(Ellipsoid ellipsoid, int maxIterations, boolean counted) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Max iterations must be at least 1, was: " + maxIterations);
+        }
+        this.ellipsoid = ellipsoid;
+        this.maxIterations = maxIterations;
+        this.counted = counted;
+        this.a = ellipsoid.getEquatorialRadius();
+        this.b = ellipsoid.getPolarRadius();
+        this.f = (a - b) / a;
+        this.oneMinusF = 1 - f;
+        this.secondEccentricitySquared = (a * a - b * b) / (b * b);
+    }
+
+    /**
+     * @param ellipsoid the ellipsoid.
+     * @return The geodesics of the ellipsoid, with the default iteration cap and without counters.
+     */
+    public static Geodesic of(Ellipsoid ellipsoid) {
+        return ellipsoid == Ellipsoid.WGS84 ? WGS84 : new Geodesic(ellipsoid, DEFAULT_MAX_ITERATIONS, false);
+    }
+
+    /**
+     * @param lat1 pt1 lat
+     * @param lon1 pt1 lon
+     * @param lat2 pt2 lat
+     * @param lon2 pt2 lon
+     * @return the length of the geodesic between point 1 and point 2 (in meters), or NaN if it did not converge.
+     */
+    public double distance(double lat1, double lon1, double lat2, double lon2) {
+        double tanU1 = oneMinusF * Math.tan(Math.toRadians(lat1));
+        double cosU1 = 1 / Math.sqrt(1 + tanU1 * tanU1);
+        double tanU2 = oneMinusF * Math.tan(Math.toRadians(lat2));
+        double cosU2 = 1 / Math.sqrt(1 + tanU2 * tanU2);
+        return solveInverse(tanU1 * cosU1, cosU1, tanU2 * cosU2, cosU2, Math.toRadians(lon2 - lon1),
+                null, 0, null, 0);
+    }
+
+    /**
+     * Solves the inverse problem.
+     * @param lat1   pt1 lat
+     * @param lon1   pt1 lon
+     * @param lat2   pt2 lat
+     * @param lon2   pt2 lon
+     * @param out    the array to write {distance (in meters), azimuth at pt1, azimuth at pt2} to, all NaN if the
+     *               solution did not converge.
+     * @param offset the index to write the distance to.
+     */
+    public void inverse(double lat1, double lon1, double lat2, double lon2, double[] out, int offset) {
+        double tanU1 = oneMinusF * Math.tan(Math.toRadians(lat1));
+        double cosU1 = 1 / Math.sqrt(1 + tanU1 * tanU1);
+        double tanU2 = oneMinusF * Math.tan(Math.toRadians(lat2));
+        double cosU2 = 1 / Math.sqrt(1 + tanU2 * tanU2);
+        out[offset] = solveInverse(tanU1 * cosU1, cosU1, tanU2 * cosU2, cosU2, Math.toRadians(lon2 - lon1),
+                out, offset + 1, out, offset + 2);
+    }
+
+    /**
+     * Solves the direct problem.
+     * @param lat1     pt1 lat
+     * @param lon1     pt1 lon
+     * @param azimuth  the azimuth at pt1 (in degrees).
+     * @param distance the distance to travel along the geodesic (in meters).
+     * @param out      the array to write {lat, lon, azimuth} of the point reached to.
+     * @param offset   the index to write the latitude to.
+     */
+    public void direct(double lat1, double lon1, double azimuth, double distance, double[] out, int offset) {
+        solveDirect(lat1, lon1, azimuth, distance, out, offset, out, offset + 1, out, offset + 2);
+    }
+
+    /**
+     * Solves the inverse problem for every segment between consecutive points of a trajectory, see
+     * {@link GeogUtil#segmentDistancesAndBearings(double[], int, int, double[], double[], int)}.
+     * The reduced latitude of each point is computed once and reused by both segments the point is in.
+     * @param latlon    the interleaved {lat, lon, lat, lon...} positions of the trajectory, in degrees.
+     * @param offset    the index of the first latitude.
+     * @param length    the number of points.
+     * @param distances the array to write the <code>length - 1</code> segment distances (in meters) to.
+     * @param azimuths  the array to write the <code>length - 1</code> azimuths at the start of each segment to, or null.
+     * @param outOffset the index to write the results of the first segment to.
+     */
+    public void segmentInverse(double[] latlon, int offset, int length,
+                               double[] distances, double[] azimuths, int outOffset) {
+        if (length <= 1) {
+            return;
+        }
+        GeogUtil.checkTrajectory(latlon, offset, length, distances, outOffset, length - 1);
+        GeogUtil.checkTrajectory(latlon, offset, length, azimuths, outOffset, length - 1);
+        double tanU1 = oneMinusF * Math.tan(Math.toRadians(latlon[offset]));
+        double cosU1 = 1 / Math.sqrt(1 + tanU1 * tanU1);
+        double sinU1 = tanU1 * cosU1;
+        for (int i = offset + 2, out = outOffset, end = offset + 2 * length; i < end; i += 2, out++) {
+            double tanU2 = oneMinusF * Math.tan(Math.toRadians(latlon[i]));
+            double cosU2 = 1 / Math.sqrt(1 + tanU2 * tanU2);
+            double sinU2 = tanU2 * cosU2;
+            distances[out] = solveInverse(sinU1, cosU1, sinU2, cosU2, Math.toRadians(latlon[i + 1] - latlon[i - 1]),
+                    azimuths, out, null, 0);
+            sinU1 = sinU2;
+            cosU1 = cosU2;
+        }
+    }
+
+    /**
+     * Same as {@link #segmentInverse(double[], int, int, double[], double[], int)} without the azimuths.
+     */
+    public void segmentDistances(double[] latlon, int offset, int length, double[] distances, int outOffset) {
+        segmentInverse(latlon, offset, length, distances, null, outOffset);
+    }
+
+    /**
+     * Solves the direct problem for a batch of locations, stored as columns.
+     * @param lats      the latitudes of the locations, in degrees.
+     * @param lons      the longitudes of the locations, in degrees.
+     * @param azimuths  the azimuths to travel in, in degrees.
+     * @param distances the distances to travel, in meters.
+     * @param outLats   the array to write the latitudes reached to.
+     * @param outLons   the array to write the longitudes reached to.
+     * @param offset    the index of the first location in every column.
+     * @param length    the number of locations.
+     */
+    public void direct(double[] lats, double[] lons, double[] azimuths, double[] distances,
+                       double[] outLats, double[] outLons, int offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Offset and length must be positive.");
+        }
+        long end = (long) offset + length;
+        if (end > lats.length || end > lons.length || end > azimuths.length || end > distances.length ||
+                end > outLats.length || end > outLons.length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " locations starting at " + offset +
+                    " does not fit in the given columns.");
+        }
+        for (int i = offset; i < end; i++) {
+            solveDirect(lats[i], lons[i], azimuths[i], distances[i], outLats, i, outLons, i, null, 0);
+        }
+    }
+
+    /**
+     * Counts a solution, if this counts.
+     * @param nIterations the iterations it took, or -1 if it did not converge.
+     */
+    private void count(int nIterations) {
+        if (!counted) {
+            return;
+        }
+        solves.increment();
+        if (nIterations < 0) {
+            nonConverged.increment();
+            iterations.add(maxIterations);
+        } else {
+            iterations.add(nIterations);
+        }
+    }
+
+    /**
+     * Vincenty's inverse formulae, see "Direct and Inverse Solutions of Geodesics on the Ellipsoid with Application of
+     * Nested Equations", T. Vincenty, 1975.
+     * The azimuths are only computed when their arrays are not null.
+     * @return The distance, or NaN if the solution did not converge.
+     */
+    private double solveInverse(double sinU1, double cosU1, double sinU2, double cosU2, double dLon,
+                                double[] azimuths1, int azimuth1Idx, double[] azimuths2, int azimuth2Idx) {
+        double lambda = dLon;
+        double sinLambda;
+        double cosLambda;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cos2Alpha;
+        double cos2SigmaM;
+        int n = 0;
+        while (true) {
+            sinLambda = Math.sin(lambda);
+            cosLambda = Math.cos(lambda);
+            double y = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(cosU2 * sinLambda * cosU2 * sinLambda + y * y);
+            if (sinSigma == 0) {
+                //the same locations
+                setAzimuths(0, 0, azimuths1, azimuth1Idx, azimuths2, azimuth2Idx);
+                count(n);
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = GeogUtil.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cos2Alpha = 1 - sinAlpha * sinAlpha;
+            //on the equator
+            cos2SigmaM = cos2Alpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cos2Alpha;
+            double c = f / 16 * cos2Alpha * (4 + f * (4 - 3 * cos2Alpha));
+            double prevLambda = lambda;
+            lambda = dLon + (1 - c) * f * sinAlpha *
+                    (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            n++;
+            if (Math.abs(lambda - prevLambda) <= TOLERANCE) {
+                break;
+            }
+            if (n >= maxIterations || Double.isNaN(lambda)) {
+                setAzimuths(Double.NaN, Double.NaN, azimuths1, azimuth1Idx, azimuths2, azimuth2Idx);
+                count(-1);
+                return Double.NaN;
+            }
+        }
+        double u2 = cos2Alpha * secondEccentricitySquared;
+        double bigA = 1 + u2 / 16384 * (4096 + u2 * (-768 + u2 * (320 - 175 * u2)));
+        double bigB = u2 / 1024 * (256 + u2 * (-128 + u2 * (74 - 47 * u2)));
+        double deltaSigma = deltaSigma(bigB, sinSigma, cosSigma, cos2SigmaM);
+        if (azimuths1 != null) {
+            azimuths1[azimuth1Idx] = Math.toDegrees(GeogUtil.atan2(cosU2 * sinLambda,
+                    cosU1 * sinU2 - sinU1 * cosU2 * cosLambda));
+        }
+        if (azimuths2 != null) {
+            azimuths2[azimuth2Idx] = Math.toDegrees(GeogUtil.atan2(cosU1 * sinLambda,
+                    -sinU1 * cosU2 + cosU1 * sinU2 * cosLambda));
+        }
+        count(n);
+        return b * bigA * (sigma - deltaSigma);
+    }
+
+    private static void setAzimuths(double azimuth1, double azimuth2,
+                                    double[] azimuths1, int azimuth1Idx, double[] azimuths2, int azimuth2Idx) {
+        if (azimuths1 != null) {
+            azimuths1[azimuth1Idx] = azimuth1;
+        }
+        if (azimuths2 != null) {
+            azimuths2[azimuth2Idx] = azimuth2;
+        }
+    }
+
+    private static double deltaSigma(double bigB, double sinSigma, double cosSigma, double cos2SigmaM) {
+        double cos22SigmaM = cos2SigmaM * cos2SigmaM;
+        return bigB * sinSigma * (cos2SigmaM + bigB / 4 * (cosSigma * (-1 + 2 * cos22SigmaM) -
+                bigB / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos22SigmaM)));
+    }
+
+    /**
+     * Vincenty's direct formulae, which always converge. The azimuth is only computed when its array is not null.
+     */
+    private void solveDirect(double lat1, double lon1, double azimuth, double distance,
+                            double[] lats, int latIdx, double[] lons, int lonIdx, double[] azimuths, int azimuthIdx) {
+        double alpha1 = Math.toRadians(azimuth);
+        double sinAlpha1 = Math.sin(alpha1);
+        double cosAlpha1 = Math.cos(alpha1);
+        double tanU1 = oneMinusF * Math.tan(Math.toRadians(lat1));
+        double cosU1 = 1 / Math.sqrt(1 + tanU1 * tanU1);
+        double sinU1 = tanU1 * cosU1;
+        double sigma1 = GeogUtil.atan2(tanU1, cosAlpha1);
+        double sinAlpha = cosU1 * sinAlpha1;
+        double cos2Alpha = 1 - sinAlpha * sinAlpha;
+        double u2 = cos2Alpha * secondEccentricitySquared;
+        double bigA = 1 + u2 / 16384 * (4096 + u2 * (-768 + u2 * (320 - 175 * u2)));
+        double bigB = u2 / 1024 * (256 + u2 * (-128 + u2 * (74 - 47 * u2)));
+
+        double sigma0 = distance / (b * bigA);
+        double sigma = sigma0;
+        double sinSigma;
+        double cosSigma;
+        double cos2SigmaM;
+        int n = 0;
+        while (true) {
+            cos2SigmaM = Math.cos(2 * sigma1 + sigma);
+            sinSigma = Math.sin(sigma);
+            cosSigma = Math.cos(sigma);
+            double prevSigma = sigma;
+            sigma = sigma0 + deltaSigma(bigB, sinSigma, cosSigma, cos2SigmaM);
+            n++;
+            if (Math.abs(sigma - prevSigma) <= TOLERANCE || n >= maxIterations) {
+                break;
+            }
+        }
+        sinSigma = Math.sin(sigma);
+        cosSigma = Math.cos(sigma);
+        cos2SigmaM = Math.cos(2 * sigma1 + sigma);
+
+        double tmp = sinU1 * sinSigma - cosU1 * cosSigma * cosAlpha1;
+        double lat2 = GeogUtil.atan2(sinU1 * cosSigma + cosU1 * sinSigma * cosAlpha1,
+                oneMinusF * Math.sqrt(sinAlpha * sinAlpha + tmp * tmp));
+        double lambda = GeogUtil.atan2(sinSigma * sinAlpha1, cosU1 * cosSigma - sinU1 * sinSigma * cosAlpha1);
+        double c = f / 16 * cos2Alpha * (4 + f * (4 - 3 * cos2Alpha));
+        double dLon = lambda - (1 - c) * f * sinAlpha *
+                (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+        lats[latIdx] = Math.toDegrees(lat2);
+        double lon2 = lon1 + Math.toDegrees(dLon);
+        lons[lonIdx] = lon2 > 180 ? lon2 - 360 : (lon2 < -180 ? lon2 + 360 : lon2);
+        if (azimuths != null) {
+            azimuths[azimuthIdx] = Math.toDegrees(GeogUtil.atan2(sinAlpha, -tmp));
+        }
+        count(n);
+    }
+
+    public Ellipsoid getEllipsoid() {
+        return ellipsoid;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @return True if this counts its solutions, the counts of instances that do not are always 0.
+     */
+    public boolean isCounted() {
+        return counted;
+    }
+
+    /**
+     * @return The number of inverse and direct problems solved since the counters were last reset.
+     */
+    public long getSolveCount() {
+        return solves.sum();
+    }
+
+    /**
+     * @return The total number of iterations of every problem solved since the counters were last reset.
+     */
+    public long getIterationCount() {
+        return iterations.sum();
+    }
+
+    /**
+     * @return The number of inverse problems that did not converge within the iteration cap since the counters were
+     * last reset.
+     */
+    public long getNonConvergedCount() {
+        return nonConverged.sum();
+    }
+
+    public void resetCounters() {
+        solves.reset();
+        iterations.reset();
+        nonConverged.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "Geodesic{" + ellipsoid + ", maxIterations=" + maxIterations + "}";
+    }
+
+}
@@ -12,6 +12,11 @@ public final  class GeogUtil {
     private static final double WGS84_MIN_LONGTIDUE = -180.0;
     private static final double WGS84_MIN_LATITUDE = -90.0;
 
+    /**
+     * The mean radius of the Earth in meters (IUGG), used by the spherical distances.
+     */
+    public static final double MEAN_EARTH_RADIUS = 6371008.8;
+
     private GeogUtil(){}
 
     /**
@@ -47,6 +52,174 @@ public final  class GeogUtil {
         return Double.isNaN(azimuthRadians) ? 0 : Math.toDegrees(azimuthRadians);
     }
 
+    /**
+     * The great circle distance between two locations, using the haversine formula.
+     * Note: this method uses a spherical model of the Earth, see {@link #MEAN_EARTH_RADIUS}.
+     * @param lat1 pt1 lat
+     * @param lon1 pt1 lon
+     * @param lat2 pt2 lat
+     * @param lon2 pt2 lon
+     * @return the distance between point 1 and point 2 (in meters).
+     */
+    public static double haversineDistance(double lat1, double lon1, double lat2, double lon2){
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinHalfDLat = Math.sin(dLat * 0.5);
+        double sinHalfDLon = Math.sin(dLon * 0.5);
+        double a = sinHalfDLat * sinHalfDLat +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinHalfDLon * sinHalfDLon;
+        return 2 * MEAN_EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Computes the haversine distance (see {@link #haversineDistance(double, double, double, double)}) of every
+     * segment between consecutive points of a trajectory.
+     * @param latlon    the interleaved {lat, lon, lat, lon...} positions of the trajectory, in degrees.
+     * @param offset    the index of the first latitude.
+     * @param length    the number of points.
+     * @param distances the array to write the <code>length - 1</code> segment distances (in meters) to.
+     * @param outOffset the index to write the distance of the first segment to.
+     */
+    public static void segmentDistances(double[] latlon, int offset, int length, double[] distances, int outOffset){
+        segments(latlon, offset, length, distances, null, outOffset);
+    }
+
+    /**
+     * Computes the azimuth angle (see {@link #azimuthAngle(double, double, double, double)}) of every segment between
+     * consecutive points of a trajectory, i.e. the heading at the start of each segment.
+     * @param latlon    the interleaved {lat, lon, lat, lon...} positions of the trajectory, in degrees.
+     * @param offset    the index of the first latitude.
+     * @param length    the number of points.
+     * @param bearings  the array to write the <code>length - 1</code> segment azimuth angles (in degrees) to.
+     * @param outOffset the index to write the azimuth angle of the first segment to.
+     */
+    public static void segmentBearings(double[] latlon, int offset, int length, double[] bearings, int outOffset){
+        segments(latlon, offset, length, null, bearings, outOffset);
+    }
+
+    /**
+     * Computes both the distance and azimuth angle of every segment between consecutive points of a trajectory, see
+     * {@link #segmentDistances(double[], int, int, double[], int)} and
+     * {@link #segmentBearings(double[], int, int, double[], int)}.
+     */
+    public static void segmentDistancesAndBearings(double[] latlon, int offset, int length,
+                                                   double[] distances, double[] bearings, int outOffset){
+        segments(latlon, offset, length, distances, bearings, outOffset);
+    }
+
+    /**
+     * Computes the length of a trajectory up to each of its points, using haversine distances.
+     * @param latlon    the interleaved {lat, lon, lat, lon...} positions of the trajectory, in degrees.
+     * @param offset    the index of the first latitude.
+     * @param length    the number of points.
+     * @param lengths   the array to write the <code>length</code> path lengths (in meters) to, the first is zero.
+     * @param outOffset the index to write the path length of the first point to.
+     * @return the length of the whole trajectory (in meters).
+     */
+    public static double cumulativeLength(double[] latlon, int offset, int length, double[] lengths, int outOffset){
+        if (length == 0) {
+            return 0;
+        }
+        checkTrajectory(latlon, offset, length, lengths, outOffset, length);
+        segments(latlon, offset, length, lengths, null, outOffset + 1);
+        double total = 0;
+        lengths[outOffset] = 0;
+        for (int i = outOffset + 1, end = outOffset + length; i < end; i++) {
+            total += lengths[i];
+            lengths[i] = total;
+        }
+        return total;
+    }
+
+    /**
+     * The distances and azimuth angles of consecutive points. Each point is converted to the sine and cosine of half of
+     * its latitude and longitude once and those are reused by both segments the point is in. Half latitudes are within
+     * [-45, 45] degrees, so their cosine is found from their sine with a square root. Working in half angles
+     * keeps the differences of nearby points, which are what the formulas need, within a few nanometres rather than
+     * cancelling out, i.e. sin((lat2 - lat1) / 2) = sin(lat2 / 2) * cos(lat1 / 2) - cos(lat2 / 2) * sin(lat1 / 2).
+     */
+    private static void segments(double[] latlon, int offset, int length,
+                                 double[] distances, double[] bearings, int outOffset){
+        if (length <= 1) {
+            return;
+        }
+        checkTrajectory(latlon, offset, length, distances, outOffset, length - 1);
+        checkTrajectory(latlon, offset, length, bearings, outOffset, length - 1);
+
+        double halfLat = Math.toRadians(latlon[offset]) * 0.5;
+        double halfLon = Math.toRadians(latlon[offset + 1]) * 0.5;
+        double sinHalfLat1 = Math.sin(halfLat);
+        double cosHalfLat1 = Math.sqrt(1 - sinHalfLat1 * sinHalfLat1);
+        double sinHalfLon1 = Math.sin(halfLon);
+        double cosHalfLon1 = Math.cos(halfLon);
+        double sinLat1 = 2 * sinHalfLat1 * cosHalfLat1;
+        double cosLat1 = (cosHalfLat1 - sinHalfLat1) * (cosHalfLat1 + sinHalfLat1);
+
+        for (int i = offset + 2, out = outOffset, end = offset + 2 * length; i < end; i += 2, out++) {
+            halfLat = Math.toRadians(latlon[i]) * 0.5;
+            halfLon = Math.toRadians(latlon[i + 1]) * 0.5;
+            double sinHalfLat2 = Math.sin(halfLat);
+            double cosHalfLat2 = Math.sqrt(1 - sinHalfLat2 * sinHalfLat2);
+            double sinHalfLon2 = Math.sin(halfLon);
+            double cosHalfLon2 = Math.cos(halfLon);
+            double sinLat2 = 2 * sinHalfLat2 * cosHalfLat2;
+            double cosLat2 = (cosHalfLat2 - sinHalfLat2) * (cosHalfLat2 + sinHalfLat2);
+
+            double sinHalfDLat = sinHalfLat2 * cosHalfLat1 - cosHalfLat2 * sinHalfLat1;
+            double sinHalfDLon = sinHalfLon2 * cosHalfLon1 - cosHalfLon2 * sinHalfLon1;
+            double sin2HalfDLon = sinHalfDLon * sinHalfDLon;
+            if (distances != null) {
+                double a = sinHalfDLat * sinHalfDLat + cosLat1 * cosLat2 * sin2HalfDLon;
+                distances[out] = 2 * MEAN_EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+            }
+            if (bearings != null) {
+                // Same as azimuthAngle, with cos(lat1)sin(lat2) - sin(lat1)cos(lat2)cos(dLon) rewritten as
+                // sin(dLat) + 2sin(lat1)cos(lat2)sin^2(dLon / 2)
+                double cosHalfDLat = cosHalfLat2 * cosHalfLat1 + sinHalfLat2 * sinHalfLat1;
+                double cosHalfDLon = cosHalfLon2 * cosHalfLon1 + sinHalfLon2 * sinHalfLon1;
+                double y = 2 * sinHalfDLon * cosHalfDLon * cosLat2;
+                double x = 2 * sinHalfDLat * cosHalfDLat + 2 * sinLat1 * cosLat2 * sin2HalfDLon;
+                bearings[out] = Math.toDegrees(atan2(y, x));
+            }
+
+            sinHalfLat1 = sinHalfLat2;
+            cosHalfLat1 = cosHalfLat2;
+            sinHalfLon1 = sinHalfLon2;
+            cosHalfLon1 = cosHalfLon2;
+            sinLat1 = sinLat2;
+            cosLat1 = cosLat2;
+        }
+    }
+
+    /**
+     * The same as Math.atan2 (to within an ulp or two) using Math.atan, which is more than twice as fast.
+     */
+    static double atan2(double y, double x){
+        if (Math.abs(x) >= Math.abs(y)) {
+            if (x == 0) {
+                return 0;
+            }
+            double t = Math.atan(y / x);
+            return x > 0 ? t : (y >= 0 ? t + Math.PI : t - Math.PI);
+        }
+        return (y > 0 ? Math.PI * 0.5 : -Math.PI * 0.5) - Math.atan(x / y);
+    }
+
+    static void checkTrajectory(double[] latlon, int offset, int length, double[] out, int outOffset,
+                                        int outLength){
+        if (offset < 0 || length < 0 || outOffset < 0) {
+            throw new IndexOutOfBoundsException("Offsets and length must be positive.");
+        }
+        if ((long) offset + 2L * length > latlon.length) {
+            throw new IndexOutOfBoundsException("Trajectory of " + length + " points starting at " + offset +
+                    " does not fit in an array of length " + latlon.length);
+        }
+        if (out != null && (long) outOffset + outLength > out.length) {
+            throw new IndexOutOfBoundsException(outLength + " results starting at " + outOffset +
+                    " do not fit in an array of length " + out.length);
+        }
+    }
+
     /**
      * Given a value wraps it into -90...90
      *
@@ -0,0 +1,452 @@
+package onethreeseven.geo.util;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+
+/**
+ * <p>
+ * Simplifies polylines (i.e. trajectories) stored as interleaved {lat, lon, lat, lon...} positions, with a tolerance
+ * in meters. The positions are projected first and the simplification measures distances on the projection, so the
+ * tolerance holds where the projection keeps scale, i.e. within a UTM zone or near the equator of an equirectangular
+ * projection.
+ * </p>
+ * <p>
+ * Three algorithms are offered, each keeping the first and last points:
+ * </p>
+ * <ul>
+ *     <li>Douglas-Peucker keeps every point further than the tolerance from the simplified polyline around it. It
+ *     works through a stack of sub-polylines in a primitive array rather than recursing, so long polylines cannot
+ *     overflow the stack.</li>
+ *     <li>Visvalingam-Whyatt repeatedly drops the point making the smallest triangle with its neighbours, until every
+ *     triangle is at least tolerance^2 square meters, using an indexed min-heap of the triangle areas.</li>
+ *     <li>A {@link Window} simplifies a live track one point at a time with bounded memory, keeping a point once the
+ *     next point cannot be reached within the tolerance of every point in between (the opening window algorithm).</li>
+ * </ul>
+ * The static methods simplify points already projected (or any planar points) in their own units. Simplifiers are
+ * safe to use from many threads at once, a {@link Window} is not.
+ * @author Luke Bermingham
+ */
+public final class PolylineSimplifier {
+
+    /**
+     * Receives the points kept by a {@link Window}.
+     */
+    public interface Visitor {
+        /**
+         * @param index the index of the point, counting every point added to the window.
+         * @param lat   the latitude of the point.
+         * @param lon   the longitude of the point.
+         */
+        void visit(long index, double lat, double lon);
+    }
+
+    private final AbstractGeographicProjection projection;
+    private final double tolerance;
+
+    /**
+     * @param projection the projection to measure distances on, in meters.
+     * @param tolerance  the tolerance in meters.
+     */
+    public PolylineSimplifier(AbstractGeographicProjection projection, double tolerance) {
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive, was: " + tolerance);
+        }
+        this.projection = projection;
+        this.tolerance = tolerance;
+    }
+
+    public AbstractGeographicProjection getProjection() {
+        return projection;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Simplifies by Douglas-Peucker, see {@link #douglasPeucker(double[], int, int, double, int[])}.
+     * @param latlon the interleaved {lat, lon, lat, lon...} positions, in degrees.
+     * @param offset the index of the first latitude.
+     * @param length the number of points.
+     * @param kept   the array to write the indices (from 0 to length - 1) of the kept points to, in order.
+     * @return The number of kept points.
+     */
+    public int douglasPeucker(double[] latlon, int offset, int length, int[] kept) {
+        return douglasPeucker(project(latlon, offset, length), 0, length, tolerance, kept);
+    }
+
+    /**
+     * Simplifies by Visvalingam-Whyatt, see {@link #visvalingam(double[], int, int, double, int[])}, dropping points
+     * whose triangles are smaller than tolerance^2 square meters.
+     * @param latlon the interleaved {lat, lon, lat, lon...} positions, in degrees.
+     * @param offset the index of the first latitude.
+     * @param length the number of points.
+     * @param kept   the array to write the indices (from 0 to length - 1) of the kept points to, in order.
+     * @return The number of kept points.
+     */
+    public int visvalingam(double[] latlon, int offset, int length, int[] kept) {
+        return visvalingam(project(latlon, offset, length), 0, length, tolerance * tolerance, kept);
+    }
+
+    /**
+     * @param capacity the most points held back before one is kept regardless, at least 1. The latency and memory of
+     *                 the window grow with it, and so does the cost of each point.
+     * @param visitor  receives the kept points, in order.
+     * @return A window to add the points of one track to.
+     */
+    public Window window(int capacity, Visitor visitor) {
+        return new Window(projection, tolerance, capacity, visitor);
+    }
+
+    /**
+     * Simplifies planar points by Douglas-Peucker, keeping every point further than the tolerance from the segment
+     * between the points kept either side of it.
+     * @param xy        the interleaved {x, y, x, y...} points.
+     * @param offset    the index of the first x.
+     * @param length    the number of points.
+     * @param tolerance the largest distance of a dropped point from the simplified polyline.
+     * @param kept      the array to write the indices (from 0 to length - 1) of the kept points to, in order.
+     * @return The number of kept points.
+     */
+    public static int douglasPeucker(double[] xy, int offset, int length, double tolerance, int[] kept) {
+        checkKept(xy, offset, length, kept);
+        if (length <= 2) {
+            return keepAll(length, kept);
+        }
+        double toleranceSq = tolerance * tolerance;
+        boolean[] keep = new boolean[length];
+        keep[0] = true;
+        keep[length - 1] = true;
+        //the sub-polylines still to split, {first, last, ...}; they never overlap so there are at most length - 1
+        int[] stack = new int[2 * (length - 1)];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = length - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int a = offset + 2 * first;
+            int b = offset + 2 * last;
+            double ax = xy[a];
+            double ay = xy[a + 1];
+            double bx = xy[b];
+            double by = xy[b + 1];
+            double maxSq = toleranceSq;
+            int furthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                int p = offset + 2 * i;
+                double d = segmentDistanceSq(xy[p], xy[p + 1], ax, ay, bx, by);
+                if (d > maxSq) {
+                    maxSq = d;
+                    furthest = i;
+                }
+            }
+            if (furthest < 0) {
+                continue;
+            }
+            keep[furthest] = true;
+            if (furthest - first > 1) {
+                stack[top++] = first;
+                stack[top++] = furthest;
+            }
+            if (last - furthest > 1) {
+                stack[top++] = furthest;
+                stack[top++] = last;
+            }
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            if (keep[i]) {
+                kept[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Simplifies planar points by Visvalingam-Whyatt, repeatedly dropping the point that makes the smallest triangle
+     * with its neighbours. A triangle is never smaller than the one dropped before it, so the order points are dropped
+     * in is the order of their areas.
+     * @param xy      the interleaved {x, y, x, y...} points.
+     * @param offset  the index of the first x.
+     * @param length  the number of points.
+     * @param minArea the smallest triangle kept, in the units of the points squared.
+     * @param kept    the array to write the indices (from 0 to length - 1) of the kept points to, in order.
+     * @return The number of kept points.
+     */
+    public static int visvalingam(double[] xy, int offset, int length, double minArea, int[] kept) {
+        checkKept(xy, offset, length, kept);
+        if (length <= 2) {
+            return keepAll(length, kept);
+        }
+        int[] prev = new int[length];
+        int[] next = new int[length];
+        double[] areas = new double[length];
+        IndexedMinHeap heap = new IndexedMinHeap(areas, length);
+        for (int i = 1; i < length - 1; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+            areas[i] = triangleArea(xy, offset, i - 1, i, i + 1);
+            heap.add(i);
+        }
+        next[0] = 1;
+        prev[length - 1] = length - 2;
+
+        while (heap.size() > 0 && areas[heap.peek()] < minArea) {
+            int i = heap.poll();
+            int p = prev[i];
+            int q = next[i];
+            next[p] = q;
+            prev[q] = p;
+            if (p > 0) {
+                areas[p] = Math.max(areas[i], triangleArea(xy, offset, prev[p], p, q));
+                heap.update(p);
+            }
+            if (q < length - 1) {
+                areas[q] = Math.max(areas[i], triangleArea(xy, offset, p, q, next[q]));
+                heap.update(q);
+            }
+        }
+        int n = 0;
+        for (int i = 0; i < length - 1; i = next[i]) {
+            kept[n++] = i;
+        }
+        kept[n++] = length - 1;
+        return n;
+    }
+
+    /**
+     * Simplifies a live track one point at a time, keeping the first point, every point the next cannot be reached
+     * from within the tolerance of the points in between, and the last point on {@link #finish()}. At most capacity
+     * points are held back, so a point is kept at least every capacity + 1 points.
+     */
+    public static final class Window {
+
+        private final AbstractGeographicProjection projection;
+        private final double toleranceSq;
+        private final Visitor visitor;
+        private final double[] xy = new double[2];
+
+        //the points since the last kept point (the anchor)
+        private final double[] lats;
+        private final double[] lons;
+        private final double[] xs;
+        private final double[] ys;
+        private final long[] indices;
+        private int size;
+
+        private double anchorX;
+        private double anchorY;
+        private long nextIndex;
+
+        Window(AbstractGeographicProjection projection, double tolerance, int capacity, Visitor visitor) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Capacity must be at least 1, was: " + capacity);
+            }
+            this.projection = projection;
+            this.toleranceSq = tolerance * tolerance;
+            this.visitor = visitor;
+            this.lats = new double[capacity];
+            this.lons = new double[capacity];
+            this.xs = new double[capacity];
+            this.ys = new double[capacity];
+            this.indices = new long[capacity];
+        }
+
+        /**
+         * @param lat the latitude of the next point of the track, in degrees.
+         * @param lon the longitude of the next point of the track, in degrees.
+         */
+        public void add(double lat, double lon) {
+            projection.geographicToCartesian(lat, lon, xy, 0);
+            double x = xy[0];
+            double y = xy[1];
+            long index = nextIndex++;
+            if (index == 0) {
+                anchorX = x;
+                anchorY = y;
+                visitor.visit(index, lat, lon);
+                return;
+            }
+            if (size == xs.length || !withinTolerance(x, y)) {
+                keepLast();
+            }
+            lats[size] = lat;
+            lons[size] = lon;
+            xs[size] = x;
+            ys[size] = y;
+            indices[size] = index;
+            size++;
+        }
+
+        /**
+         * Keeps the last point of the track, the window can then be used for another track.
+         */
+        public void finish() {
+            if (size > 0) {
+                keepLast();
+            }
+            nextIndex = 0;
+        }
+
+        /**
+         * @return The number of points added but not yet kept or dropped.
+         */
+        public int pending() {
+            return size;
+        }
+
+        private boolean withinTolerance(double x, double y) {
+            for (int i = 0; i < size; i++) {
+                if (segmentDistanceSq(xs[i], ys[i], anchorX, anchorY, x, y) > toleranceSq) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void keepLast() {
+            int last = size - 1;
+            visitor.visit(indices[last], lats[last], lons[last]);
+            anchorX = xs[last];
+            anchorY = ys[last];
+            size = 0;
+        }
+    }
+
+    private double[] project(double[] latlon, int offset, int length) {
+        GeogUtil.checkTrajectory(latlon, offset, length, null, 0, 0);
+        double[] xy = new double[2 * length];
+        System.arraycopy(latlon, offset, xy, 0, xy.length);
+        projection.geographicToCartesian(xy, xy, 0, length, 2);
+        return xy;
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSq : 0;
+        if (t < 0) {
+            t = 0;
+        } else if (t > 1) {
+            t = 1;
+        }
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    private static double triangleArea(double[] xy, int offset, int a, int b, int c) {
+        int ia = offset + 2 * a;
+        int ib = offset + 2 * b;
+        int ic = offset + 2 * c;
+        return Math.abs((xy[ib] - xy[ia]) * (xy[ic + 1] - xy[ia + 1]) -
+                (xy[ic] - xy[ia]) * (xy[ib + 1] - xy[ia + 1])) * 0.5;
+    }
+
+    private static int keepAll(int length, int[] kept) {
+        for (int i = 0; i < length; i++) {
+            kept[i] = i;
+        }
+        return length;
+    }
+
+    private static void checkKept(double[] xy, int offset, int length, int[] kept) {
+        GeogUtil.checkTrajectory(xy, offset, length, null, 0, 0);
+        if (kept.length < length) {
+            throw new IndexOutOfBoundsException("Up to " + length + " kept points do not fit in an array of length " +
+                    kept.length);
+        }
+    }
+
+    /**
+     * A binary min-heap of the indices of points, ordered by their areas, that tracks where each point is so its area
+     * can change while it is in the heap. Equal areas are ordered by index, so the first of them is dropped first.
+     */
+    private static final class IndexedMinHeap {
+        private final double[] keys;
+        private final int[] heap;
+        private final int[] positions;
+        private int size;
+
+        IndexedMinHeap(double[] keys, int capacity) {
+            this.keys = keys;
+            this.heap = new int[capacity];
+            this.positions = new int[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        void add(int id) {
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+        }
+
+        int poll() {
+            int top = heap[0];
+            size--;
+            if (size > 0) {
+                move(heap[size], 0);
+                siftDown(0);
+            }
+            return top;
+        }
+
+        /**
+         * Restores the order after the key of an id in the heap changed.
+         */
+        void update(int id) {
+            int pos = positions[id];
+            siftUp(pos);
+            siftDown(positions[id]);
+        }
+
+        private void siftUp(int pos) {
+            int id = heap[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!less(id, heap[parent])) {
+                    break;
+                }
+                move(heap[parent], pos);
+                pos = parent;
+            }
+            move(id, pos);
+        }
+
+        private void siftDown(int pos) {
+            int id = heap[pos];
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < size && less(heap[right], heap[child])) {
+                    child = right;
+                }
+                if (!less(heap[child], id)) {
+                    break;
+                }
+                move(heap[child], pos);
+                pos = child;
+            }
+            move(id, pos);
+        }
+
+        private boolean less(int a, int b) {
+            return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+        }
+
+        private void move(int id, int pos) {
+            heap[pos] = id;
+            positions[id] = pos;
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package onethreeseven.geo.io;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+import onethreeseven.geo.projection.ProjectionUTM;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests {@link CoordinateFile} round trips its header and projects the same as the array bulk methods.
+ * @author Luke Bermingham
+ */
+public class CoordinateFileTest {
+
+    private static final int nPoints = 5003;
+
+    @Test
+    public void testProject() throws Exception {
+        Path geographic = Files.createTempFile("geographic", ".137g");
+        Path cartesian = Files.createTempFile("cartesian", ".137g");
+        Path roundTrip = Files.createTempFile("roundTrip", ".137g");
+        AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+        double[] latlons = new double[nPoints * 2];
+        for (int i = 0; i < nPoints; i++) {
+            latlons[i * 2] = -40 + 80.0 * i / nPoints;
+            latlons[i * 2 + 1] = 12 + 6.0 * (i % 101) / 101;
+        }
+        try {
+            try (CoordinateFile file = CoordinateFile.create(geographic, CoordinateFile.Kind.GEOGRAPHIC,
+                    "WGS84", "", nPoints)) {
+                file.map(0, nPoints).put(latlons);
+            }
+            try (CoordinateFile file = CoordinateFile.open(geographic)) {
+                Assert.assertEquals(CoordinateFile.Kind.GEOGRAPHIC, file.getKind());
+                Assert.assertEquals("WGS84", file.getCrs());
+                Assert.assertEquals("", file.getProjection());
+                Assert.assertEquals(nPoints, file.size());
+                Assert.assertFalse(file.isWritable());
+                file.project(utm, "UTM 33", cartesian).close();
+            }
+
+            double[] expected = new double[latlons.length];
+            utm.geographicToCartesian(latlons, expected, 0, nPoints, 2);
+            double[] actual = new double[latlons.length];
+            try (CoordinateFile file = CoordinateFile.open(cartesian)) {
+                Assert.assertEquals(CoordinateFile.Kind.CARTESIAN, file.getKind());
+                Assert.assertEquals("UTM 33", file.getProjection());
+                file.map(0, nPoints).get(actual);
+                Assert.assertArrayEquals(expected, actual, 0);
+                file.project(utm, "UTM 33", roundTrip).close();
+            }
+            try (CoordinateFile file = CoordinateFile.open(roundTrip)) {
+                Assert.assertEquals(CoordinateFile.Kind.GEOGRAPHIC, file.getKind());
+                file.map(0, nPoints).get(actual);
+                Assert.assertArrayEquals(latlons, actual, 1e-9);
+            }
+        } finally {
+            Files.deleteIfExists(geographic);
+            Files.deleteIfExists(cartesian);
+            Files.deleteIfExists(roundTrip);
+        }
+    }
+
+    @Test
+    public void testBufferOffset() throws Exception {
+        AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+        double[] latlons = {0, 0, 10, 15, -10, 13, 0};
+        double[] expected = latlons.clone();
+        utm.geographicToCartesian(expected, expected, 2, 2, 2);
+        DoubleBuffer buffer = DoubleBuffer.wrap(latlons.clone());
+        utm.geographicToCartesian(buffer, buffer, 2, 2);
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertArrayEquals(expected, buffer.array(), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotACoordinateFile() throws Exception {
+        Path path = Files.createTempFile("notCoordinates", ".txt");
+        try {
+            Files.write(path, new byte[64]);
+            CoordinateFile.open(path).close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package onethreeseven.geo.model;
+
+import onethreeseven.geo.projection.AbstractGeographicProjection;
+import onethreeseven.geo.projection.ProjectionMercator;
+import onethreeseven.geo.projection.ProjectionUTM;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+/**
+ * Tests heap and direct {@link CoordinateBuffer}s project and bound the same as arrays.
+ * @author Luke Bermingham
+ */
+public class CoordinateBufferTest {
+
+    private static final int nPoints = 3001;
+
+    private static double[] randomLatLons(Random r) {
+        double[] latlons = new double[nPoints * 2];
+        for (int i = 0; i < nPoints; i++) {
+            latlons[i * 2] = -80 + r.nextDouble() * 160;
+            latlons[i * 2 + 1] = 12 + r.nextDouble() * 6;
+        }
+        return latlons;
+    }
+
+    private static void testProject(AbstractGeographicProjection p, CoordinateBuffer latlons, CoordinateBuffer xys,
+                                    double[] expectedLatLons) {
+        double[] expected = new double[expectedLatLons.length];
+        p.geographicToCartesian(expectedLatLons, expected, 0, nPoints, 2);
+        p.geographicToCartesian(latlons, xys);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(p.toString(), expected[i], xys.get(i), 0);
+        }
+        p.cartesianToGeographic(expected, expected, 0, nPoints, 2);
+        p.cartesianToGeographic(xys, xys);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(p.toString(), expected[i], xys.get(i), 0);
+        }
+    }
+
+    @Test
+    public void testProject() throws Exception {
+        double[] latlons = randomLatLons(new Random(137));
+        for (AbstractGeographicProjection p : new AbstractGeographicProjection[]{
+                new ProjectionMercator(), ProjectionUTM.forZone(33)}) {
+            CoordinateBuffer heap = CoordinateBuffer.allocate(nPoints);
+            CoordinateBuffer direct = CoordinateBuffer.allocateDirect(nPoints);
+            Assert.assertTrue(direct.isDirect());
+            Assert.assertFalse(heap.isDirect());
+            //heap to direct and back
+            testProject(p, CoordinateBuffer.wrap(latlons.clone()), direct, latlons);
+            for (int i = 0; i < nPoints; i++) {
+                direct.set(i, latlons[i * 2], latlons[i * 2 + 1]);
+            }
+            testProject(p, direct, heap, latlons);
+        }
+    }
+
+    @Test
+    public void testBounds() throws Exception {
+        double[] latlons = randomLatLons(new Random(137));
+        CoordinateBuffer direct = CoordinateBuffer.allocateDirect(nPoints);
+        direct.asDoubleBuffer().put(latlons);
+        LatLonBounds expected = new LatLonBoundsBuilder().addAll(latlons, 0, nPoints).build();
+        LatLonBounds actual = new LatLonBounds(direct);
+        Assert.assertEquals(expected.getMinLat(), actual.getMinLat(), 0);
+        Assert.assertEquals(expected.getMaxLat(), actual.getMaxLat(), 0);
+        Assert.assertEquals(expected.getMinLon(), actual.getMinLon(), 0);
+        Assert.assertEquals(expected.getMaxLon(), actual.getMaxLon(), 0);
+    }
+
+    @Test
+    public void testWrapSlice() throws Exception {
+        DoubleBuffer doubles = DoubleBuffer.wrap(new double[]{1, 2, 3, 4, 5, 6});
+        doubles.position(2);
+        CoordinateBuffer buffer = CoordinateBuffer.wrap(doubles);
+        Assert.assertEquals(2, buffer.size());
+        Assert.assertEquals(3, buffer.get(0), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddLength() throws Exception {
+        CoordinateBuffer.wrap(new double[3]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutputTooSmall() throws Exception {
+        new ProjectionMercator().geographicToCartesian(CoordinateBuffer.allocate(10), CoordinateBuffer.allocate(5));
+    }
+
+}
@@ -0,0 +1,165 @@
+package onethreeseven.geo.model;
+
+import onethreeseven.geo.projection.Ellipsoid;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link EqualAreaGrid}.
+ * @author Luke Bermingham
+ */
+public class EqualAreaGridTest {
+
+    private static final double WGS84_A = Ellipsoid.WGS84.getEquatorialRadius();
+    private static final double WGS84_ES = Ellipsoid.WGS84.getEccentricitySquared();
+
+    @Test
+    public void testPositionsAreInTheirCells() throws Exception {
+        Random r = new Random(137);
+        double[] latlons = new double[2000];
+        long[] cells = new long[latlons.length / 2];
+        for (int i = 0; i < latlons.length; i += 2) {
+            latlons[i] = -90 + r.nextDouble() * 180;
+            latlons[i + 1] = -180 + r.nextDouble() * 360;
+        }
+        for (int level = 0; level <= EqualAreaGrid.MAX_LEVEL; level++) {
+            EqualAreaGrid.cells(latlons, cells, 0, cells.length, level);
+            for (int i = 0; i < cells.length; i++) {
+                double lat = latlons[2 * i];
+                double lon = latlons[2 * i + 1];
+                long cell = cells[i];
+                Assert.assertEquals(EqualAreaGrid.cell(lat, lon, level), cell);
+                Assert.assertEquals(level, EqualAreaGrid.level(cell));
+                Assert.assertEquals(cell, EqualAreaGrid.parent(EqualAreaGrid.cell(lat, lon,
+                        EqualAreaGrid.MAX_LEVEL), level));
+                //within a hair of the edge, where rounding may pick either side
+                LatLonBounds b = EqualAreaGrid.bounds(cell);
+                Assert.assertTrue(lat >= b.getMinLat() - 1e-9 && lat <= b.getMaxLat() + 1e-9);
+                Assert.assertTrue(lon >= b.getMinLon() - 1e-9 && lon <= b.getMaxLon() + 1e-9);
+            }
+        }
+        //the poles and the antimeridian
+        Assert.assertEquals(90, EqualAreaGrid.bounds(EqualAreaGrid.cell(90, 0, 10)).getMaxLat(), 0);
+        Assert.assertEquals(-90, EqualAreaGrid.bounds(EqualAreaGrid.cell(-90, 0, 10)).getMinLat(), 0);
+        Assert.assertEquals(180, EqualAreaGrid.bounds(EqualAreaGrid.cell(0, 180, 10)).getMaxLon(), 0);
+        Assert.assertEquals(-180, EqualAreaGrid.bounds(EqualAreaGrid.cell(0, -180, 10)).getMinLon(), 0);
+    }
+
+    @Test
+    public void testCellsHaveEqualArea() throws Exception {
+        //the area of the ellipsoid between the equator and a latitude is a closed form, per radian of longitude
+        Random r = new Random(137);
+        double earth = 0;
+        for (int face = 0; face < EqualAreaGrid.FACES; face++) {
+            earth += areaOf(EqualAreaGrid.bounds(EqualAreaGrid.cell(0, -179 + face * 120, 0)));
+        }
+        Assert.assertEquals(5.10065621724e14, earth, 1e4);
+        for (int level : new int[]{0, 1, 5, 12, 20}) {
+            for (int i = 0; i < 200; i++) {
+                long cell = EqualAreaGrid.cell(-90 + r.nextDouble() * 180, -180 + r.nextDouble() * 360, level);
+                double area = EqualAreaGrid.area(cell);
+                Assert.assertEquals(earth / (3 * Math.pow(4, level)), area, area * 1e-9);
+                Assert.assertEquals(area, areaOf(EqualAreaGrid.bounds(cell)), area * 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testHierarchy() throws Exception {
+        long cell = EqualAreaGrid.cell(-37.8, 144.9, 12);
+        Assert.assertTrue(EqualAreaGrid.isValid(cell));
+        Assert.assertEquals(12, EqualAreaGrid.level(cell));
+        Assert.assertEquals(2, EqualAreaGrid.face(cell));
+        LatLonBounds bounds = EqualAreaGrid.bounds(cell);
+        long[] range = EqualAreaGrid.range(cell);
+
+        long[] children = EqualAreaGrid.children(cell);
+        Assert.assertEquals(4, children.length);
+        for (int i = 0; i < children.length; i++) {
+            long child = children[i];
+            Assert.assertTrue(i == 0 || child > children[i - 1]);
+            Assert.assertEquals(13, EqualAreaGrid.level(child));
+            Assert.assertEquals(cell, EqualAreaGrid.parent(child));
+            Assert.assertTrue(EqualAreaGrid.contains(cell, child));
+            Assert.assertTrue(child >= range[0] && child < range[1]);
+            Assert.assertTrue(bounds.contains(EqualAreaGrid.bounds(child)));
+        }
+        long leaf = EqualAreaGrid.cell(-37.8, 144.9, EqualAreaGrid.MAX_LEVEL);
+        Assert.assertTrue(EqualAreaGrid.contains(cell, leaf));
+        Assert.assertTrue(leaf >= range[0] && leaf < range[1]);
+        Assert.assertFalse(EqualAreaGrid.contains(cell, EqualAreaGrid.cell(-37.8, -144.9, 12)));
+        Assert.assertEquals(EqualAreaGrid.cell(0, 150, 0), EqualAreaGrid.parent(cell, 0));
+
+        Assert.assertFalse(EqualAreaGrid.isValid(0));
+        Assert.assertFalse(EqualAreaGrid.isValid(cell << 1));
+        Assert.assertFalse(EqualAreaGrid.isValid(3L << (2 * EqualAreaGrid.MAX_LEVEL + 1) | 1));
+        try {
+            EqualAreaGrid.parent(EqualAreaGrid.parent(cell, 0));
+            Assert.fail("A face has no parent.");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            EqualAreaGrid.children(leaf);
+            Assert.fail("A leaf has no children.");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testKRing() throws Exception {
+        long cell = EqualAreaGrid.cell(-37.8, 144.9, 8);
+        //grown a hair, so neighbours sharing only an edge or a corner intersect it
+        LatLonBounds b = EqualAreaGrid.bounds(cell);
+        LatLonBounds bounds = new LatLonBounds(b.getMinLat() - 1e-9, b.getMaxLat() + 1e-9,
+                b.getMinLon() - 1e-9, b.getMaxLon() + 1e-9);
+        long[] ring = EqualAreaGrid.kRing(cell, 1);
+        Assert.assertEquals(9, ring.length);
+        for (int i = 0; i < ring.length; i++) {
+            Assert.assertTrue(i == 0 || ring[i] > ring[i - 1]);
+            Assert.assertEquals(8, EqualAreaGrid.level(ring[i]));
+            Assert.assertTrue(bounds.intersects(EqualAreaGrid.bounds(ring[i])));
+        }
+        Assert.assertEquals(25, EqualAreaGrid.kRing(cell, 2).length);
+        Assert.assertArrayEquals(new long[]{cell}, EqualAreaGrid.kRing(cell, 0));
+
+        //across the antimeridian, and from a face to the next
+        long east = EqualAreaGrid.cell(10, 179.99, 8);
+        long west = EqualAreaGrid.cell(10, -179.99, 8);
+        Assert.assertTrue(contains(EqualAreaGrid.kRing(east, 1), west));
+        Assert.assertTrue(contains(EqualAreaGrid.kRing(west, 1), east));
+        Assert.assertTrue(contains(EqualAreaGrid.kRing(EqualAreaGrid.cell(10, -60.01, 8), 1),
+                EqualAreaGrid.cell(10, -59.99, 8)));
+
+        //no neighbours across the pole, and coarse levels wrap onto themselves
+        Assert.assertEquals(6, EqualAreaGrid.kRing(EqualAreaGrid.cell(90, 0, 8), 1).length);
+        Assert.assertEquals(3, EqualAreaGrid.kRing(EqualAreaGrid.cell(0, 0, 0), 1).length);
+        Assert.assertEquals(12, EqualAreaGrid.kRing(EqualAreaGrid.cell(0, 0, 1), 5).length);
+    }
+
+    private static boolean contains(long[] cells, long cell) {
+        for (long c : cells) {
+            if (c == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The area of the ellipsoid within the bounds.
+     */
+    private static double areaOf(LatLonBounds b) {
+        double dLon = Math.toRadians(b.getMaxLon() - b.getMinLon());
+        return dLon * (zone(b.getMaxLat()) - zone(b.getMinLat()));
+    }
+
+    private static double zone(double lat) {
+        double e = Math.sqrt(WGS84_ES);
+        double s = Math.sin(Math.toRadians(lat));
+        double b2 = WGS84_A * WGS84_A * (1 - WGS84_ES);
+        return b2 / 2 * (s / (1 - WGS84_ES * s * s) + Math.log((1 + e * s) / (1 - e * s)) / (2 * e));
+    }
+
+}
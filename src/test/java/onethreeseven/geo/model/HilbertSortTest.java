@@ -0,0 +1,158 @@
+package onethreeseven.geo.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link HilbertSort}.
+ * @author Luke Bermingham
+ */
+public class HilbertSortTest {
+
+    @Test
+    public void testCurveIsContinuous() throws Exception {
+        //the centres of a 64x64 grid, in the order of the curve each is next to the last
+        int n = 64;
+        LatLonBounds bounds = new LatLonBounds(-10, 10, 170, -170);
+        double latStep = 20.0 / n;
+        double lonStep = 20.0 / n;
+        CoordinateBuffer latlons = CoordinateBuffer.allocate(n * n);
+        Random r = new Random(137);
+        int[] shuffled = new int[n * n];
+        for (int i = 0; i < shuffled.length; i++) {
+            shuffled[i] = i;
+        }
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int t = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = t;
+        }
+        for (int i = 0; i < shuffled.length; i++) {
+            int cell = shuffled[i];
+            double lon = 170 + (cell % n + 0.5) * lonStep;
+            latlons.set(i, -10 + (cell / n + 0.5) * latStep, lon > 180 ? lon - 360 : lon);
+        }
+        int[] perm = HilbertSort.sort(latlons, bounds);
+        CoordinateBuffer sorted = CoordinateBuffer.allocate(n * n);
+        HilbertSort.permute(latlons, perm, sorted);
+        for (int i = 1; i < n * n; i++) {
+            double dLat = Math.abs(sorted.get(2 * i) - sorted.get(2 * i - 2)) / latStep;
+            double dLon = Math.abs(sorted.get(2 * i + 1) - sorted.get(2 * i - 1));
+            dLon = Math.min(dLon, 360 - dLon) / lonStep;
+            Assert.assertEquals(1, dLat + dLon, 1e-6);
+        }
+        //the curve starts in a corner
+        Assert.assertEquals(0, HilbertSort.key(-10, 170, bounds));
+    }
+
+    @Test
+    public void testFinestLevelsAreContinuous() throws Exception {
+        //any aligned block of 16x16 cells is one stretch of the curve, and that stretch never jumps
+        Random r = new Random(137);
+        for (int block = 0; block < 100; block++) {
+            long x0 = r.nextInt(1 << 27) * 16L;
+            long y0 = r.nextInt(1 << 27) * 16L;
+            long[] cells = new long[256];
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < 256; i++) {
+                long d = HilbertSort.hilbert(x0 + i % 16, y0 + i / 16);
+                cells[i] = d;
+                first = Math.min(first, d);
+            }
+            long[] byDistance = new long[256];
+            for (int i = 0; i < 256; i++) {
+                Assert.assertTrue(cells[i] - first < 256);
+                byDistance[(int) (cells[i] - first)] = i;
+            }
+            for (int d = 1; d < 256; d++) {
+                long a = byDistance[d - 1];
+                long b = byDistance[d];
+                Assert.assertEquals(1, Math.abs(a % 16 - b % 16) + Math.abs(a / 16 - b / 16));
+            }
+        }
+    }
+
+    @Test
+    public void testSortKeys() throws Exception {
+        Random r = new Random(137);
+        for (int n : new int[]{0, 1, 1000, HilbertSort.PARALLEL_THRESHOLD * 2}) {
+            long[] keys = new long[n + 3];
+            for (int i = 0; i < keys.length; i++) {
+                //few distinct high digits, negative keys and duplicates
+                keys[i] = i % 3 == 0 ? r.nextLong() : (r.nextInt(1000) - 500);
+            }
+            int[] perm = HilbertSort.sortKeys(keys, 3, n);
+            long[] expected = Arrays.copyOfRange(keys, 3, n + 3);
+            Arrays.sort(expected);
+            Assert.assertEquals(n, perm.length);
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(expected[i], keys[perm[i]]);
+                if (i > 0 && keys[perm[i]] == keys[perm[i - 1]]) {
+                    //stable
+                    Assert.assertTrue(perm[i] > perm[i - 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSortArrayAndBounds() throws Exception {
+        Random r = new Random(137);
+        double[] latlons = new double[2 * 500];
+        LatLonBounds[] bounds = new LatLonBounds[500];
+        for (int i = 0; i < bounds.length; i++) {
+            latlons[2 * i] = -45 + r.nextDouble() * 90;
+            latlons[2 * i + 1] = -90 + r.nextDouble() * 180;
+            bounds[i] = new LatLonBounds(latlons[2 * i] - 1, latlons[2 * i] + 1,
+                    latlons[2 * i + 1] - 1, latlons[2 * i + 1] + 1);
+        }
+        LatLonBounds extent = new LatLonBounds(-45, 45, -90, 90);
+        int[] points = HilbertSort.sort(latlons, 100, 400, extent);
+        int[] boxes = HilbertSort.sort(bounds, extent);
+        long[] keys = new long[500];
+        HilbertSort.keys(latlons, keys, 0, 500, extent);
+        for (int i = 1; i < points.length; i++) {
+            Assert.assertTrue(points[i] >= 100);
+            Assert.assertTrue(keys[points[i]] >= keys[points[i - 1]]);
+        }
+        //the centres of the boxes are the points
+        for (int i = 1; i < boxes.length; i++) {
+            Assert.assertTrue(keys[boxes[i]] >= keys[boxes[i - 1]]);
+        }
+    }
+
+    @Test
+    public void testSortBoundsAcrossAntimeridian() throws Exception {
+        //a box over the antimeridian is ordered by its centre on the antimeridian
+        LatLonBounds extent = new LatLonBounds(-10, 10, 150, -150);
+        LatLonBounds[] bounds = {
+                new LatLonBounds(0, 1, 155, 156),
+                new LatLonBounds(0, 1, 178, -178),
+                new LatLonBounds(0, 1, -156, -155),
+                new LatLonBounds(0, 1, 177, 178),
+                new LatLonBounds(0, 1, -178, -177)
+        };
+        long[] keys = new long[bounds.length];
+        double[] centres = new double[2 * bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            double[] centre = bounds[i].getLatLonCentroid();
+            centres[2 * i] = centre[0];
+            centres[2 * i + 1] = centre[1];
+        }
+        HilbertSort.keys(centres, keys, 0, bounds.length, extent);
+        int[] order = HilbertSort.sort(bounds, extent);
+        for (int i = 1; i < order.length; i++) {
+            Assert.assertTrue(keys[order[i]] >= keys[order[i - 1]]);
+        }
+        //keyed at its centre on the antimeridian, the old centroid put it at lon 0, clamped to the far edge
+        long[] antimeridian = new long[2];
+        HilbertSort.keys(new double[]{0.5, 180, 0.5, 0}, antimeridian, 0, 2, extent);
+        Assert.assertEquals(antimeridian[0], keys[1]);
+        Assert.assertNotEquals(antimeridian[1], keys[1]);
+    }
+
+}
@@ -0,0 +1,127 @@
+package onethreeseven.geo.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+
+/**
+ * Tests {@link LatLonBoundsBuilder} builds the same bounds as the {@link LatLonBounds} constructors.
+ * @author Luke Bermingham
+ */
+public class LatLonBoundsBuilderTest {
+
+    private static void assertBounds(LatLonBounds expected, LatLonBounds actual) {
+        Assert.assertEquals(expected.getMinLat(), actual.getMinLat(), 0);
+        Assert.assertEquals(expected.getMaxLat(), actual.getMaxLat(), 0);
+        Assert.assertEquals(expected.getMinLon(), actual.getMinLon(), 0);
+        Assert.assertEquals(expected.getMaxLon(), actual.getMaxLon(), 0);
+    }
+
+    @Test
+    public void testMatchesIterator() throws Exception {
+        Random r = new Random(137);
+        //enough points for several parallel chunks
+        int nPoints = LatLonBoundsBuilder.PARALLEL_CHUNK_SIZE * 3 + 17;
+        double[] latlons = new double[1 + nPoints * 2];
+        double[] lats = new double[nPoints];
+        double[] lons = new double[nPoints];
+        List<double[]> pairs = new ArrayList<>();
+        LatLonBoundsBuilder single = new LatLonBoundsBuilder();
+        for (int i = 0; i < nPoints; i++) {
+            double lat = -90 + r.nextDouble() * 180;
+            double lon = -180 + r.nextDouble() * 360;
+            latlons[1 + i * 2] = lat;
+            latlons[2 + i * 2] = lon;
+            lats[i] = lat;
+            lons[i] = lon;
+            pairs.add(new double[]{lat, lon});
+            single.add(lat, lon);
+        }
+        LatLonBounds expected = new LatLonBounds(pairs.iterator());
+
+        assertBounds(expected, single.build());
+        Assert.assertEquals(nPoints, single.getCount());
+        assertBounds(expected, new LatLonBoundsBuilder().addAll(latlons, 1, nPoints).build());
+        assertBounds(expected, new LatLonBoundsBuilder().addAll(lats, lons, 0, nPoints).build());
+        assertBounds(expected, LatLonBoundsBuilder.parallel(latlons, 1, nPoints));
+        assertBounds(expected, pairs.parallelStream().collect(LatLonBoundsBuilder.collector()));
+        assertBounds(expected, LatLonBoundsBuilder.of(DoubleStream.of(latlons).skip(1)));
+        assertBounds(expected, LatLonBoundsBuilder.of(DoubleStream.of(latlons).skip(1).parallel()));
+
+        LatLonBoundsBuilder half = new LatLonBoundsBuilder().addAll(latlons, 1, nPoints / 2);
+        half.merge(new LatLonBoundsBuilder().addAll(latlons, 1 + (nPoints / 2) * 2, nPoints - nPoints / 2));
+        assertBounds(expected, half.build());
+    }
+
+    @Test
+    public void testAddBounds() throws Exception {
+        LatLonBounds a = new LatLonBounds(-37, 37, -137, 137);
+        LatLonBounds b = new LatLonBounds(0, 50, -175, 0);
+        assertBounds(new LatLonBounds(a, b), new LatLonBoundsBuilder().add(a).add(b).build());
+        //the bounds built never cross the antimeridian, so crossing bounds take every longitude
+        LatLonBounds crossing = new LatLonBounds(0, 1, 170, -170);
+        LatLonBounds built = new LatLonBoundsBuilder().add(b).add(crossing).build();
+        assertBounds(new LatLonBounds(0, 50, -180, 180), built);
+        Assert.assertTrue(built.contains(crossing));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpairedStream() throws Exception {
+        LatLonBoundsBuilder.of(DoubleStream.of(1, 2, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() throws Exception {
+        LatLonBoundsBuilder builder = new LatLonBoundsBuilder().merge(new LatLonBoundsBuilder());
+        Assert.assertTrue(builder.isEmpty());
+        builder.build();
+    }
+
+    @Test
+    public void testNaNIgnored() throws Exception {
+        double nan = Double.NaN;
+        double[] latlon = {nan, 10, 20, nan, nan, nan};
+        double[] lats = {nan, 20, nan};
+        double[] lons = {10, nan, nan};
+        LatLonBoundsBuilder builder = new LatLonBoundsBuilder()
+                .add(nan, 10).add(20, nan)
+                .addAll(latlon, 0, 3)
+                .addAll(lats, lons, 0, 3)
+                .addAll(DoubleStream.of(latlon).spliterator());
+        Assert.assertTrue(builder.isEmpty());
+        try {
+            builder.build();
+            Assert.fail("Built bounds of only NaN points.");
+        } catch (IllegalArgumentException expected) {
+            //expected
+        }
+        builder.add(1, 2).addAll(new double[]{nan, 50, 3, 4}, 0, 2);
+        Assert.assertEquals(2, builder.getCount());
+        assertBounds(new LatLonBounds(1, 3, 2, 4), builder.build());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() throws Exception {
+        new LatLonBoundsBuilder().addAll(new double[10], 2, 5);
+    }
+
+    @Test
+    public void testColumnsOutOfBounds() throws Exception {
+        double[] column = new double[10];
+        for (int[] batch : new int[][]{{5, 6}, {Integer.MAX_VALUE, 2}, {2, Integer.MAX_VALUE}}) {
+            try {
+                new LatLonBoundsBuilder().addAll(column, column, batch[0], batch[1]);
+                Assert.fail();
+            } catch (ArrayIndexOutOfBoundsException e) {
+                Assert.fail("Overflowed past the check.");
+            } catch (IndexOutOfBoundsException expected) {
+                //expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package onethreeseven.geo.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link LatLonBoundsIndex} finds the same bounds as a linear scan.
+ * @author Luke Bermingham
+ */
+public class LatLonBoundsIndexTest {
+
+    private static LatLonBounds[] randomBounds(Random r, int n) {
+        LatLonBounds[] bounds = new LatLonBounds[n];
+        for (int i = 0; i < n; i++) {
+            double minLat = -90 + r.nextDouble() * 170;
+            double minLon = -180 + r.nextDouble() * 360;
+            double maxLon = minLon + r.nextDouble() * 20;
+            //longitudes past 180 wrap, so the bounds cross the antimeridian
+            bounds[i] = new LatLonBounds(minLat, minLat + r.nextDouble() * 10,
+                    minLon, maxLon > 180 ? maxLon - 360 : maxLon);
+        }
+        return bounds;
+    }
+
+    private static List<Integer> collect(LatLonBoundsIndex index, LatLonBounds window) {
+        final List<Integer> found = new ArrayList<>();
+        Assert.assertTrue(index.queryWindow(window, found::add));
+        Collections.sort(found);
+        return found;
+    }
+
+    @Test
+    public void testPointQueries() throws Exception {
+        Random r = new Random(137);
+        LatLonBounds[] bounds = randomBounds(r, 5000);
+        LatLonBoundsIndex index = new LatLonBoundsIndex(bounds);
+        for (int q = 0; q < 2000; q++) {
+            double lat = -90 + r.nextDouble() * 180;
+            double lon = q % 10 == 0 ? (q % 20 == 0 ? 180 : -180) : -180 + r.nextDouble() * 360;
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < bounds.length; i++) {
+                if (bounds[i].contains(lat, lon)) {
+                    expected.add(i);
+                }
+            }
+            final List<Integer> found = new ArrayList<>();
+            Assert.assertTrue(index.queryPoint(lat, lon, found::add));
+            Collections.sort(found);
+            Assert.assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void testWindowQueries() throws Exception {
+        Random r = new Random(137);
+        LatLonBounds[] bounds = randomBounds(r, 5000);
+        LatLonBoundsIndex index = new LatLonBoundsIndex(bounds, 4);
+        LatLonBounds[] windows = randomBounds(r, 500);
+        for (LatLonBounds window : windows) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < bounds.length; i++) {
+                if (bounds[i].intersects(window)) {
+                    expected.add(i);
+                }
+            }
+            Assert.assertEquals(expected, collect(index, window));
+        }
+    }
+
+    @Test
+    public void testAntimeridian() throws Exception {
+        LatLonBoundsIndex index = new LatLonBoundsIndex(
+                new LatLonBounds(-10, 10, 170, -170),
+                new LatLonBounds(-10, 10, 175, 179),
+                new LatLonBounds(-10, 10, -179, -175),
+                new LatLonBounds(-10, 10, -10, 10));
+        Assert.assertEquals(Collections.singletonList(0), collectPoint(index, 0, 180));
+        Assert.assertEquals(Collections.singletonList(0), collectPoint(index, 0, -171));
+        Assert.assertEquals(Arrays.asList(0, 1), collectPoint(index, 0, 178));
+        //a window crossing the antimeridian and a window covering every longitude
+        Assert.assertEquals(Arrays.asList(0, 1, 2), collect(index, new LatLonBounds(-1, 1, 160, -160)));
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), collect(index, new LatLonBounds(-1, 1, -180, 180)));
+        Assert.assertEquals(Collections.singletonList(3), collect(index, new LatLonBounds(-1, 1, -20, 20)));
+    }
+
+    private static List<Integer> collectPoint(LatLonBoundsIndex index, double lat, double lon) {
+        final List<Integer> found = new ArrayList<>();
+        index.queryPoint(lat, lon, found::add);
+        Collections.sort(found);
+        return found;
+    }
+
+    @Test
+    public void testStopEarly() throws Exception {
+        LatLonBounds[] bounds = new LatLonBounds[100];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = new LatLonBounds(-1, 1, -1, 1);
+        }
+        LatLonBoundsIndex index = new LatLonBoundsIndex(bounds);
+        final int[] visits = new int[1];
+        Assert.assertFalse(index.queryPoint(0, 0, id -> ++visits[0] < 3));
+        Assert.assertEquals(3, visits[0]);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        LatLonBoundsIndex index = new LatLonBoundsIndex();
+        Assert.assertEquals(0, index.size());
+        Assert.assertTrue(index.queryPoint(0, 0, id -> false));
+        Assert.assertTrue(index.queryWindow(LatLonBounds.FULL_SPHERE, id -> false));
+    }
+
+}
@@ -46,6 +46,68 @@ public class LatLonBoundsTest {
         Assert.assertEquals(175.0, expanded.getMaxLon(), 1e-05);
     }
 
+    @Test
+    public void containsAcrossAntimeridian() throws Exception {
+        LatLonBounds crossing = new LatLonBounds(0, 1, 170, -170);
+        Assert.assertTrue(crossing.contains(0.5, 180));
+        Assert.assertTrue(crossing.contains(0.5, -175));
+        Assert.assertFalse(crossing.contains(0.5, 0));
+        Assert.assertTrue(crossing.contains(new LatLonBounds(0, 1, 175, -175)));
+        Assert.assertTrue(crossing.contains(new LatLonBounds(0, 1, -179, -171)));
+        Assert.assertFalse(crossing.contains(new LatLonBounds(0, 1, -10, 10)));
+        Assert.assertFalse(testBounds.contains(crossing));
+        Assert.assertTrue(LatLonBounds.FULL_SPHERE.contains(crossing));
+    }
+
+    @Test
+    public void intersectsAcrossAntimeridian() throws Exception {
+        LatLonBounds crossing = new LatLonBounds(0, 1, 170, -170);
+        Assert.assertTrue(crossing.intersects(new LatLonBounds(0, 1, -175, -160)));
+        Assert.assertTrue(crossing.intersects(new LatLonBounds(0, 1, 160, 175)));
+        Assert.assertTrue(crossing.intersects(new LatLonBounds(0, 1, 179, -179)));
+        Assert.assertFalse(crossing.intersects(new LatLonBounds(0, 1, -160, 160)));
+        Assert.assertFalse(crossing.intersects(testBounds));
+    }
+
+    @Test
+    public void unionShortestAcrossAntimeridian() throws Exception {
+        LatLonBounds crossing = new LatLonBounds(0, 1, 170, -170);
+        //the short way around, over the antimeridian
+        LatLonBounds union = crossing.unionShortest(new LatLonBounds(-5, 0, 150, 160));
+        assertLons(150, -170, union);
+        Assert.assertEquals(-5, union.getMinLat(), 1e-05);
+        assertLons(170, -150, crossing.unionShortest(new LatLonBounds(0, 1, -160, -150)));
+        assertLons(170, -170, crossing.unionShortest(new LatLonBounds(0, 1, 175, -175)));
+        assertLons(-180, 180, crossing.unionShortest(new LatLonBounds(0, 1, -175, 175)));
+        //two bounds either side of the antimeridian merge across it
+        assertLons(170, -170, new LatLonBounds(0, 1, 170, 175).unionShortest(new LatLonBounds(0, 1, -175, -170)));
+        assertLons(-10, 20, new LatLonBounds(0, 1, -10, 0).unionShortest(new LatLonBounds(0, 1, 10, 20)));
+    }
+
+    @Test
+    public void expandKeepsMinMax() throws Exception {
+        LatLonBounds west = new LatLonBounds(0, 1, -170, -160);
+        LatLonBounds east = new LatLonBounds(0, 1, 160, 170);
+        assertLons(-170, 170, west.expand(east));
+        assertLons(-170, 170, new LatLonBounds(west, east));
+        assertLons(-170, 170, new LatLonBoundsBuilder().add(west).add(east).build());
+    }
+
+    @Test
+    public void centroidAcrossAntimeridian() throws Exception {
+        double[] centroid = new LatLonBounds(0, 1, 170, -170).getLatLonCentroid();
+        Assert.assertEquals(0.5, centroid[0], 1e-05);
+        Assert.assertEquals(180, Math.abs(centroid[1]), 1e-05);
+        Assert.assertEquals(-175, new LatLonBounds(0, 1, 170, -160).getLatLonCentroid()[1], 1e-05);
+        Assert.assertEquals(175, new LatLonBounds(0, 1, 160, -170).getLatLonCentroid()[1], 1e-05);
+        Assert.assertEquals(0, testBounds.getLatLonCentroid()[1], 1e-05);
+    }
+
+    private static void assertLons(double minLon, double maxLon, LatLonBounds bounds) {
+        Assert.assertEquals(minLon, bounds.getMinLon(), 1e-05);
+        Assert.assertEquals(maxLon, bounds.getMaxLon(), 1e-05);
+    }
+
     @Test
     public void getMinLat() throws Exception {
         Assert.assertEquals(-37.0, testBounds.getMinLat(), 1e-05);
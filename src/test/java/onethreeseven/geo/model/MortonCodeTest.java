@@ -0,0 +1,159 @@
+package onethreeseven.geo.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link MortonCode} and {@link Geohash}.
+ * @author Luke Bermingham
+ */
+public class MortonCodeTest {
+
+    /**
+     * Half the size of a finest cell in latitude, the longitude cells are twice as wide.
+     */
+    private static final double halfCell = 180.0 / (1L << MortonCode.MAX_LEVEL) / 2;
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        Random r = new Random(137);
+        double[] latlons = new double[2000];
+        for (int i = 0; i < latlons.length; i++) {
+            latlons[i] = (i % 2 == 0) ? -90 + r.nextDouble() * 180 : -180 + r.nextDouble() * 360;
+        }
+        long[] keys = new long[1000];
+        MortonCode.encode(latlons, keys, 0, keys.length);
+        double[] decoded = new double[latlons.length];
+        MortonCode.decode(keys, decoded, 0, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            Assert.assertTrue(keys[i] >= 0);
+            Assert.assertEquals(MortonCode.encode(latlons[2 * i], latlons[2 * i + 1]), keys[i]);
+            Assert.assertEquals(latlons[2 * i], decoded[2 * i], halfCell);
+            Assert.assertEquals(latlons[2 * i + 1], decoded[2 * i + 1], 2 * halfCell);
+            Assert.assertEquals(decoded[2 * i], MortonCode.decodeLat(keys[i]), 0);
+            Assert.assertEquals(decoded[2 * i + 1], MortonCode.decodeLon(keys[i]), 0);
+            for (int level = 0; level <= MortonCode.MAX_LEVEL; level += 5) {
+                Assert.assertTrue(MortonCode.cell(keys[i], level).contains(latlons[2 * i], latlons[2 * i + 1]));
+                long[] range = MortonCode.range(keys[i], level);
+                Assert.assertTrue(keys[i] >= range[0] && keys[i] < range[1]);
+            }
+        }
+        //the corners of the sphere are clamped into the first and last cells
+        Assert.assertEquals(0, MortonCode.encode(-90, -180));
+        Assert.assertEquals((1L << 62) - 1, MortonCode.encode(90, 180));
+        for (long v = 0; v < (1L << 31); v += 7919) {
+            Assert.assertEquals(v, MortonCode.compact(MortonCode.spread(v)));
+        }
+    }
+
+    @Test
+    public void testCover() throws Exception {
+        Random r = new Random(137);
+        LatLonBounds[] queries = {
+                new LatLonBounds(-33.9, -33.7, 151.1, 151.3),
+                new LatLonBounds(-10, 10, 170, -170),
+                new LatLonBounds(80, 90, -180, 180),
+                LatLonBounds.FULL_SPHERE
+        };
+        for (LatLonBounds q : queries) {
+            long[] ranges = MortonCode.cover(q, 12);
+            Assert.assertTrue(ranges.length > 0 && ranges.length % 2 == 0);
+            for (int i = 1; i < ranges.length; i++) {
+                //sorted, disjoint and not touching (touching ranges are merged)
+                Assert.assertTrue(ranges[i] > ranges[i - 1]);
+            }
+            for (int i = 0; i < 10000; i++) {
+                double lat = -90 + r.nextDouble() * 180;
+                double lon = -180 + r.nextDouble() * 360;
+                long key = MortonCode.encode(lat, lon);
+                if (q.contains(lat, lon)) {
+                    Assert.assertTrue(MortonCode.rangesContain(ranges, key));
+                } else if (MortonCode.rangesContain(ranges, key)) {
+                    //only the cells on the edge of the bounds stick out
+                    LatLonBounds cell = MortonCode.cell(key, 12);
+                    Assert.assertTrue(cell.intersects(q) || q.contains(cell.getMinLat(), cell.getMinLon()) ||
+                            q.contains(cell.getMaxLat(), cell.getMaxLon()));
+                }
+            }
+            //the corners and edges of the bounds are covered too
+            Assert.assertTrue(MortonCode.rangesContain(ranges, MortonCode.encode(q.getMinLat(), q.getMinLon())));
+            Assert.assertTrue(MortonCode.rangesContain(ranges, MortonCode.encode(q.getMaxLat(), q.getMaxLon())));
+        }
+        Assert.assertArrayEquals(new long[]{0, 1L << 62}, MortonCode.cover(LatLonBounds.FULL_SPHERE, 12));
+    }
+
+    @Test
+    public void testNeighbours() throws Exception {
+        int level = 10;
+        double cellLat = 180.0 / (1 << level);
+        double cellLon = 360.0 / (1 << level);
+        double lat = 45.01;
+        double lon = 179.99;
+        long key = MortonCode.encode(lat, lon);
+        long[] ranges = MortonCode.neighbours(key, level);
+        Assert.assertFalse(MortonCode.rangesContain(ranges, key));
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                if (dLat != 0 || dLon != 0) {
+                    double nLon = lon + dLon * cellLon;
+                    //east of the last cell wraps around to the first
+                    nLon = nLon > 180 ? nLon - 360 : nLon;
+                    Assert.assertTrue(MortonCode.rangesContain(ranges,
+                            MortonCode.encode(lat + dLat * cellLat, nLon)));
+                }
+            }
+        }
+        //no neighbours across the pole, so only 5 cells
+        Assert.assertEquals(5, countCells(MortonCode.neighbours(MortonCode.encode(90, 100), level), level));
+        Assert.assertEquals(8, countCells(ranges, level));
+        //the whole sphere has no neighbours, the halves of level one wrap onto each other
+        Assert.assertEquals(0, MortonCode.neighbours(key, 0).length);
+    }
+
+    private static long countCells(long[] ranges, int level) {
+        long cellKeys = 1L << (62 - 2 * level);
+        long cells = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            cells += (ranges[i + 1] - ranges[i]) / cellKeys;
+        }
+        return cells;
+    }
+
+    @Test
+    public void testGeohash() throws Exception {
+        Assert.assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        LatLonBounds cell = Geohash.decode("ezs42");
+        Assert.assertTrue(cell.contains(42.605, -5.603));
+        Assert.assertEquals(360.0 / (1 << 13), cell.getMaxLon() - cell.getMinLon(), 1e-12);
+        Assert.assertEquals(180.0 / (1 << 12), cell.getMaxLat() - cell.getMinLat(), 1e-12);
+        Assert.assertEquals(Geohash.toBits("ezs42"), Geohash.toBits("EZS42"));
+
+        Random r = new Random(137);
+        double[] latlons = new double[200];
+        for (int i = 0; i < latlons.length; i++) {
+            latlons[i] = (i % 2 == 0) ? -90 + r.nextDouble() * 180 : -180 + r.nextDouble() * 360;
+        }
+        long[] hashes = new long[100];
+        for (int precision = 1; precision <= Geohash.MAX_PRECISION; precision++) {
+            Geohash.encodeBits(latlons, hashes, 0, hashes.length, precision);
+            for (int i = 0; i < hashes.length; i++) {
+                double lat = latlons[2 * i];
+                double lon = latlons[2 * i + 1];
+                String hash = Geohash.encode(lat, lon, precision);
+                Assert.assertEquals(Geohash.toString(hashes[i], precision), hash);
+                Assert.assertTrue(Geohash.decode(hash).contains(lat, lon));
+                long[] range = Geohash.range(hash);
+                long key = MortonCode.encode(lat, lon);
+                Assert.assertTrue(key >= range[0] && key < range[1]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadGeohash() throws Exception {
+        Geohash.decode("ezs4a");
+    }
+
+}
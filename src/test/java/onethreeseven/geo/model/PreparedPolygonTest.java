@@ -0,0 +1,135 @@
+package onethreeseven.geo.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link PreparedPolygon} against a plain ray cast.
+ * @author Luke Bermingham
+ */
+public class PreparedPolygonTest {
+
+    /**
+     * A star shaped ring around a centre, with random radii.
+     */
+    private static double[] star(Random r, int n, double lat, double lon, double radius) {
+        double[] ring = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double d = radius * (0.2 + 0.8 * r.nextDouble());
+            ring[2 * i] = lat + d * Math.sin(angle);
+            ring[2 * i + 1] = lon + d * Math.cos(angle);
+        }
+        return ring;
+    }
+
+    /**
+     * Ray casts east, counting the edges crossing the parallel just north of the point.
+     */
+    private static boolean rayCast(double[][] rings, double lat, double lon) {
+        boolean inside = false;
+        for (double[] ring : rings) {
+            int n = ring.length / 2;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double ay = ring[2 * j];
+                double ax = ring[2 * j + 1];
+                double by = ring[2 * i];
+                double bx = ring[2 * i + 1];
+                if ((ay > lat) != (by > lat)) {
+                    double xc = ax + (lat - ay) * (bx - ax) / (by - ay);
+                    if (xc > lon) {
+                        inside = !inside;
+                    }
+                }
+            }
+        }
+        return inside;
+    }
+
+    @Test
+    public void testMatchesRayCast() throws Exception {
+        Random r = new Random(137);
+        for (int trial = 0; trial < 20; trial++) {
+            double[][] rings = {star(r, 10 + r.nextInt(2000), -37.8, 144.9, 1), star(r, 50, -37.8, 144.9, 0.15)};
+            PreparedPolygon polygon = new PreparedPolygon(rings);
+            double[] latlons = new double[2 * 5000];
+            for (int i = 0; i < latlons.length; i += 2) {
+                latlons[i] = -39 + r.nextDouble() * 2.4;
+                latlons[i + 1] = 143.7 + r.nextDouble() * 2.4;
+            }
+            long[] mask = polygon.contains(latlons, 0, 5000);
+            int inside = 0;
+            for (int i = 0; i < 5000; i++) {
+                boolean expected = rayCast(rings, latlons[2 * i], latlons[2 * i + 1]);
+                Assert.assertEquals(expected, polygon.contains(latlons[2 * i], latlons[2 * i + 1]));
+                Assert.assertEquals(expected, (mask[i >>> 6] & (1L << i)) != 0);
+                inside += expected ? 1 : 0;
+            }
+            Assert.assertEquals(inside, polygon.contains(latlons, 0, 5000, mask));
+            Assert.assertTrue(inside > 0);
+        }
+    }
+
+    @Test
+    public void testMatchesRayCastOnVerticesAndEdges() throws Exception {
+        //vertices on a lattice and points on the same lattice, so points sit on vertices, edges and their parallels
+        Random r = new Random(137);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 8 + r.nextInt(200);
+            double[] ring = star(r, n, 0, 0, 20);
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = Math.rint(ring[i]);
+            }
+            double[][] rings = {ring};
+            PreparedPolygon polygon = new PreparedPolygon(rings);
+            for (double lat = -21; lat <= 21; lat += 0.5) {
+                for (double lon = -21; lon <= 21; lon += 0.5) {
+                    Assert.assertEquals(rayCast(rings, lat, lon), polygon.contains(lat, lon));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAntimeridian() throws Exception {
+        double[] ring = {-10, 170, -10, -170, 10, -170, 10, 170};
+        PreparedPolygon polygon = new PreparedPolygon(ring);
+        Assert.assertTrue(polygon.getBounds().crossesAntimeridian());
+        Assert.assertEquals(170, polygon.getBounds().getMinLon(), 0);
+        Assert.assertEquals(-170, polygon.getBounds().getMaxLon(), 0);
+        Assert.assertTrue(polygon.contains(0, 180));
+        Assert.assertTrue(polygon.contains(0, -180));
+        Assert.assertTrue(polygon.contains(5, 175));
+        Assert.assertTrue(polygon.contains(5, -175));
+        Assert.assertFalse(polygon.contains(0, 0));
+        Assert.assertFalse(polygon.contains(0, 165));
+        Assert.assertFalse(polygon.contains(0, -165));
+        Assert.assertFalse(polygon.contains(20, 180));
+        Assert.assertFalse(polygon.contains(Double.NaN, 180));
+    }
+
+    @Test
+    public void testHoleAndBatch() throws Exception {
+        double[] outer = {0, 0, 0, 10, 10, 10, 10, 0};
+        double[] hole = {4, 4, 4, 6, 6, 6, 6, 4};
+        PreparedPolygon polygon = new PreparedPolygon(outer, hole);
+        Assert.assertEquals(8, polygon.getEdgeCount());
+        double[] latlons = {137, 137, 2, 2, 5, 5, 8, 5, 5, 11};
+        long[] mask = polygon.contains(latlons, 1, 4);
+        Assert.assertEquals(1, mask.length);
+        Assert.assertEquals(0b101, mask[0]);
+        try {
+            polygon.contains(latlons, 2, 4);
+            Assert.fail("The batch does not fit.");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            new PreparedPolygon(new double[]{0, 0, 1, 1});
+            Assert.fail("A ring needs 3 points.");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+}
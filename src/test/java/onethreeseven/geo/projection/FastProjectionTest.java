@@ -0,0 +1,91 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link FastProjection} stays within its error bound of the exact projections.
+ * @author Luke Bermingham
+ */
+public class FastProjectionTest {
+
+    private static final int nSamples = 20000;
+
+    private static AbstractGeographicProjection[] fastProjections(){
+        return new AbstractGeographicProjection[]{
+                new ProjectionMercator(),
+                new ProjectionUPS(),
+                new ProjectionUPS(true, Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_ES, 0),
+                new ProjectionTransverseMercator(),
+                new ProjectionUTM(33)
+        };
+    }
+
+    @Test
+    public void testWithinDefaultBound() throws Exception {
+        for (AbstractGeographicProjection exact : fastProjections()) {
+            FastProjection.AccuracyReport report = FastProjection.of(exact).measureAccuracy(nSamples);
+            Assert.assertTrue(report.toString(), report.isWithinBound());
+        }
+    }
+
+    @Test
+    public void testWithinTighterBound() throws Exception {
+        for (AbstractGeographicProjection exact : fastProjections()) {
+            FastProjection.AccuracyReport report = FastProjection.of(exact, 1e-4).measureAccuracy(nSamples);
+            Assert.assertTrue(report.toString(), report.isWithinBound());
+        }
+    }
+
+    @Test
+    public void testBulkMatchesSinglePoint() throws Exception {
+        FastProjection p = FastProjection.of(new ProjectionUTM(33));
+        double[] latlons = {-37.8, 14.9, 60, 12, 0, 15, 82, 18};
+        double[] xys = new double[latlons.length];
+        p.geographicToCartesian(latlons, xys, 0, latlons.length / 2, 2);
+        for (int i = 0; i < latlons.length; i += 2) {
+            Assert.assertArrayEquals(p.geographicToCartesian(latlons[i], latlons[i + 1]),
+                    new double[]{xys[i], xys[i + 1]}, 0);
+        }
+    }
+
+    @Test
+    public void testOutsideTablesUsesExact() throws Exception {
+        ProjectionMercator exact = new ProjectionMercator();
+        FastProjection fast = FastProjection.of(exact);
+        //further north than the projection limits
+        double[] xy = {100, 1e8};
+        Assert.assertArrayEquals(exact.cartesianToGeographic(xy), fast.cartesianToGeographic(xy), 0);
+        //the pole of a polar projection
+        ProjectionUPS ups = new ProjectionUPS();
+        Assert.assertArrayEquals(ups.geographicToCartesian(90, 45),
+                FastProjection.of(ups).geographicToCartesian(90, 45), 0);
+
+        //and through the columns, where the exact projection writes through a scratch array
+        double[] lats = {10, 90, 60};
+        double[] lons = {20, 45, -30};
+        double[] xs = new double[3];
+        double[] ys = new double[3];
+        FastProjection.of(ups).geographicToCartesian(lats, lons, xs, ys, 0, 3);
+        Assert.assertArrayEquals(ups.geographicToCartesian(90, 45), new double[]{xs[1], ys[1]}, 0);
+        double[] ys2 = {1e8, 0, 1e8};
+        fast.cartesianToGeographic(new double[]{100, 0, 100}, ys2, lats, lons, 0, 3);
+        Assert.assertArrayEquals(exact.cartesianToGeographic(xy), new double[]{lats[2], lons[2]}, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExactErrorsAreKept() throws Exception {
+        FastProjection.of(new ProjectionUTM(33)).cartesianToGeographic(new double[]{1e9, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedProjection() throws Exception {
+        FastProjection.of(new ProjectionSinusoidal());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnreachableBound() throws Exception {
+        FastProjection.of(new ProjectionMercator(), 1e-15);
+    }
+
+}
@@ -0,0 +1,105 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link LaneProjector} agrees with the scalar kernels.
+ * @author Luke Bermingham
+ */
+public class LaneProjectorTest {
+
+    private static final int nPoints = LaneProjector.BLOCK_SIZE * 3 + 17;
+    private static final double metersDelta = 1e-6;
+    private static final double degreesDelta = 1e-9;
+
+    private static AbstractGeographicProjection[] laneProjections(){
+        return new AbstractGeographicProjection[]{
+                new ProjectionEquirectangular(),
+                new ProjectionSinusoidal(),
+                new ProjectionModifiedSinusoidal(),
+                new ProjectionPolarEquidistant(),
+                new ProjectionPolarEquidistant(true, Constants.WGS84_EQUATORIAL_RADIUS)
+        };
+    }
+
+    private static double[][] generateLatLons(Random r){
+        double[] lats = new double[nPoints];
+        double[] lons = new double[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            lats[i] = -90 + r.nextDouble() * 180;
+            lons[i] = -180 + r.nextDouble() * 360;
+        }
+        //the edges
+        lats[0] = 90;
+        lats[1] = -90;
+        lons[2] = 180;
+        lons[3] = -180;
+        lats[4] = 0;
+        lons[4] = 0;
+        return new double[][]{lats, lons};
+    }
+
+    @Test
+    public void testLanesMatchScalar() throws Exception {
+        Random r = new Random(137);
+        for (AbstractGeographicProjection p : laneProjections()) {
+            LaneProjector lanes = new LaneProjector(p, LaneProjector.Mode.LANES);
+            Assert.assertEquals(LaneProjector.Mode.LANES, lanes.getMode());
+
+            double[][] latlons = generateLatLons(r);
+            double[] lats = latlons[0];
+            double[] lons = latlons[1];
+
+            double[] expectedXs = new double[nPoints];
+            double[] expectedYs = new double[nPoints];
+            p.geographicToCartesian(lats, lons, expectedXs, expectedYs, 0, nPoints);
+            double[] xs = new double[nPoints];
+            double[] ys = new double[nPoints];
+            lanes.geographicToCartesian(lats, lons, xs, ys, 0, nPoints);
+            Assert.assertArrayEquals(p.toString(), expectedXs, xs, metersDelta);
+            Assert.assertArrayEquals(p.toString(), expectedYs, ys, metersDelta);
+
+            double[] expectedLats = new double[nPoints];
+            double[] expectedLons = new double[nPoints];
+            p.cartesianToGeographic(xs, ys, expectedLats, expectedLons, 0, nPoints);
+            //in place
+            lanes.cartesianToGeographic(xs, ys, xs, ys, 0, nPoints);
+            Assert.assertArrayEquals(p.toString(), expectedLats, xs, degreesDelta);
+            Assert.assertArrayEquals(p.toString(), expectedLons, ys, degreesDelta);
+        }
+    }
+
+    @Test
+    public void testOutOfRangeFallsBackToScalar() throws Exception {
+        Random r = new Random(137);
+        for (AbstractGeographicProjection p : laneProjections()) {
+            double[][] latlons = generateLatLons(r);
+            double[] lats = latlons[0];
+            double[] lons = latlons[1];
+            lats[LaneProjector.BLOCK_SIZE + 1] = 300;
+            lons[LaneProjector.BLOCK_SIZE + 2] = 720;
+            lats[LaneProjector.BLOCK_SIZE + 3] = Double.NaN;
+
+            double[] expectedXs = new double[nPoints];
+            double[] expectedYs = new double[nPoints];
+            p.geographicToCartesian(lats, lons, expectedXs, expectedYs, 0, nPoints);
+            double[] xs = new double[nPoints];
+            double[] ys = new double[nPoints];
+            new LaneProjector(p, LaneProjector.Mode.LANES).geographicToCartesian(lats, lons, xs, ys, 0, nPoints);
+            Assert.assertArrayEquals(p.toString(), expectedXs, xs, metersDelta);
+            Assert.assertArrayEquals(p.toString(), expectedYs, ys, metersDelta);
+        }
+    }
+
+    @Test
+    public void testScalarModeAndUnsupportedProjections() throws Exception {
+        Assert.assertEquals(LaneProjector.Mode.SCALAR,
+                new LaneProjector(new ProjectionSinusoidal(), LaneProjector.Mode.SCALAR).getMode());
+        Assert.assertEquals(LaneProjector.Mode.SCALAR,
+                new LaneProjector(new ProjectionMercator(), LaneProjector.Mode.LANES).getMode());
+    }
+
+}
@@ -0,0 +1,105 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests {@link ProjectionExecutor} gives the same results as the sequential bulk methods.
+ * @author Luke Bermingham
+ */
+public class ProjectionExecutorTest {
+
+    private static final int nPoints = 10007;
+    private static final int chunkSize = 1000;
+
+    private static void testMatchesSequential(ProjectionExecutor executor) {
+        AbstractGeographicProjection p = executor.getProjection();
+        ProjectionLimits limits = p.getProjectionLimits();
+        final int stride = 3;
+        double[] latlons = new double[1 + nPoints * stride];
+        double[] lats = new double[nPoints];
+        double[] lons = new double[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            double lat = limits.getMinLatitude() + limits.getDeltaLatitude() * (i % 97) / 97.0;
+            double lon = limits.getMinLongitude() + limits.getDeltaLongitude() * (i % 89) / 89.0;
+            latlons[1 + i * stride] = lat;
+            latlons[2 + i * stride] = lon;
+            lats[i] = lat;
+            lons[i] = lon;
+        }
+
+        double[] expected = latlons.clone();
+        p.geographicToCartesian(expected, expected, 1, nPoints, stride);
+        double[] actual = latlons.clone();
+        executor.geographicToCartesian(actual, actual, 1, nPoints, stride);
+        Assert.assertArrayEquals(p.toString(), expected, actual, 0);
+
+        double[] expectedInverse = new double[expected.length];
+        p.cartesianToGeographic(expected, expectedInverse, 1, nPoints, stride);
+        double[] actualInverse = new double[expected.length];
+        executor.cartesianToGeographic(expected, actualInverse, 1, nPoints, stride);
+        Assert.assertArrayEquals(p.toString(), expectedInverse, actualInverse, 0);
+
+        double[] xs = new double[nPoints];
+        double[] ys = new double[nPoints];
+        executor.geographicToCartesian(lats, lons, xs, ys, 0, nPoints);
+        for (int i = 0; i < nPoints; i++) {
+            Assert.assertEquals(p.toString(), expected[1 + i * stride], xs[i], 1e-6);
+            Assert.assertEquals(p.toString(), expected[2 + i * stride], ys[i], 1e-6);
+        }
+        executor.cartesianToGeographic(xs, ys, xs, ys, 0, nPoints);
+        for (int i = 0; i < nPoints; i++) {
+            Assert.assertEquals(p.toString(), expectedInverse[1 + i * stride], xs[i], 1e-9);
+            Assert.assertEquals(p.toString(), expectedInverse[2 + i * stride], ys[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testForkJoinPool() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (AbstractGeographicProjection p : ProjectionsTest.allProjections()) {
+                testMatchesSequential(new ProjectionExecutor(p, pool, chunkSize));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutorService() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            for (AbstractGeographicProjection p : ProjectionsTest.allProjections()) {
+                testMatchesSequential(new ProjectionExecutor(p, pool, chunkSize));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExceptionFromChunk() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            ProjectionExecutor executor = new ProjectionExecutor(new ProjectionUTM(33), pool, chunkSize);
+            double[] xys = new double[nPoints * 2];
+            //far outside of the zone
+            xys[xys.length - 2] = 1e9;
+            executor.cartesianToGeographic(xys, xys, 0, nPoints, 2);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() throws Exception {
+        new ProjectionExecutor(new ProjectionMercator()).geographicToCartesian(
+                new double[nPoints * 2], new double[nPoints * 2], 2, nPoints, 2);
+    }
+
+}
@@ -0,0 +1,140 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Tests {@link ProjectionFactory} shares projections, evicts the least recently used and finds projections by code.
+ * @author Luke Bermingham
+ */
+public class ProjectionFactoryTest {
+
+    @Test
+    public void testInterning() {
+        ProjectionFactory factory = new ProjectionFactory(16);
+        AbstractGeographicProjection a = factory.transverseMercator(30, 10, 0, 1, Ellipsoid.WGS84, 0, 0);
+        AbstractGeographicProjection b = factory.transverseMercator(30, 10, 0, 1, Ellipsoid.WGS84, 0, 0);
+        AbstractGeographicProjection c = factory.transverseMercator(30, 11, 0, 1, Ellipsoid.WGS84, 0, 0);
+        Assert.assertSame(a, b);
+        Assert.assertNotSame(a, c);
+        Assert.assertNotSame(factory.ups(false, Ellipsoid.WGS84, 0), factory.ups(true, Ellipsoid.WGS84, 0));
+        Assert.assertNotSame(factory.mercator(0, Ellipsoid.WGS84),
+                factory.mercator(0, Ellipsoid.fromRadii(6378137, 6378137)));
+        //the utm zones are shared by ProjectionUTM, not cached
+        Assert.assertSame(ProjectionUTM.forZone(33), factory.utm(33));
+        Assert.assertEquals(6, factory.size());
+        Assert.assertEquals(6, factory.getMissCount());
+        Assert.assertEquals(1, factory.getHitCount());
+        Assert.assertEquals(0, factory.getEvictionCount());
+    }
+
+    @Test
+    public void testEngines() {
+        ProjectionFactory factory = new ProjectionFactory(16);
+        ProjectionTransverseMercator.Engine kruger = ProjectionTransverseMercator.Engine.KRUGER;
+        AbstractGeographicProjection nga = factory.utm(33);
+        AbstractGeographicProjection utm = factory.utm(33, kruger);
+        Assert.assertNotSame(nga, utm);
+        Assert.assertSame(utm, factory.utm(33, kruger));
+        Assert.assertSame(ProjectionUTM.forZone(33, kruger), utm);
+        Assert.assertEquals(kruger, ((ProjectionUTM) utm).getEngine());
+        Assert.assertEquals(33, ((ProjectionUTM) utm).getZone());
+
+        AbstractGeographicProjection tm = factory.transverseMercator(30, 10, 0, 1, Ellipsoid.WGS84, 0, 0, kruger);
+        Assert.assertSame(tm, factory.transverseMercator(30, 10, 0, 1, Ellipsoid.WGS84, 0, 0, kruger));
+        Assert.assertNotSame(tm, factory.transverseMercator(30, 10, 0, 1, Ellipsoid.WGS84, 0, 0));
+        Assert.assertEquals(kruger, ((ProjectionTransverseMercator) tm).getEngine());
+        Assert.assertEquals(2, factory.getMissCount());
+    }
+
+    @Test
+    public void testEviction() {
+        ProjectionFactory factory = new ProjectionFactory(3);
+        AbstractGeographicProjection first = factory.sinusoidal(1);
+        factory.sinusoidal(2);
+        factory.sinusoidal(3);
+        //use the first again so the second is the least recently used
+        Assert.assertSame(first, factory.sinusoidal(1));
+        factory.sinusoidal(4);
+        Assert.assertEquals(3, factory.size());
+        Assert.assertEquals(1, factory.getEvictionCount());
+        Assert.assertSame(first, factory.sinusoidal(1));
+        factory.sinusoidal(2);
+        Assert.assertEquals(5, factory.getMissCount());
+        Assert.assertEquals(2, factory.getHitCount());
+        Assert.assertEquals(2, factory.getEvictionCount());
+
+        factory.clear();
+        Assert.assertEquals(0, factory.size());
+        Assert.assertEquals(0, factory.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentLookups() {
+        ProjectionFactory factory = new ProjectionFactory(8);
+        Set<AbstractGeographicProjection> seen = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 10000).parallel().forEach(i -> seen.add(factory.sinusoidal(1 + i % 4)));
+        Assert.assertEquals(4, seen.size());
+        Assert.assertEquals(4, factory.getMissCount());
+        Assert.assertEquals(10000 - 4, factory.getHitCount());
+    }
+
+    @Test
+    public void testForCode() {
+        ProjectionFactory factory = new ProjectionFactory(64);
+        AbstractGeographicProjection utm33 = factory.utm(33);
+        Assert.assertSame(utm33, factory.forCode("UTM 33"));
+        Assert.assertSame(utm33, factory.forCode("utm 33N"));
+        Assert.assertSame(utm33, factory.forCode("UTM33S"));
+        Assert.assertSame(factory.mercator(0, Ellipsoid.WGS84), factory.forCode("EPSG:3395"));
+
+        //the published utm zones have a false origin, 500km east and in the south 10000km north
+        AbstractGeographicProjection north = factory.forCode("EPSG:32633");
+        AbstractGeographicProjection south = factory.forCode("epsg:32733");
+        Assert.assertSame(north, factory.forCode("EPSG:32633"));
+        Assert.assertNotSame(north, south);
+        double[] xy = new double[2];
+        north.geographicToCartesian(0, 15, xy, 0);
+        Assert.assertArrayEquals(new double[]{500000, 0}, xy, 1e-6);
+        for (double[] latlon : new double[][]{{52, 13}, {-33.9, 18.4}}) {
+            double[] utm = new double[2];
+            double[] epsg = new double[2];
+            utm33.geographicToCartesian(latlon[0], latlon[1], utm, 0);
+            (latlon[0] < 0 ? south : north).geographicToCartesian(latlon[0], latlon[1], epsg, 0);
+            Assert.assertEquals(utm[0] + 500000, epsg[0], 1e-6);
+            Assert.assertEquals(utm[1] + (latlon[0] < 0 ? 10000000 : 0), epsg[1], 1e-6);
+        }
+
+        AbstractGeographicProjection[] defaults = {new ProjectionMercator(), new ProjectionTransverseMercator(),
+                new ProjectionUPS(), new ProjectionEquirectangular(), new ProjectionSinusoidal(),
+                new ProjectionModifiedSinusoidal(), new ProjectionPolarEquidistant()};
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (AbstractGeographicProjection p : defaults) {
+            AbstractGeographicProjection found = factory.forCode(p.toString());
+            Assert.assertEquals(p.getClass(), found.getClass());
+            p.geographicToCartesian(60, 5, expected, 0);
+            found.geographicToCartesian(60, 5, actual, 0);
+            Assert.assertArrayEquals(p.toString(), expected, actual, 0);
+        }
+    }
+
+    @Test
+    public void testUnknownCodes() {
+        ProjectionFactory factory = new ProjectionFactory(4);
+        for (String code : new String[]{"", "UTM", "UTM 61", "UTM X", "EPSG:", "EPSG:4326", "EPSG:32661", "EPSG:32761",
+                "Robinson"}) {
+            try {
+                factory.forCode(code);
+                Assert.fail(code);
+            } catch (IllegalArgumentException expected) {
+                //expected
+            }
+        }
+    }
+
+}
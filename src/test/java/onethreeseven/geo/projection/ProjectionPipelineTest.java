@@ -0,0 +1,122 @@
+package onethreeseven.geo.projection;
+
+import onethreeseven.geo.model.CoordinateBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Tests {@link ProjectionPipeline} matches converting through geographic positions and takes its shortcuts.
+ * @author Luke Bermingham
+ */
+public class ProjectionPipelineTest {
+
+    private static final int nPoints = 3001;
+
+    private static double[] mercatorPoints() {
+        double[] xy = new double[2 * nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            xy[2 * i] = 1.4e6 + 5e5 * (i % 97) / 97.0;
+            xy[2 * i + 1] = -6e6 + 1.2e7 * (i % 89) / 89.0;
+        }
+        return xy;
+    }
+
+    @Test
+    public void testMatchesRoundTrip() {
+        AbstractGeographicProjection mercator = new ProjectionMercator();
+        AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+        ProjectionPipeline pipeline = ProjectionPipeline.of(mercator, utm);
+        Assert.assertFalse(pipeline.isTranslation());
+
+        double[] xy = mercatorPoints();
+        double[] expected = new double[xy.length];
+        for (int i = 0; i < xy.length; i += 2) {
+            double[] latlon = mercator.cartesianToGeographic(new double[]{xy[i], xy[i + 1]});
+            utm.geographicToCartesian(latlon[0], latlon[1], expected, i);
+        }
+
+        double[] actual = new double[xy.length];
+        for (int i = 0; i < xy.length; i += 2) {
+            pipeline.transform(xy[i], xy[i + 1], actual, i);
+        }
+        Assert.assertArrayEquals(expected, actual, 0);
+
+        actual = xy.clone();
+        pipeline.transform(actual, actual, 0, nPoints, 2);
+        Assert.assertArrayEquals(expected, actual, 0);
+
+        double[] xs = new double[nPoints];
+        double[] ys = new double[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            xs[i] = xy[2 * i];
+            ys[i] = xy[2 * i + 1];
+        }
+        pipeline.transform(xs, ys, xs, ys, 0, nPoints);
+        for (int i = 0; i < nPoints; i++) {
+            Assert.assertEquals(expected[2 * i], xs[i], 0);
+            Assert.assertEquals(expected[2 * i + 1], ys[i], 0);
+        }
+
+        DoubleBuffer direct = CoordinateBuffer.allocateDirect(nPoints).asDoubleBuffer();
+        direct.put(xy).rewind();
+        pipeline.transform(direct, direct, 0, nPoints);
+        direct.get(actual);
+        Assert.assertArrayEquals(expected, actual, 0);
+
+        CoordinateBuffer out = CoordinateBuffer.allocate(nPoints);
+        pipeline.transform(CoordinateBuffer.wrap(xy), out);
+        out.asDoubleBuffer().get(actual);
+        Assert.assertArrayEquals(expected, actual, 0);
+    }
+
+    @Test
+    public void testIdentity() {
+        ProjectionFactory factory = new ProjectionFactory(8);
+        ProjectionPipeline pipeline = ProjectionPipeline.of(factory.forCode("UTM 33"), factory.forCode("UTM 33N"));
+        Assert.assertTrue(pipeline.isIdentity());
+        double[] xy = {1, 2, 3, 4};
+        double[] out = new double[4];
+        pipeline.transform(xy, out, 0, 2, 2);
+        Assert.assertArrayEquals(xy, out, 0);
+    }
+
+    @Test
+    public void testTranslation() {
+        AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+        AbstractGeographicProjection falseEasting = new ProjectionTransverseMercator(30, 15, 0, 0.9996,
+                Ellipsoid.WGS84, 0, 500000);
+        ProjectionPipeline pipeline = ProjectionPipeline.of(utm, falseEasting);
+        Assert.assertTrue(pipeline.isTranslation());
+        Assert.assertFalse(pipeline.isIdentity());
+
+        double[] xy = {-120000, 4.5e6, 250000, -3e6};
+        double[] out = new double[4];
+        pipeline.transform(xy, out, 0, 2, 2);
+        double[] roundTrip = new double[2];
+        for (int i = 0; i < 4; i += 2) {
+            Assert.assertEquals(xy[i] + 500000, out[i], 0);
+            Assert.assertEquals(xy[i + 1], out[i + 1], 0);
+            double[] latlon = utm.cartesianToGeographic(new double[]{xy[i], xy[i + 1]});
+            falseEasting.geographicToCartesian(latlon[0], latlon[1], roundTrip, 0);
+            Assert.assertEquals(roundTrip[0], out[i], 1e-3);
+            Assert.assertEquals(roundTrip[1], out[i + 1], 1e-3);
+        }
+        pipeline.inverse().transform(out, out, 0, 2, 2);
+        Assert.assertArrayEquals(xy, out, 0);
+
+        ProjectionPipeline mercators = ProjectionPipeline.of(new ProjectionMercator(),
+                new ProjectionMercator(1000, Ellipsoid.WGS84));
+        Assert.assertTrue(mercators.isTranslation());
+        mercators.transform(10, 20, out, 0);
+        Assert.assertEquals(1010, out[0], 0);
+        Assert.assertEquals(20, out[1], 0);
+
+        //different ellipsoids have no shortcut
+        Assert.assertFalse(ProjectionPipeline.of(new ProjectionMercator(),
+                new ProjectionMercator(0, Ellipsoid.fromRadii(6378137, 6378137))).isTranslation());
+        Assert.assertFalse(ProjectionPipeline.of(utm, ProjectionUTM.forZone(34)).isTranslation());
+    }
+
+}
@@ -28,10 +28,8 @@ public class ProjectionsTest {
         return coords;
     }
 
-    @Test
-    public void testAllProjections() throws Exception {
-
-        AbstractGeographicProjection[] projections = new AbstractGeographicProjection[]{
+    public static AbstractGeographicProjection[] allProjections(){
+        return new AbstractGeographicProjection[]{
                 new ProjectionPolarEquidistant(true, Constants.WGS84_EQUATORIAL_RADIUS),
                 new ProjectionTransverseMercator(),
                 new ProjectionEquirectangular(),
@@ -39,10 +37,15 @@ public class ProjectionsTest {
                 new ProjectionModifiedSinusoidal(),
                 new ProjectionSinusoidal(),
                 new ProjectionUPS(true, Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_ES, 0),
-                new ProjectionUTM(r.nextInt(60)+1)
+                new ProjectionUTM(r.nextInt(60)+1),
+                new ProjectionUTM(r.nextInt(60)+1, ProjectionTransverseMercator.Engine.KRUGER)
         };
+    }
+
+    @Test
+    public void testAllProjections() throws Exception {
 
-        for (AbstractGeographicProjection p : projections) {
+        for (AbstractGeographicProjection p : allProjections()) {
             System.out.println("Testing: " + p.getClass().getSimpleName());
 
             if(p instanceof ProjectionPolarEquidistant){
@@ -62,8 +65,83 @@ public class ProjectionsTest {
         }
     }
 
+    @Test
+    public void testCachedTMParametersMatchRebuilt() throws Exception {
+        int zone = r.nextInt(60) + 1;
+        double centralMeridian = ProjectionUTM.centralMeridianForZone(zone);
+        ProjectionUTM p = new ProjectionUTM(zone);
+        for (double[] latlon : generateTestCoordinates(p)) {
+            double[] expected = TMUtil.toEastingNorthing(latlon[0], latlon[1],
+                    Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_POLAR_RADIUS,
+                    0, centralMeridian, 0, 0, 0.9996);
+            double[] xy = p.geographicToCartesian(latlon[0], latlon[1]);
+            Assert.assertArrayEquals(expected, xy, 0);
+        }
+    }
+
+    @Test
+    public void testBulkMatchesSinglePoint() throws Exception {
+        final int stride = 3;
+        for (AbstractGeographicProjection p : allProjections()) {
+            double[][] latlons = generateTestCoordinates(p);
+            int n = latlons.length;
+            double[] interleaved = new double[1 + n * stride];
+            double[] lats = new double[n];
+            double[] lons = new double[n];
+            for (int i = 0; i < n; i++) {
+                interleaved[1 + i * stride] = latlons[i][0];
+                interleaved[2 + i * stride] = latlons[i][1];
+                interleaved[3 + i * stride] = i;
+                lats[i] = latlons[i][0];
+                lons[i] = latlons[i][1];
+            }
+
+            double[] xy = new double[interleaved.length];
+            p.geographicToCartesian(interleaved, xy, 1, n, stride);
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            p.geographicToCartesian(lats, lons, xs, ys, 0, n);
+
+            for (int i = 0; i < n; i++) {
+                double[] expected = p.geographicToCartesian(latlons[i][0], latlons[i][1]);
+                Assert.assertEquals(expected[0], xy[1 + i * stride], 0);
+                Assert.assertEquals(expected[1], xy[2 + i * stride], 0);
+                Assert.assertEquals(0, xy[3 + i * stride], 0);
+                Assert.assertEquals(expected[0], xs[i], 0);
+                Assert.assertEquals(expected[1], ys[i], 0);
+            }
+
+            //inverse, in place
+            p.cartesianToGeographic(xy, xy, 1, n, stride);
+            p.cartesianToGeographic(xs, ys, xs, ys, 0, n);
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(latlons[i][0], xy[1 + i * stride], delta);
+                Assert.assertEquals(latlons[i][1], xy[2 + i * stride], delta);
+                Assert.assertEquals(latlons[i][0], xs[i], delta);
+                Assert.assertEquals(latlons[i][1], ys[i], delta);
+            }
+        }
+    }
 
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBulkOutOfBounds() throws Exception {
+        double[] latlon = new double[10];
+        new ProjectionMercator().geographicToCartesian(latlon, latlon, 2, 5, 2);
+    }
 
+    @Test
+    public void testSharedEllipsoid() throws Exception {
+        Assert.assertSame(Ellipsoid.WGS84, new ProjectionMercator().getEllipsoid());
+        Assert.assertSame(Ellipsoid.WGS84, new ProjectionUPS().getEllipsoid());
+        Assert.assertSame(Ellipsoid.WGS84, new ProjectionUTM(1).getEllipsoid());
+        Assert.assertSame(Ellipsoid.WGS84, new ProjectionTransverseMercator().getTMParameters().getEllipsoid());
+        Assert.assertSame(Ellipsoid.WGS84, Ellipsoid.fromEccentricitySquared(
+                Constants.WGS84_EQUATORIAL_RADIUS, Constants.WGS84_ES));
 
+        //a sphere has no eccentricity, so the geodetic and conformal latitudes are the same
+        Ellipsoid sphere = Ellipsoid.fromRadii(1000, 1000);
+        Assert.assertEquals(0, sphere.getEccentricitySquared(), 0);
+        Assert.assertEquals(0.5, sphere.geodeticLatitude(0.5), 1e-15);
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ReprojectionGrid} stays within its error bound of the exact transform.
+ * @author Luke Bermingham
+ */
+public class ReprojectionGridTest {
+
+    private static final AbstractGeographicProjection mercator = new ProjectionMercator();
+    private static final AbstractGeographicProjection utm = ProjectionUTM.forZone(33);
+
+    //200km around 45N 15E, in Mercator meters
+    private static final double minX = 1.55e6;
+    private static final double minY = 5.45e6;
+    private static final double maxX = 1.75e6;
+    private static final double maxY = 5.65e6;
+
+    private static double[] exact(double x, double y) {
+        double[] latlon = mercator.cartesianToGeographic(new double[]{x, y});
+        return utm.geographicToCartesian(latlon[0], latlon[1]);
+    }
+
+    @Test
+    public void testAccuracy() {
+        for (double maxError : new double[]{1, 0.01}) {
+            ReprojectionGrid grid = ReprojectionGrid.build(mercator, utm, minX, minY, maxX, maxY, maxError);
+            double error = grid.measureAccuracy(20000);
+            //the bound is checked at the middle of every cell and its edges, not everywhere
+            Assert.assertTrue(maxError + ": " + error, error <= maxError * 1.5);
+        }
+        int coarse = ReprojectionGrid.build(mercator, utm, minX, minY, maxX, maxY, 1).getCellCount();
+        int fine = ReprojectionGrid.build(mercator, utm, minX, minY, maxX, maxY, 0.01).getCellCount();
+        Assert.assertTrue(coarse < fine);
+    }
+
+    @Test
+    public void testTransform() {
+        ReprojectionGrid grid = ReprojectionGrid.build(mercator, utm, minX, minY, maxX, maxY);
+        double[] xys = {1.6e6, 5.5e6, 0, 1.75e6, 5.6e6, 0, 3e6, 1e6, 0, 1.6e6, 5.4e6, 0};
+        double[] out = new double[xys.length];
+        grid.transform(xys, out, 0, 4, 3);
+        for (int i = 0; i < xys.length; i += 3) {
+            Assert.assertArrayEquals(exact(xys[i], xys[i + 1]), new double[]{out[i], out[i + 1]}, 0.01);
+        }
+        //outside of the rectangle the transform is exact
+        Assert.assertArrayEquals(exact(3e6, 1e6), new double[]{out[6], out[7]}, 0);
+        grid.transform(xys, xys, 0, 4, 3);
+        Assert.assertArrayEquals(out, xys, 0);
+    }
+
+    @Test
+    public void testWarp() {
+        ReprojectionGrid grid = ReprojectionGrid.build(mercator, utm, minX, minY, maxX, maxY);
+        //a north-up tile, overlapping the east edge of the grid
+        ReprojectionGrid.PixelGrid tile = new ReprojectionGrid.PixelGrid(97, 64, 1.7e6, 5.6e6, 1000, -1000);
+        double[] out = new double[2 * 97 * 64];
+        grid.warp(tile, out);
+        double[] expected = new double[2];
+        for (int row = 0; row < tile.getHeight(); row++) {
+            for (int col = 0; col < tile.getWidth(); col++) {
+                double x = tile.getOriginX() + (col + 0.5) * tile.getPixelWidth();
+                double y = tile.getOriginY() + (row + 0.5) * tile.getPixelHeight();
+                grid.transform(x, y, expected, 0);
+                int i = 2 * (row * tile.getWidth() + col);
+                Assert.assertEquals(expected[0], out[i], 1e-6);
+                Assert.assertEquals(expected[1], out[i + 1], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testResample() {
+        ReprojectionGrid identity = ReprojectionGrid.build(mercator, mercator, -1e6, -1e6, 1e6, 1e6);
+        ReprojectionGrid.PixelGrid pixels = new ReprojectionGrid.PixelGrid(50, 40, -5e5, 5e5, 1000, -1000);
+        int[] src = new int[50 * 40];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = i * 31;
+        }
+        int[] dst = new int[src.length];
+        identity.resample(src, pixels, dst, pixels, -1);
+        Assert.assertArrayEquals(src, dst);
+
+        //shifted half way out of the source raster
+        ReprojectionGrid.PixelGrid shifted = new ReprojectionGrid.PixelGrid(50, 40, -4.75e5, 5e5, 1000, -1000);
+        identity.resample(src, pixels, dst, shifted, -1);
+        Assert.assertEquals(src[25], dst[0]);
+        Assert.assertEquals(src[49], dst[24]);
+        Assert.assertEquals(-1, dst[25]);
+        Assert.assertEquals(-1, dst[dst.length - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyRectangle() {
+        ReprojectionGrid.build(mercator, utm, minX, minY, minX, maxY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnreachableError() {
+        ReprojectionGrid.build(mercator, utm, minX, minY, maxX, maxY, 1e-9);
+    }
+
+}
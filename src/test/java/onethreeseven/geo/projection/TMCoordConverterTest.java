@@ -0,0 +1,98 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests one {@link TMCoordConverter} can be shared by many threads.
+ * @author Luke Bermingham
+ */
+public class TMCoordConverterTest {
+
+    private static final int nThreads = 8;
+    private static final int nPoints = 2000;
+    private static final int nRounds = 20;
+
+    @Test
+    public void testSharedUnderContention() throws Exception {
+        TMParameters params = TMParameters.from(Ellipsoid.WGS84, 0, ProjectionUTM.centralMeridianForZone(33),
+                500000, 0, 0.9996);
+        TMCoordConverter converter = params.converter();
+        Assert.assertSame(converter, params.converter());
+
+        //the expected results, converted on this thread alone
+        Random r = new Random(137);
+        double cm = Math.toRadians(ProjectionUTM.centralMeridianForZone(33));
+        double[] latlons = new double[nPoints * 2];
+        double[] ens = new double[nPoints * 2];
+        double[] inverse = new double[nPoints * 2];
+        double[][] util = new double[nPoints][];
+        for (int i = 0; i < latlons.length; i += 2) {
+            latlons[i] = Math.toRadians(-80 + r.nextDouble() * 164);
+            latlons[i + 1] = cm + Math.toRadians(-3 + r.nextDouble() * 6);
+            converter.convertGeodeticToTransverseMercator(latlons[i], latlons[i + 1], ens, i);
+            converter.convertTransverseMercatorToGeodetic(ens[i], ens[i + 1], inverse, i);
+            util[i / 2] = TMUtil.toEastingNorthing(Math.toDegrees(latlons[i]), Math.toDegrees(latlons[i + 1]), params);
+        }
+
+        //every thread starts at once and walks the points from a different place, so calls interleave
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            final int first = t * (nPoints / nThreads);
+            results.add(pool.submit(() -> {
+                double[] out = new double[2];
+                int mismatches = 0;
+                start.await();
+                for (int round = 0; round < nRounds; round++) {
+                    for (int n = 0; n < nPoints; n++) {
+                        int i = 2 * ((first + n) % nPoints);
+                        converter.convertGeodeticToTransverseMercator(latlons[i], latlons[i + 1], out, 0);
+                        if (out[0] != ens[i] || out[1] != ens[i + 1]) {
+                            mismatches++;
+                        }
+                        converter.convertTransverseMercatorToGeodetic(ens[i], ens[i + 1], out, 0);
+                        if (out[0] != inverse[i] || out[1] != inverse[i + 1]) {
+                            mismatches++;
+                        }
+                        double[] en = TMUtil.toEastingNorthing(Math.toDegrees(latlons[i]),
+                                Math.toDegrees(latlons[i + 1]), params);
+                        if (en[0] != util[i / 2][0] || en[1] != util[i / 2][1]) {
+                            mismatches++;
+                        }
+                    }
+                }
+                return mismatches;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<Integer> result : results) {
+                Assert.assertEquals(0, (int) result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testOutputUnchangedOnError() throws Exception {
+        TMCoordConverter converter = TMParameters.from(Ellipsoid.WGS84, 0, 0, 0, 0, 1).converter();
+        double[] out = {137, 137};
+        long err = converter.convertGeodeticToTransverseMercator(Math.toRadians(90), 0, out, 0);
+        Assert.assertNotEquals(TMCoordConverter.TRANMERC_NO_ERROR, err);
+        Assert.assertEquals(137, out[0], 0);
+        Assert.assertEquals(137, out[1], 0);
+    }
+
+}
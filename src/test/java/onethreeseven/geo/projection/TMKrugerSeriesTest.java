@@ -0,0 +1,113 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test the Kruger series engine of the transverse mercator projection.
+ * @author Luke Bermingham
+ */
+public class TMKrugerSeriesTest {
+
+    private static final double mm = 0.001;
+    /**
+     * WGS84 with the full precision polar radius, the library's WGS84 rounds it to a decimeter.
+     */
+    private static final Ellipsoid exactWGS84 = Ellipsoid.fromRadii(6378137.0, 6356752.314245);
+
+    private static ProjectionTransverseMercator wide() {
+        return new ProjectionTransverseMercator(60, 0, 0, 0.9996, exactWGS84, 0, 0,
+                ProjectionTransverseMercator.Engine.KRUGER);
+    }
+
+    @Test
+    public void testMatchesNGAWithinZone() throws Exception {
+        Random r = new Random(137);
+        int zone = 33;
+        ProjectionUTM nga = new ProjectionUTM(zone);
+        ProjectionUTM kruger = new ProjectionUTM(zone, ProjectionTransverseMercator.Engine.KRUGER);
+        Assert.assertEquals(ProjectionTransverseMercator.Engine.KRUGER, kruger.getEngine());
+        double cm = ProjectionUTM.centralMeridianForZone(zone);
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        for (int i = 0; i < 10000; i++) {
+            double lat = -80 + r.nextDouble() * 164;
+            double lon = cm - 3 + r.nextDouble() * 6;
+            nga.geographicToCartesian(lat, lon, expected, 0);
+            kruger.geographicToCartesian(lat, lon, actual, 0);
+            Assert.assertEquals(expected[0], actual[0], mm);
+            Assert.assertEquals(expected[1], actual[1], mm);
+        }
+    }
+
+    @Test
+    public void testKnownPoints() throws Exception {
+        //the equator on the edge of utm zone 31, 166021.443m with the 500km false easting
+        double[] xy = new ProjectionUTM(31, ProjectionTransverseMercator.Engine.KRUGER).geographicToCartesian(0, 0);
+        Assert.assertEquals(166021.443 - 500000, xy[0], mm);
+        Assert.assertEquals(0, xy[1], mm);
+
+        //the pole is the scaled quarter meridian from the equator
+        TMKrugerSeries series = new TMKrugerSeries(wide().getTMParameters());
+        series.toCartesian(90, 45, xy, 0, xy, 1);
+        Assert.assertEquals(0, xy[0], mm);
+        Assert.assertEquals(0.9996 * 10001965.729, xy[1], mm);
+    }
+
+    @Test
+    public void testRoundTripFarFromCentralMeridian() throws Exception {
+        Random r = new Random(137);
+        ProjectionTransverseMercator p = wide();
+        double[] xy = new double[2];
+        double[] latlon = new double[2];
+        for (int i = 0; i < 10000; i++) {
+            double lat = -82 + r.nextDouble() * 168;
+            double lon = -60 + r.nextDouble() * 120;
+            p.geographicToCartesian(lat, lon, xy, 0);
+            p.cartesianToGeographic(xy[0], xy[1], latlon, 0);
+            //1e-9 degrees is about 0.1mm
+            Assert.assertEquals(lat, latlon[0], 1e-9);
+            Assert.assertEquals(lon, latlon[1], 1e-9);
+        }
+    }
+
+    @Test
+    public void testConformalFarFromCentralMeridian() throws Exception {
+        //a conformal projection scales equally in every direction, the series only holds if the maths is right
+        ProjectionTransverseMercator p = wide();
+        double h = 1e-5;
+        for (double lat = -60; lat <= 60; lat += 20) {
+            for (double lon : new double[]{10, 30, 45, 59}) {
+                double[] east = p.geographicToCartesian(lat, lon + h);
+                double[] west = p.geographicToCartesian(lat, lon - h);
+                double[] north = p.geographicToCartesian(lat + h, lon);
+                double[] south = p.geographicToCartesian(lat - h, lon);
+                double ex = east[0] - west[0];
+                double ey = east[1] - west[1];
+                double nx = north[0] - south[0];
+                double ny = north[1] - south[1];
+                double cosLat = Math.cos(Math.toRadians(lat));
+                //ratio of the scales, corrected for the length of a degree of longitude and latitude
+                double ratio = Math.hypot(ex, ey) / Math.hypot(nx, ny)
+                        * meridianRadius(lat) / (primeVerticalRadius(lat) * cosLat);
+                Assert.assertEquals(1, ratio, 1e-7);
+                //and the meridian stays at right angles to the parallel
+                Assert.assertEquals(0, (ex * nx + ey * ny) / (Math.hypot(ex, ey) * Math.hypot(nx, ny)), 1e-7);
+            }
+        }
+    }
+
+    private static double meridianRadius(double lat) {
+        double s = Math.sin(Math.toRadians(lat));
+        double w = 1 - exactWGS84.es * s * s;
+        return exactWGS84.a * (1 - exactWGS84.es) / (w * Math.sqrt(w));
+    }
+
+    private static double primeVerticalRadius(double lat) {
+        double s = Math.sin(Math.toRadians(lat));
+        return exactWGS84.a / Math.sqrt(1 - exactWGS84.es * s * s);
+    }
+
+}
@@ -0,0 +1,140 @@
+package onethreeseven.geo.projection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests zone selection and mixed-zone batches in {@link UtmProjector}.
+ * @author Luke Bermingham
+ */
+public class UtmProjectorTest {
+
+    @Test
+    public void testZoneFor() throws Exception {
+        Assert.assertEquals(1, ProjectionUTM.zoneFor(0, -180));
+        Assert.assertEquals(1, ProjectionUTM.zoneFor(0, 180));
+        Assert.assertEquals(60, ProjectionUTM.zoneFor(0, 179.999999));
+        Assert.assertEquals(31, ProjectionUTM.zoneFor(0, 0));
+        Assert.assertEquals(30, ProjectionUTM.zoneFor(0, -0.1));
+        Assert.assertEquals(55, ProjectionUTM.zoneFor(-37.8, 144.9)); //Melbourne
+        Assert.assertEquals(31, ProjectionUTM.zoneFor(0, 360));
+        //Norway
+        Assert.assertEquals(32, ProjectionUTM.zoneFor(60.4, 5.3)); //Bergen
+        Assert.assertEquals(31, ProjectionUTM.zoneFor(60.4, 2.9));
+        Assert.assertEquals(31, ProjectionUTM.zoneFor(64.1, 5.3));
+        //Svalbard
+        Assert.assertEquals(31, ProjectionUTM.zoneFor(78, 8));
+        Assert.assertEquals(33, ProjectionUTM.zoneFor(78.2, 15.6)); //Longyearbyen
+        Assert.assertEquals(35, ProjectionUTM.zoneFor(78, 21));
+        Assert.assertEquals(37, ProjectionUTM.zoneFor(78, 41.9));
+        Assert.assertEquals(38, ProjectionUTM.zoneFor(78, 42));
+    }
+
+    @Test
+    public void testCentralMeridianForZone() throws Exception {
+        Assert.assertEquals(-177, ProjectionUTM.centralMeridianForZone(1), 0);
+        Assert.assertEquals(3, ProjectionUTM.centralMeridianForZone(31), 0);
+        Assert.assertEquals(177, ProjectionUTM.centralMeridianForZone(60), 0);
+        Assert.assertSame(ProjectionUTM.forZone(33), ProjectionUTM.forZone(33));
+        Assert.assertEquals(33, ProjectionUTM.forZone(33).getZone());
+    }
+
+    @Test
+    public void testMixedZoneBatch() throws Exception {
+        Random r = new Random(137);
+        final int n = 2000;
+        final int stride = 3;
+        double[] latlon = new double[1 + n * stride];
+        double[] lats = new double[n + 1];
+        double[] lons = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            //runs of points in the same area, like tracks
+            double lat = i % 10 == 0 ? -80 + r.nextDouble() * 164 : lats[i];
+            double lon = i % 10 == 0 ? -180 + r.nextDouble() * 360 : lons[i];
+            latlon[1 + i * stride] = lat;
+            latlon[2 + i * stride] = lon;
+            lats[i + 1] = lat;
+            lons[i + 1] = lon;
+        }
+
+        double[] xy = new double[latlon.length];
+        int[] zones = UtmProjector.geographicToCartesian(latlon, xy, 1, n, stride);
+        double[] xs = new double[n + 1];
+        double[] ys = new double[n + 1];
+        int[] zoneColumn = new int[n + 1];
+        UtmProjector.geographicToCartesian(lats, lons, xs, ys, zoneColumn, 1, n);
+        for (int i = 0; i < n; i++) {
+            double lat = latlon[1 + i * stride];
+            double lon = latlon[2 + i * stride];
+            int zone = ProjectionUTM.zoneFor(lat, lon);
+            double[] expected = ProjectionUTM.forZone(zone).geographicToCartesian(lat, lon);
+            Assert.assertEquals(zone, zones[i]);
+            Assert.assertEquals(zone, zoneColumn[i + 1]);
+            Assert.assertEquals(expected[0], xy[1 + i * stride], 0);
+            Assert.assertEquals(expected[1], xy[2 + i * stride], 0);
+            Assert.assertEquals(expected[0], xs[i + 1], 0);
+            Assert.assertEquals(expected[1], ys[i + 1], 0);
+        }
+
+        //round trip, in place
+        UtmProjector.cartesianToGeographic(xy, zones, xy, 1, n, stride);
+        UtmProjector.cartesianToGeographic(xs, ys, zoneColumn, xs, ys, 1, n);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(latlon[1 + i * stride], xy[1 + i * stride], 1e-6);
+            Assert.assertEquals(latlon[2 + i * stride], xy[2 + i * stride], 1e-6);
+            Assert.assertEquals(lats[i + 1], xs[i + 1], 1e-6);
+            Assert.assertEquals(lons[i + 1], ys[i + 1], 1e-6);
+        }
+    }
+
+    @Test
+    public void testZonesIndexedByPoint() throws Exception {
+        //{time, lat, lon} records, the batch starts at the third record
+        final int stride = 3;
+        final int first = 2;
+        double[][] points = {{52, 13}, {52, 20}, {-33.9, 18.4}, {40.7, -74}};
+        double[] records = new double[(first + points.length) * stride];
+        double[] lats = new double[first + points.length];
+        double[] lons = new double[first + points.length];
+        for (int i = 0; i < points.length; i++) {
+            records[(first + i) * stride + 1] = points[i][0];
+            records[(first + i) * stride + 2] = points[i][1];
+            lats[first + i] = points[i][0];
+            lons[first + i] = points[i][1];
+        }
+        double[] xy = new double[records.length];
+        int[] zones = UtmProjector.geographicToCartesian(records, xy, first * stride + 1, points.length, stride);
+        int[] zoneColumn = new int[first + points.length];
+        double[] xs = new double[lats.length];
+        double[] ys = new double[lats.length];
+        UtmProjector.geographicToCartesian(lats, lons, xs, ys, zoneColumn, first, points.length);
+        Assert.assertArrayEquals(zoneColumn, zones);
+        for (int i = 0; i < points.length; i++) {
+            Assert.assertEquals(ProjectionUTM.zoneFor(points[i][0], points[i][1]), zones[first + i]);
+        }
+
+        //the zones of one layout project the other back
+        double[] columnX = new double[lats.length];
+        double[] columnY = new double[lats.length];
+        for (int i = 0; i < points.length; i++) {
+            columnX[first + i] = xy[(first + i) * stride + 1];
+            columnY[first + i] = xy[(first + i) * stride + 2];
+        }
+        UtmProjector.cartesianToGeographic(columnX, columnY, zones, columnX, columnY, first, points.length);
+        UtmProjector.cartesianToGeographic(xy, zoneColumn, xy, first * stride + 1, points.length, stride);
+        for (int i = 0; i < points.length; i++) {
+            Assert.assertEquals(points[i][0], columnX[first + i], 1e-6);
+            Assert.assertEquals(points[i][1], columnY[first + i], 1e-6);
+            Assert.assertEquals(points[i][0], xy[(first + i) * stride + 1], 1e-6);
+            Assert.assertEquals(points[i][1], xy[(first + i) * stride + 2], 1e-6);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testZonesTooShort() throws Exception {
+        UtmProjector.geographicToCartesian(new double[20], new double[20], new int[9], 0, 10, 2);
+    }
+
+}
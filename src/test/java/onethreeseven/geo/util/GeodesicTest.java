@@ -0,0 +1,107 @@
+package onethreeseven.geo.util;
+
+import onethreeseven.geo.projection.Ellipsoid;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link Geodesic} against Vincenty's published example and its own inverse.
+ * @author Luke Bermingham
+ */
+public class GeodesicTest {
+
+    private static double dms(double degrees, double minutes, double seconds) {
+        return Math.signum(degrees) * (Math.abs(degrees) + minutes / 60 + seconds / 3600);
+    }
+
+    @Test
+    public void testFlindersPeakToBuninyong() throws Exception {
+        //"Direct and Inverse Solutions of Geodesics on the Ellipsoid", Geoscience Australia's worked example
+        double lat1 = dms(-37, 57, 3.72030);
+        double lon1 = dms(144, 25, 29.52440);
+        double lat2 = dms(-37, 39, 10.15610);
+        double lon2 = dms(143, 55, 35.38390);
+        Geodesic geodesic = new Geodesic(Ellipsoid.WGS84, Geodesic.DEFAULT_MAX_ITERATIONS);
+        double[] out = new double[3];
+        geodesic.inverse(lat1, lon1, lat2, lon2, out, 0);
+        Assert.assertEquals(54972.271, out[0], 1e-3);
+        Assert.assertEquals(dms(306, 52, 5.37) - 360, out[1], 1 / 3600.0 / 100);
+        Assert.assertEquals(dms(127, 10, 25.07) - 180, out[2], 1 / 3600.0 / 100);
+        Assert.assertEquals(1, geodesic.getSolveCount());
+        Assert.assertTrue(geodesic.getIterationCount() >= 1);
+        Assert.assertEquals(0, geodesic.getNonConvergedCount());
+
+        geodesic.direct(lat1, lon1, out[1], out[0], out, 0);
+        Assert.assertEquals(lat2, out[0], 1e-9);
+        Assert.assertEquals(lon2, out[1], 1e-9);
+        Assert.assertEquals(dms(127, 10, 25.07) - 180, out[2], 1 / 3600.0 / 100);
+    }
+
+    @Test
+    public void testBulkMatchesSingle() throws Exception {
+        Random r = new Random(137);
+        final int nPoints = 500;
+        double[] latlon = new double[nPoints * 2];
+        for (int i = 0; i < latlon.length; i += 2) {
+            latlon[i] = -80 + r.nextDouble() * 160;
+            latlon[i + 1] = -180 + r.nextDouble() * 360;
+        }
+        Geodesic geodesic = new Geodesic(Ellipsoid.WGS84, Geodesic.DEFAULT_MAX_ITERATIONS);
+        double[] distances = new double[nPoints - 1];
+        double[] azimuths = new double[nPoints - 1];
+        geodesic.segmentInverse(latlon, 0, nPoints, distances, azimuths, 0);
+        double[] lats = new double[nPoints - 1];
+        double[] lons = new double[nPoints - 1];
+        double[] outLats = new double[nPoints - 1];
+        double[] outLons = new double[nPoints - 1];
+        double[] single = new double[3];
+        for (int i = 0; i < nPoints - 1; i++) {
+            geodesic.inverse(latlon[i * 2], latlon[i * 2 + 1], latlon[i * 2 + 2], latlon[i * 2 + 3], single, 0);
+            Assert.assertEquals(single[0], distances[i], 0);
+            Assert.assertEquals(single[1], azimuths[i], 0);
+            //spherical distances are within 0.6 percent
+            double spherical = GeogUtil.haversineDistance(latlon[i * 2], latlon[i * 2 + 1],
+                    latlon[i * 2 + 2], latlon[i * 2 + 3]);
+            Assert.assertEquals(spherical, distances[i], 0.006 * spherical);
+            lats[i] = latlon[i * 2];
+            lons[i] = latlon[i * 2 + 1];
+        }
+        geodesic.direct(lats, lons, azimuths, distances, outLats, outLons, 0, nPoints - 1);
+        for (int i = 0; i < nPoints - 1; i++) {
+            Assert.assertEquals(latlon[i * 2 + 2], outLats[i], 1e-8);
+            Assert.assertEquals(latlon[i * 2 + 3], outLons[i], 1e-8);
+        }
+        Assert.assertEquals(0, geodesic.getNonConvergedCount());
+        Assert.assertEquals(3 * (nPoints - 1), geodesic.getSolveCount());
+    }
+
+    @Test
+    public void testIterationCap() throws Exception {
+        Geodesic geodesic = new Geodesic(Ellipsoid.WGS84, 2);
+        double[] out = new double[3];
+        geodesic.inverse(0, 0, 0.5, 179.5, out, 0);
+        Assert.assertTrue(Double.isNaN(out[0]));
+        Assert.assertEquals(1, geodesic.getNonConvergedCount());
+        Assert.assertEquals(2, geodesic.getIterationCount());
+        geodesic.resetCounters();
+        Assert.assertEquals(0, geodesic.getSolveCount());
+
+        //the same locations
+        geodesic.inverse(10, 20, 10, 20, out, 0);
+        Assert.assertEquals(0, out[0], 0);
+    }
+
+    @Test
+    public void testSharedInstanceIsNotCounted() throws Exception {
+        Assert.assertFalse(Geodesic.WGS84.isCounted());
+        Assert.assertSame(Geodesic.WGS84, Geodesic.of(Ellipsoid.WGS84));
+        double[] out = new double[3];
+        Geodesic.WGS84.inverse(-37.95, 144.42, -37.65, 143.93, out, 0);
+        Assert.assertEquals(out[0], Geodesic.WGS84.distance(-37.95, 144.42, -37.65, 143.93), 0);
+        Assert.assertEquals(0, Geodesic.WGS84.getSolveCount());
+        Assert.assertEquals(0, Geodesic.WGS84.getIterationCount());
+    }
+
+}
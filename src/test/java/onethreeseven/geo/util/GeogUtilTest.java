@@ -3,6 +3,8 @@ package onethreeseven.geo.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+
 /**
  * Testing our geographic helper methods.
  * @author Luke Bermingham
@@ -43,4 +45,68 @@ public class GeogUtilTest {
         double wrappedLat = GeogUtil.wrapLongitude(200);
         Assert.assertEquals(-160, wrappedLat, 1e-06);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHaversineDistance() throws Exception {
+        //one degree of a meridian
+        Assert.assertEquals(GeogUtil.MEAN_EARTH_RADIUS * Math.PI / 180,
+                GeogUtil.haversineDistance(10, 37, 11, 37), 1e-6);
+        //a quarter of the equator, either way around the antimeridian
+        Assert.assertEquals(GeogUtil.MEAN_EARTH_RADIUS * Math.PI / 2,
+                GeogUtil.haversineDistance(0, 135, 0, -135), 1e-6);
+    }
+
+    @Test
+    public void testSegmentsMatchScalar() throws Exception {
+        Random r = new Random(137);
+        final int nPoints = 1000;
+        double[] latlon = new double[1 + nPoints * 2];
+        double lat = 0;
+        double lon = 170;
+        for (int i = 0; i < nPoints; i++) {
+            //a wandering track, with steps from metres to hundreds of kilometres, crossing the antimeridian
+            double step = Math.pow(10, -5 + r.nextInt(6));
+            lat = Math.max(-89, Math.min(89, lat + (r.nextDouble() - 0.5) * step));
+            lon = GeogUtil.wrapLongitude(lon + r.nextDouble() * step);
+            latlon[1 + i * 2] = lat;
+            latlon[2 + i * 2] = lon;
+        }
+        double[] distances = new double[nPoints - 1];
+        double[] bearings = new double[nPoints - 1];
+        GeogUtil.segmentDistancesAndBearings(latlon, 1, nPoints, distances, bearings, 0);
+        double[] lengths = new double[nPoints + 3];
+        double total = GeogUtil.cumulativeLength(latlon, 1, nPoints, lengths, 3);
+        Assert.assertEquals(0, lengths[3], 0);
+
+        double expectedTotal = 0;
+        for (int i = 0; i < nPoints - 1; i++) {
+            double lat1 = latlon[1 + i * 2];
+            double lon1 = latlon[2 + i * 2];
+            double lat2 = latlon[3 + i * 2];
+            double lon2 = latlon[4 + i * 2];
+            double expectedDistance = GeogUtil.haversineDistance(lat1, lon1, lat2, lon2);
+            Assert.assertEquals(expectedDistance, distances[i], 1e-9 * expectedDistance + 1e-7);
+            Assert.assertEquals(0, angleDifference(GeogUtil.azimuthAngle(lat1, lon1, lat2, lon2), bearings[i]), 1e-6);
+            expectedTotal += expectedDistance;
+            Assert.assertEquals(expectedTotal, lengths[4 + i], 1e-9 * expectedTotal);
+        }
+        Assert.assertEquals(expectedTotal, total, 1e-9 * expectedTotal);
+
+        double[] onlyBearings = new double[nPoints - 1];
+        GeogUtil.segmentBearings(latlon, 1, nPoints, onlyBearings, 0);
+        Assert.assertArrayEquals(bearings, onlyBearings, 0);
+        double[] onlyDistances = new double[nPoints - 1];
+        GeogUtil.segmentDistances(latlon, 1, nPoints, onlyDistances, 0);
+        Assert.assertArrayEquals(distances, onlyDistances, 0);
+    }
+
+    private static double angleDifference(double a, double b) {
+        double difference = Math.abs(a - b) % 360;
+        return Math.min(difference, 360 - difference);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSegmentsOutOfBounds() throws Exception {
+        GeogUtil.segmentDistances(new double[10], 0, 5, new double[3], 0);
+    }
+}
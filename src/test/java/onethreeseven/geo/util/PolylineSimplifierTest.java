@@ -0,0 +1,212 @@
+package onethreeseven.geo.util;
+
+import onethreeseven.geo.projection.ProjectionUTM;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link PolylineSimplifier}.
+ * @author Luke Bermingham
+ */
+public class PolylineSimplifierTest {
+
+    /**
+     * A random walk of planar points, offset by a few values so the offsets are exercised.
+     */
+    private static double[] walk(int n, int offset, long seed) {
+        Random r = new Random(seed);
+        double[] xy = new double[offset + 2 * n];
+        double x = 0;
+        double y = 0;
+        for (int i = 0; i < n; i++) {
+            x += r.nextGaussian() * 10;
+            y += r.nextGaussian() * 10;
+            xy[offset + 2 * i] = x;
+            xy[offset + 2 * i + 1] = y;
+        }
+        return xy;
+    }
+
+    @Test
+    public void testDouglasPeuckerMatchesRecursive() throws Exception {
+        for (double tolerance : new double[]{0, 5, 20, 100}) {
+            double[] xy = walk(5000, 3, 137);
+            int[] kept = new int[5000];
+            int n = PolylineSimplifier.douglasPeucker(xy, 3, 5000, tolerance, kept);
+
+            boolean[] expected = new boolean[5000];
+            expected[0] = true;
+            expected[4999] = true;
+            recursive(xy, 3, 0, 4999, tolerance, expected);
+            int[] expectedKept = new int[5000];
+            int m = 0;
+            for (int i = 0; i < expected.length; i++) {
+                if (expected[i]) {
+                    expectedKept[m++] = i;
+                }
+            }
+            Assert.assertArrayEquals(Arrays.copyOf(expectedKept, m), Arrays.copyOf(kept, n));
+        }
+        //a straight line is its ends, and short polylines are kept whole
+        int[] kept = new int[4];
+        Assert.assertEquals(2, PolylineSimplifier.douglasPeucker(new double[]{0, 0, 1, 1, 2, 2, 3, 3}, 0, 4, 0.1, kept));
+        Assert.assertEquals(3, kept[1]);
+        Assert.assertEquals(1, PolylineSimplifier.douglasPeucker(new double[]{0, 0}, 0, 1, 0.1, kept));
+        Assert.assertEquals(0, PolylineSimplifier.douglasPeucker(new double[0], 0, 0, 0.1, kept));
+    }
+
+    @Test
+    public void testDouglasPeuckerDeepPolyline() throws Exception {
+        //every split is at the end of the sub-polyline, as deep as the polyline is long
+        int n = 200000;
+        double[] xy = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = i;
+            xy[2 * i + 1] = i == n - 1 ? 0 : Math.pow(1.0001, i);
+        }
+        int[] kept = new int[n];
+        Assert.assertTrue(PolylineSimplifier.douglasPeucker(xy, 0, n, 1e-9, kept) > 1000);
+    }
+
+    @Test
+    public void testVisvalingamMatchesNaive() throws Exception {
+        for (double minArea : new double[]{0, 50, 500, 5000}) {
+            double[] xy = walk(2000, 1, 137);
+            int[] kept = new int[2000];
+            int n = PolylineSimplifier.visvalingam(xy, 1, 2000, minArea, kept);
+            Assert.assertArrayEquals(naiveVisvalingam(xy, 1, 2000, minArea), Arrays.copyOf(kept, n));
+        }
+        int[] kept = new int[4];
+        Assert.assertEquals(2, PolylineSimplifier.visvalingam(new double[]{0, 0, 1, 1, 2, 2, 3, 3}, 0, 4, 0.1, kept));
+    }
+
+    @Test
+    public void testWindowKeepsWithinTolerance() throws Exception {
+        double tolerance = 15;
+        int capacity = 32;
+        double[] xy = walk(5000, 0, 137);
+        //planar points through the identity, the projection only has to be a projection
+        List<Long> kept = new ArrayList<>();
+        PolylineSimplifier simplifier = new PolylineSimplifier(new ProjectionUTM(31), tolerance);
+        double[] latlon = new double[xy.length];
+        simplifier.getProjection().cartesianToGeographic(xy, latlon, 0, 5000, 2);
+        simplifier.getProjection().geographicToCartesian(latlon, xy, 0, 5000, 2);
+        PolylineSimplifier.Window window = simplifier.window(capacity, (index, lat, lon) -> {
+            Assert.assertEquals(latlon[(int) (2 * index)], lat, 0);
+            Assert.assertEquals(latlon[(int) (2 * index + 1)], lon, 0);
+            kept.add(index);
+        });
+        for (int i = 0; i < 5000; i++) {
+            window.add(latlon[2 * i], latlon[2 * i + 1]);
+            Assert.assertTrue(window.pending() <= capacity);
+        }
+        window.finish();
+        Assert.assertEquals(0, window.pending());
+        Assert.assertEquals(0, (long) kept.get(0));
+        Assert.assertEquals(4999, (long) kept.get(kept.size() - 1));
+        Assert.assertTrue(kept.size() < 2500);
+
+        for (int k = 1; k < kept.size(); k++) {
+            int a = (int) (long) kept.get(k - 1);
+            int b = (int) (long) kept.get(k);
+            Assert.assertTrue(b - a <= capacity + 1);
+            for (int i = a + 1; i < b; i++) {
+                Assert.assertTrue(distanceToSegment(xy, i, a, b) <= tolerance + 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testToleranceInMeters() throws Exception {
+        //a 1km track due north near the central meridian of utm zone 33, with a 3m bump east in the middle
+        ProjectionUTM utm = new ProjectionUTM(33);
+        double[] xy = {0, 5000000, 3, 5000500, 0, 5001000};
+        double[] latlon = new double[6];
+        utm.cartesianToGeographic(xy, latlon, 0, 3, 2);
+        int[] kept = new int[3];
+        Assert.assertEquals(2, new PolylineSimplifier(utm, 5).douglasPeucker(latlon, 0, 3, kept));
+        Assert.assertEquals(3, new PolylineSimplifier(utm, 2).douglasPeucker(latlon, 0, 3, kept));
+        //the triangle is 1500 square meters
+        Assert.assertEquals(2, new PolylineSimplifier(utm, 40).visvalingam(latlon, 0, 3, kept));
+        Assert.assertEquals(3, new PolylineSimplifier(utm, 38).visvalingam(latlon, 0, 3, kept));
+    }
+
+    private static void recursive(double[] xy, int offset, int first, int last, double tolerance, boolean[] keep) {
+        double max = tolerance;
+        int furthest = -1;
+        for (int i = first + 1; i < last; i++) {
+            double d = distanceToSegment(xy, offset, i, first, last);
+            if (d > max) {
+                max = d;
+                furthest = i;
+            }
+        }
+        if (furthest >= 0) {
+            keep[furthest] = true;
+            recursive(xy, offset, first, furthest, tolerance, keep);
+            recursive(xy, offset, furthest, last, tolerance, keep);
+        }
+    }
+
+    private static int[] naiveVisvalingam(double[] xy, int offset, int length, double minArea) {
+        List<Integer> alive = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            alive.add(i);
+        }
+        double[] areas = new double[length];
+        for (int i = 1; i < length - 1; i++) {
+            areas[i] = area(xy, offset, i - 1, i, i + 1);
+        }
+        while (alive.size() > 2) {
+            int min = 1;
+            for (int k = 2; k < alive.size() - 1; k++) {
+                if (areas[alive.get(k)] < areas[alive.get(min)]) {
+                    min = k;
+                }
+            }
+            double removed = areas[alive.get(min)];
+            if (removed >= minArea) {
+                break;
+            }
+            alive.remove(min);
+            if (min > 1) {
+                areas[alive.get(min - 1)] = Math.max(removed,
+                        area(xy, offset, alive.get(min - 2), alive.get(min - 1), alive.get(min)));
+            }
+            if (min < alive.size() - 1) {
+                areas[alive.get(min)] = Math.max(removed,
+                        area(xy, offset, alive.get(min - 1), alive.get(min), alive.get(min + 1)));
+            }
+        }
+        return alive.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static double area(double[] xy, int offset, int a, int b, int c) {
+        double ax = xy[offset + 2 * a];
+        double ay = xy[offset + 2 * a + 1];
+        return Math.abs((xy[offset + 2 * b] - ax) * (xy[offset + 2 * c + 1] - ay) -
+                (xy[offset + 2 * c] - ax) * (xy[offset + 2 * b + 1] - ay)) / 2;
+    }
+
+    private static double distanceToSegment(double[] xy, int p, int a, int b) {
+        return distanceToSegment(xy, 0, p, a, b);
+    }
+
+    private static double distanceToSegment(double[] xy, int offset, int p, int a, int b) {
+        double ax = xy[offset + 2 * a];
+        double ay = xy[offset + 2 * a + 1];
+        double dx = xy[offset + 2 * b] - ax;
+        double dy = xy[offset + 2 * b + 1] - ay;
+        double px = xy[offset + 2 * p] - ax;
+        double py = xy[offset + 2 * p + 1] - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq > 0 ? Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSq)) : 0;
+        return Math.hypot(px - t * dx, py - t * dy);
+    }
+
+}